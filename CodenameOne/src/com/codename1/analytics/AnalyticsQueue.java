@@ -0,0 +1,684 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *  
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Codename One through http://www.codenameone.com/ if you 
+ * need additional information or have any questions.
+ */
+package com.codename1.analytics;
+
+import com.codename1.io.ConnectionRequest;
+import com.codename1.io.NetworkManager;
+import com.codename1.io.Storage;
+import com.codename1.io.gzip.GZIPOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.Vector;
+
+/**
+ * <p>Collects analytics events and uploads them in batches instead of sending a request per event, this
+ * reduces the number of radio wakeups in screens that generate a lot of events and keeps events that
+ * were produced while the device was offline.</p>
+ * <p>Events are kept in an in memory ring buffer, when the buffer fills up its content is spilled to
+ * a storage queue. All the pending events are written to {@link Storage} on a background thread shortly
+ * after they change so they survive until they are sent even if the application is killed. A batch is
+ * sent once enough events accumulated or when the flush interval elapses, failed uploads are returned to
+ * storage and retried with an exponential backoff. Batches can optionally be gzip compressed if the receiving server supports it.</p>
+ * <p>Events are strings whose format is defined by the server, batches are sent as the events separated
+ * by newlines which is the format used by the Google Analytics batch endpoint.</p>
+ *
+ * @author Shai Almog
+ */
+public class AnalyticsQueue {
+    private final String url;
+    private String[] ring;
+    private int head;
+    private int count;
+    private Vector stored;
+    private boolean storedLoaded;
+    private String storageName = "CN1AnalyticsQueue";
+    private boolean persistent = true;
+    private int maxStoredEvents = 1000;
+    private int batchSize = 20;
+    private int maxBatchBytes = 16 * 1024;
+    private int flushThreshold = 20;
+    private long flushInterval = 60000;
+    private long baseBackoff = 5000;
+    private long maxBackoff = 10 * 60000;
+    private boolean compress;
+    private String queueTimeParameter;
+
+    private Timer timer;
+    private TimerTask scheduledFlush;
+    private TimerTask scheduledPersist;
+    private long persistDelay = 2000;
+    private final Object writeLock = new Object();
+    private int snapshotVersion;
+    private int writtenVersion;
+    private BatchRequest inFlight;
+    private int failures;
+
+    private long sentCount;
+    private long droppedCount;
+
+    /**
+     * Creates a queue that sends its batches to the given URL
+     *
+     * @param url the URL to which batches are posted
+     * @param capacity the number of events kept in memory before they are spilled to storage
+     */
+    public AnalyticsQueue(String url, int capacity) {
+        if(capacity < 1) {
+            throw new IllegalArgumentException("Illegal capacity: " + capacity);
+        }
+        this.url = url;
+        ring = new String[capacity];
+    }
+
+    /**
+     * Adds an event to the queue, this might trigger a flush if the queue reached the flush threshold
+     *
+     * @param event the event payload
+     */
+    public void add(String event) {
+        boolean flush;
+        synchronized(this) {
+            if(count == ring.length) {
+                spill();
+            }
+            ring[(head + count) % ring.length] = System.currentTimeMillis() + ":" + event;
+            count++;
+            schedulePersist();
+            flush = failures == 0 && count + storedSize() >= flushThreshold;
+            if(!flush) {
+                schedule(flushInterval);
+            }
+        }
+        if(flush) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes the pending events to storage immediately instead of waiting for the background write, it is
+     * a good idea to invoke this from the stop method of the application
+     */
+    public void persist() {
+        Vector snapshot;
+        int version;
+        synchronized(this) {
+            if(scheduledPersist != null) {
+                scheduledPersist.cancel();
+                scheduledPersist = null;
+            }
+            snapshot = createSnapshot();
+            version = snapshotVersion;
+        }
+        writeSnapshot(snapshot, version);
+    }
+
+    /**
+     * Sends the next batch of pending events unless a batch is already being sent
+     */
+    public void flush() {
+        BatchRequest r;
+        synchronized(this) {
+            if(inFlight != null) {
+                return;
+            }
+            Vector batch = new Vector();
+            int bytes = 0;
+            loadStored();
+            while(batch.size() < batchSize) {
+                String e;
+                if(stored != null && stored.size() > 0) {
+                    e = (String)stored.elementAt(0);
+                } else if(count > 0) {
+                    e = ring[head];
+                } else {
+                    break;
+                }
+                if(batch.size() > 0 && bytes + e.length() > maxBatchBytes) {
+                    break;
+                }
+                if(stored != null && stored.size() > 0) {
+                    stored.removeElementAt(0);
+                } else {
+                    ring[head] = null;
+                    head = (head + 1) % ring.length;
+                    count--;
+                }
+                batch.addElement(e);
+                bytes += e.length() + 1;
+            }
+            if(batch.size() == 0) {
+                return;
+            }
+            cancelScheduledFlush();
+            r = new BatchRequest(batch);
+            inFlight = r;
+        }
+        NetworkManager.getInstance().addToQueue(r);
+    }
+
+    synchronized void batchCompleted(BatchRequest r, boolean success) {
+        if(inFlight != r) {
+            return;
+        }
+        inFlight = null;
+        if(success) {
+            failures = 0;
+            sentCount += r.events.size();
+            schedulePersist();
+            if(count + storedSize() > 0) {
+                // the radio is already awake, drain whatever is left
+                schedule(0);
+            }
+            return;
+        }
+
+        // return the events to the head of the queue in their original order
+        failures++;
+        loadStored();
+        if(stored == null) {
+            stored = new Vector();
+        }
+        for(int iter = r.events.size() - 1 ; iter >= 0 ; iter--) {
+            stored.insertElementAt(r.events.elementAt(iter), 0);
+        }
+        trimStored();
+        schedulePersist();
+        long delay = baseBackoff << Math.min(failures - 1, 16);
+        cancelScheduledFlush();
+        schedule(Math.min(delay, maxBackoff));
+    }
+
+    private void spill() {
+        loadStored();
+        if(stored == null) {
+            stored = new Vector();
+        }
+        while(count > 0) {
+            stored.addElement(ring[head]);
+            ring[head] = null;
+            head = (head + 1) % ring.length;
+            count--;
+        }
+        trimStored();
+        schedulePersist();
+    }
+
+    private void trimStored() {
+        while(stored.size() > maxStoredEvents) {
+            stored.removeElementAt(0);
+            droppedCount++;
+        }
+    }
+
+    private void loadStored() {
+        // the storage entry also contains the events of the ring so it must only be read once
+        if(storedLoaded || !persistent || !Storage.isInitialized()) {
+            return;
+        }
+        storedLoaded = true;
+        if(Storage.getInstance().exists(storageName)) {
+            Object o = Storage.getInstance().readObject(storageName);
+            if(o instanceof Vector) {
+                Vector v = (Vector)o;
+                if(stored != null) {
+                    for(int iter = 0 ; iter < stored.size() ; iter++) {
+                        v.addElement(stored.elementAt(iter));
+                    }
+                }
+                stored = v;
+            }
+        }
+    }
+
+    /**
+     * Returns all the pending events in the order in which they would be sent including the batch that is
+     * being sent, the batch is removed from storage once the server acknowledged it
+     */
+    private Vector createSnapshot() {
+        loadStored();
+        snapshotVersion++;
+        Vector v = new Vector();
+        if(inFlight != null) {
+            for(int iter = 0 ; iter < inFlight.events.size() ; iter++) {
+                v.addElement(inFlight.events.elementAt(iter));
+            }
+        }
+        if(stored != null) {
+            for(int iter = 0 ; iter < stored.size() ; iter++) {
+                v.addElement(stored.elementAt(iter));
+            }
+        }
+        for(int iter = 0 ; iter < count ; iter++) {
+            v.addElement(ring[(head + iter) % ring.length]);
+        }
+        return v;
+    }
+
+    private void writeSnapshot(Vector snapshot, int version) {
+        if(!persistent || !Storage.isInitialized()) {
+            return;
+        }
+        synchronized(writeLock) {
+            // an explicit persist and the background write might race, never overwrite a newer snapshot
+            if(version > writtenVersion) {
+                Storage.getInstance().writeObject(storageName, snapshot);
+                writtenVersion = version;
+            }
+        }
+    }
+
+    /**
+     * Writes the pending events to storage on the timer thread, changes that happen within the persist
+     * delay are written together
+     */
+    private void schedulePersist() {
+        if(!persistent || scheduledPersist != null) {
+            return;
+        }
+        if(timer == null) {
+            timer = new Timer();
+        }
+        scheduledPersist = new TimerTask() {
+            public void run() {
+                Vector snapshot;
+                int version;
+                synchronized(AnalyticsQueue.this) {
+                    if(scheduledPersist != this) {
+                        return;
+                    }
+                    scheduledPersist = null;
+                    snapshot = createSnapshot();
+                    version = snapshotVersion;
+                }
+                writeSnapshot(snapshot, version);
+            }
+        };
+        timer.schedule(scheduledPersist, persistDelay);
+    }
+
+    private int storedSize() {
+        loadStored();
+        if(stored == null) {
+            return 0;
+        }
+        return stored.size();
+    }
+
+    private void schedule(long delay) {
+        if(scheduledFlush != null) {
+            if(delay > 0) {
+                return;
+            }
+            cancelScheduledFlush();
+        }
+        if(timer == null) {
+            timer = new Timer();
+        }
+        scheduledFlush = new TimerTask() {
+            public void run() {
+                synchronized(AnalyticsQueue.this) {
+                    if(scheduledFlush != this) {
+                        return;
+                    }
+                    scheduledFlush = null;
+                }
+                flush();
+            }
+        };
+        timer.schedule(scheduledFlush, delay);
+    }
+
+    private void cancelScheduledFlush() {
+        if(scheduledFlush != null) {
+            scheduledFlush.cancel();
+            scheduledFlush = null;
+        }
+    }
+
+    String formatEvent(String e, long now) {
+        int sep = e.indexOf(':');
+        long time = Long.parseLong(e.substring(0, sep));
+        String payload = e.substring(sep + 1);
+        if(queueTimeParameter != null) {
+            return payload + "&" + queueTimeParameter + "=" + Math.max(0, now - time);
+        }
+        return payload;
+    }
+
+    /**
+     * Returns the number of events that are waiting to be sent including events that are being sent right now
+     *
+     * @return the number of pending events
+     */
+    public synchronized int getQueuedCount() {
+        int c = count + storedSize();
+        if(inFlight != null) {
+            c += inFlight.events.size();
+        }
+        return c;
+    }
+
+    /**
+     * Returns the number of events that were acknowledged by the server
+     *
+     * @return the number of sent events
+     */
+    public synchronized long getSentCount() {
+        return sentCount;
+    }
+
+    /**
+     * Returns the number of events discarded because the storage queue exceeded its limit
+     *
+     * @return the number of dropped events
+     */
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * The number of pending events that triggers a flush
+     *
+     * @return the flush threshold
+     */
+    public int getFlushThreshold() {
+        return flushThreshold;
+    }
+
+    /**
+     * The number of pending events that triggers a flush
+     *
+     * @param flushThreshold the flush threshold
+     */
+    public void setFlushThreshold(int flushThreshold) {
+        this.flushThreshold = flushThreshold;
+    }
+
+    /**
+     * The maximum time in milliseconds an event waits in the queue before a flush is triggered
+     *
+     * @return the flush interval
+     */
+    public long getFlushInterval() {
+        return flushInterval;
+    }
+
+    /**
+     * The maximum time in milliseconds an event waits in the queue before a flush is triggered
+     *
+     * @param flushInterval the flush interval
+     */
+    public void setFlushInterval(long flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    /**
+     * The maximum number of events sent in a single request, defaults to 20 which is the Google Analytics limit
+     *
+     * @return the batch size
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * The maximum number of events sent in a single request, defaults to 20 which is the Google Analytics limit
+     *
+     * @param batchSize the batch size
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * The maximum size of the uncompressed batch in characters, defaults to 16kb which is the Google Analytics limit
+     *
+     * @return the maximum batch size
+     */
+    public int getMaxBatchBytes() {
+        return maxBatchBytes;
+    }
+
+    /**
+     * The maximum size of the uncompressed batch in characters, defaults to 16kb which is the Google Analytics limit
+     *
+     * @param maxBatchBytes the maximum batch size
+     */
+    public void setMaxBatchBytes(int maxBatchBytes) {
+        this.maxBatchBytes = maxBatchBytes;
+    }
+
+    /**
+     * The maximum number of events kept in storage, older events are dropped once this limit is exceeded
+     *
+     * @return the maximum number of stored events
+     */
+    public int getMaxStoredEvents() {
+        return maxStoredEvents;
+    }
+
+    /**
+     * The maximum number of events kept in storage, older events are dropped once this limit is exceeded
+     *
+     * @param maxStoredEvents the maximum number of stored events
+     */
+    public void setMaxStoredEvents(int maxStoredEvents) {
+        this.maxStoredEvents = maxStoredEvents;
+    }
+
+    /**
+     * The delay in milliseconds before changes to the queue are written to storage on a background thread,
+     * all the changes made within this delay are written at once
+     *
+     * @return the persist delay
+     */
+    public long getPersistDelay() {
+        return persistDelay;
+    }
+
+    /**
+     * The delay in milliseconds before changes to the queue are written to storage on a background thread,
+     * all the changes made within this delay are written at once
+     *
+     * @param persistDelay the persist delay
+     */
+    public void setPersistDelay(long persistDelay) {
+        this.persistDelay = Math.max(0, persistDelay);
+    }
+
+    /**
+     * Indicates whether pending events are written to storage
+     *
+     * @return true by default
+     */
+    public boolean isPersistent() {
+        return persistent;
+    }
+
+    /**
+     * Indicates whether pending events are written to storage
+     *
+     * @param persistent false to keep the pending events in memory only
+     */
+    public void setPersistent(boolean persistent) {
+        this.persistent = persistent;
+    }
+
+    /**
+     * The name of the storage entry in which spilled events are kept
+     *
+     * @return the storage entry name
+     */
+    public String getStorageName() {
+        return storageName;
+    }
+
+    /**
+     * The name of the storage entry in which spilled events are kept, this must be set before events are added
+     *
+     * @param storageName the storage entry name
+     */
+    public void setStorageName(String storageName) {
+        this.storageName = storageName;
+    }
+
+    /**
+     * The delay in milliseconds before the first retry of a failed batch, it doubles with every consecutive failure
+     *
+     * @return the base backoff delay
+     */
+    public long getBaseBackoff() {
+        return baseBackoff;
+    }
+
+    /**
+     * The delay in milliseconds before the first retry of a failed batch, it doubles with every consecutive failure
+     *
+     * @param baseBackoff the base backoff delay
+     */
+    public void setBaseBackoff(long baseBackoff) {
+        this.baseBackoff = Math.max(1, baseBackoff);
+    }
+
+    /**
+     * The maximum delay in milliseconds between retries
+     *
+     * @return the maximum backoff delay
+     */
+    public long getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    /**
+     * The maximum delay in milliseconds between retries
+     *
+     * @param maxBackoff the maximum backoff delay
+     */
+    public void setMaxBackoff(long maxBackoff) {
+        this.maxBackoff = maxBackoff;
+    }
+
+    /**
+     * Indicates whether batches are gzip compressed, the server must accept a gzip Content-Encoding
+     *
+     * @return false by default
+     */
+    public boolean isCompress() {
+        return compress;
+    }
+
+    /**
+     * Indicates whether batches are gzip compressed, the server must accept a gzip Content-Encoding.
+     * Notice that the Google Analytics batch endpoint doesn't document support for compressed requests
+     *
+     * @param compress true to compress the batches
+     */
+    public void setCompress(boolean compress) {
+        this.compress = compress;
+    }
+
+    /**
+     * When set the time an event spent in the queue is appended to it as a URL argument with this name
+     * when it is sent, e.g. the Google Analytics qt parameter
+     *
+     * @return the parameter name or null
+     */
+    public String getQueueTimeParameter() {
+        return queueTimeParameter;
+    }
+
+    /**
+     * When set the time an event spent in the queue is appended to it as a URL argument with this name
+     * when it is sent, e.g. the Google Analytics qt parameter
+     *
+     * @param queueTimeParameter the parameter name or null
+     */
+    public void setQueueTimeParameter(String queueTimeParameter) {
+        this.queueTimeParameter = queueTimeParameter;
+    }
+
+    class BatchRequest extends ConnectionRequest {
+        final Vector events;
+        private byte[] body;
+
+        BatchRequest(Vector events) {
+            this.events = events;
+            setUrl(url);
+            setPost(true);
+            setFailSilently(true);
+            setDuplicateSupported(true);
+            setPriority(ConnectionRequest.PRIORITY_LOW);
+            setContentType("text/plain");
+            if(compress) {
+                addRequestHeader("Content-Encoding", "gzip");
+            }
+        }
+
+        protected void buildRequestBody(OutputStream os) throws IOException {
+            if(body == null) {
+                StringBuilder sb = new StringBuilder();
+                long now = System.currentTimeMillis();
+                int size = events.size();
+                for(int iter = 0 ; iter < size ; iter++) {
+                    if(iter > 0) {
+                        sb.append('\n');
+                    }
+                    sb.append(formatEvent((String)events.elementAt(iter), now));
+                }
+                body = sb.toString().getBytes("UTF-8");
+                if(compress) {
+                    ByteArrayOutputStream bo = new ByteArrayOutputStream();
+                    GZIPOutputStream gz = new GZIPOutputStream(bo);
+                    gz.write(body);
+                    gz.close();
+                    body = bo.toByteArray();
+                }
+            }
+            os.write(body);
+        }
+
+        protected void readResponse(InputStream input) throws IOException {
+        }
+
+        protected void handleErrorResponseCode(int code, String message) {
+            batchCompleted(this, false);
+        }
+
+        protected void handleException(Exception err) {
+            batchCompleted(this, false);
+        }
+
+        public void kill() {
+            super.kill();
+            batchCompleted(this, false);
+        }
+
+        protected void postResponse() {
+            batchCompleted(this, true);
+        }
+    }
+}
@@ -48,6 +48,8 @@ public class AnalyticsService {
 
     private static boolean appsMode = false;
     
+    private static AnalyticsQueue batchQueue;
+    
     /**
      * Indicates whether analytics server failures should brodcast an error event
      * @return the failSilently
@@ -85,6 +87,52 @@ public class AnalyticsService {
     private String domain;
     private static boolean failSilently = true;
     
+    /**
+     * Batching collects apps mode events and sends them together to the Google Analytics batch endpoint,
+     * events that can't be sent are kept in storage until the network is available
+     * @param enabled true to batch events
+     */
+    public static void setBatchingEnabled(boolean enabled) {
+        if(enabled) {
+            if(batchQueue == null) {
+                AnalyticsQueue q = new AnalyticsQueue("https://www.google-analytics.com/batch", 50);
+                q.setQueueTimeParameter("qt");
+                batchQueue = q;
+            }
+        } else {
+            if(batchQueue != null) {
+                batchQueue.persist();
+                batchQueue.flush();
+            }
+            batchQueue = null;
+        }
+    }
+
+    /**
+     * Indicates whether apps mode events are batched
+     * @return true if batching is enabled
+     */
+    public static boolean isBatchingEnabled() {
+        return batchQueue != null;
+    }
+
+    /**
+     * Returns the queue used to batch events, this allows tuning the flush triggers and reading the
+     * sent/queued/dropped counters
+     * @return the batch queue or null if batching isn't enabled
+     */
+    public static AnalyticsQueue getBatchQueue() {
+        return batchQueue;
+    }
+
+    /**
+     * Installs a custom batch queue e.g. one that points at a different collection server
+     * @param q the queue or null to disable batching
+     */
+    public static void setBatchQueue(AnalyticsQueue q) {
+        batchQueue = q;
+    }
+    
     /**
      * Indicates whether analytics is enabled for this application
      * 
@@ -144,14 +192,14 @@ public class AnalyticsService {
     protected void visitPage(String page, String referer) {
         if(appsMode) {
             // https://developers.google.com/analytics/devguides/collection/protocol/v1/devguide#apptracking
-            ConnectionRequest req = GetGARequest();
+            GARequest req = GetGARequest();
             req.addArgument("t", "appview");
             req.addArgument("an", Display.getInstance().getProperty("AppName", "Codename One App"));
             String version = Display.getInstance().getProperty("AppVersion", "1.0");
             req.addArgument("av", version);
             req.addArgument("cd", page);
 
-            NetworkManager.getInstance().addToQueue(req);
+            send(req);
         } else {
             String url = Display.getInstance().getProperty("cloudServerURL", "https://codename-one.appspot.com/") + "anal";
             ConnectionRequest r = new ConnectionRequest();
@@ -183,7 +231,7 @@ public class AnalyticsService {
      */
     public static void sendCrashReport(Throwable t, String message, boolean fatal) {
         // https://developers.google.com/analytics/devguides/collection/protocol/v1/devguide#exception
-        ConnectionRequest req = GetGARequest();
+        GARequest req = GetGARequest();
         req.addArgument("t", "exception");
         System.out.println(message);
         req.addArgument("exd", message.substring(0, Math.min(message.length(), 150) - 1));
@@ -193,11 +241,23 @@ public class AnalyticsService {
             req.addArgument("exf", "0");
         }
         
-        NetworkManager.getInstance().addToQueue(req);
+        send(req);
+        if(fatal && batchQueue != null) {
+            // the app might not survive this crash
+            batchQueue.persist();
+        }
     }
 
-    private static ConnectionRequest GetGARequest() {
-        ConnectionRequest req = new ConnectionRequest();
+    private static void send(GARequest req) {
+        if(batchQueue != null) {
+            batchQueue.add(req.payload.toString());
+        } else {
+            NetworkManager.getInstance().addToQueue(req);
+        }
+    }
+
+    private static GARequest GetGARequest() {
+        GARequest req = new GARequest();
         req.setUrl("https://www.google-analytics.com/collect");
         req.setPost(true);
         req.setFailSilently(true);
@@ -207,4 +267,21 @@ public class AnalyticsService {
         req.addArgument("cid", String.valueOf(uniqueId));
         return req;
     }
+
+    /**
+     * Keeps the encoded arguments so the request can be queued as a batch event instead of being sent
+     */
+    static class GARequest extends ConnectionRequest {
+        final StringBuilder payload = new StringBuilder();
+
+        public void addArgument(String key, String value) {
+            super.addArgument(key, value);
+            if(payload.length() > 0) {
+                payload.append('&');
+            }
+            payload.append(Util.encodeUrl(key));
+            payload.append('=');
+            payload.append(Util.encodeUrl(value));
+        }
+    }
 }
@@ -37,6 +37,31 @@ import java.util.Vector;
  * @author Chen
  */
 public class ContactsManager {
+    /**
+     * Projection flag for {@link #getContacts(java.lang.String[], int, int, int)}, fetches the first and family name
+     */
+    public static final int FIELD_NAME = 1;
+
+    /**
+     * Projection flag for {@link #getContacts(java.lang.String[], int, int, int)}, fetches the phone numbers
+     */
+    public static final int FIELD_NUMBERS = 2;
+
+    /**
+     * Projection flag for {@link #getContacts(java.lang.String[], int, int, int)}, fetches the emails
+     */
+    public static final int FIELD_EMAILS = 4;
+
+    /**
+     * Projection flag for {@link #getContacts(java.lang.String[], int, int, int)}, fetches the addresses
+     */
+    public static final int FIELD_ADDRESSES = 8;
+
+    /**
+     * Projection flag for {@link #getContacts(java.lang.String[], int, int, int)}, fetches the contact picture.
+     * Platforms may return a thumbnail rather than the full resolution image
+     */
+    public static final int FIELD_PICTURE = 16;
     
     /**
      * This method returns all contacts IDs 
@@ -158,6 +183,22 @@ public class ContactsManager {
         return Display.getInstance().getAllContacts(withNumbers, includesFullName, includesPicture, includesNumbers, includesEmail, includeAddress);
     }
 
+    /**
+     * Notice: this method might be slow and should be invoked on a separate thread!
+     * Fetches a page of contacts in a single bulk query, only the fields in the projection are filled
+     * in the returned contacts (the id and display name are always filled). This is far cheaper than
+     * invoking {@link #getContactById(java.lang.String)} for every contact on platforms that optimize it.
+     * 
+     * @param ids the contact ids e.g. as returned from {@link #getAllContacts()}
+     * @param offset the index of the first id in the page
+     * @param count the number of contacts in the page
+     * @param fields the projection, a combination of the FIELD_ constants in this class
+     * @return the contacts in the page, entries for contacts that no longer exist are null
+     */
+    public static Contact[] getContacts(String[] ids, int offset, int count, int fields) {
+        return Display.getInstance().getContacts(ids, offset, count, fields);
+    }
+
     /**
      * Indicates if the getAllContacts is platform optimized, notice that the method
      * might still take seconds or more to run so you should still use a separate thread!
@@ -29,17 +29,35 @@ import com.codename1.ui.events.SelectionListener;
 import com.codename1.ui.list.DefaultListModel;
 import com.codename1.ui.list.ListModel;
 import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Vector;
 
 /**
  * This Contacts model is responsible for querying Contacts from the device
- * and to cache the data for faster usage
+ * and to cache the data for faster usage. Missing entries are fetched in bulk for a window
+ * around the requested index and the loaded entries are kept in a bounded LRU cache
  * 
  * @author Chen
  */
 public class ContactsModel extends DefaultListModel {
 
-    private Hashtable contactsCache = new Hashtable();
+    private int cacheSize = 200;
+    
+    private int prefetchWindow = 30;
+    
+    private int fields = ContactsManager.FIELD_NAME | ContactsManager.FIELD_NUMBERS | 
+            ContactsManager.FIELD_EMAILS | ContactsManager.FIELD_PICTURE;
+    
+    private final Map contactsCache = new LinkedHashMap(64, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry eldest) {
+            return size() > Math.max(cacheSize, prefetchWindow * 2);
+        }
+    };
+    
+    private final Hashtable pending = new Hashtable();
+    
+    private Hashtable loading;
 
     private Image placeHolder;
     
@@ -58,6 +76,63 @@ public class ContactsModel extends DefaultListModel {
      */
     public void setPlaceHolderImage(Image placeHolder){
         this.placeHolder = placeHolder;
+        loading = null;
+    }
+
+    /**
+     * The maximum number of loaded contacts kept in memory, the least recently used entries are 
+     * discarded and reloaded when needed
+     * 
+     * @param cacheSize the number of cached contacts
+     */
+    public void setCacheSize(int cacheSize) {
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * The maximum number of loaded contacts kept in memory
+     * 
+     * @return the number of cached contacts
+     */
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * The number of contacts around a missing entry that are fetched together in a single bulk query
+     * 
+     * @param prefetchWindow the size of the window
+     */
+    public void setPrefetchWindow(int prefetchWindow) {
+        this.prefetchWindow = Math.max(1, prefetchWindow);
+    }
+
+    /**
+     * The number of contacts around a missing entry that are fetched together in a single bulk query
+     * 
+     * @return the size of the window
+     */
+    public int getPrefetchWindow() {
+        return prefetchWindow;
+    }
+
+    /**
+     * The projection used when fetching contacts, a combination of the ContactsManager FIELD_ constants.
+     * Notice that the contact object in the entries only contains the projected fields
+     * 
+     * @param fields the projection
+     */
+    public void setFields(int fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * The projection used when fetching contacts
+     * 
+     * @return the projection
+     */
+    public int getFields() {
+        return fields;
     }
     
     /**
@@ -65,27 +140,92 @@ public class ContactsModel extends DefaultListModel {
      */
     public Object getItemAt(final int index) {
         final String id = (String) super.getItemAt(index);
-        Hashtable contact = (Hashtable) contactsCache.get(id);
+        Hashtable contact;
+        synchronized(contactsCache) {
+            contact = (Hashtable) contactsCache.get(id);
+        }
         if (contact == null) {
-            Hashtable cnt = getContactAsHashtable(null);
-            contactsCache.put(id, cnt);
-            Display.getInstance().scheduleBackgroundTask(new Runnable() {                
-                public void run() {
-                    Contact c = ContactsManager.getContactById(id);
-                    Hashtable contact = getContactAsHashtable(c);
-                    contactsCache.put(id, contact);
-                    Display.getInstance().callSerially(new Runnable() {
-                        public void run() {
-                            setItem(index, id);
-                        }
-                    });
-                }
-            });
-            return cnt;
+            if(id != null) {
+                prefetch(index);
+            }
+            if(loading == null) {
+                loading = getContactAsHashtable(null);
+            }
+            return loading;
         }
         return contact;
     }
 
+    private String idAt(int index) {
+        return (String) super.getItemAt(index);
+    }
+
+    /**
+     * Fetches the missing entries in the window around the index with a single bulk query
+     */
+    private void prefetch(int index) {
+        int size = getSize();
+        int start = Math.max(0, index - prefetchWindow / 2);
+        int end = Math.min(size, start + prefetchWindow);
+        final Vector ids = new Vector();
+        final Vector indexes = new Vector();
+        synchronized(contactsCache) {
+            for(int iter = start ; iter < end ; iter++) {
+                String id = idAt(iter);
+                if(id != null && !contactsCache.containsKey(id) && !pending.containsKey(id)) {
+                    pending.put(id, id);
+                    ids.addElement(id);
+                    indexes.addElement(new Integer(iter));
+                }
+            }
+        }
+        if(ids.size() == 0) {
+            return;
+        }
+        final int projection = fields;
+        Display.getInstance().scheduleBackgroundTask(new Runnable() {                
+            public void run() {
+                String[] arr = new String[ids.size()];
+                ids.copyInto(arr);
+                Contact[] result = null;
+                try {
+                    result = ContactsManager.getContacts(arr, 0, arr.length, projection);
+                } finally {
+                    synchronized(contactsCache) {
+                        for(int iter = 0 ; iter < arr.length ; iter++) {
+                            Contact c = null;
+                            if(result != null && iter < result.length) {
+                                c = result[iter];
+                            }
+                            Hashtable contact;
+                            if(c == null) {
+                                contact = new Hashtable();
+                                contact.put("id", arr[iter]);
+                            } else {
+                                contact = getContactAsHashtable(c);
+                            }
+                            contactsCache.put(arr[iter], contact);
+                            pending.remove(arr[iter]);
+                        }
+                    }
+                }
+                Display.getInstance().callSerially(new Runnable() {
+                    public void run() {
+                        int size = indexes.size();
+                        for(int iter = 0 ; iter < size ; iter++) {
+                            int i = ((Integer)indexes.elementAt(iter)).intValue();
+                            
+                            // the model might have changed while we were loading
+                            if(ids.elementAt(iter).equals(idAt(i))) {
+                                fireDataChangedEvent(DataChangedListener.CHANGED, i);
+                            }
+                        }
+                    }
+                });
+            }
+        });
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -93,12 +233,16 @@ public class ContactsModel extends DefaultListModel {
         if (item instanceof String) {
             super.addItem(item);
         } else if (item instanceof Contact) {
+            synchronized(contactsCache) {
+                contactsCache.put(((Contact) item).getId(), getContactAsHashtable((Contact) item));
+            }
             super.addItem(((Contact) item).getId());
-            contactsCache.put(((Contact) item).getId(), getContactAsHashtable((Contact) item));
 
         } else if (item instanceof Hashtable) {
+            synchronized(contactsCache) {
+                contactsCache.put(((Hashtable) item).get("id"), item);
+            }
             super.addItem(((Hashtable) item).get("id"));
-            contactsCache.put(((Hashtable) item).get("id"), item);
 
         }
     }
@@ -109,7 +253,9 @@ public class ContactsModel extends DefaultListModel {
     public void removeItem(int index) {
         String id = (String) super.getItemAt(index);
         super.removeItem(index);
-        contactsCache.remove(id);
+        synchronized(contactsCache) {
+            contactsCache.remove(id);
+        }
     }
 
     private Hashtable getContactAsHashtable(Contact c) {
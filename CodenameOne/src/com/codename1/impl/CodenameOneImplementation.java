@@ -27,6 +27,7 @@ import com.codename1.codescan.CodeScanner;
 import com.codename1.components.FileTree;
 import com.codename1.components.FileTreeModel;
 import com.codename1.contacts.Contact;
+import com.codename1.contacts.ContactsManager;
 import com.codename1.db.Cursor;
 import com.codename1.db.Database;
 import com.codename1.db.Row;
@@ -2845,6 +2846,19 @@ public abstract class CodenameOneImplementation {
     public boolean isNativeFontSchemeSupported() {
         return false;
     }
+
+    /**
+     * Indicates whether the width of a string in the given font can differ from the sum of the widths of
+     * its characters e.g. due to kerning, ligatures or fractional advances. When this returns false the
+     * Font class measures strings by summing cached character advances instead of calling stringWidth,
+     * this is conservatively true by default and ports with whole pixel advances can override it
+     * 
+     * @param nativeFont the native font
+     * @return true if string widths must be measured by the implementation
+     */
+    public boolean isFontKerning(Object nativeFont) {
+        return true;
+    }
     
     /**
      * Creates a font based on this truetype font with the given pixel, <b>WARNING</b>! This method
@@ -5076,6 +5090,31 @@ public abstract class CodenameOneImplementation {
         return retVal;
     }
 
+    /**
+     * Fetches a page of contacts, only the fields in the projection should be filled. The default
+     * implementation fetches the contacts one by one, platforms should override this with a single
+     * native query for the whole page.
+     * 
+     * @param ids the contact ids
+     * @param offset the index of the first id in the page
+     * @param count the number of contacts in the page
+     * @param fields the projection, a combination of the ContactsManager.FIELD_ constants
+     * @return the contacts in the page, entries for contacts that no longer exist are null
+     */
+    public Contact[] getContacts(String[] ids, int offset, int count, int fields) {
+        count = Math.max(0, Math.min(count, ids.length - offset));
+        Contact[] retVal = new Contact[count];
+        boolean name = (fields & ContactsManager.FIELD_NAME) != 0;
+        boolean picture = (fields & ContactsManager.FIELD_PICTURE) != 0;
+        boolean numbers = (fields & ContactsManager.FIELD_NUMBERS) != 0;
+        boolean emails = (fields & ContactsManager.FIELD_EMAILS) != 0;
+        boolean addresses = (fields & ContactsManager.FIELD_ADDRESSES) != 0;
+        for(int iter = 0 ; iter < count ; iter++) {
+            retVal[iter] = getContactById(ids[offset + iter], name, picture, numbers, emails, addresses);
+        }
+        return retVal;
+    }
+
     /**
      * Indicates if the getAllContacts is platform optimized, notice that the method
      * might still take seconds or more to run so you should still use a separate thread!
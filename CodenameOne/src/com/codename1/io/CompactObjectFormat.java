@@ -0,0 +1,589 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *  
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Codename One through http://www.codenameone.com/ if you 
+ * need additional information or have any questions.
+ */
+package com.codename1.io;
+
+import com.codename1.ui.EncodedImage;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.Vector;
+
+/**
+ * <p>The second version of the {@link Util#writeObject(java.lang.Object, java.io.DataOutputStream)} format. Values
+ * are tagged with a one byte type code instead of a UTF type name, sizes and integral values are written as
+ * variable length integers, strings (including map keys and externalizable ids) are written once per stream and
+ * referenced by index afterwards and primitive arrays are written as a single block.</p>
+ * <p>A value in this format starts with {@link #MARKER}, the first byte of the original format is always 0 (null)
+ * or 1 (a value follows) so {@link Util#readObject(java.io.DataInputStream)} can tell the formats apart from the
+ * first byte. Nested calls to {@link Util#writeObject(java.lang.Object, java.io.DataOutputStream)} made from within
+ * {@link Externalizable#externalize(java.io.DataOutputStream)} share the string table of the enclosing call.</p>
+ *
+ * @author Shai Almog
+ */
+final class CompactObjectFormat {
+    /**
+     * The first byte of a value written in this format
+     */
+    static final int MARKER = 2;
+
+    private static final int T_NULL = 0;
+    private static final int T_STRING = 1;
+    private static final int T_INT = 2;
+    private static final int T_LONG = 3;
+    private static final int T_BYTE = 4;
+    private static final int T_SHORT = 5;
+    private static final int T_FLOAT = 6;
+    private static final int T_DOUBLE = 7;
+    private static final int T_TRUE = 8;
+    private static final int T_FALSE = 9;
+    private static final int T_DATE = 10;
+    private static final int T_VECTOR = 11;
+    private static final int T_COLLECTION = 12;
+    private static final int T_HASHTABLE = 13;
+    private static final int T_MAP = 14;
+    private static final int T_ENCODED_IMAGE = 15;
+    private static final int T_OBJECT_ARRAY = 16;
+    private static final int T_BYTE_ARRAY = 17;
+    private static final int T_SHORT_ARRAY = 18;
+    private static final int T_INT_ARRAY = 19;
+    private static final int T_LONG_ARRAY = 20;
+    private static final int T_FLOAT_ARRAY = 21;
+    private static final int T_DOUBLE_ARRAY = 22;
+    private static final int T_EXTERNALIZABLE = 23;
+
+    /**
+     * The state of the streams that are currently being written or read, keyed by the stream so nested calls
+     * from externalizable objects find the string table of the enclosing call
+     */
+    private static final Hashtable writers = new Hashtable();
+    private static final Hashtable readers = new Hashtable();
+
+    private final Hashtable stringIds;
+    private final Vector strings;
+    private int depth;
+
+    private CompactObjectFormat(boolean write) {
+        if(write) {
+            stringIds = new Hashtable();
+            strings = null;
+        } else {
+            stringIds = null;
+            strings = new Vector();
+        }
+    }
+
+    /**
+     * Indicates whether the given stream is within a call to {@link #write(java.lang.Object, java.io.DataOutputStream)}
+     */
+    static boolean isWriting(DataOutputStream out) {
+        return writers.containsKey(out);
+    }
+
+    /**
+     * Writes the marker followed by the value
+     */
+    static void write(Object o, DataOutputStream out) throws IOException {
+        CompactObjectFormat f = (CompactObjectFormat)writers.get(out);
+        if(f == null) {
+            f = new CompactObjectFormat(true);
+            writers.put(out, f);
+        }
+        f.depth++;
+        try {
+            out.writeByte(MARKER);
+            f.writeValue(o, out);
+        } finally {
+            f.depth--;
+            if(f.depth == 0) {
+                writers.remove(out);
+            }
+        }
+    }
+
+    /**
+     * Reads a value, the marker byte was already consumed by the caller
+     */
+    static Object read(DataInputStream input) throws IOException {
+        CompactObjectFormat f = (CompactObjectFormat)readers.get(input);
+        if(f == null) {
+            f = new CompactObjectFormat(false);
+            readers.put(input, f);
+        }
+        f.depth++;
+        try {
+            return f.readValue(input);
+        } finally {
+            f.depth--;
+            if(f.depth == 0) {
+                readers.remove(input);
+            }
+        }
+    }
+
+    private void writeValue(Object o, DataOutputStream out) throws IOException {
+        if(o == null) {
+            out.writeByte(T_NULL);
+            return;
+        }
+        if(o instanceof Externalizable) {
+            Externalizable e = (Externalizable)o;
+            out.writeByte(T_EXTERNALIZABLE);
+            writeString(e.getObjectId(), out);
+            writeVarInt(zigZag(e.getVersion()), out);
+            e.externalize(out);
+            return;
+        }
+        if(o instanceof String) {
+            out.writeByte(T_STRING);
+            writeString((String)o, out);
+            return;
+        }
+        if(o instanceof Integer) {
+            out.writeByte(T_INT);
+            writeVarInt(zigZag(((Integer)o).intValue()), out);
+            return;
+        }
+        if(o instanceof Long) {
+            out.writeByte(T_LONG);
+            writeVarLong(zigZag(((Long)o).longValue()), out);
+            return;
+        }
+        if(o instanceof Boolean) {
+            if(((Boolean)o).booleanValue()) {
+                out.writeByte(T_TRUE);
+            } else {
+                out.writeByte(T_FALSE);
+            }
+            return;
+        }
+        if(o instanceof Vector) {
+            Vector v = (Vector)o;
+            out.writeByte(T_VECTOR);
+            int size = v.size();
+            writeVarInt(size, out);
+            for(int iter = 0 ; iter < size ; iter++) {
+                writeValue(v.elementAt(iter), out);
+            }
+            return;
+        }
+        if(o instanceof Collection) {
+            Collection v = (Collection)o;
+            out.writeByte(T_COLLECTION);
+            writeVarInt(v.size(), out);
+            for(Object cur : v) {
+                writeValue(cur, out);
+            }
+            return;
+        }
+        if(o instanceof Hashtable) {
+            Hashtable v = (Hashtable)o;
+            out.writeByte(T_HASHTABLE);
+            writeVarInt(v.size(), out);
+            Enumeration k = v.keys();
+            while(k.hasMoreElements()) {
+                Object key = k.nextElement();
+                writeValue(key, out);
+                writeValue(v.get(key), out);
+            }
+            return;
+        }
+        if(o instanceof Map) {
+            Map v = (Map)o;
+            out.writeByte(T_MAP);
+            writeVarInt(v.size(), out);
+            for(Object key : v.keySet()) {
+                writeValue(key, out);
+                writeValue(v.get(key), out);
+            }
+            return;
+        }
+        if(o instanceof Date) {
+            out.writeByte(T_DATE);
+            writeVarLong(zigZag(((Date)o).getTime()), out);
+            return;
+        }
+        if(o instanceof Byte) {
+            out.writeByte(T_BYTE);
+            out.writeByte(((Byte)o).byteValue());
+            return;
+        }
+        if(o instanceof Short) {
+            out.writeByte(T_SHORT);
+            out.writeShort(((Short)o).shortValue());
+            return;
+        }
+        if(o instanceof Float) {
+            out.writeByte(T_FLOAT);
+            out.writeFloat(((Float)o).floatValue());
+            return;
+        }
+        if(o instanceof Double) {
+            out.writeByte(T_DOUBLE);
+            out.writeDouble(((Double)o).doubleValue());
+            return;
+        }
+        if(o instanceof EncodedImage) {
+            EncodedImage e = (EncodedImage)o;
+            out.writeByte(T_ENCODED_IMAGE);
+            writeVarInt(e.getWidth(), out);
+            writeVarInt(e.getHeight(), out);
+            out.writeBoolean(e.isOpaque());
+            byte[] b = e.getImageData();
+            writeVarInt(b.length, out);
+            out.write(b);
+            return;
+        }
+        if(Util.instanceofObjArray(o)) {
+            Object[] v = (Object[])o;
+            out.writeByte(T_OBJECT_ARRAY);
+            int size = v.length;
+            writeVarInt(size, out);
+            for(int iter = 0 ; iter < size ; iter++) {
+                writeValue(v[iter], out);
+            }
+            return;
+        }
+        if(Util.instanceofByteArray(o)) {
+            byte[] v = (byte[])o;
+            out.writeByte(T_BYTE_ARRAY);
+            writeVarInt(v.length, out);
+            out.write(v);
+            return;
+        }
+        if(Util.instanceofShortArray(o)) {
+            short[] v = (short[])o;
+            out.writeByte(T_SHORT_ARRAY);
+            int size = v.length;
+            writeVarInt(size, out);
+            byte[] b = new byte[size * 2];
+            int pos = 0;
+            for(int iter = 0 ; iter < size ; iter++) {
+                pos = put(v[iter], 2, b, pos);
+            }
+            out.write(b);
+            return;
+        }
+        if(Util.instanceofIntArray(o)) {
+            int[] v = (int[])o;
+            out.writeByte(T_INT_ARRAY);
+            int size = v.length;
+            writeVarInt(size, out);
+            byte[] b = new byte[size * 4];
+            int pos = 0;
+            for(int iter = 0 ; iter < size ; iter++) {
+                pos = put(v[iter], 4, b, pos);
+            }
+            out.write(b);
+            return;
+        }
+        if(Util.instanceofLongArray(o)) {
+            long[] v = (long[])o;
+            out.writeByte(T_LONG_ARRAY);
+            int size = v.length;
+            writeVarInt(size, out);
+            byte[] b = new byte[size * 8];
+            int pos = 0;
+            for(int iter = 0 ; iter < size ; iter++) {
+                pos = put(v[iter], 8, b, pos);
+            }
+            out.write(b);
+            return;
+        }
+        if(Util.instanceofFloatArray(o)) {
+            float[] v = (float[])o;
+            out.writeByte(T_FLOAT_ARRAY);
+            int size = v.length;
+            writeVarInt(size, out);
+            byte[] b = new byte[size * 4];
+            int pos = 0;
+            for(int iter = 0 ; iter < size ; iter++) {
+                pos = put(Float.floatToIntBits(v[iter]), 4, b, pos);
+            }
+            out.write(b);
+            return;
+        }
+        if(Util.instanceofDoubleArray(o)) {
+            double[] v = (double[])o;
+            out.writeByte(T_DOUBLE_ARRAY);
+            int size = v.length;
+            writeVarInt(size, out);
+            byte[] b = new byte[size * 8];
+            int pos = 0;
+            for(int iter = 0 ; iter < size ; iter++) {
+                pos = put(Double.doubleToLongBits(v[iter]), 8, b, pos);
+            }
+            out.write(b);
+            return;
+        }
+        throw new IOException("Object type not supported: " + o.getClass().getName()
+                + " value: " + o);
+    }
+
+    private Object readValue(DataInputStream input) throws IOException {
+        int type = input.readUnsignedByte();
+        switch(type) {
+            case T_NULL:
+                return null;
+            case T_STRING:
+                return readString(input);
+            case T_INT:
+                return new Integer(unZigZag(readVarInt(input)));
+            case T_LONG:
+                return new Long(unZigZag(readVarLong(input)));
+            case T_TRUE:
+                return Boolean.TRUE;
+            case T_FALSE:
+                return Boolean.FALSE;
+            case T_BYTE:
+                return new Byte(input.readByte());
+            case T_SHORT:
+                return new Short(input.readShort());
+            case T_FLOAT:
+                return new Float(input.readFloat());
+            case T_DOUBLE:
+                return new Double(input.readDouble());
+            case T_DATE:
+                return new Date(unZigZag(readVarLong(input)));
+            case T_VECTOR: {
+                int size = readVarInt(input);
+                Vector v = new Vector(size);
+                for(int iter = 0 ; iter < size ; iter++) {
+                    v.addElement(readValue(input));
+                }
+                return v;
+            }
+            case T_COLLECTION: {
+                int size = readVarInt(input);
+                Collection v = new ArrayList(size);
+                for(int iter = 0 ; iter < size ; iter++) {
+                    v.add(readValue(input));
+                }
+                return v;
+            }
+            case T_HASHTABLE: {
+                int size = readVarInt(input);
+                Hashtable v = new Hashtable(Math.max(11, size * 4 / 3 + 1));
+                for(int iter = 0 ; iter < size ; iter++) {
+                    v.put(readValue(input), readValue(input));
+                }
+                return v;
+            }
+            case T_MAP: {
+                int size = readVarInt(input);
+                Map v = new HashMap(Math.max(16, size * 4 / 3 + 1));
+                for(int iter = 0 ; iter < size ; iter++) {
+                    v.put(readValue(input), readValue(input));
+                }
+                return v;
+            }
+            case T_ENCODED_IMAGE: {
+                int width = readVarInt(input);
+                int height = readVarInt(input);
+                boolean op = input.readBoolean();
+                byte[] data = new byte[readVarInt(input)];
+                input.readFully(data);
+                return EncodedImage.create(data, width, height, op);
+            }
+            case T_OBJECT_ARRAY: {
+                Object[] v = new Object[readVarInt(input)];
+                int vlen = v.length;
+                for(int iter = 0 ; iter < vlen ; iter++) {
+                    v[iter] = readValue(input);
+                }
+                return v;
+            }
+            case T_BYTE_ARRAY: {
+                byte[] v = new byte[readVarInt(input)];
+                input.readFully(v);
+                return v;
+            }
+            case T_SHORT_ARRAY: {
+                short[] v = new short[readVarInt(input)];
+                byte[] b = readBlock(input, v.length * 2);
+                int vlen = v.length;
+                for(int iter = 0 ; iter < vlen ; iter++) {
+                    v[iter] = (short)get(b, iter * 2, 2);
+                }
+                return v;
+            }
+            case T_INT_ARRAY: {
+                int[] v = new int[readVarInt(input)];
+                byte[] b = readBlock(input, v.length * 4);
+                int vlen = v.length;
+                for(int iter = 0 ; iter < vlen ; iter++) {
+                    v[iter] = (int)get(b, iter * 4, 4);
+                }
+                return v;
+            }
+            case T_LONG_ARRAY: {
+                long[] v = new long[readVarInt(input)];
+                byte[] b = readBlock(input, v.length * 8);
+                int vlen = v.length;
+                for(int iter = 0 ; iter < vlen ; iter++) {
+                    v[iter] = get(b, iter * 8, 8);
+                }
+                return v;
+            }
+            case T_FLOAT_ARRAY: {
+                float[] v = new float[readVarInt(input)];
+                byte[] b = readBlock(input, v.length * 4);
+                int vlen = v.length;
+                for(int iter = 0 ; iter < vlen ; iter++) {
+                    v[iter] = Float.intBitsToFloat((int)get(b, iter * 4, 4));
+                }
+                return v;
+            }
+            case T_DOUBLE_ARRAY: {
+                double[] v = new double[readVarInt(input)];
+                byte[] b = readBlock(input, v.length * 8);
+                int vlen = v.length;
+                for(int iter = 0 ; iter < vlen ; iter++) {
+                    v[iter] = Double.longBitsToDouble(get(b, iter * 8, 8));
+                }
+                return v;
+            }
+            case T_EXTERNALIZABLE: {
+                String id = readString(input);
+                int version = unZigZag(readVarInt(input));
+                return Util.internalize(id, version, input);
+            }
+        }
+        throw new IOException("Unknown object type code: " + type);
+    }
+
+    /**
+     * Strings are written as the index of an earlier occurrence plus one or as 0 followed by the UTF-8 bytes
+     */
+    private void writeString(String s, DataOutputStream out) throws IOException {
+        Integer id = (Integer)stringIds.get(s);
+        if(id != null) {
+            writeVarInt(id.intValue() + 1, out);
+            return;
+        }
+        stringIds.put(s, new Integer(stringIds.size()));
+        out.writeByte(0);
+        byte[] b = s.getBytes("UTF-8");
+        writeVarInt(b.length, out);
+        out.write(b);
+    }
+
+    private String readString(DataInputStream input) throws IOException {
+        int ref = readVarInt(input);
+        if(ref > 0) {
+            if(ref > strings.size()) {
+                throw new IOException("Invalid string reference: " + ref);
+            }
+            return (String)strings.elementAt(ref - 1);
+        }
+        byte[] b = readBlock(input, readVarInt(input));
+        String s = new String(b, 0, b.length, "UTF-8");
+        strings.addElement(s);
+        return s;
+    }
+
+    private static byte[] readBlock(DataInputStream input, int length) throws IOException {
+        byte[] b = new byte[length];
+        input.readFully(b);
+        return b;
+    }
+
+    private static int put(long value, int bytes, byte[] b, int pos) {
+        for(int shift = (bytes - 1) * 8 ; shift >= 0 ; shift -= 8) {
+            b[pos] = (byte)(value >> shift);
+            pos++;
+        }
+        return pos;
+    }
+
+    private static long get(byte[] b, int pos, int bytes) {
+        // sign extend from the first byte so short and int values come back negative
+        long value = b[pos];
+        for(int iter = 1 ; iter < bytes ; iter++) {
+            value = (value << 8) | (b[pos + iter] & 0xff);
+        }
+        return value;
+    }
+
+    private static int zigZag(int v) {
+        return (v << 1) ^ (v >> 31);
+    }
+
+    private static long zigZag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static int unZigZag(int v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static long unZigZag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static void writeVarInt(int v, DataOutputStream out) throws IOException {
+        while((v & ~0x7f) != 0) {
+            out.writeByte((v & 0x7f) | 0x80);
+            v >>>= 7;
+        }
+        out.writeByte(v);
+    }
+
+    private static void writeVarLong(long v, DataOutputStream out) throws IOException {
+        while((v & ~0x7fL) != 0) {
+            out.writeByte((int)(v & 0x7f) | 0x80);
+            v >>>= 7;
+        }
+        out.writeByte((int)v);
+    }
+
+    private static int readVarInt(DataInputStream input) throws IOException {
+        int v = 0;
+        for(int shift = 0 ; shift < 35 ; shift += 7) {
+            int b = input.readUnsignedByte();
+            v |= (b & 0x7f) << shift;
+            if((b & 0x80) == 0) {
+                return v;
+            }
+        }
+        throw new IOException("Malformed variable length integer");
+    }
+
+    private static long readVarLong(DataInputStream input) throws IOException {
+        long v = 0;
+        for(int shift = 0 ; shift < 70 ; shift += 7) {
+            int b = input.readUnsignedByte();
+            v |= ((long)(b & 0x7f)) << shift;
+            if((b & 0x80) == 0) {
+                return v;
+            }
+        }
+        throw new IOException("Malformed variable length integer");
+    }
+}
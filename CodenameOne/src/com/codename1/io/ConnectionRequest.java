@@ -190,6 +190,8 @@ public class ConnectionRequest implements IOProgressListener {
     private int failureErrorCode;
     private String destinationFile;
     private String destinationStorage;
+    private boolean httpCacheEnabled = true;
+    private boolean responseFromCache;
     
     /**
      * Workaround for https://bugs.php.net/bug.php?id=65633 allowing developers to
@@ -345,11 +347,88 @@ public class ConnectionRequest implements IOProgressListener {
         if(shouldStop()) {
             return;
         }
+        responseFromCache = false;
+        HttpCache cache = NetworkManager.getInstance().getHttpCache();
+        if(cache == null || !isHttpCacheable()) {
+            performOperation(null, null, null);
+            return;
+        }
+        String cacheKey = createRequestURL();
+        long start = System.currentTimeMillis();
+
+        // an identical request running on another network thread is waited for and its response reused
+        HttpCache.Entry cached = cache.beginFetch(cacheKey);
+        try {
+            if(cached != null && cache.isFresh(cached, start)) {
+                InputStream i = cache.openInputStream(cached, false);
+                if(i != null) {
+                    readCachedResponse(i, cached);
+                    schedulePostResponse();
+                    return;
+                }
+                cached = null;
+            }
+            performOperation(cache, cacheKey, cached);
+        } finally {
+            cache.endFetch(cacheKey);
+        }
+    }
+
+    /**
+     * Returns true if the response of this request can be stored in the HTTP cache
+     */
+    private boolean isHttpCacheable() {
+        return httpCacheEnabled && !post && !isWriteRequest() && isReadRequest() &&
+                (httpMethod == null || httpMethod.equalsIgnoreCase("GET")) && !hasAuthorizationHeader();
+    }
+
+    /**
+     * The cache is keyed by URL only, a response to an authorized request could be served to a different user
+     */
+    private boolean hasAuthorizationHeader() {
+        if(userHeaders == null) {
+            return false;
+        }
+        Enumeration e = userHeaders.keys();
+        while(e.hasMoreElements()) {
+            if(((String)e.nextElement()).equalsIgnoreCase("Authorization")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void readCachedResponse(InputStream i, HttpCache.Entry cached) throws IOException {
+        responseFromCache = true;
+        responseCode = 200;
+        responseContentType = cached.contentType;
+        contentLength = cached.size;
+        try {
+            readResponse(i);
+        } finally {
+            Util.cleanup(i);
+        }
+    }
+
+    private void schedulePostResponse() {
+        if(!isKilled()) {
+            Display.getInstance().callSerially(new Runnable() {
+                public void run() {
+                    postResponse();
+                }
+            });
+        }
+    }
+
+    private void performOperation(HttpCache cache, String cacheKey, HttpCache.Entry cached) throws IOException {
         CodenameOneImplementation impl = Util.getImplementation();
         Object connection = null;
         input = null;
         output = null;
         redirecting = false;
+        HttpCache.Entry storing = null;
+        InputStream storingStream = null;
+        boolean stored = false;
         try {
             String actualUrl = createRequestURL();
             if(timeout > 0) {
@@ -364,6 +443,15 @@ public class ConnectionRequest implements IOProgressListener {
             if(httpMethod != null) {
                 impl.setHttpMethod(connection, httpMethod);
             }
+            if(cached != null) {
+                // conditional request, a 304 reply means the cached body is still valid
+                if(cached.etag != null && (userHeaders == null || !userHeaders.containsKey("If-None-Match"))) {
+                    impl.setHeader(connection, "If-None-Match", cached.etag);
+                }
+                if(cached.lastModified != null && (userHeaders == null || !userHeaders.containsKey("If-Modified-Since"))) {
+                    impl.setHeader(connection, "If-Modified-Since", cached.lastModified);
+                }
+            }
             Vector v = impl.getCookiesForURL(actualUrl);
             if(v != null) {
                 int c = v.size();
@@ -439,6 +527,20 @@ public class ConnectionRequest implements IOProgressListener {
                 }
             }
             
+            if(responseCode == 304 && cached != null) {
+                InputStream i = cache.openInputStream(cached, true);
+                if(i == null) {
+                    // the cached body is gone, fetch the whole response again
+                    retry();
+                    return;
+                }
+                readCachedResponse(i, cached);
+                cache.revalidated(cached, getHeader(connection, "Cache-Control"),
+                        getHeader(connection, "Expires"), getHeader(connection, "Date"));
+                schedulePostResponse();
+                return;
+            }
+
             if(responseCode - 200 < 0 || responseCode - 200 > 100) {
                 readErrorCodeHeaders(connection);
                 // redirect to new location
@@ -496,13 +598,30 @@ public class ConnectionRequest implements IOProgressListener {
                     }
                     ((BufferedInputStream)input).setYield(getYield());
                 }
-                readResponse(input);
+                if(cache != null && responseCode == 200) {
+                    storing = cache.startStore(cacheKey, getHeader(connection, "Cache-Control"),
+                            getHeader(connection, "Expires"), getHeader(connection, "Date"),
+                            getHeader(connection, "ETag"), getHeader(connection, "Last-Modified"),
+                            getHeader(connection, "Vary"), responseContentType);
+                }
+                if(storing != null) {
+                    // the body is copied to the cache as the response is read
+                    storingStream = cache.wrap(input, storing);
+                    readResponse(storingStream);
+                    cache.finishStore(storing, storingStream, !isKilled());
+                    stored = true;
+                } else {
+                    readResponse(input);
+                }
                 if(shouldAutoCloseResponse()) {
                     input.close();
                 }
                 input = null;
             }
         } finally {
+            if(storing != null && !stored) {
+                cache.finishStore(storing, storingStream, false);
+            }
             // always cleanup connections/streams even in case of an exception
             impl.cleanup(output);
             impl.cleanup(input);
@@ -512,15 +631,39 @@ public class ConnectionRequest implements IOProgressListener {
             output = null;
             connection = null;
         }
-        if(!isKilled()) {
-            Display.getInstance().callSerially(new Runnable() {
-                public void run() {
-                    postResponse();
-                }
-            });
-        }
+        schedulePostResponse();
     }
     
+    /**
+     * Indicates whether the response of this request can be stored in and served from the HTTP cache installed
+     * with {@link NetworkManager#setHttpCache(com.codename1.io.HttpCache)}. Only GET requests without an 
+     * <code>Authorization</code> header are cached.
+     *
+     * @param httpCacheEnabled false to always fetch this request from the network, defaults to true
+     */
+    public void setHttpCacheEnabled(boolean httpCacheEnabled) {
+        this.httpCacheEnabled = httpCacheEnabled;
+    }
+
+    /**
+     * Indicates whether the response of this request can be stored in and served from the HTTP cache
+     *
+     * @return true if the HTTP cache is used for this request
+     */
+    public boolean isHttpCacheEnabled() {
+        return httpCacheEnabled;
+    }
+
+    /**
+     * Returns true if the last response was served from the HTTP cache, either because it was still fresh
+     * or because the server replied with 304 Not Modified
+     *
+     * @return true if the response came from the cache
+     */
+    public boolean isResponseFromCache() {
+        return responseFromCache;
+    }
+
     /**
      * Callback invoked for every cookie received from the server
      * @param c the cookie
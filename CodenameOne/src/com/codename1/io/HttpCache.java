@@ -0,0 +1,636 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *  
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Codename One through http://www.codenameone.com/ if you 
+ * need additional information or have any questions.
+ */
+package com.codename1.io;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.TimeZone;
+
+/**
+ * <p>A persistent HTTP response cache for {@link ConnectionRequest}. Once installed with
+ * {@link NetworkManager#setHttpCache(com.codename1.io.HttpCache)} the bodies of GET responses are stored in
+ * {@link Storage} and reused according to the <code>Cache-Control</code> and <code>Expires</code> headers
+ * of the server. A response that is still fresh is served from storage without touching the network, a stale
+ * response that has an <code>ETag</code> or <code>Last-Modified</code> header is revalidated with a conditional
+ * request and a <code>304 Not Modified</code> reply is answered from storage.</p>
+ * <p>The cache is bounded by a byte quota, when the quota is exceeded the least recently used responses are
+ * removed. Identical GET requests that run concurrently on several network threads are coalesced, only one of
+ * them goes to the network and the others are answered from the response it stored.</p>
+ * <p>Responses are keyed by URL, so responses with a <code>Vary</code> header other than
+ * <code>Accept-Encoding</code> and responses to requests that carry an <code>Authorization</code> header
+ * aren't stored.</p>
+ * <p>Requests can opt out using {@link ConnectionRequest#setHttpCacheEnabled(boolean)}.</p>
+ *
+ * @author Shai Almog
+ */
+public class HttpCache {
+    private static final int INDEX_VERSION = 1;
+
+    private final String prefix;
+    private int maxBytes;
+    private int bytes;
+    private int nextId;
+    private boolean loaded;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(32, 0.75f, true);
+    private final Hashtable inFlight = new Hashtable();
+    private int hits;
+    private int revalidations;
+    private int misses;
+
+    /**
+     * Creates a cache with a 4mb quota
+     */
+    public HttpCache() {
+        this("CN1HttpCache", 4 * 1024 * 1024);
+    }
+
+    /**
+     * Creates a cache with the given storage prefix and quota
+     *
+     * @param prefix prefix for the names of the storage entries of this cache
+     * @param maxBytes the amount of storage the cached responses may occupy
+     */
+    public HttpCache(String prefix, int maxBytes) {
+        this.prefix = prefix;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Sets the amount of storage the cached responses may occupy
+     *
+     * @param maxBytes the quota in bytes
+     */
+    public synchronized void setMaxBytes(int maxBytes) {
+        this.maxBytes = Math.max(0, maxBytes);
+        load();
+        trim();
+        saveIndex();
+    }
+
+    /**
+     * Returns the amount of storage the cached responses may occupy
+     *
+     * @return the quota in bytes
+     */
+    public synchronized int getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Returns the amount of storage occupied by the cached responses
+     *
+     * @return the size in bytes
+     */
+    public synchronized int getSizeBytes() {
+        load();
+        return bytes;
+    }
+
+    /**
+     * Returns the number of cached responses
+     *
+     * @return the number of entries
+     */
+    public synchronized int getEntryCount() {
+        load();
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of requests answered from the cache without a network request
+     *
+     * @return the number of hits
+     */
+    public synchronized int getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of requests answered from the cache after the server replied with 304
+     *
+     * @return the number of revalidated responses
+     */
+    public synchronized int getRevalidations() {
+        return revalidations;
+    }
+
+    /**
+     * Returns the number of requests for which the full response was fetched from the server
+     *
+     * @return the number of misses
+     */
+    public synchronized int getMisses() {
+        return misses;
+    }
+
+    /**
+     * Removes the cached response of the given URL
+     *
+     * @param url the full URL of the request including its GET arguments
+     */
+    public synchronized void remove(String url) {
+        load();
+        Entry e = entries.remove(url);
+        if(e != null) {
+            deleteEntry(e);
+            saveIndex();
+        }
+    }
+
+    /**
+     * Removes all the cached responses
+     */
+    public synchronized void clear() {
+        load();
+        Iterator<Entry> i = entries.values().iterator();
+        while(i.hasNext()) {
+            deleteEntry(i.next());
+        }
+        entries.clear();
+        bytes = 0;
+        saveIndex();
+    }
+
+    /**
+     * Waits until no other request for the given URL is in flight and marks this request as in flight
+     *
+     * @param url the full URL of the request
+     * @return the cached response or null
+     */
+    synchronized Entry beginFetch(String url) {
+        load();
+        while(inFlight.containsKey(url)) {
+            try {
+                wait();
+            } catch(InterruptedException err) {
+            }
+        }
+        inFlight.put(url, url);
+        return entries.get(url);
+    }
+
+    /**
+     * Ends a request started with beginFetch
+     */
+    synchronized void endFetch(String url) {
+        inFlight.remove(url);
+        notifyAll();
+    }
+
+    /**
+     * Returns true if the response can be used without contacting the server, a response that another request
+     * stored or revalidated after this request started waiting is used as well which coalesces identical requests
+     *
+     * @param e the cached response
+     * @param start the time at which the request started
+     * @return true to answer the request from the cache
+     */
+    synchronized boolean isFresh(Entry e, long start) {
+        long now = System.currentTimeMillis();
+        return e.expires > now || e.validated >= start;
+    }
+
+    /**
+     * Opens the body of a cached response, returns null if the body is missing
+     */
+    InputStream openInputStream(Entry e, boolean revalidated) {
+        try {
+            Storage s = Storage.getInstance();
+            if(s.exists(e.storageName)) {
+                InputStream i = s.createInputStream(e.storageName);
+                synchronized(this) {
+                    if(revalidated) {
+                        revalidations++;
+                    } else {
+                        hits++;
+                    }
+                }
+                return i;
+            }
+        } catch(IOException err) {
+            Log.e(err);
+        }
+        discard(e);
+        return null;
+    }
+
+    private synchronized void discard(Entry e) {
+        // the entry might have been replaced by a newer response in the meantime
+        if(entries.get(e.url) == e) {
+            entries.remove(e.url);
+            deleteEntry(e);
+            saveIndex();
+        }
+    }
+
+    /**
+     * Updates the freshness of a cached response following a 304 reply from the server
+     */
+    synchronized void revalidated(Entry e, String cacheControl, String expiresHeader, String date) {
+        long now = System.currentTimeMillis();
+        long expires = computeExpiry(now, cacheControl, expiresHeader, date);
+        if(expires < 0) {
+            // the server no longer allows storing the response, it is still used for this reply
+            discard(e);
+            return;
+        }
+        e.expires = expires;
+        e.validated = now;
+        saveIndex();
+    }
+
+    /**
+     * Starts storing a response body, returns null if the response can't be cached
+     */
+    synchronized Entry startStore(String url, String cacheControl, String expiresHeader, String date,
+            String etag, String lastModified, String vary, String contentType) {
+        misses++;
+        if(maxBytes == 0 || !isVaryCacheable(vary)) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        long expires = computeExpiry(now, cacheControl, expiresHeader, date);
+        if(expires < 0) {
+            return null;
+        }
+        if(expires <= now && etag == null && lastModified == null) {
+            // a stale response without validators could never be reused
+            return null;
+        }
+        Entry e = new Entry();
+        e.url = url;
+        e.etag = etag;
+        e.lastModified = lastModified;
+        e.contentType = contentType;
+        e.expires = expires;
+        e.validated = now;
+        e.storageName = prefix + "-" + nextId;
+        nextId++;
+        return e;
+    }
+
+    /**
+     * Wraps the response stream so the body is written to storage as it is read
+     */
+    InputStream wrap(InputStream source, Entry e) throws IOException {
+        return new StoringInputStream(source, Storage.getInstance().createOutputStream(e.storageName));
+    }
+
+    /**
+     * Commits or discards a response started with startStore
+     *
+     * @param e the entry
+     * @param stream the stream returned from wrap or null if wrap failed
+     * @param success true if the request completed
+     */
+    void finishStore(Entry e, InputStream stream, boolean success) {
+        StoringInputStream s = (StoringInputStream)stream;
+        if(s != null) {
+            Util.cleanup(s.out);
+        }
+        if(s == null || !success || !s.complete || s.written > maxBytes) {
+            Storage.getInstance().deleteStorageFile(e.storageName);
+            return;
+        }
+        synchronized(this) {
+            e.size = s.written;
+            Entry old = entries.put(e.url, e);
+            if(old != null) {
+                deleteEntry(old);
+            }
+            bytes += e.size;
+            trim();
+            saveIndex();
+        }
+    }
+
+    /**
+     * Entries are keyed by URL alone so a response that varies by request headers can't be stored, the
+     * exception is Accept-Encoding which the platform sends the same way for every request
+     */
+    static boolean isVaryCacheable(String vary) {
+        if(vary == null) {
+            return true;
+        }
+        int pos = 0;
+        int len = vary.length();
+        while(pos < len) {
+            int end = vary.indexOf(',', pos);
+            if(end < 0) {
+                end = len;
+            }
+            String header = vary.substring(pos, end).trim();
+            if(header.length() > 0 && !header.equalsIgnoreCase("Accept-Encoding")) {
+                return false;
+            }
+            pos = end + 1;
+        }
+        return true;
+    }
+
+    private void deleteEntry(Entry e) {
+        bytes -= e.size;
+        Storage.getInstance().deleteStorageFile(e.storageName);
+    }
+
+    private void trim() {
+        if(bytes <= maxBytes) {
+            return;
+        }
+        Iterator<Entry> i = entries.values().iterator();
+        while(bytes > maxBytes && i.hasNext()) {
+            Entry e = i.next();
+
+            // the body of a response that is being revalidated might be read shortly
+            if(inFlight.containsKey(e.url)) {
+                continue;
+            }
+            i.remove();
+            deleteEntry(e);
+        }
+    }
+
+    private void load() {
+        if(loaded) {
+            return;
+        }
+        loaded = true;
+        String indexName = prefix + ".idx";
+        Storage s = Storage.getInstance();
+        if(!s.exists(indexName)) {
+            return;
+        }
+        DataInputStream di = null;
+        try {
+            di = new DataInputStream(s.createInputStream(indexName));
+            if(di.readInt() != INDEX_VERSION) {
+                return;
+            }
+            nextId = di.readInt();
+            int count = di.readInt();
+            for(int iter = 0 ; iter < count ; iter++) {
+                Entry e = new Entry();
+                e.url = di.readUTF();
+                e.storageName = di.readUTF();
+                e.size = di.readInt();
+                e.etag = readOptional(di);
+                e.lastModified = readOptional(di);
+                e.contentType = readOptional(di);
+                e.expires = di.readLong();
+                e.validated = di.readLong();
+                entries.put(e.url, e);
+                bytes += e.size;
+            }
+        } catch(IOException err) {
+            // a corrupt index loses the cache but not the application
+            Log.e(err);
+            entries.clear();
+            bytes = 0;
+        } finally {
+            Util.cleanup(di);
+        }
+    }
+
+    private void saveIndex() {
+        DataOutputStream dos = null;
+        try {
+            dos = new DataOutputStream(Storage.getInstance().createOutputStream(prefix + ".idx"));
+            dos.writeInt(INDEX_VERSION);
+            dos.writeInt(nextId);
+            dos.writeInt(entries.size());
+
+            // the index is written in access order so the order of eviction survives a restart
+            ArrayList<Entry> l = new ArrayList<Entry>(entries.values());
+            int size = l.size();
+            for(int iter = 0 ; iter < size ; iter++) {
+                Entry e = l.get(iter);
+                dos.writeUTF(e.url);
+                dos.writeUTF(e.storageName);
+                dos.writeInt(e.size);
+                writeOptional(dos, e.etag);
+                writeOptional(dos, e.lastModified);
+                writeOptional(dos, e.contentType);
+                dos.writeLong(e.expires);
+                dos.writeLong(e.validated);
+            }
+        } catch(IOException err) {
+            Log.e(err);
+        } finally {
+            Util.cleanup(dos);
+        }
+    }
+
+    private static String readOptional(DataInputStream di) throws IOException {
+        if(di.readBoolean()) {
+            return di.readUTF();
+        }
+        return null;
+    }
+
+    private static void writeOptional(DataOutputStream dos, String s) throws IOException {
+        dos.writeBoolean(s != null);
+        if(s != null) {
+            dos.writeUTF(s);
+        }
+    }
+
+    /**
+     * Computes the time until which a response is fresh based on its headers
+     *
+     * @param now the current time
+     * @param cacheControl the value of the Cache-Control header or null
+     * @param expires the value of the Expires header or null
+     * @param date the value of the Date header or null
+     * @return -1 if the response must not be stored, otherwise the time until which the response can be used
+     * without revalidation which is now or earlier for a response that must always be revalidated
+     */
+    static long computeExpiry(long now, String cacheControl, String expires, String date) {
+        if(cacheControl != null) {
+            String cc = cacheControl.toLowerCase();
+            if(cc.indexOf("no-store") > -1) {
+                return -1;
+            }
+            if(cc.indexOf("no-cache") > -1) {
+                return now;
+            }
+            int pos = cc.indexOf("max-age");
+            if(pos > -1) {
+                long seconds = parseDeltaSeconds(cc, pos + 7);
+                if(seconds > -1) {
+                    return now + seconds * 1000;
+                }
+            }
+        }
+        if(expires != null) {
+            long e = parseHttpDate(expires);
+            if(e < 0) {
+                // invalid values such as "0" mean already expired
+                return now;
+            }
+
+            // the lifetime is measured on the server clock so a skewed device clock doesn't matter
+            long d = date != null ? parseHttpDate(date) : -1;
+            if(d < 0) {
+                return e;
+            }
+            return now + Math.max(0, e - d);
+        }
+        return now;
+    }
+
+    private static long parseDeltaSeconds(String cc, int pos) {
+        int len = cc.length();
+        while(pos < len && (cc.charAt(pos) == ' ' || cc.charAt(pos) == '=' || cc.charAt(pos) == '"')) {
+            pos++;
+        }
+        long v = -1;
+        while(pos < len) {
+            char c = cc.charAt(pos);
+            if(c < '0' || c > '9') {
+                break;
+            }
+            if(v < 0) {
+                v = 0;
+            }
+            v = v * 10 + (c - '0');
+            pos++;
+        }
+        return v;
+    }
+
+    private static final String MONTHS = "janfebmaraprmayjunjulaugsepoctnovdec";
+
+    /**
+     * Parses a date in the RFC 1123 format used by HTTP e.g. "Sun, 06 Nov 1994 08:49:37 GMT"
+     *
+     * @param s the date
+     * @return the time in milliseconds or -1 if the date can't be parsed
+     */
+    static long parseHttpDate(String s) {
+        try {
+            int comma = s.indexOf(',');
+            String[] tokens = Util.split(s.substring(comma + 1).trim(), " ");
+            if(tokens.length < 4) {
+                return -1;
+            }
+            int day = Integer.parseInt(tokens[0]);
+            int month = MONTHS.indexOf(tokens[1].toLowerCase());
+            if(month < 0 || month % 3 != 0) {
+                return -1;
+            }
+            int year = Integer.parseInt(tokens[2]);
+            String[] time = Util.split(tokens[3], ":");
+            if(time.length != 3) {
+                return -1;
+            }
+            Calendar c = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
+            c.set(Calendar.YEAR, year);
+            c.set(Calendar.MONTH, Calendar.JANUARY + month / 3);
+            c.set(Calendar.DAY_OF_MONTH, day);
+            c.set(Calendar.HOUR_OF_DAY, Integer.parseInt(time[0]));
+            c.set(Calendar.MINUTE, Integer.parseInt(time[1]));
+            c.set(Calendar.SECOND, Integer.parseInt(time[2]));
+            c.set(Calendar.MILLISECOND, 0);
+            return c.getTime().getTime();
+        } catch(RuntimeException err) {
+            return -1;
+        }
+    }
+
+    /**
+     * A cached response
+     */
+    static class Entry {
+        String url;
+        String storageName;
+        int size;
+        String etag;
+        String lastModified;
+        String contentType;
+        long expires;
+        long validated;
+    }
+
+    /**
+     * Copies the bytes read from the network into the storage entry
+     */
+    static class StoringInputStream extends InputStream {
+        private final InputStream source;
+        final OutputStream out;
+        int written;
+        boolean complete;
+        private boolean failed;
+
+        StoringInputStream(InputStream source, OutputStream out) {
+            this.source = source;
+            this.out = out;
+        }
+
+        public int read() throws IOException {
+            int b = source.read();
+            if(b < 0) {
+                complete = !failed;
+            } else if(!failed) {
+                try {
+                    out.write(b);
+                    written++;
+                } catch(IOException err) {
+                    failed = true;
+                }
+            }
+            return b;
+        }
+
+        public int read(byte[] b, int off, int len) throws IOException {
+            int r = source.read(b, off, len);
+            if(r < 0) {
+                complete = !failed;
+            } else if(!failed) {
+                try {
+                    out.write(b, off, r);
+                    written += r;
+                } catch(IOException err) {
+                    // a full storage only disables caching of this response
+                    failed = true;
+                }
+            }
+            return r;
+        }
+
+        public int available() throws IOException {
+            return source.available();
+        }
+
+        public void close() throws IOException {
+            source.close();
+        }
+    }
+}
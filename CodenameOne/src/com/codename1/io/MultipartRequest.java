@@ -61,6 +61,9 @@ public class MultipartRequest extends ConnectionRequest {
     private boolean manualRedirect = true;
     private static boolean canFlushStream = true;
     private Vector ignoreEncoding = new Vector();
+    private int chunkSize = 8192;
+    private byte[] chunkBuffer;
+    private long sentBytes;
     
     /**
      * Initialize variables
@@ -127,8 +130,37 @@ public class MultipartRequest extends ConnectionRequest {
      * @throws IOException if the file cannot be opened
      */
     public void addData(String name, String filePath, String mimeType) throws IOException {
-        addData(name, FileSystemStorage.getInstance().openInputStream(filePath), 
-                FileSystemStorage.getInstance().getLength(filePath), mimeType);
+        FileSystemStorage fs = FileSystemStorage.getInstance();
+        if(!fs.exists(filePath)) {
+            throw new IOException("File not found: " + filePath);
+        }
+        addSource(name, new StreamSource(filePath, false), fs.getLength(filePath), mimeType);
+    }
+
+    /**
+     * Adds a binary argument whose content is an entry in {@link Storage}, the entry is
+     * only opened during submission and is streamed in chunks so it is never loaded into memory
+     * 
+     * @param name the name of the data
+     * @param storageName the name of the storage entry
+     * @param mimeType the mime type for the content
+     * @throws IOException if the entry doesn't exist
+     */
+    public void addStorageData(String name, String storageName, String mimeType) throws IOException {
+        Storage s = Storage.getInstance();
+        if(!s.exists(storageName)) {
+            throw new IOException("Storage entry not found: " + storageName);
+        }
+        addSource(name, new StreamSource(storageName, true), s.entrySize(storageName), mimeType);
+    }
+
+    private void addSource(String name, StreamSource src, long size, String mimeType) {
+        args.put(name, src);
+        if(!filenames.containsKey(name)) {
+            filenames.put(name, name);
+        }
+        filesizes.put(name, String.valueOf(size));
+        mimeTypes.put(name, mimeType);
     }
     
     /**
@@ -265,6 +297,7 @@ public class MultipartRequest extends ConnectionRequest {
      * {@inheritDoc}
      */
     protected void buildRequestBody(OutputStream os) throws IOException {
+        sentBytes = 0;
         Writer writer = null;
         writer = new OutputStreamWriter(os, "UTF-8"); 
         Enumeration e = args.keys();
@@ -344,26 +377,24 @@ public class MultipartRequest extends ConnectionRequest {
                     InputStream i;
                     if (value instanceof InputStream) {
                             i = (InputStream)value;
+                    } else if (value instanceof StreamSource) {
+                            i = ((StreamSource)value).open();
                     } else {
                             i = new ByteArrayInputStream((byte[])value);
                     }
-                    byte[] buffer = new byte[8192];
-                    int s = i.read(buffer);
-                    while(s > -1) {
-                            if (shouldStop()) {
-                                    break;
-                            }
-                            os.write(buffer, 0, s);
-                            if(canFlushStream){
-                                writer.flush();
-                            }
-                            s = i.read(buffer);
+                    try {
+                        writeChunks(i, os, writer);
+                    } finally {
+                        // (when passed by stream, leave for caller to clean up).
+                        if (!(value instanceof InputStream)) {
+                                Util.cleanup(i);
+                        }
                     }
-                    // (when passed by stream, leave for caller to clean up).
-                    if (!(value instanceof InputStream)) {
-                            Util.cleanup(i);
+                    
+                    // sources are reopened so they are kept for a retry
+                    if (!(value instanceof StreamSource)) {
+                        args.remove(key);
                     }
-                    args.remove(key);
                     value = null;
                     if(canFlushStream){
                         writer.flush();
@@ -381,6 +412,55 @@ public class MultipartRequest extends ConnectionRequest {
         writer.close();
     }
 
+    private void writeChunks(InputStream i, OutputStream os, Writer writer) throws IOException {
+        if(chunkBuffer == null || chunkBuffer.length != chunkSize) {
+            chunkBuffer = new byte[chunkSize];
+        }
+        
+        // buffered network streams report progress on their own, other streams are reported here
+        boolean reportProgress = !(os instanceof BufferedOutputStream) && 
+                NetworkManager.getInstance().hasProgressListeners();
+        int s = i.read(chunkBuffer);
+        while(s > -1) {
+            if (shouldStop()) {
+                break;
+            }
+            os.write(chunkBuffer, 0, s);
+            if(canFlushStream){
+                writer.flush();
+            }
+            if(reportProgress) {
+                sentBytes += s;
+                NetworkManager.getInstance().fireProgressEvent(this, NetworkEvent.PROGRESS_TYPE_OUTPUT, 
+                        getContentLength(), (int)sentBytes);
+            }
+            s = i.read(chunkBuffer);
+        }
+    }
+
+    /**
+     * Sets the size of the buffer used to stream binary parts to the connection, the same buffer is
+     * reused for all the parts. For large uploads this is best combined with 
+     * {@link #setChunkedStreamingMode(int)} so the platform doesn't buffer the whole body
+     * 
+     * @param chunkSize the size of the chunk in bytes
+     */
+    public void setChunkSize(int chunkSize) {
+        if(chunkSize < 1) {
+            throw new IllegalArgumentException("Illegal chunk size: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Returns the size of the buffer used to stream binary parts to the connection
+     * 
+     * @return the size of the chunk in bytes
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
     /* (non-Javadoc)
      * @see com.codename1.io.ConnectionRequest#getContentLength()
      */
@@ -421,4 +501,24 @@ public class MultipartRequest extends ConnectionRequest {
     public static void setCanFlushStream(boolean flush){
         canFlushStream = flush;
     }
-}
\ No newline at end of file
+
+    /**
+     * A part whose content is opened from the file system or storage only when it is sent
+     */
+    static class StreamSource {
+        private final String name;
+        private final boolean storage;
+
+        StreamSource(String name, boolean storage) {
+            this.name = name;
+            this.storage = storage;
+        }
+
+        InputStream open() throws IOException {
+            if(storage) {
+                return Storage.getInstance().createInputStream(name);
+            }
+            return FileSystemStorage.getInstance().openInputStream(name);
+        }
+    }
+}
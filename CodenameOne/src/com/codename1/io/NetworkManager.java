@@ -110,6 +110,7 @@ public class NetworkManager {
     private Hashtable threadAssignements = new Hashtable();
     private Hashtable userHeaders;
     private boolean autoDetected;
+    private HttpCache httpCache;
     private static String autoDetectURL = "https://www.google.com/";
     
     private NetworkManager() {
@@ -288,6 +289,10 @@ public class NetworkManager {
                         } else {
                             // for the record
                             e.printStackTrace();
+
+                            // the global error listeners aren't notified but the request still needs to know it
+                            // failed, the default handleException only records the failure in this case
+                            currentRequest.handleIOException(e);
                         }
                     } catch(RuntimeException er) {
                         if(!currentRequest.isFailSilently()) {
@@ -297,6 +302,7 @@ public class NetworkManager {
                         } else {
                             // for the record
                             er.printStackTrace();
+                            currentRequest.handleRuntimeException(er);
                         }
                     } finally {
                         Thread.currentThread().setPriority(Thread.NORM_PRIORITY);
@@ -580,19 +586,24 @@ public class NetworkManager {
     public void addToQueueAndWait(final ConnectionRequest request) {
         class WaitingClass implements Runnable, ActionListener<NetworkEvent> {
             private boolean finishedWaiting;
-            public void run() {
+            public synchronized void run() {
                 while(!finishedWaiting) {
                     try {
-                        Thread.sleep(30);
+                        wait();
                     } catch (InterruptedException ex) {
                         ex.printStackTrace();
                     }
                 }
             }
 
+            private synchronized void finish() {
+                finishedWaiting = true;
+                notifyAll();
+            }
+
             public void actionPerformed(NetworkEvent e) {
                 if(e.getError() != null) {
-                    finishedWaiting = true;
+                    finish();
                     removeProgressListener(this);
                     removeErrorListener(this);
                     return;
@@ -603,7 +614,7 @@ public class NetworkManager {
                             request.retrying = false;
                             return;
                         }
-                        finishedWaiting = true;
+                        finish();
                         removeProgressListener(this);
                         removeErrorListener(this);
                         return;
@@ -737,6 +748,25 @@ public class NetworkManager {
         }
     }
 
+    /**
+     * Installs a persistent HTTP cache that stores the responses of GET requests and revalidates them
+     * using the caching headers of the server, see {@link HttpCache}. The cache is off by default.
+     *
+     * @param httpCache the cache or null to disable HTTP caching
+     */
+    public void setHttpCache(HttpCache httpCache) {
+        this.httpCache = httpCache;
+    }
+
+    /**
+     * Returns the HTTP cache installed with {@link #setHttpCache(com.codename1.io.HttpCache)}
+     *
+     * @return the cache or null
+     */
+    public HttpCache getHttpCache() {
+        return httpCache;
+    }
+
     /**
      * Sets the timeout in milliseconds for network connections, a timeout may be "faked"
      * for platforms that don't support the notion of a timeout such as MIDP
@@ -0,0 +1,471 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *  
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Codename One through http://www.codenameone.com/ if you 
+ * need additional information or have any questions.
+ */
+package com.codename1.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Enumeration;
+import java.util.Hashtable;
+
+/**
+ * <p>Uploads a large file in fixed size chunks using the offset-query/append protocol defined by
+ * <a href="https://tus.io/protocols/resumable-upload.html">tus</a>. The server is first asked for the
+ * amount of data it already holds, the remaining data is then appended chunk by chunk, so a failure
+ * late in a large upload only resends the chunk that failed rather than restarting from zero.</p>
+ *
+ * <p>The file is streamed straight from {@link FileSystemStorage} or {@link Storage} through a single
+ * reused buffer, progress is reported to the {@link NetworkManager} progress listeners relative to the
+ * whole file. The upload URL returned by the server can be persisted with {@link #getUploadUrl()} and
+ * restored with {@link #setUploadUrl(java.lang.String)} to resume an upload after the application restarts.</p>
+ *
+ * <p>Since not all platforms allow the PATCH method the chunks are sent as a POST with an
+ * {@code X-HTTP-Method-Override} header by default, this can be disabled with
+ * {@link #setMethodOverride(boolean)}.</p>
+ *
+ * @author Shai Almog
+ */
+public class ResumableUpload {
+    /**
+     * The version of the protocol sent in the Tus-Resumable header
+     */
+    public static final String PROTOCOL_VERSION = "1.0.0";
+
+    private static final int TYPE_CREATE = 0;
+    private static final int TYPE_OFFSET = 1;
+    private static final int TYPE_APPEND = 2;
+
+    private final String endpoint;
+    private final String source;
+    private final boolean storage;
+    private String uploadUrl;
+    private long length = -1;
+    private long offset;
+    private int chunkSize = 1024 * 1024;
+    private int maxRetries = 3;
+    private boolean methodOverride = true;
+    private Hashtable headers;
+    private byte[] buffer;
+    private boolean cancelled;
+    private Step current;
+
+    private ResumableUpload(String endpoint, String source, boolean storage) {
+        this.endpoint = endpoint;
+        this.source = source;
+        this.storage = storage;
+    }
+
+    /**
+     * Creates an upload of a file from the {@link FileSystemStorage}
+     *
+     * @param endpoint the URL on which new uploads are created, can be null if {@link #setUploadUrl(java.lang.String)} is used
+     * @param filePath the path of the file to upload
+     * @return the upload instance
+     */
+    public static ResumableUpload createFileUpload(String endpoint, String filePath) {
+        return new ResumableUpload(endpoint, filePath, false);
+    }
+
+    /**
+     * Creates an upload of an entry in {@link Storage}
+     *
+     * @param endpoint the URL on which new uploads are created, can be null if {@link #setUploadUrl(java.lang.String)} is used
+     * @param storageName the name of the storage entry
+     * @return the upload instance
+     */
+    public static ResumableUpload createStorageUpload(String endpoint, String storageName) {
+        return new ResumableUpload(endpoint, storageName, true);
+    }
+
+    /**
+     * Adds a header that is sent with every request of this upload e.g. for authorization
+     *
+     * @param key the header name
+     * @param value the header value
+     */
+    public void addRequestHeader(String key, String value) {
+        if(headers == null) {
+            headers = new Hashtable();
+        }
+        headers.put(key, value);
+    }
+
+    /**
+     * Performs the upload, this method blocks until the upload completes, fails or is cancelled.
+     * Like {@link NetworkManager#addToQueueAndWait(com.codename1.io.ConnectionRequest)} it can be
+     * invoked on the EDT. Failed requests are retried after querying the server for its offset
+     *
+     * @return true if the whole file was uploaded, false if the upload was cancelled
+     * @throws IOException if the upload failed more than the allowed number of retries
+     */
+    public boolean upload() throws IOException {
+        cancelled = false;
+        length = sourceLength();
+        boolean queryOffset = true;
+        int failures = 0;
+        while(!cancelled) {
+            try {
+                if(uploadUrl == null) {
+                    create();
+                    offset = 0;
+                    queryOffset = false;
+                } else if(queryOffset) {
+                    offset = queryOffset();
+                    queryOffset = false;
+                }
+                if(offset >= length) {
+                    return true;
+                }
+                offset = append(offset);
+                failures = 0;
+            } catch(IOException err) {
+                if(cancelled) {
+                    break;
+                }
+                failures++;
+                if(failures > maxRetries) {
+                    throw err;
+                }
+                queryOffset = true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Stops the upload, the upload URL is retained so the upload can be resumed later
+     */
+    public void cancel() {
+        cancelled = true;
+        Step s = current;
+        if(s != null) {
+            s.kill();
+        }
+    }
+
+    private long sourceLength() throws IOException {
+        if(storage) {
+            if(!Storage.getInstance().exists(source)) {
+                throw new IOException("Storage entry not found: " + source);
+            }
+            return Storage.getInstance().entrySize(source);
+        }
+        if(!FileSystemStorage.getInstance().exists(source)) {
+            throw new IOException("File not found: " + source);
+        }
+        return FileSystemStorage.getInstance().getLength(source);
+    }
+
+    private void create() throws IOException {
+        if(endpoint == null) {
+            throw new IOException("No upload URL and no endpoint to create one");
+        }
+        Step s = new Step(TYPE_CREATE, endpoint);
+        s.addRequestHeader("Upload-Length", Long.toString(length));
+        execute(s);
+        if(s.location == null) {
+            throw new IOException("Server didn't return an upload location");
+        }
+        if(s.location.startsWith("http://") || s.location.startsWith("https://")) {
+            uploadUrl = s.location;
+        } else {
+            uploadUrl = Util.relativeToAbsolute(endpoint, s.location);
+        }
+    }
+
+    private long queryOffset() throws IOException {
+        Step s = new Step(TYPE_OFFSET, uploadUrl);
+        s.addRequestHeader("Cache-Control", "no-store");
+        try {
+            execute(s);
+        } catch(IOException err) {
+            // the server discarded the upload, start over if we can
+            if(endpoint != null && (s.code == 404 || s.code == 410)) {
+                uploadUrl = null;
+            }
+            throw err;
+        }
+        return parseOffset(s);
+    }
+
+    private long append(long from) throws IOException {
+        Step s = new Step(TYPE_APPEND, uploadUrl);
+        s.chunkOffset = from;
+        s.chunkLength = (int)Math.min(chunkSize, length - from);
+        s.addRequestHeader("Upload-Offset", Long.toString(from));
+        s.addRequestHeader("Content-Length", Integer.toString(s.chunkLength));
+        execute(s);
+        long o = parseOffset(s);
+        if(o <= from) {
+            throw new IOException("Server didn't accept the chunk at offset " + from);
+        }
+        return o;
+    }
+
+    private long parseOffset(Step s) throws IOException {
+        if(s.newOffset == null) {
+            throw new IOException("Server didn't return an Upload-Offset header");
+        }
+        try {
+            return Long.parseLong(s.newOffset.trim());
+        } catch(NumberFormatException err) {
+            throw new IOException("Illegal Upload-Offset: " + s.newOffset);
+        }
+    }
+
+    private void execute(Step s) throws IOException {
+        s.addRequestHeader("Tus-Resumable", PROTOCOL_VERSION);
+        if(headers != null) {
+            Enumeration e = headers.keys();
+            while(e.hasMoreElements()) {
+                String k = (String)e.nextElement();
+                s.addRequestHeader(k, (String)headers.get(k));
+            }
+        }
+        current = s;
+        try {
+            NetworkManager.getInstance().addToQueueAndWait(s);
+        } finally {
+            current = null;
+        }
+        if(cancelled) {
+            throw new IOException("Upload cancelled");
+        }
+        if(s.error != null) {
+            if(s.error instanceof IOException) {
+                throw (IOException)s.error;
+            }
+            throw new IOException(s.error.toString());
+        }
+        if(s.code != 0) {
+            throw new IOException("Server returned error code: " + s.code);
+        }
+    }
+
+    void writeChunk(Step s, OutputStream os) throws IOException {
+        if(buffer == null || buffer.length != Math.min(chunkSize, 65536)) {
+            buffer = new byte[Math.min(chunkSize, 65536)];
+        }
+        boolean reportProgress = !(os instanceof BufferedOutputStream) &&
+                NetworkManager.getInstance().hasProgressListeners();
+        InputStream i;
+        if(storage) {
+            i = Storage.getInstance().createInputStream(source);
+        } else {
+            i = FileSystemStorage.getInstance().openInputStream(source);
+        }
+        try {
+            skipFully(i, s.chunkOffset);
+            int remaining = s.chunkLength;
+            while(remaining > 0 && !cancelled) {
+                int r = i.read(buffer, 0, Math.min(buffer.length, remaining));
+                if(r < 0) {
+                    throw new IOException("Source ended before the expected length");
+                }
+                os.write(buffer, 0, r);
+                remaining -= r;
+                if(reportProgress) {
+                    fireProgress(s, s.chunkLength - remaining);
+                }
+            }
+        } finally {
+            Util.cleanup(i);
+        }
+    }
+
+    void fireProgress(Step s, int sentInChunk) {
+        NetworkManager.getInstance().fireProgressEvent(s, NetworkEvent.PROGRESS_TYPE_OUTPUT,
+                (int)length, (int)(s.chunkOffset + sentInChunk));
+    }
+
+    private void skipFully(InputStream i, long amount) throws IOException {
+        while(amount > 0) {
+            long s = i.skip(amount);
+            if(s <= 0) {
+                // some streams don't support skip, fallback to reading
+                s = i.read(buffer, 0, (int)Math.min(buffer.length, amount));
+                if(s < 0) {
+                    throw new IOException("Source is shorter than the upload offset");
+                }
+            }
+            amount -= s;
+        }
+    }
+
+    /**
+     * Returns the URL of the upload on the server, this can be persisted to resume the upload later
+     *
+     * @return the upload URL or null if the upload wasn't created yet
+     */
+    public String getUploadUrl() {
+        return uploadUrl;
+    }
+
+    /**
+     * Sets the URL of an existing upload on the server, the upload would resume from the offset the
+     * server reports for this URL
+     *
+     * @param uploadUrl the upload URL
+     */
+    public void setUploadUrl(String uploadUrl) {
+        this.uploadUrl = uploadUrl;
+    }
+
+    /**
+     * Returns the amount of bytes the server acknowledged so far
+     *
+     * @return the offset in bytes
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Returns the length of the uploaded file, this is only known once the upload started
+     *
+     * @return the length in bytes or -1
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * The amount of data sent in a single request, a failure resends at most this amount of data
+     *
+     * @return the chunk size in bytes
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * The amount of data sent in a single request, a failure resends at most this amount of data
+     *
+     * @param chunkSize the chunk size in bytes
+     */
+    public void setChunkSize(int chunkSize) {
+        if(chunkSize < 1) {
+            throw new IllegalArgumentException("Illegal chunk size: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * The number of consecutive failed requests tolerated before the upload fails
+     *
+     * @return the number of retries
+     */
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * The number of consecutive failed requests tolerated before the upload fails
+     *
+     * @param maxRetries the number of retries
+     */
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    /**
+     * Indicates whether chunks are sent as a POST with an X-HTTP-Method-Override header instead of a PATCH
+     *
+     * @return true by default
+     */
+    public boolean isMethodOverride() {
+        return methodOverride;
+    }
+
+    /**
+     * Indicates whether chunks are sent as a POST with an X-HTTP-Method-Override header instead of a PATCH
+     *
+     * @param methodOverride false to send a PATCH request
+     */
+    public void setMethodOverride(boolean methodOverride) {
+        this.methodOverride = methodOverride;
+    }
+
+    class Step extends ConnectionRequest {
+        private final int type;
+        long chunkOffset;
+        int chunkLength;
+        String location;
+        String newOffset;
+        int code;
+        Exception error;
+
+        Step(int type, String url) {
+            this.type = type;
+            setUrl(url);
+            setFailSilently(true);
+            setDuplicateSupported(true);
+            switch(type) {
+                case TYPE_CREATE:
+                    setPost(true);
+                    break;
+                case TYPE_OFFSET:
+                    setPost(false);
+                    setHttpMethod("HEAD");
+                    break;
+                default:
+                    setPost(true);
+                    setContentType("application/offset+octet-stream");
+                    if(methodOverride) {
+                        addRequestHeader("X-HTTP-Method-Override", "PATCH");
+                    } else {
+                        setHttpMethod("PATCH");
+                    }
+                    break;
+            }
+        }
+
+        protected void buildRequestBody(OutputStream os) throws IOException {
+            if(type == TYPE_APPEND) {
+                writeChunk(this, os);
+            }
+        }
+
+        protected void readHeaders(Object connection) throws IOException {
+            location = getHeader(connection, "Location");
+            newOffset = getHeader(connection, "Upload-Offset");
+        }
+
+        protected void handleErrorResponseCode(int code, String message) {
+            this.code = code;
+        }
+
+        protected void handleException(Exception err) {
+            error = err;
+        }
+
+        protected void readResponse(InputStream input) throws IOException {
+        }
+
+        public void ioStreamUpdate(Object source, int bytes) {
+            if(!isKilled() && type == TYPE_APPEND) {
+                fireProgress(this, bytes);
+            }
+        }
+    }
+}
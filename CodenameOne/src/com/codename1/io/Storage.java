@@ -50,6 +50,7 @@ public class Storage {
     private final CacheMap cache = new CacheMap();
     private static Storage INSTANCE;
     private boolean normalizeNames = true;
+    private boolean compactObjectFormat = true;
 
     /**
      * Indicates the caching size, storage can be pretty slow
@@ -219,7 +220,7 @@ public class Storage {
         DataOutputStream d = null;
         try {
             d = new DataOutputStream(createOutputStream(name));
-            Util.writeObject(o, d);
+            Util.writeObject(o, d, compactObjectFormat);
             d.close();
             return true;
         } catch(Exception err) {
@@ -281,4 +282,26 @@ public class Storage {
     public void setNormalizeNames(boolean normalizeNames) {
         this.normalizeNames = normalizeNames;
     }
+
+    /**
+     * Indicates whether {@link #writeObject(java.lang.String, java.lang.Object)} uses the compact object
+     * format, objects written in either format can be read by {@link #readObject(java.lang.String)}
+     *
+     * @return the compactObjectFormat
+     * @see Util#writeObject(java.lang.Object, java.io.DataOutputStream, boolean)
+     */
+    public boolean isCompactObjectFormat() {
+        return compactObjectFormat;
+    }
+
+    /**
+     * Indicates whether {@link #writeObject(java.lang.String, java.lang.Object)} uses the compact object
+     * format, this defaults to true. Disable it if the storage files must remain readable by builds of the
+     * application that predate the compact format.
+     *
+     * @param compactObjectFormat the compactObjectFormat to set
+     */
+    public void setCompactObjectFormat(boolean compactObjectFormat) {
+        this.compactObjectFormat = compactObjectFormat;
+    }
 }
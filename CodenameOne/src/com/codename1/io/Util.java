@@ -226,6 +226,32 @@ public class Util {
      * @throws IOException thrown by the stream
      */
     public static void writeObject(Object o, DataOutputStream out) throws IOException {
+        if(CompactObjectFormat.isWriting(out)) {
+            // nested call from an externalizable object written in the compact format
+            CompactObjectFormat.write(o, out);
+            return;
+        }
+        writeObject(o, out, false);
+    }
+
+    /**
+     * <p>Writes an object to the given output stream in either the original format or the compact format. The
+     * compact format uses one byte type codes, variable length sizes, writes every string once per stream and
+     * writes primitive arrays as a single block so it is considerably smaller and faster for large collections.
+     * {@link #readObject(java.io.DataInputStream)} detects the format automatically but versions of Codename One
+     * that predate the compact format can't read it, so it shouldn't be used for data sent to a server
+     * or to older builds of the application.</p>
+     *
+     * @param o the object to write which can be null
+     * @param out the destination output stream
+     * @param compact true to use the compact format
+     * @throws IOException thrown by the stream
+     */
+    public static void writeObject(Object o, DataOutputStream out, boolean compact) throws IOException {
+        if(compact && o != null) {
+            CompactObjectFormat.write(o, out);
+            return;
+        }
         if(o == null) {
             out.writeBoolean(false);
             return;
@@ -528,146 +554,157 @@ public class Util {
      * @throws IOException thrown by the stream
      */
     public static Object readObject(DataInputStream input) throws IOException {
-        try {
-            if (!input.readBoolean()) {
-                return null;
-            }
-            String type = input.readUTF();
-            if ("int".equals(type)) {
-                return new Integer(input.readInt());
-            }
-            if ("byte".equals(type)) {
-                return new Byte(input.readByte());
-            }
-            if ("short".equals(type)) {
-                return new Short(input.readShort());
-            }
-            if ("long".equals(type)) {
-                return new Long(input.readLong());
-            }
-            if ("float".equals(type)) {
-                return new Float(input.readFloat());
-            }
-            if ("double".equals(type)) {
-                return new Double(input.readDouble());
-            }
-            if ("bool".equals(type)) {
-                return new Boolean(input.readBoolean());
-            }
-            if ("String".equals(type)) {
-                return input.readUTF();
-            }
-            if ("Date".equals(type)) {
-                return new Date(input.readLong());
-            }
+        int header = input.readUnsignedByte();
+        if(header == 0) {
+            return null;
+        }
+        if(header == CompactObjectFormat.MARKER) {
+            return CompactObjectFormat.read(input);
+        }
+        String type = input.readUTF();
+        if ("int".equals(type)) {
+            return new Integer(input.readInt());
+        }
+        if ("byte".equals(type)) {
+            return new Byte(input.readByte());
+        }
+        if ("short".equals(type)) {
+            return new Short(input.readShort());
+        }
+        if ("long".equals(type)) {
+            return new Long(input.readLong());
+        }
+        if ("float".equals(type)) {
+            return new Float(input.readFloat());
+        }
+        if ("double".equals(type)) {
+            return new Double(input.readDouble());
+        }
+        if ("bool".equals(type)) {
+            return new Boolean(input.readBoolean());
+        }
+        if ("String".equals(type)) {
+            return input.readUTF();
+        }
+        if ("Date".equals(type)) {
+            return new Date(input.readLong());
+        }
 
-            if ("ObjectArray".equals(type)) {
-                Object[] v = new Object[input.readInt()];
-                int vlen = v.length;
-                for (int iter = 0; iter < vlen; iter++) {
-                    v[iter] = readObject(input);
-                }
-                return v;
-            }
-            if ("ByteArray".equals(type)) {
-                byte[] v = new byte[input.readInt()];
-                input.readFully(v);
-                return v;
-            }
-            if ("LongArray".equals(type)) {
-                long[] v = new long[input.readInt()];
-                int vlen = v.length;
-                for (int iter = 0; iter < vlen; iter++) {
-                    v[iter] = input.readLong();
-                }
-                return v;
-            }
-            if ("ShortArray".equals(type)) {
-                short[] v = new short[input.readInt()];
-                int vlen = v.length;
-                for (int iter = 0; iter < vlen; iter++) {
-                    v[iter] = input.readShort();
-                }
-                return v;
+        if ("ObjectArray".equals(type)) {
+            Object[] v = new Object[input.readInt()];
+            int vlen = v.length;
+            for (int iter = 0; iter < vlen; iter++) {
+                v[iter] = readObject(input);
             }
-            if ("DoubleArray".equals(type)) {
-                double[] v = new double[input.readInt()];
-                int vlen = v.length;
-                for (int iter = 0; iter < vlen; iter++) {
-                    v[iter] = input.readDouble();
-                }
-                return v;
+            return v;
+        }
+        if ("ByteArray".equals(type)) {
+            byte[] v = new byte[input.readInt()];
+            input.readFully(v);
+            return v;
+        }
+        if ("LongArray".equals(type)) {
+            long[] v = new long[input.readInt()];
+            int vlen = v.length;
+            for (int iter = 0; iter < vlen; iter++) {
+                v[iter] = input.readLong();
             }
-            if ("FloatArray".equals(type)) {
-                float[] v = new float[input.readInt()];
-                int vlen = v.length;
-                for (int iter = 0; iter < vlen; iter++) {
-                    v[iter] = input.readFloat();
-                }
-                return v;
+            return v;
+        }
+        if ("ShortArray".equals(type)) {
+            short[] v = new short[input.readInt()];
+            int vlen = v.length;
+            for (int iter = 0; iter < vlen; iter++) {
+                v[iter] = input.readShort();
             }
-            if ("IntArray".equals(type)) {
-                int[] v = new int[input.readInt()];
-                int vlen = v.length;
-                for (int iter = 0; iter < vlen; iter++) {
-                    v[iter] = input.readInt();
-                }
-                return v;
+            return v;
+        }
+        if ("DoubleArray".equals(type)) {
+            double[] v = new double[input.readInt()];
+            int vlen = v.length;
+            for (int iter = 0; iter < vlen; iter++) {
+                v[iter] = input.readDouble();
             }
-            if ("java.util.Vector".equals(type)) {
-                Vector v = new Vector();
-                int size = input.readInt();
-                for (int iter = 0; iter < size; iter++) {
-                    v.addElement(readObject(input));
-                }
-                return v;
+            return v;
+        }
+        if ("FloatArray".equals(type)) {
+            float[] v = new float[input.readInt()];
+            int vlen = v.length;
+            for (int iter = 0; iter < vlen; iter++) {
+                v[iter] = input.readFloat();
             }
-            if ("java.util.Hashtable".equals(type)) {
-                Hashtable v = new Hashtable();
-                int size = input.readInt();
-                for(int iter = 0 ; iter < size ; iter++) {
-                    v.put(readObject(input), readObject(input));
-                }
-                return v;
+            return v;
+        }
+        if ("IntArray".equals(type)) {
+            int[] v = new int[input.readInt()];
+            int vlen = v.length;
+            for (int iter = 0; iter < vlen; iter++) {
+                v[iter] = input.readInt();
             }
-            if ("java.util.Collection".equals(type)) {
-                Collection v = new ArrayList();
-                int size = input.readInt();
-                for (int iter = 0; iter < size; iter++) {
-                    v.add(readObject(input));
-                }
-                return v;
+            return v;
+        }
+        if ("java.util.Vector".equals(type)) {
+            Vector v = new Vector();
+            int size = input.readInt();
+            for (int iter = 0; iter < size; iter++) {
+                v.addElement(readObject(input));
             }
-            if ("java.util.Map".equals(type)) {
-                Map v = new HashMap();
-                int size = input.readInt();
-                for(int iter = 0 ; iter < size ; iter++) {
-                    v.put(readObject(input), readObject(input));
-                }
-                return v;
+            return v;
+        }
+        if ("java.util.Hashtable".equals(type)) {
+            Hashtable v = new Hashtable();
+            int size = input.readInt();
+            for(int iter = 0 ; iter < size ; iter++) {
+                v.put(readObject(input), readObject(input));
             }
-            if ("EncodedImage".equals(type)) {
-                int width = input.readInt();
-                int height = input.readInt();
-                boolean op = input.readBoolean();
-                byte[] data = new byte[input.readInt()];
-                input.readFully(data);
-                return EncodedImage.create(data, width, height, op);
+            return v;
+        }
+        if ("java.util.Collection".equals(type)) {
+            Collection v = new ArrayList();
+            int size = input.readInt();
+            for (int iter = 0; iter < size; iter++) {
+                v.add(readObject(input));
             }
-            Class cls = (Class) externalizables.get(type);
-            if (cls != null) {
-                Externalizable ex = (Externalizable) cls.newInstance();
-                ex.internalize(input.readInt(), input);
-                return ex;
+            return v;
+        }
+        if ("java.util.Map".equals(type)) {
+            Map v = new HashMap();
+            int size = input.readInt();
+            for(int iter = 0 ; iter < size ; iter++) {
+                v.put(readObject(input), readObject(input));
             }
-            throw new IOException("Object type not supported: " + type);
+            return v;
+        }
+        if ("EncodedImage".equals(type)) {
+            int width = input.readInt();
+            int height = input.readInt();
+            boolean op = input.readBoolean();
+            byte[] data = new byte[input.readInt()];
+            input.readFully(data);
+            return EncodedImage.create(data, width, height, op);
+        }
+        return internalize(type, input.readInt(), input);
+    }
+
+    /**
+     * Creates the registered externalizable with the given id and reads its state from the stream
+     */
+    static Object internalize(String id, int version, DataInputStream input) throws IOException {
+        Class cls = (Class) externalizables.get(id);
+        if (cls == null) {
+            throw new IOException("Object type not supported: " + id);
+        }
+        try {
+            Externalizable ex = (Externalizable) cls.newInstance();
+            ex.internalize(version, input);
+            return ex;
         } catch (InstantiationException ex1) {
             ex1.printStackTrace();
             throw new IOException(ex1.getClass().getName() + ": " + ex1.getMessage());
         } catch (IllegalAccessException ex1) {
             ex1.printStackTrace();
             throw new IOException(ex1.getClass().getName() + ": " + ex1.getMessage());
-        } 
+        }
     }
 
     /**
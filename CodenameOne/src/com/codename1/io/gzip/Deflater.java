@@ -142,6 +142,11 @@ final public class Deflater extends ZStream{
       finished = true;
     return ret;
   }
+  public int reset(){
+    finished = false;
+    if(dstate==null) return Z_STREAM_ERROR;
+    return dstate.deflateReset();
+  }
   public int end(){
     finished = true;
     if(dstate==null) return Z_STREAM_ERROR;
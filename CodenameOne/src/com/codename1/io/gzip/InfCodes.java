@@ -320,11 +320,20 @@ final class InfCodes{
 	    }
 	  }
 
-	  s.window[q++]=s.window[f++]; m--;
+	  // bulk copy runs that neither overlap nor wrap, a distance
+	  // shorter than the length has to be replicated byte by byte
+	  j=len; if(j>m) j=m; if(j>s.end-f) j=s.end-f;
+	  if(j>1 && (f+j<=q || q+j<=f)){
+	    System.arraycopy(s.window, f, s.window, q, j);
+	    q+=j; f+=j; m-=j; len-=j;
+	  }
+	  else{
+	    s.window[q++]=s.window[f++]; m--;
+	    len--;
+	  }
 
 	  if (f == s.end)
             f = 0;
-	  len--;
 	}
 	mode = START;
 	break;
@@ -0,0 +1,433 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *  
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Codename One through http://www.codenameone.com/ if you 
+ * need additional information or have any questions.
+ */
+package com.codename1.io.gzip;
+
+import com.codename1.ui.Display;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Vector;
+
+/**
+ * <p>A gzip output stream that splits the data into independent blocks and compresses them on several
+ * worker threads at once, in the spirit of pigz. Every block is compressed as a raw deflate stream that ends
+ * with a sync flush so the blocks can be concatenated into a single valid gzip member, the CRC32 values
+ * of the blocks are combined into the trailer without another pass over the data.</p>
+ * <p>Since blocks don't share a dictionary the output is slightly larger than that of {@link GZIPOutputStream},
+ * in exchange compression of large payloads (logs, sync data) scales with the number of cores. The output
+ * is a standard gzip stream and can be read by {@link GZIPInputStream} or any other gzip implementation.</p>
+ * <p>Workers are created with {@link Display#startThread(java.lang.Runnable, java.lang.String)} when
+ * Codename One is initialized, they are only started once the first block is ready and exit when the stream
+ * is closed. A thread count of 1 compresses inline on the writing thread.</p>
+ *
+ * @author Shai Almog
+ */
+public class ParallelGZIPOutputStream extends OutputStream {
+    /**
+     * The default size of a block, large enough for the deflate window to be irrelevant to the ratio
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 128 * 1024;
+
+    private static int defaultThreadCount = 2;
+
+    private final OutputStream out;
+    private final int level;
+    private final int blockSize;
+    private final int threadCount;
+
+    private byte[] buffer;
+    private int bufferLength;
+    private long crc;
+    private long totalLength;
+    private boolean headerWritten;
+    private boolean finished;
+    private boolean closed;
+
+    private final Vector pending = new Vector();
+    private final Vector queue = new Vector();
+    private final Vector freeBuffers = new Vector();
+    private Thread[] workers;
+    private Deflater inlineDeflater;
+    private IOException error;
+
+    /**
+     * Creates a parallel gzip stream with the default compression level, block size and thread count
+     *
+     * @param out the destination stream
+     */
+    public ParallelGZIPOutputStream(OutputStream out) {
+        this(out, JZlib.Z_DEFAULT_COMPRESSION, DEFAULT_BLOCK_SIZE, defaultThreadCount);
+    }
+
+    /**
+     * Creates a parallel gzip stream
+     *
+     * @param out the destination stream
+     * @param level the compression level 0-9 or {@code JZlib.Z_DEFAULT_COMPRESSION}
+     * @param blockSize the amount of uncompressed data handed to a worker at once
+     * @param threadCount the number of worker threads, 1 or less compresses on the calling thread
+     */
+    public ParallelGZIPOutputStream(OutputStream out, int level, int blockSize, int threadCount) {
+        if(out == null) {
+            throw new NullPointerException();
+        }
+        if(blockSize < 1024) {
+            throw new IllegalArgumentException("Block size too small: " + blockSize);
+        }
+        this.out = out;
+        this.level = level;
+        this.blockSize = blockSize;
+        this.threadCount = Math.max(1, threadCount);
+        crc = 0;
+    }
+
+    /**
+     * Sets the number of worker threads used by streams created with the default constructor
+     *
+     * @param count the number of threads
+     */
+    public static void setDefaultThreadCount(int count) {
+        defaultThreadCount = Math.max(1, count);
+    }
+
+    /**
+     * Returns the number of worker threads used by streams created with the default constructor
+     *
+     * @return the number of threads
+     */
+    public static int getDefaultThreadCount() {
+        return defaultThreadCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void write(int b) throws IOException {
+        ensureOpen();
+        if(buffer == null) {
+            buffer = allocateBuffer();
+        }
+        buffer[bufferLength++] = (byte)b;
+        if(bufferLength == blockSize) {
+            submit(false);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        while(len > 0) {
+            if(buffer == null) {
+                buffer = allocateBuffer();
+            }
+            int c = Math.min(len, blockSize - bufferLength);
+            System.arraycopy(b, off, buffer, bufferLength, c);
+            bufferLength += c;
+            off += c;
+            len -= c;
+            if(bufferLength == blockSize) {
+                submit(false);
+            }
+        }
+    }
+
+    /**
+     * Compresses all the data written so far and flushes it to the underlying stream, this ends the current
+     * block early so frequent flushing reduces both the compression ratio and the parallelism
+     */
+    public void flush() throws IOException {
+        ensureOpen();
+        if(bufferLength > 0) {
+            submit(false);
+        }
+        drain(0);
+        out.flush();
+    }
+
+    /**
+     * Writes the remaining data and the gzip trailer without closing the underlying stream
+     */
+    public void finish() throws IOException {
+        if(finished) {
+            return;
+        }
+        ensureOpen();
+        try {
+            submit(true);
+            drain(0);
+            int c = (int)crc;
+            int len = (int)totalLength;
+            out.write(new byte[] {
+                (byte)c, (byte)(c >> 8), (byte)(c >> 16), (byte)(c >> 24),
+                (byte)len, (byte)(len >> 8), (byte)(len >> 16), (byte)(len >> 24)
+            });
+            finished = true;
+        } finally {
+            stopWorkers();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void close() throws IOException {
+        if(closed) {
+            return;
+        }
+        try {
+            finish();
+        } finally {
+            closed = true;
+            stopWorkers();
+            out.close();
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if(closed || finished) {
+            throw new IOException("Stream closed");
+        }
+        if(error != null) {
+            throw error;
+        }
+    }
+
+    private byte[] allocateBuffer() {
+        synchronized(freeBuffers) {
+            int s = freeBuffers.size();
+            if(s > 0) {
+                byte[] b = (byte[])freeBuffers.elementAt(s - 1);
+                freeBuffers.removeElementAt(s - 1);
+                return b;
+            }
+        }
+        return new byte[blockSize];
+    }
+
+    private void writeHeader() throws IOException {
+        int xfl = 0;
+        if(level == 9) {
+            xfl = 2;
+        } else if(level == 1) {
+            xfl = 4;
+        }
+        // magic, deflate, no flags, no mtime, extra flags, unknown os
+        out.write(new byte[] {(byte)0x1f, (byte)0x8b, 8, 0, 0, 0, 0, 0, (byte)xfl, (byte)255});
+        headerWritten = true;
+    }
+
+    private void submit(boolean last) throws IOException {
+        if(!headerWritten) {
+            writeHeader();
+        }
+        Block b = new Block();
+        b.input = buffer;
+        b.length = bufferLength;
+        b.last = last;
+        buffer = null;
+        bufferLength = 0;
+        if(threadCount == 1) {
+            if(inlineDeflater == null) {
+                inlineDeflater = createDeflater();
+            }
+            b.compress(inlineDeflater);
+            writeBlock(b);
+            return;
+        }
+        startWorkers();
+        pending.addElement(b);
+        synchronized(queue) {
+            queue.addElement(b);
+            queue.notify();
+        }
+
+        // bound the amount of memory held by blocks that were compressed but not yet written
+        drain(threadCount * 2);
+    }
+
+    private void drain(int maxPending) throws IOException {
+        while(pending.size() > maxPending) {
+            Block b = (Block)pending.elementAt(0);
+            synchronized(b) {
+                while(!b.done) {
+                    try {
+                        b.wait();
+                    } catch(InterruptedException err) {
+                        throw new IOException("Interrupted while compressing");
+                    }
+                }
+            }
+            pending.removeElementAt(0);
+            writeBlock(b);
+        }
+    }
+
+    private void writeBlock(Block b) throws IOException {
+        if(b.error != null) {
+            error = b.error;
+            throw error;
+        }
+        out.write(b.output, 0, b.outputLength);
+        crc = CRC32.combine(crc, b.crc, b.length);
+        totalLength += b.length;
+        if(b.input != null && b.input.length == blockSize) {
+            synchronized(freeBuffers) {
+                if(freeBuffers.size() < threadCount * 2 + 1) {
+                    freeBuffers.addElement(b.input);
+                }
+            }
+        }
+        b.input = null;
+        b.output = null;
+    }
+
+    private Deflater createDeflater() throws IOException {
+        try {
+            return new Deflater(level, 15, true);
+        } catch(GZIPException err) {
+            throw new IOException(err.toString());
+        }
+    }
+
+    private void startWorkers() {
+        if(workers != null) {
+            return;
+        }
+        workers = new Thread[threadCount];
+        for(int iter = 0 ; iter < threadCount ; iter++) {
+            Runnable r = new Worker();
+            String name = "GZIP Worker " + iter;
+            if(Display.isInitialized()) {
+                workers[iter] = Display.getInstance().startThread(r, name);
+            } else {
+                workers[iter] = new Thread(r, name);
+            }
+            workers[iter].start();
+        }
+    }
+
+    private void stopWorkers() {
+        if(inlineDeflater != null) {
+            inlineDeflater.end();
+            inlineDeflater = null;
+        }
+        if(workers == null) {
+            return;
+        }
+        synchronized(queue) {
+            queue.removeAllElements();
+            workers = null;
+            queue.notifyAll();
+        }
+    }
+
+    class Worker implements Runnable {
+        public void run() {
+            Deflater deflater = null;
+            try {
+                while(true) {
+                    Block b;
+                    synchronized(queue) {
+                        while(queue.size() == 0) {
+                            if(workers == null) {
+                                return;
+                            }
+                            try {
+                                queue.wait();
+                            } catch(InterruptedException err) {
+                                return;
+                            }
+                        }
+                        b = (Block)queue.elementAt(0);
+                        queue.removeElementAt(0);
+                    }
+                    try {
+                        if(deflater == null) {
+                            deflater = createDeflater();
+                        }
+                        b.compress(deflater);
+                    } catch(IOException err) {
+                        b.error = err;
+                    } catch(RuntimeException err) {
+                        b.error = new IOException(err.toString());
+                    }
+                    synchronized(b) {
+                        b.done = true;
+                        b.notifyAll();
+                    }
+                }
+            } finally {
+                if(deflater != null) {
+                    deflater.end();
+                }
+            }
+        }
+    }
+
+    static class Block {
+        byte[] input;
+        int length;
+        boolean last;
+        byte[] output;
+        int outputLength;
+        long crc;
+        boolean done;
+        IOException error;
+
+        void compress(Deflater d) throws IOException {
+            if(input == null) {
+                input = new byte[0];
+            }
+            CRC32 c = new CRC32();
+            c.update(input, 0, length);
+            crc = c.getValue();
+
+            d.reset();
+            output = new byte[length + (length >> 3) + 64];
+            d.setInput(input, 0, length, false);
+            int flush = last ? JZlib.Z_FINISH : JZlib.Z_SYNC_FLUSH;
+            int pos = 0;
+            while(true) {
+                if(pos == output.length) {
+                    byte[] n = new byte[output.length * 2];
+                    System.arraycopy(output, 0, n, 0, pos);
+                    output = n;
+                }
+                d.setOutput(output, pos, output.length - pos);
+                int err = d.deflate(flush);
+                pos = d.getNextOutIndex();
+                if(err == JZlib.Z_STREAM_END) {
+                    break;
+                }
+                if(err != JZlib.Z_OK && err != JZlib.Z_BUF_ERROR) {
+                    throw new IOException("Deflate error " + err);
+                }
+                if(!last && d.getAvailIn() == 0 && d.getAvailOut() > 0) {
+                    break;
+                }
+            }
+            outputLength = pos;
+        }
+    }
+}
@@ -32,6 +32,7 @@ import com.codename1.ui.events.ActionListener;
 import com.codename1.ui.geom.Dimension;
 import com.codename1.io.ConnectionRequest;
 import com.codename1.io.FileSystemStorage;
+import com.codename1.io.Log;
 import com.codename1.io.NetworkEvent;
 import com.codename1.io.NetworkManager;
 import com.codename1.io.Storage;
@@ -42,13 +43,16 @@ import com.codename1.components.StorageImageAsync;
 import com.codename1.ui.Component;
 import com.codename1.ui.Display;
 import com.codename1.ui.Form;
+import com.codename1.ui.ImageFetchCoordinator;
 import com.codename1.ui.list.ContainerList;
 import com.codename1.ui.list.DefaultListModel;
 import com.codename1.ui.list.ListModel;
 import com.codename1.ui.util.EventDispatcher;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Hashtable;
 import java.util.Map;
+import java.util.Vector;
 
 /**
  * Simplifies the process of implementing an image link for labels and lists by
@@ -153,6 +157,13 @@ public class ImageDownloadService extends ConnectionRequest {
     private boolean maintainAspectRatio = defaultMaintainAspectRatio;
    
     private static EventDispatcher onErrorListeners;
+
+    // requests in flight keyed by destination and URL, identical requests wait for them instead of downloading
+    private static final Hashtable inFlight = new Hashtable();
+    private Vector followers;
+    private boolean viewportChecked;
+    private boolean demoted;
+    private Image scaledResult;
     
     /**
      * This method is invoked when an image finished downloading and should be set to an offset in the list
@@ -383,27 +394,42 @@ public class ImageDownloadService extends ConnectionRequest {
         i.placeholder = placeholderImage;
         i.setPriority(priority);
         i.setFailSilently(true);
-        NetworkManager.getInstance().addToQueue(i);
+        queue(i);
     }
     
     /**
      * {@inheritDoc}
      */
     protected void handleException(Exception err) {
+        Vector f = takeFollowers();
         if(onErrorListeners != null) {
             NetworkEvent ne = new NetworkEvent(this, err);
             onErrorListeners.fireActionEvent(ne);
         }
+        if(f != null) {
+            // the requests that waited for this one failed as well
+            int size = f.size();
+            for(int iter = 0 ; iter < size ; iter++) {
+                ((ImageDownloadService)f.elementAt(iter)).handleException(err);
+            }
+        }
     }
 
     /**
      * {@inheritDoc}
      */
     protected void handleErrorResponseCode(int code, String message) {
+        Vector f = takeFollowers();
         if(onErrorListeners != null) {
             NetworkEvent ne = new NetworkEvent(this, code, message);
             onErrorListeners.fireActionEvent(ne);
         }
+        if(f != null) {
+            int size = f.size();
+            for(int iter = 0 ; iter < size ; iter++) {
+                ((ImageDownloadService)f.elementAt(iter)).handleErrorResponseCode(code, message);
+            }
+        }
     }
     
     /**
@@ -557,7 +583,7 @@ public class ImageDownloadService extends ConnectionRequest {
         i.placeholder = placeholderImage;
         i.setPriority(priority);
         i.setFailSilently(true);
-        NetworkManager.getInstance().addToQueue(i);
+        queue(i);
     }
 
     /**
@@ -658,7 +684,7 @@ public class ImageDownloadService extends ConnectionRequest {
         i.placeholder = placeholder;
         i.setPriority(priority);
         i.setFailSilently(true);
-        NetworkManager.getInstance().addToQueue(i);
+        queue(i);
     }
 
 
@@ -682,7 +708,7 @@ public class ImageDownloadService extends ConnectionRequest {
         i.cacheImages = true;
         i.destinationFile = destFile;
         i.setFailSilently(true);
-        NetworkManager.getInstance().addToQueue(i);
+        queue(i);
     }
 
     public static void createImageToStorage(String url, ActionListener callback, String cacheId) {
@@ -709,7 +735,7 @@ public class ImageDownloadService extends ConnectionRequest {
         i.cacheImages = true;
         i.cacheId = cacheId;
         i.setFailSilently(true);
-        NetworkManager.getInstance().addToQueue(i);
+        queue(i);
     }
 
     private static Image cacheImage(String cacheKey, boolean keep, String destFile, Dimension scale, Image placeholderImage, boolean maintainAspectRatio) {
@@ -771,16 +797,132 @@ public class ImageDownloadService extends ConnectionRequest {
     }
 
     
+    private String getCoalescingKey() {
+        if(cacheId != null) {
+            return "s:" + cacheId + "|" + getUrl();
+        }
+        if(destinationFile != null) {
+            return "f:" + destinationFile + "|" + getUrl();
+        }
+        return null;
+    }
+
+    private static void queue(ImageDownloadService i) {
+        String key = i.getCoalescingKey();
+        if(key != null) {
+            synchronized(inFlight) {
+                ImageDownloadService primary = (ImageDownloadService)inFlight.get(key);
+                if(primary != null) {
+                    if(primary.followers == null) {
+                        primary.followers = new Vector();
+                    }
+                    primary.followers.addElement(i);
+                    return;
+                }
+                inFlight.put(key, i);
+            }
+        }
+        NetworkManager.getInstance().addToQueue(i);
+    }
+
+    /**
+     * Ends the coalescing of this request and returns the requests that waited for it
+     */
+    private Vector takeFollowers() {
+        String key = getCoalescingKey();
+        if(key == null) {
+            return null;
+        }
+        synchronized(inFlight) {
+            if(inFlight.get(key) == this) {
+                inFlight.remove(key);
+            }
+            Vector f = followers;
+            followers = null;
+            return f;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void kill() {
+        super.kill();
+        Vector f = takeFollowers();
+        if(f != null) {
+            // the waiting requests weren't killed, the first of them becomes the new primary request
+            // and the others wait for it
+            int size = f.size();
+            for(int iter = 0 ; iter < size ; iter++) {
+                queue((ImageDownloadService)f.elementAt(iter));
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected boolean shouldStop() {
+        if(!viewportChecked) {
+            viewportChecked = true;
+            Component target = parentLabel != null ? parentLabel : targetList;
+            if(target != null && !demoted && !ImageFetchCoordinator.isInViewport(target)) {
+                // let the images that are in view go first, the label or list can't refetch so the request
+                // is never cancelled
+                demoted = true;
+                viewportChecked = false;
+                setPriority(PRIORITY_REDUNDANT);
+                NetworkManager.getInstance().addToQueue(this);
+                return true;
+            }
+        }
+        return super.shouldStop();
+    }
+
     /**
      * {@inheritDoc}
      */
     protected void postResponse() {
+        RuntimeException err = null;
+        try {
+            updateTarget();
+        } catch(RuntimeException e) {
+            // e.g. a corrupt image, the waiting requests fail the same way
+            err = e;
+        }
+        Vector f = takeFollowers();
+        if(f != null) {
+            int size = f.size();
+            for(int iter = 0 ; iter < size ; iter++) {
+                ImageDownloadService follower = (ImageDownloadService)f.elementAt(iter);
+                try {
+                    if(err == null) {
+                        follower.result = result;
+                        follower.postResponse();
+                    } else {
+                        follower.handleException(err);
+                    }
+                } catch(RuntimeException e) {
+                    Log.e(e);
+                }
+            }
+        }
+        if(err != null) {
+            throw err;
+        }
+    }
+
+    private void updateTarget() {
         // trigger an exception in case of an invalid image
         result.getWidth();
         Image image = result;
 
         if (toScale != null && toScale.getWidth() != image.getWidth() && toScale.getHeight() != image.getHeight()) {
-            image = scaleImage(image, toScale, maintainAspectRatio);
+            if(scaledResult != null) {
+                image = scaledResult;
+            } else {
+                image = scaleImage(image, toScale, maintainAspectRatio);
+            }
         }
 
         final Image i = image;
@@ -852,6 +994,20 @@ public class ImageDownloadService extends ConnectionRequest {
      * {@inheritDoc}
      */
     protected void readResponse(InputStream input) throws IOException  {
+        // bounds the number of images decoded at once by all the network threads
+        ImageFetchCoordinator.getInstance().beginDecode();
+        try {
+            decodeResponse(input);
+            if (toScale != null && toScale.getWidth() != result.getWidth() && toScale.getHeight() != result.getHeight()) {
+                // scaled here so the EDT doesn't need to
+                scaledResult = scaleImage(result, toScale, maintainAspectRatio);
+            }
+        } finally {
+            ImageFetchCoordinator.getInstance().endDecode();
+        }
+    }
+
+    private void decodeResponse(InputStream input) throws IOException  {
         int imageScaleWidth = -1, imageScaleHeight = -1;
         if(fastScale) {
             if(toScale != null) {
@@ -0,0 +1,593 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *  
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Codename One through http://www.codenameone.com/ if you 
+ * need additional information or have any questions.
+ */
+package com.codename1.io.tar;
+
+import com.codename1.io.FileSystemStorage;
+import com.codename1.io.Util;
+import com.codename1.ui.Display;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Hashtable;
+
+/**
+ * <p>An index of the entries within a tar archive mapping every entry name to the offset and size of its data.
+ * The index is built in a single pass over the archive and can be persisted next to it, this allows reading a
+ * single entry from a large archive in {@link FileSystemStorage} without scanning the entries that precede it
+ * and allows {@link #extract(java.lang.String, java.lang.String, int)} to split the extraction between several
+ * threads.</p>
+ * <p>{@link #getIndex(java.lang.String)} loads the index stored next to the archive and rebuilds it if the
+ * archive was modified since the index was saved. {@link TarOutputStream#append(java.lang.String)} keeps the
+ * stored index up to date when entries are appended to an existing archive.</p>
+ *
+ * @author Shai Almog
+ */
+public class TarIndex {
+    private static final int MAGIC = 0x54415249;
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 8192;
+
+    private int count;
+    private String[] names = new String[32];
+    private long[] offsets = new long[32];
+    private long[] sizes = new long[32];
+    private boolean[] directories = new boolean[32];
+    private final Hashtable nameIndex = new Hashtable();
+    private long archiveLength = -1;
+    private long archiveModified = -1;
+
+    /**
+     * Creates an empty index, this is useful for writing a new archive with
+     * {@link TarOutputStream#TarOutputStream(java.io.OutputStream, com.codename1.io.tar.TarIndex)}
+     */
+    public TarIndex() {
+    }
+
+    /**
+     * Builds the index by reading the archive once, the stream isn't closed
+     *
+     * @param archive the tar archive
+     * @return the index
+     * @throws IOException thrown by the stream
+     */
+    public static TarIndex build(InputStream archive) throws IOException {
+        TarIndex idx = new TarIndex();
+        TarInputStream tin = new TarInputStream(archive);
+        TarEntry e = tin.getNextEntry();
+        while(e != null) {
+            idx.add(e.getName(), tin.getEntryOffset(), e.getSize(), e.isDirectory());
+            e = tin.getNextEntry();
+        }
+        return idx;
+    }
+
+    /**
+     * Returns the index of the given archive in {@link FileSystemStorage}. The index is loaded from
+     * {@link #getIndexPath(java.lang.String)} if it is still up to date, otherwise it is built from the archive
+     * and saved
+     *
+     * @param archivePath the path of the archive in the file system storage
+     * @return the index
+     * @throws IOException thrown by the file system
+     */
+    public static TarIndex getIndex(String archivePath) throws IOException {
+        FileSystemStorage fs = FileSystemStorage.getInstance();
+        String indexPath = getIndexPath(archivePath);
+        if(fs.exists(indexPath)) {
+            InputStream i = null;
+            try {
+                i = fs.openInputStream(indexPath);
+                TarIndex idx = load(i);
+                if(idx.archiveLength == fs.getLength(archivePath) && idx.archiveModified == fs.getLastModified(archivePath)) {
+                    return idx;
+                }
+            } catch(IOException err) {
+                // a corrupt index is rebuilt below
+                err.printStackTrace();
+            } finally {
+                Util.cleanup(i);
+            }
+        }
+        InputStream i = fs.openInputStream(archivePath);
+        TarIndex idx;
+        try {
+            idx = build(i);
+        } finally {
+            Util.cleanup(i);
+        }
+        idx.save(archivePath);
+        return idx;
+    }
+
+    /**
+     * Returns the path under which the index of the given archive is stored
+     *
+     * @param archivePath the path of the archive in the file system storage
+     * @return the path of the index file
+     */
+    public static String getIndexPath(String archivePath) {
+        return archivePath + ".idx";
+    }
+
+    /**
+     * Loads an index previously written by {@link #save(java.io.OutputStream)}, the stream isn't closed
+     *
+     * @param in the stream
+     * @return the index
+     * @throws IOException if the stream doesn't contain a valid index
+     */
+    public static TarIndex load(InputStream in) throws IOException {
+        DataInputStream d = new DataInputStream(in);
+        if(d.readInt() != MAGIC || d.readInt() != VERSION) {
+            throw new IOException("Not a tar index");
+        }
+        TarIndex idx = new TarIndex();
+        idx.archiveLength = d.readLong();
+        idx.archiveModified = d.readLong();
+        int size = d.readInt();
+        for(int iter = 0 ; iter < size ; iter++) {
+            String name = d.readUTF();
+            long offset = d.readLong();
+            long length = d.readLong();
+            idx.add(name, offset, length, d.readBoolean());
+        }
+        return idx;
+    }
+
+    /**
+     * Writes the index to the given stream, the stream isn't closed
+     *
+     * @param out the destination stream
+     * @throws IOException thrown by the stream
+     */
+    public void save(OutputStream out) throws IOException {
+        DataOutputStream d = new DataOutputStream(out);
+        d.writeInt(MAGIC);
+        d.writeInt(VERSION);
+        d.writeLong(archiveLength);
+        d.writeLong(archiveModified);
+        d.writeInt(count);
+        for(int iter = 0 ; iter < count ; iter++) {
+            d.writeUTF(names[iter]);
+            d.writeLong(offsets[iter]);
+            d.writeLong(sizes[iter]);
+            d.writeBoolean(directories[iter]);
+        }
+        d.flush();
+    }
+
+    /**
+     * Saves the index next to the given archive in the file system storage, the index is bound to the current
+     * length and modification time of the archive
+     *
+     * @param archivePath the path of the archive in the file system storage
+     * @throws IOException thrown by the file system
+     */
+    public void save(String archivePath) throws IOException {
+        FileSystemStorage fs = FileSystemStorage.getInstance();
+        archiveLength = fs.getLength(archivePath);
+        archiveModified = fs.getLastModified(archivePath);
+        OutputStream o = fs.openOutputStream(getIndexPath(archivePath));
+        try {
+            save(o);
+        } finally {
+            Util.cleanup(o);
+        }
+    }
+
+    void add(String name, long offset, long size, boolean directory) {
+        if(count == names.length) {
+            int len = count * 2;
+            String[] n = new String[len];
+            System.arraycopy(names, 0, n, 0, count);
+            names = n;
+            long[] o = new long[len];
+            System.arraycopy(offsets, 0, o, 0, count);
+            offsets = o;
+            long[] s = new long[len];
+            System.arraycopy(sizes, 0, s, 0, count);
+            sizes = s;
+            boolean[] d = new boolean[len];
+            System.arraycopy(directories, 0, d, 0, count);
+            directories = d;
+        }
+        names[count] = name;
+        offsets[count] = offset;
+        sizes[count] = size;
+        directories[count] = directory;
+
+        // when an archive contains the same name more than once the last entry wins like it does in tar
+        nameIndex.put(name, new Integer(count));
+        count++;
+    }
+
+    /**
+     * Returns the number of entries in the archive including entries whose name was reused by a later entry
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Returns the position of the entry with the given name
+     *
+     * @param name the entry name
+     * @return the position of the entry or -1 if the archive has no such entry
+     */
+    public int indexOf(String name) {
+        Integer i = (Integer)nameIndex.get(name);
+        if(i == null) {
+            return -1;
+        }
+        return i.intValue();
+    }
+
+    /**
+     * Indicates whether the archive contains an entry with the given name
+     *
+     * @param name the entry name
+     * @return true if the entry exists
+     */
+    public boolean contains(String name) {
+        return nameIndex.containsKey(name);
+    }
+
+    /**
+     * Returns the name of the entry at the given position
+     *
+     * @param entry the position of the entry
+     * @return the entry name
+     */
+    public String getName(int entry) {
+        return names[entry];
+    }
+
+    /**
+     * Returns the offset of the first data byte of the entry at the given position
+     *
+     * @param entry the position of the entry
+     * @return the offset within the archive
+     */
+    public long getOffset(int entry) {
+        return offsets[entry];
+    }
+
+    /**
+     * Returns the size of the data of the entry at the given position
+     *
+     * @param entry the position of the entry
+     * @return the size in bytes
+     */
+    public long getSize(int entry) {
+        return sizes[entry];
+    }
+
+    /**
+     * Indicates whether the entry at the given position is a directory
+     *
+     * @param entry the position of the entry
+     * @return true for a directory entry
+     */
+    public boolean isDirectory(int entry) {
+        return directories[entry];
+    }
+
+    /**
+     * Returns the offset right after the data of the last entry in the archive which is where the end of archive
+     * record starts and where appended entries are written
+     *
+     * @return the offset of the end of the last entry
+     */
+    public long getEndOffset() {
+        if(count == 0) {
+            return 0;
+        }
+        long end = offsets[count - 1] + sizes[count - 1];
+        long extra = end % TarConstants.DATA_BLOCK;
+        if(extra > 0) {
+            end += TarConstants.DATA_BLOCK - extra;
+        }
+        return end;
+    }
+
+    /**
+     * Opens a stream to the data of the given entry, the stream seeks directly to the entry data without
+     * reading the preceding entries
+     *
+     * @param archivePath the path of the archive in the file system storage
+     * @param name the name of the entry
+     * @return a stream that returns the entry data and ends with the entry or null if there is no such entry
+     * @throws IOException thrown by the file system
+     */
+    public InputStream openEntry(String archivePath, String name) throws IOException {
+        int entry = indexOf(name);
+        if(entry < 0) {
+            return null;
+        }
+        InputStream i = FileSystemStorage.getInstance().openInputStream(archivePath);
+        try {
+            skipFully(i, offsets[entry]);
+        } catch(IOException err) {
+            Util.cleanup(i);
+            throw err;
+        }
+        return new EntryInputStream(i, sizes[entry]);
+    }
+
+    /**
+     * Extracts all the entries of the archive into the given directory. The directories are created first and
+     * the files are then split into contiguous ranges of the archive by size, each range is read and written
+     * by its own thread. Entries whose name includes a ".." path segment are rejected. This method blocks until
+     * the extraction completes and shouldn't be invoked on the EDT.
+     *
+     * @param archivePath the path of the archive in the file system storage
+     * @param destDir the directory into which the archive is extracted
+     * @param workers the number of threads writing files, 1 extracts on the calling thread
+     * @throws IOException the first error thrown by any of the workers
+     */
+    public void extract(String archivePath, String destDir, int workers) throws IOException {
+        FileSystemStorage fs = FileSystemStorage.getInstance();
+        if(!destDir.endsWith("/")) {
+            destDir += "/";
+        }
+        Hashtable created = new Hashtable();
+        int[] files = new int[count];
+        int fileCount = 0;
+        long totalSize = 0;
+        for(int iter = 0 ; iter < count ; iter++) {
+            String name = names[iter];
+            if(name.equals("..") || name.startsWith("../") || name.indexOf("/../") > -1 || name.endsWith("/..")) {
+                throw new IOException("Illegal entry name: " + name);
+            }
+            if(indexOf(name) != iter) {
+                // replaced by a later entry with the same name
+                continue;
+            }
+            if(directories[iter]) {
+                mkdirs(fs, destDir, name, created);
+            } else {
+                int slash = name.lastIndexOf('/');
+                if(slash > 0) {
+                    mkdirs(fs, destDir, name.substring(0, slash), created);
+                }
+                files[fileCount] = iter;
+                fileCount++;
+                totalSize += sizes[iter];
+            }
+        }
+        if(fileCount == 0) {
+            return;
+        }
+
+        workers = Math.max(1, Math.min(workers, fileCount));
+        ExtractState state = new ExtractState();
+        if(workers == 1) {
+            extractRange(archivePath, destDir, files, 0, fileCount, state);
+            return;
+        }
+        long share = totalSize / workers + 1;
+        int start = 0;
+        for(int w = 0 ; w < workers && start < fileCount ; w++) {
+            int end = start;
+            long bytes = 0;
+            if(w == workers - 1) {
+                end = fileCount;
+            } else {
+                while(end < fileCount && (end == start || bytes + sizes[files[end]] <= share)) {
+                    bytes += sizes[files[end]];
+                    end++;
+                }
+            }
+            synchronized(state) {
+                state.pending++;
+            }
+            Display.getInstance().startThread(new ExtractWorker(archivePath, destDir, files, start, end, state), "Tar Extract").start();
+            start = end;
+        }
+        synchronized(state) {
+            while(state.pending > 0) {
+                try {
+                    state.wait();
+                } catch(InterruptedException err) {
+                }
+            }
+            if(state.error != null) {
+                throw state.error;
+            }
+        }
+    }
+
+    private static void mkdirs(FileSystemStorage fs, String destDir, String name, Hashtable created) {
+        if(name.endsWith("/")) {
+            name = name.substring(0, name.length() - 1);
+        }
+        if(name.length() == 0 || created.containsKey(name)) {
+            return;
+        }
+        int slash = name.lastIndexOf('/');
+        if(slash > 0) {
+            mkdirs(fs, destDir, name.substring(0, slash), created);
+        }
+        String path = destDir + name;
+        if(!fs.exists(path)) {
+            fs.mkdir(path);
+        }
+        created.put(name, name);
+    }
+
+    /**
+     * Extracts the given files which must be sorted by offset, the archive is read sequentially from the first
+     * file to the last
+     */
+    private void extractRange(String archivePath, String destDir, int[] files, int start, int end, ExtractState state) throws IOException {
+        FileSystemStorage fs = FileSystemStorage.getInstance();
+        InputStream i = fs.openInputStream(archivePath);
+        try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long position = 0;
+            for(int iter = start ; iter < end ; iter++) {
+                synchronized(state) {
+                    if(state.error != null) {
+                        return;
+                    }
+                }
+                int entry = files[iter];
+                skipFully(i, offsets[entry] - position);
+                long left = sizes[entry];
+                OutputStream o = fs.openOutputStream(destDir + names[entry]);
+                try {
+                    while(left > 0) {
+                        int size = i.read(buffer, 0, (int)Math.min(buffer.length, left));
+                        if(size < 0) {
+                            throw new IOException("Unexpected end of archive in " + names[entry]);
+                        }
+                        o.write(buffer, 0, size);
+                        left -= size;
+                    }
+                } finally {
+                    Util.cleanup(o);
+                }
+                position = offsets[entry] + sizes[entry];
+            }
+        } finally {
+            Util.cleanup(i);
+        }
+    }
+
+    private static void skipFully(InputStream i, long n) throws IOException {
+        byte[] buffer = null;
+        while(n > 0) {
+            long s = i.skip(n);
+            if(s <= 0) {
+                // some streams don't support skipping
+                if(buffer == null) {
+                    buffer = new byte[BUFFER_SIZE];
+                }
+                s = i.read(buffer, 0, (int)Math.min(buffer.length, n));
+                if(s < 0) {
+                    throw new IOException("Unexpected end of archive");
+                }
+            }
+            n -= s;
+        }
+    }
+
+    /**
+     * The progress of a single call to extract shared by its workers
+     */
+    static class ExtractState {
+        int pending;
+        IOException error;
+    }
+
+    class ExtractWorker implements Runnable {
+        private final String archivePath;
+        private final String destDir;
+        private final int[] files;
+        private final int start;
+        private final int end;
+        private final ExtractState state;
+
+        ExtractWorker(String archivePath, String destDir, int[] files, int start, int end, ExtractState state) {
+            this.archivePath = archivePath;
+            this.destDir = destDir;
+            this.files = files;
+            this.start = start;
+            this.end = end;
+            this.state = state;
+        }
+
+        public void run() {
+            IOException error = null;
+            try {
+                extractRange(archivePath, destDir, files, start, end, state);
+            } catch(IOException err) {
+                error = err;
+            } catch(RuntimeException err) {
+                error = new IOException(err.toString());
+            }
+            synchronized(state) {
+                if(error != null && state.error == null) {
+                    state.error = error;
+                }
+                state.pending--;
+                state.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Limits the archive stream to the data of a single entry
+     */
+    static class EntryInputStream extends InputStream {
+        private final InputStream in;
+        private long left;
+
+        EntryInputStream(InputStream in, long size) {
+            this.in = in;
+            this.left = size;
+        }
+
+        public int read() throws IOException {
+            if(left <= 0) {
+                return -1;
+            }
+            int b = in.read();
+            if(b > -1) {
+                left--;
+            }
+            return b;
+        }
+
+        public int read(byte[] b, int off, int len) throws IOException {
+            if(left <= 0) {
+                return -1;
+            }
+            int size = in.read(b, off, (int)Math.min(len, left));
+            if(size > 0) {
+                left -= size;
+            }
+            return size;
+        }
+
+        public long skip(long n) throws IOException {
+            long s = in.skip(Math.min(n, left));
+            if(s > 0) {
+                left -= s;
+            }
+            return s;
+        }
+
+        public int available() throws IOException {
+            return (int)Math.min(in.available(), left);
+        }
+
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -36,6 +36,8 @@ public class TarInputStream extends BufferedInputStream {
     private TarEntry currentEntry;
     private long currentFileSize;
     private long bytesRead;
+    private long position;
+    private long entryOffset = -1;
     private boolean defaultSkip = false;
 
     public TarInputStream(InputStream in) {
@@ -109,6 +111,7 @@ public class TarInputStream extends BufferedInputStream {
             }
 
             bytesRead += br;
+            position += br;
         }
 
         return br;
@@ -151,6 +154,7 @@ public class TarInputStream extends BufferedInputStream {
         if (!eof) {
             bytesRead += header.length;
             currentEntry = new TarEntry( header );
+            entryOffset = position;
         }
 
         return currentEntry;
@@ -179,6 +183,7 @@ public class TarInputStream extends BufferedInputStream {
 
             currentEntry = null;
             currentFileSize = 0L;
+            entryOffset = -1;
             skipPad();
         }
     }
@@ -212,7 +217,9 @@ public class TarInputStream extends BufferedInputStream {
         if (defaultSkip) {
             // use skip method of parent stream
             // may not work if skip not implemented by parent
-            return super.skip( n );
+            long res = super.skip( n );
+            position += res;
+            return res;
         }
 
         if (n <= 0) {
@@ -233,6 +240,16 @@ public class TarInputStream extends BufferedInputStream {
         return n - left;
     }
 
+    /**
+     * Returns the offset within the archive of the first data byte of the entry returned by the last call to
+     * {@link #getNextEntry()}, this is the offset recorded by {@link TarIndex}
+     * 
+     * @return the offset or -1 if there is no current entry
+     */
+    public long getEntryOffset() {
+        return entryOffset;
+    }
+
     public boolean isDefaultSkip() {
         return defaultSkip;
     }
@@ -25,6 +25,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 
 import com.codename1.io.BufferedOutputStream;
+import com.codename1.io.FileSystemStorage;
 
 /**
  * @author Kamran Zafar
@@ -34,6 +35,9 @@ public class TarOutputStream extends BufferedOutputStream {
     private long bytesWritten;
     private long currentFileSize;
     private TarEntry currentEntry;
+    private TarIndex index;
+    private long baseOffset;
+    private String archivePath;
 
     public TarOutputStream(OutputStream out) {
         super( out );
@@ -41,6 +45,46 @@ public class TarOutputStream extends BufferedOutputStream {
         currentFileSize = 0;
     }
 
+    /**
+     * Creates a stream that records every entry it writes in the given index. The stream must be positioned at
+     * {@link TarIndex#getEndOffset()} of the index, for a new archive this is an empty index and the start of
+     * the stream.
+     * 
+     * @param out the destination stream
+     * @param index the index to which the written entries are added
+     */
+    public TarOutputStream(OutputStream out, TarIndex index) {
+        this( out );
+        this.index = index;
+        baseOffset = index.getEndOffset();
+    }
+
+    /**
+     * Opens an existing archive in the file system storage for appending. The new entries replace the end of
+     * archive record of the existing archive and are added to its index, the index is saved next to the
+     * archive when the stream is closed.
+     * 
+     * @param archivePath the path of the archive in the file system storage
+     * @return a stream that appends to the archive
+     * @throws IOException thrown by the file system
+     */
+    public static TarOutputStream append(String archivePath) throws IOException {
+        TarIndex index = TarIndex.getIndex( archivePath );
+        OutputStream out = FileSystemStorage.getInstance().openOutputStream( archivePath, (int) index.getEndOffset() );
+        TarOutputStream t = new TarOutputStream( out, index );
+        t.archivePath = archivePath;
+        return t;
+    }
+
+    /**
+     * Returns the index to which the written entries are added
+     * 
+     * @return the index or null if this stream doesn't maintain an index
+     */
+    public TarIndex getIndex() {
+        return index;
+    }
+
     /**
      * Appends the EOF record and closes the stream
      * 
@@ -51,6 +95,10 @@ public class TarOutputStream extends BufferedOutputStream {
         closeCurrentEntry();
         write( new byte[TarConstants.EOF_BLOCK] );
         super.close();
+        if (archivePath != null) {
+            index.save( archivePath );
+            archivePath = null;
+        }
     }
 
     /**
@@ -103,6 +151,10 @@ public class TarOutputStream extends BufferedOutputStream {
 
         write( header );
 
+        if (index != null) {
+            index.add( entry.getName(), baseOffset + bytesWritten, entry.getSize(), entry.isDirectory() );
+        }
+
         currentEntry = entry;
     }
 
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *  
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Codename One through http://www.codenameone.com/ if you 
+ * need additional information or have any questions.
+ */
+package com.codename1.javascript;
+
+import com.codename1.io.JSONParser;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Queues Javascript assignments, calls and expressions and sends them to the browser as a single
+ * script. Every call to {@link JavascriptContext#get(java.lang.String)} or
+ * {@link JavascriptContext#set(java.lang.String, java.lang.Object)} crosses the bridge into the browser
+ * at least once which is expensive when many values are involved, a batch crosses it exactly once
+ * when it is flushed. The results of the queued expressions are returned together as a JSON array
+ * and converted to Java values using the same rules as {@link JavascriptContext#get(java.lang.String)}.</p>
+ *
+ * <h5>Example</h5>
+ * <code><pre>
+ * JSBatch batch = new JSBatch(ctx);
+ * for(int i = 0 ; i &lt; 200 ; i++) {
+ *     batch.set(chart, "value" + i, new Integer(i));
+ * }
+ * int title = batch.get("document.title");
+ * int sum = batch.call("window.computeSum", window, new Object[] {new Integer(1), new Integer(2)});
+ * Object[] results = batch.flush();
+ * String t = (String)results[title];
+ * Double s = (Double)results[sum];
+ * </pre></code>
+ *
+ * <p>Notice that {@link JSFunction} values can't be batched since registering them requires installing
+ * a callback in the context, they are set immediately.</p>
+ *
+ * @author Shai Almog
+ */
+public class JSBatch {
+    private final JavascriptContext context;
+    private StringBuilder script = new StringBuilder();
+    private int resultCount;
+    private int operationCount;
+
+    /**
+     * Creates a new batch for the given context
+     *
+     * @param context the context in which the batch will be executed
+     */
+    public JSBatch(JavascriptContext context) {
+        this.context = context;
+    }
+
+    /**
+     * Queues an assignment of the form <code>key = value</code>, see
+     * {@link JavascriptContext#set(java.lang.String, java.lang.Object)} for the conversion rules
+     *
+     * @param key a Javascript expression that can be assigned
+     * @param value the value
+     */
+    public void set(String key, Object value) {
+        if(value instanceof JSFunction) {
+            throw new IllegalArgumentException("JSFunction values can't be batched");
+        }
+        script.append("try{").append(key).append("=").append(context.toJSValue(value))
+                .append(";}catch(e){r.push(['error',String(e)]);}");
+        operationCount++;
+    }
+
+    /**
+     * Queues an assignment of a property of a Javascript object
+     *
+     * @param obj the object
+     * @param key the name of the property
+     * @param value the value
+     */
+    public void set(JSObject obj, String key, Object value) {
+        if(value instanceof JSFunction) {
+            obj.set(key, value);
+            return;
+        }
+        obj.invalidate(key);
+        set(obj.propertyExpression(key), value);
+    }
+
+    /**
+     * Queues a Javascript statement whose result isn't needed
+     *
+     * @param javascript the statement
+     */
+    public void execute(String javascript) {
+        script.append("try{").append(javascript).append(";}catch(e){r.push(['error',String(e)]);}");
+        operationCount++;
+    }
+
+    /**
+     * Queues a Javascript expression whose value will be returned from {@link #flush()}
+     *
+     * @param javascript the expression
+     * @return the index of the value in the array returned from flush
+     */
+    public int get(String javascript) {
+        script.append("try{r.push(w(").append(javascript).append("));}catch(e){r.push(['error',String(e),1]);}");
+        operationCount++;
+        return resultCount++;
+    }
+
+    /**
+     * Queues a function call whose result will be returned from {@link #flush()}, see
+     * {@link JavascriptContext#call(java.lang.String, com.codename1.javascript.JSObject, java.lang.Object[])}
+     *
+     * @param jsFunc an expression resolving to the function
+     * @param self the object that acts as "this" for the call
+     * @param params the parameters of the call
+     * @return the index of the value in the array returned from flush
+     */
+    public int call(String jsFunc, JSObject self, Object[] params) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("(").append(jsFunc).append(").call(").append(self.toJSPointer());
+        int len = params.length;
+        for(int i = 0 ; i < len ; i++) {
+            sb.append(", ");
+            if(params[i] instanceof JSFunction) {
+                throw new IllegalArgumentException("JSFunction parameters can't be batched");
+            }
+            sb.append(context.toJSValue(params[i]));
+        }
+        sb.append(")");
+        return get(sb.toString());
+    }
+
+    /**
+     * Returns the number of operations waiting in the batch
+     *
+     * @return the number of queued operations
+     */
+    public int size() {
+        return operationCount;
+    }
+
+    /**
+     * Executes all the queued operations as a single script and clears the batch
+     *
+     * @return the values of the queued expressions in the order in which they were queued
+     * @throws JSException if one of the queued operations failed, operations are independent so the
+     * other operations in the batch were still performed
+     */
+    public Object[] flush() {
+        if(operationCount == 0) {
+            return new Object[0];
+        }
+        String body = script.toString();
+        int count = resultCount;
+        script = new StringBuilder();
+        resultCount = 0;
+        operationCount = 0;
+        String js = "(function(){var r=[];var lt=" + context.jsLookupTable + ";" +
+                "function w(v){var t=typeof(v);" +
+                    "if(v===null||t=='undefined'){return ['null',''];}" +
+                    "if(t=='object'||t=='function'){" +
+                        "var id=v." + JSObject.ID_KEY + ";" +
+                        "if(typeof(id)=='undefined'||typeof(lt[id])=='undefined'||lt[id]." + JSObject.ID_KEY + "!=id){" +
+                            "lt.push(v);id=lt.indexOf(v);" +
+                            "Object.defineProperty(v,'" + JSObject.ID_KEY + "',{value:id,enumerable:false});" +
+                            "Object.defineProperty(v,'" + JSObject.PROP_REFCOUNT + "',{value:1,enumerable:false,writable:true});" +
+                        "}else{v." + JSObject.PROP_REFCOUNT + "++;}" +
+                        "return [t,String(id)];}" +
+                    "return [t,String(v)];}" +
+                body + "return JSON.stringify(r);})()";
+        String res = context.execBatch(js);
+        Object[] out = new Object[count];
+        List entries;
+        try {
+            JSONParser p = new JSONParser();
+            byte[] b = ("{\"root\":" + res + "}").getBytes("UTF-8");
+            Map m = p.parseJSON(new InputStreamReader(new ByteArrayInputStream(b), "UTF-8"));
+            entries = (List)m.get("root");
+        } catch(IOException err) {
+            throw new JSException("Failed to parse batch result " + res);
+        }
+        if(entries == null) {
+            return out;
+        }
+        String error = null;
+        int pos = 0;
+        int size = entries.size();
+        for(int iter = 0 ; iter < size ; iter++) {
+            List e = (List)entries.get(iter);
+            String type = (String)e.get(0);
+            String value = String.valueOf(e.get(1));
+            if("error".equals(type)) {
+                if(error == null) {
+                    error = value;
+                }
+                
+                // a failed expression leaves a null in its slot, a failed statement has no slot
+                if(e.size() > 2) {
+                    pos++;
+                }
+                continue;
+            }
+            if(pos < count) {
+                out[pos] = context.toJavaValue(type, value);
+            }
+            pos++;
+        }
+        if(error != null) {
+            throw new JSException("Javascript batch failed: " + error);
+        }
+        return out;
+    }
+}
@@ -27,6 +27,7 @@ import com.codename1.util.Callback;
 import com.codename1.util.CallbackAdapter;
 import com.codename1.util.StringUtil;
 import com.codename1.util.SuccessCallback;
+import java.util.Hashtable;
 
 /**
  * A Java Wrapper around a Javascript object. In Javascript there are only a few
@@ -225,6 +226,17 @@ public class JSObject {
     static final String ID_KEY = "ca_weblite_codename1_js_JSObject_ID";
     static final String PROP_REFCOUNT = "ca_weblite_codename1_js_JSObject_REFCOUNT"; 
     
+    /**
+     * Marks a cached property whose value is null or undefined.
+     */
+    private static final Object NULL_VALUE = new Object();
+    
+    /**
+     * Cached property values when property caching is on.
+     * @see #setCacheProperties(boolean) 
+     */
+    private Hashtable propertyCache;
+    
     /**
      * Constructor for a JSObject.
      * 
@@ -248,6 +260,8 @@ public class JSObject {
     public JSObject(JavascriptContext context, String expr) {
         this.context = context;
         synchronized (context){
+            // queued assignments might affect the expression
+            context.flushPendingBatch();
             String escaped = StringUtil.replaceAll(expr, "\\", "\\\\");
             escaped = StringUtil.replaceAll(escaped, "'", "\\'");
             exec(R1+"=eval('"+escaped+"')");
@@ -272,6 +286,74 @@ public class JSObject {
         }
     }
     
+    /**
+     * Creates a JSObject for an object that was already registered in the lookup table
+     * (and had its reference count incremented) by a batch.
+     * @param context The javascript context.
+     * @param objectId The id of the object in the lookup table.
+     */
+    JSObject(JavascriptContext context, int objectId) {
+        this.context = context;
+        this.objectId = objectId;
+        context.retain(this);
+    }
+    
+    /**
+     * Turns on caching of property values read with get() and the typed getters so repeated reads
+     * don't cross into Javascript.  Values assigned through this object or a {@link JSBatch} invalidate
+     * the cached value, changes made by Javascript code aren't detected so {@link #invalidate()} must
+     * be invoked when the object might have changed e.g. after calling one of its methods.
+     * @param cache true to cache property values
+     */
+    public void setCacheProperties(boolean cache) {
+        if (cache) {
+            if (propertyCache == null) {
+                propertyCache = new Hashtable();
+            }
+        } else {
+            propertyCache = null;
+        }
+    }
+    
+    /**
+     * Indicates whether property values are cached.
+     * @return true if property values are cached
+     * @see #setCacheProperties(boolean) 
+     */
+    public boolean isCacheProperties() {
+        return propertyCache != null;
+    }
+    
+    /**
+     * Discards all the cached property values.
+     */
+    public void invalidate() {
+        if (propertyCache != null) {
+            propertyCache.clear();
+        }
+    }
+    
+    /**
+     * Discards the cached value of the given property.
+     * @param key The name of the property.
+     */
+    public void invalidate(String key) {
+        if (propertyCache != null) {
+            propertyCache.remove(key);
+        }
+    }
+    
+    /**
+     * Returns the Javascript expression for a property of this object.
+     */
+    String propertyExpression(String key) {
+        if ( key.indexOf("'") == 0 ){
+            return toJSPointer()+"["+key+"]";
+        } else {
+            return toJSPointer()+"."+key;
+        }
+    }
+    
     /**
      * Returns a member variable of the Javascript object.  
      * 
@@ -331,11 +413,17 @@ public class JSObject {
      * to Java type conversions.
      */
     public Object get(String key){
-        if ( key.indexOf("'") == 0 ){
-            return context.get(toJSPointer()+"["+key+"]");
-        } else {
-            return context.get(toJSPointer()+"."+key);
+        Hashtable cache = propertyCache;
+        if (cache != null) {
+            Object v = cache.get(key);
+            if (v != null) {
+                return v == NULL_VALUE ? null : v;
+            }
+            v = context.get(propertyExpression(key));
+            cache.put(key, v == null ? NULL_VALUE : v);
+            return v;
         }
+        return context.get(propertyExpression(key));
     }
     
     
@@ -489,16 +577,12 @@ public class JSObject {
      */
     public void set(String key, Object js, boolean async){
         if ( js instanceof JSFunction ){
+            invalidate(key);
             this.addCallback(key, (JSFunction)js, async);
             return;
         }
-        if ( key.indexOf("'") == 0 ){
-            key  = toJSPointer()+"["+key+"]";
-        } else {
-            key = toJSPointer()+"."+key;
-        }
-        
-        context.set(key, js);
+        invalidate(key);
+        context.set(propertyExpression(key), js);
     }
     
     /**
@@ -659,6 +743,7 @@ public class JSObject {
      * @return 
      */
     private String exec(String js, boolean async){
+        context.countCrossing();
         if (async) {
             context.browser.execute(js);
             return null;
@@ -711,6 +796,8 @@ public class JSObject {
      * in {@link JavascriptContext#get(String)}
      */
     public Object call(String key, Object[] params){
+        // the method might modify the object
+        invalidate();
         return context.call(toJSPointer()+"."+key, this, params);
     }
     
@@ -723,6 +810,7 @@ public class JSObject {
      * @param callback Callback to be called when the method call is completed.
      */
     public void callAsync(String key, Object[] params, Callback callback) {
+        invalidate();
         context.callAsync(this, this, params, callback);
     }
     
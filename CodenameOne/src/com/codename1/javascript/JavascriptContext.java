@@ -152,6 +152,17 @@ public class JavascriptContext  {
     
     private JSObject window;
     
+    /**
+     * The batch in which set() calls are queued while batching is on.
+     * @see #startBatch() 
+     */
+    private JSBatch batch;
+    
+    /**
+     * The number of times Javascript was sent to the browser.
+     */
+    private int bridgeCrossings;
+    
     
     /**
      * Creates a Javascript context for the given BrowserComponent.
@@ -256,10 +267,16 @@ public class JavascriptContext  {
      * @return The string result of executing the Javascript string.
      */
     private synchronized String exec(String js, boolean async){
+        flushPendingBatch();
+        return execImpl(js, async);
+    }
+    
+    private String execImpl(String js, boolean async){
         if ( DEBUG ){
             Log.p("About to execute("+async+") "+js);
             //browser.execute("console.log(execute ca_weblite_codename1_js_JavascriptContext_LOOKUP_TABLE0[0])");
         }
+        bridgeCrossings++;
         if (async) {
             
             browser.execute(installCode()+";("+js+")");
@@ -269,6 +286,119 @@ public class JavascriptContext  {
         }
     }
     
+    /**
+     * Executes the script generated by a JSBatch, this doesn't flush the pending batch since
+     * it might be the one being flushed.
+     */
+    synchronized String execBatch(String js){
+        return execImpl(js, false);
+    }
+    
+    /**
+     * Counts a crossing performed directly by a JSObject.
+     */
+    void countCrossing(){
+        bridgeCrossings++;
+    }
+    
+    /**
+     * Returns the number of times Javascript was sent to the browser component by this context.  Every
+     * crossing is relatively expensive, this is useful for measuring the effect of batching.
+     * @return the number of bridge crossings
+     */
+    public int getBridgeCrossings(){
+        return bridgeCrossings;
+    }
+    
+    /**
+     * Resets the bridge crossing counter.
+     */
+    public void resetBridgeCrossings(){
+        bridgeCrossings = 0;
+    }
+    
+    /**
+     * Starts queuing assignments made with set() and setAsync() (including the set methods of
+     * JSObject) so they are sent to the browser together as a single script. The queued assignments
+     * are sent when {@link #flushBatch()} is invoked or implicitly before any other Javascript is
+     * executed by this context so the order of the operations is retained.
+     * @see JSBatch
+     */
+    public synchronized void startBatch(){
+        if (batch == null){
+            batch = new JSBatch(this);
+        }
+    }
+    
+    /**
+     * Sends the queued assignments to the browser and stops batching.
+     * @see #startBatch() 
+     */
+    public synchronized void flushBatch(){
+        JSBatch b = batch;
+        batch = null;
+        if (b != null){
+            b.flush();
+        }
+    }
+    
+    /**
+     * Indicates whether assignments are currently queued rather than executed immediately.
+     * @return true if batching is on
+     */
+    public boolean isBatching(){
+        return batch != null;
+    }
+    
+    /**
+     * Sends the queued assignments without turning batching off.
+     */
+    synchronized void flushPendingBatch(){
+        if (batch != null && batch.size() > 0){
+            batch.flush();
+        }
+    }
+    
+    /**
+     * Converts a Java value to the Javascript literal used in the generated scripts.
+     * @param value The Java value.
+     * @return A javascript expression.
+     */
+    String toJSValue(Object value){
+        if ( String.class.isInstance(value)){
+            String escaped = StringUtil.replaceAll((String)value, "\\", "\\\\");
+            escaped = StringUtil.replaceAll(escaped, "'", "\\'");
+            escaped = StringUtil.replaceAll(escaped, "\n", "\\n");
+            escaped = StringUtil.replaceAll(escaped, "\r", "\\r");
+            return "'"+escaped+"'";
+        } else if ( value instanceof Integer || value instanceof Long || value instanceof Float || value instanceof Double ){
+            return value.toString();
+        } else if ( JSObject.class.isInstance(value)){
+            return ((JSObject)value).toJSPointer();
+        } else if (value instanceof Boolean){
+            return ((Boolean)value).booleanValue()?"true":"false";
+        } else {
+            return "null";
+        }
+    }
+    
+    /**
+     * Converts a value returned from Javascript along with its type to the matching Java value.
+     * Objects are expected to be represented by their id in the lookup table.
+     */
+    Object toJavaValue(String type, String value){
+        if ( "string".equals(type)){
+            return value;
+        } else if ( "number".equals(type)){
+            return Double.valueOf(value);
+        } else if ( "boolean".equals(type)){
+            return "true".equals(value)?Boolean.TRUE:Boolean.FALSE;
+        } else if ( "object".equals(type) || "function".equals(type)){
+            return new JSObject(this, Integer.parseInt(value));
+        }
+        return null;
+    }
+    
     /**
      * Uninstalls the context from the browser component.  This just includes
      * the listeners that are registered with the BrowserComponent so that 
@@ -472,24 +602,11 @@ public class JavascriptContext  {
      * on the left.
      */
     public synchronized void set(String key, Object value){
-        String lhs = key;
-        String rhs = "undefined";
-      
-        if ( String.class.isInstance(value)){
-            String escaped = StringUtil.replaceAll((String)value, "\\", "\\\\");
-            escaped = StringUtil.replaceAll(escaped, "'", "\\'");
-            rhs = "'"+escaped+"'";
-        } else if ( value instanceof Integer || value instanceof Long || value instanceof Float || value instanceof Double ){
-            rhs =value.toString();
-        } else if ( JSObject.class.isInstance(value)){
-            rhs = ((JSObject)value).toJSPointer();
-        } else if (value instanceof Boolean){
-            rhs = ((Boolean)value).booleanValue()?"true":"false";
-        } else {
-            rhs = "null";
+        if (batch != null){
+            batch.set(key, value);
+            return;
         }
-        
-        exec(lhs+"="+rhs);
+        exec(key+"="+toJSValue(value));
     }
     
     /**
@@ -518,25 +635,12 @@ public class JavascriptContext  {
      * on the left.
      * @see #set(java.lang.String, java.lang.Object) 
      */
-    public void setAsync(String key, Object value) {
-        String lhs = key;
-        String rhs = "undefined";
-      
-        if ( String.class.isInstance(value)){
-            String escaped = StringUtil.replaceAll((String)value, "\\", "\\\\");
-            escaped = StringUtil.replaceAll(escaped, "'", "\\'");
-            rhs = "'"+escaped+"'";
-        } else if ( value instanceof Integer || value instanceof Long || value instanceof Float || value instanceof Double ){
-            rhs =value.toString();
-        } else if ( JSObject.class.isInstance(value)){
-            rhs = ((JSObject)value).toJSPointer();
-        } else if (value instanceof Boolean){
-            rhs = ((Boolean)value).booleanValue()?"true":"false";
-        } else {
-            rhs = "null";
+    public synchronized void setAsync(String key, Object value) {
+        if (batch != null){
+            batch.set(key, value);
+            return;
         }
-        
-        exec(lhs+"="+rhs, true);
+        exec(key+"="+toJSValue(value), true);
     }
     
     /**
@@ -918,23 +1022,13 @@ public class JavascriptContext  {
             Object param = params[i];
             js += ", ";
             
-            if ( param instanceof Integer || param instanceof Long || param instanceof Double || param instanceof Float){
-                js += param.toString();
-            } else if ( param instanceof Boolean ){
-                js += ((Boolean)param).booleanValue()?"true":"false";
-            } else if ( param instanceof String ){
-                String escaped = StringUtil.replaceAll((String)param, "\\", "\\\\");
-                escaped = StringUtil.replaceAll(escaped, "'", "\\'");
-                js += "'"+escaped+"'";
-            } else if ( param instanceof JSObject ){
-                js += ((JSObject)param).toJSPointer();
-            } else if ( param instanceof JSFunction ){
+            if ( param instanceof JSFunction ){
                 // We need to assign this JSFunction to something.
                 JSObject temp = (JSObject)this.get("{}");
                 temp.set("callback", param);
                 js += temp.toJSPointer()+".callback";
             } else {
-                js += "null";
+                js += toJSValue(param);
             }
             
         }
@@ -247,8 +247,8 @@ public class DateFormatSymbols implements Cloneable {
 					return ERAS;
 				}
 				String newEras[] = new String[2];
-				newEras[0] = getLocalizedValue(L10N_ERA + "BC", ERAS[0]);
-				newEras[1] = getLocalizedValue(L10N_ERA + "AD", ERAS[1]);
+				newEras[0] = getLocalizedValue(L10N_ERA + "AD", ERAS[0]);
+				newEras[1] = getLocalizedValue(L10N_ERA + "BC", ERAS[1]);
 				eras = newEras;
 			}
 		}
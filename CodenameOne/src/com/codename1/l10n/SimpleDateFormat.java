@@ -171,6 +171,27 @@ public class SimpleDateFormat extends DateFormat {
      */
     private List<String> patternTokens;
 
+    /**
+     * The pattern compiled for formatting/parsing, immutable so it can be shared between threads
+     */
+    private CompiledPattern compiled;
+
+    /**
+     * The offset of the default time zone for the last formatted day, immutable and replaced as a whole
+     */
+    private ZoneOffset zoneOffset;
+
+    /**
+     * The display name of the default time zone, immutable and replaced as a whole
+     */
+    private ZoneName zoneName;
+
+    private static final int MILLIS_IN_DAY = 86400000;
+    /**
+     * October 15th 1582 which follows October 4th 1582 in the Julian calendar
+     */
+    private static final long GREGORIAN_CUTOVER_DAYS = -141427;
+
     /**
      * Construct a SimpleDateFormat with no pattern.
      */
@@ -216,6 +237,7 @@ public class SimpleDateFormat extends DateFormat {
      */
     public void setDateFormatSymbols(DateFormatSymbols newSymbols) {
         dateFormatSymbols = newSymbols;
+        zoneName = null;
     }
 
     /**
@@ -225,6 +247,7 @@ public class SimpleDateFormat extends DateFormat {
      */
     public void applyPattern(String pattern) {
         this.pattern = pattern;
+        compiled = null;
         if (patternTokens != null) {
             patternTokens.clear();
             patternTokens = null;
@@ -243,6 +266,76 @@ public class SimpleDateFormat extends DateFormat {
         return patternTokens;
     }
 
+    /**
+     * Returns the pattern compiled into arrays of pattern letters, repeat counts and token text so
+     * format/parse don't need to allocate or walk token strings on every call
+     */
+    CompiledPattern getCompiledPattern() {
+        CompiledPattern c = compiled;
+        if (c == null) {
+            c = new CompiledPattern(parseDatePattern(pattern));
+            compiled = c;
+        }
+        return c;
+    }
+
+    /**
+     * An immutable compiled form of the pattern tokens
+     */
+    static final class CompiledPattern {
+        final char[] letters;
+        final int[] counts;
+        final String[] tokens;
+        final boolean[] adjacent;
+
+        CompiledPattern(List<String> pattern) {
+            int size = pattern.size();
+            letters = new char[size];
+            counts = new int[size];
+            tokens = new String[size];
+            adjacent = new boolean[size];
+            for (int i = 0; i < size; i++) {
+                String token = pattern.get(i);
+                letters[i] = token.charAt(0);
+                tokens[i] = token.substring(1);
+                counts[i] = tokens[i].length();
+                if (i < size - 1) {
+                    adjacent[i] = pattern.get(i + 1).charAt(0) != LITERAL_LETTER;
+                }
+            }
+        }
+    }
+
+    /**
+     * The offset of a time zone which is constant for the given range in UTC
+     */
+    static final class ZoneOffset {
+        final TimeZone zone;
+        final long start;
+        final long end;
+        final int offset;
+
+        ZoneOffset(TimeZone zone, long start, long end, int offset) {
+            this.zone = zone;
+            this.start = start;
+            this.end = end;
+            this.offset = offset;
+        }
+    }
+
+    /**
+     * The display name for a time zone ID
+     */
+    static final class ZoneName {
+        final String id;
+        final String name;
+
+        ZoneName(String id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -262,7 +355,12 @@ public class SimpleDateFormat extends DateFormat {
      */
     @Override
     public String format(Date source) {
-        return format(source, new StringBuffer());
+        if (source == null || pattern == null) {
+            return format(source, new StringBuffer());
+        }
+        StringBuilder sb = new StringBuilder(pattern.length() + 16);
+        format(source.getTime(), sb);
+        return sb.toString();
     }
 
     /*
@@ -278,134 +376,295 @@ public class SimpleDateFormat extends DateFormat {
         if (pattern == null) {
             return super.format(source, toAppendTo);
         }
-        // format based on local timezone
-        Calendar calendar = Calendar.getInstance(TimeZone.getDefault());
-        calendar.setTime(source);
-        List<String> pattern = getPatternTokens();
-        for (int i = 0; i < pattern.size(); i++) {
-            String token = (String) pattern.get(i);
-            char patternChar = token.charAt(0);
-            token = token.substring(1);
-            int len = token.length();
-            int v = -1;
+        StringBuilder sb = new StringBuilder(pattern.length() + 16);
+        format(source.getTime(), sb);
+        toAppendTo.append(sb.toString());
+        return toAppendTo.toString();
+    }
+
+    /**
+     * Formats the given time in the default time zone, appending the result to the given builder. The
+     * fields are computed directly from the epoch time using the Gregorian calendar and the Julian calendar
+     * before the Gregorian cutover as {@link java.util.Calendar} does, the offset of the time zone is cached
+     * per day. This method is thread safe as long as the date format symbols aren't modified.
+     *
+     * @param time the time in milliseconds since the epoch
+     * @param toAppendTo the builder to which the formatted date is appended
+     */
+    public void format(long time, StringBuilder toAppendTo) {
+        if (pattern == null) {
+            toAppendTo.append(super.format(new Date(time), new StringBuffer()));
+            return;
+        }
+        CompiledPattern c = getCompiledPattern();
+        TimeZone zone = TimeZone.getDefault();
+        int offset = getZoneOffset(zone, time);
+
+        long local = time + offset;
+        long days = floorDiv(local, MILLIS_IN_DAY);
+        int millisOfDay = (int)(local - days * MILLIS_IN_DAY);
+        int hourOfDay = millisOfDay / 3600000;
+
+        long date = civilFromDays(days);
+        int year = (int)(date >> 9);
+        int month = (int)(date >> 5) & 15;
+        int day = (int)date & 31;
+
+        // the year in which the calendar switches is shorter so both are derived from january 1st
+        long firstDay = daysFromCivil(year, 1, 1);
+        int dayOfYear = (int)(days - firstDay) + 1;
+        int daysInYear = (int)(daysFromCivil(year + 1, 1, 1) - firstDay);
+        // 0 is sunday
+        int dayOfWeek = (int)floorMod(days + 4, 7);
+
+        int len = c.letters.length;
+        for (int i = 0; i < len; i++) {
+            char patternChar = c.letters[i];
+            int count = c.counts[i];
+            int v;
             switch (patternChar) {
                 case LITERAL_LETTER:
-                    toAppendTo.append(token);
+                    toAppendTo.append(c.tokens[i]);
                     break;
                 case AMPM_LETTER:
-                    boolean am = calendar.get(Calendar.AM_PM) == Calendar.AM;
                     String ampm[] = getDateFormatSymbols().getAmPmStrings();
-                    if (len == 1) {
-						// JDK6 doesn't handle this, but likely useful
+                    String marker = hourOfDay < 12 ? ampm[0] : ampm[1];
+                    if (count == 1) {
+                        // JDK6 doesn't handle this, but likely useful
                         // somewhere, and is parsable.
-                        toAppendTo.append(am ? ampm[0].charAt(0) : ampm[1].charAt(0));
+                        toAppendTo.append(marker.charAt(0));
                     } else {
-                        toAppendTo.append(am ? ampm[0] : ampm[1]);
+                        toAppendTo.append(marker);
                     }
                     break;
                 case ERA_LETTER:
-                    toAppendTo.append(getDateFormatSymbols().getEras()[calendar.get(ERA)]);
+                    // the symbols list AD first
+                    toAppendTo.append(getDateFormatSymbols().getEras()[year > 0 ? 0 : 1]);
                     break;
                 case DAY_OF_WEEK_LETTER:
-                    v = calendar.get(Calendar.DAY_OF_WEEK) - 1;
-                    if (len > 3) {
-                        toAppendTo.append(getDateFormatSymbols().getWeekdays()[v]);
+                    if (count > 3) {
+                        toAppendTo.append(getDateFormatSymbols().getWeekdays()[dayOfWeek]);
                     } else {
-                        toAppendTo.append(getDateFormatSymbols().getShortWeekdays()[v]);
+                        toAppendTo.append(getDateFormatSymbols().getShortWeekdays()[dayOfWeek]);
                     }
                     break;
                 case TIMEZONE_LETTER:
-                    String names[] = getTimeZoneDisplayNames(calendar.getTimeZone().getID());
-                    if (names == null) {
-                        toAppendTo.append(calendar.getTimeZone().getID());
-                    } else {
-                        toAppendTo.append(names[DateFormatSymbols.ZONE_SHORTNAME]);
-                    }
+                    toAppendTo.append(getZoneName(zone));
                     break;
                 case TIMEZONE822_LETTER:
-                    v = getOffsetInMinutes(calendar, calendar.getTimeZone());
+                    v = offset / MILLIS_TO_MINUTES;
                     if (v < 0) {
                         toAppendTo.append(SIGN_NEGATIVE);
                         v = -v;
                     } else {
                         toAppendTo.append(SIGN_POSITIVE);
                     }
-                    toAppendTo.append(leftPad(v / 60, 2));
-                    toAppendTo.append(leftPad(v % 60, 2));
+                    appendPadded(toAppendTo, v / 60, 2);
+                    appendPadded(toAppendTo, v % 60, 2);
                     break;
                 case YEAR_LETTER:
-                    v = calendar.get(Calendar.YEAR);
-                    if (len == 2) {
-                        v %= 100;
+                    v = year > 0 ? year : 1 - year;
+                    if (count == 2) {
+                        appendPadded(toAppendTo, v % 100, 2);
+                    } else {
+                        appendPadded(toAppendTo, v, count);
                     }
-                    toAppendTo.append(v);
                     break;
                 case MONTH_LETTER:
-                    v = calendar.get(Calendar.MONTH) - Calendar.JANUARY;
-                    if (len > 3) {
-                        toAppendTo.append(getDateFormatSymbols().getMonths()[v]);
-                    } else if (len == 3) {
-                        toAppendTo.append(getDateFormatSymbols().getShortMonths()[v]);
+                    if (count > 3) {
+                        toAppendTo.append(getDateFormatSymbols().getMonths()[month - 1]);
+                    } else if (count == 3) {
+                        toAppendTo.append(getDateFormatSymbols().getShortMonths()[month - 1]);
                     } else {
-                        toAppendTo.append(leftPad(v + 1, len));
+                        appendPadded(toAppendTo, month, count);
                     }
                     break;
                 case DAY_LETTER:
-                    v = calendar.get(Calendar.DAY_OF_MONTH);
-                    toAppendTo.append(leftPad(v, len));
+                    appendPadded(toAppendTo, day, count);
                     break;
                 case HOUR_LETTER:
+                    appendPadded(toAppendTo, hourOfDay, count);
+                    break;
                 case HOUR_1_LETTER:
+                    appendPadded(toAppendTo, hourOfDay == 0 ? 24 : hourOfDay, count);
+                    break;
                 case HOUR12_LETTER:
+                    appendPadded(toAppendTo, hourOfDay % 12, count);
+                    break;
                 case HOUR12_1_LETTER:
-                    v = calendar.get(Calendar.HOUR_OF_DAY);
-
-                    if (patternChar == HOUR_1_LETTER && v == 0) {
-                        v = 24;
-                    }
-                    if (patternChar == HOUR12_1_LETTER) {
-                        v %= 12;
-                        if (v == 0) {
-                            v = 12;
-                        }
-                    } else {
-                        if (patternChar == HOUR12_LETTER) {
-                            v %= 12;
-                        }
-                    }
-                    toAppendTo.append(leftPad(v, len));
+                    v = hourOfDay % 12;
+                    appendPadded(toAppendTo, v == 0 ? 12 : v, count);
                     break;
                 case MINUTE_LETTER:
-                    v = calendar.get(Calendar.MINUTE);
-                    toAppendTo.append(leftPad(v, len));
+                    appendPadded(toAppendTo, (millisOfDay / 60000) % 60, count);
                     break;
                 case SECOND_LETTER:
-                    v = calendar.get(Calendar.SECOND);
-                    toAppendTo.append(leftPad(v, len));
+                    appendPadded(toAppendTo, (millisOfDay / 1000) % 60, count);
                     break;
                 case MILLISECOND_LETTER:
-                    v = calendar.get(Calendar.MILLISECOND);
-                    toAppendTo.append(leftPad(v, len));
+                    appendPadded(toAppendTo, millisOfDay % 1000, count);
                     break;
                 case WEEK_IN_YEAR_LETTER:
-                    v = calendar.get(WEEK_OF_YEAR);
-                    toAppendTo.append(leftPad(v, len));
+                    // weeks start on sunday and the first week is the one containing January 1st
+                    if (daysInYear - dayOfYear < 6 - dayOfWeek) {
+                        // this week contains January 1st of the next year
+                        v = 1;
+                    } else {
+                        int jan1 = (int)floorMod(dayOfWeek - (dayOfYear - 1), 7);
+                        v = (dayOfYear - 1 + jan1) / 7 + 1;
+                    }
+                    appendPadded(toAppendTo, v, count);
                     break;
                 case WEEK_IN_MONTH_LETTER:
-                    v = calendar.get(WEEK_OF_MONTH);
-                    toAppendTo.append(leftPad(v, len));
+                    // counted in days since the 1st which differs from the day during the cutover month
+                    v = (int)(days - daysFromCivil(year, month, 1));
+                    int first = (int)floorMod(dayOfWeek - v, 7);
+                    appendPadded(toAppendTo, (v + first) / 7 + 1, count);
                     break;
                 case DAY_IN_YEAR_LETTER:
-                    v = calendar.get(DAY_OF_YEAR);
-                    toAppendTo.append(leftPad(v, len));
+                    appendPadded(toAppendTo, dayOfYear, count);
                     break;
                 case DOW_IN_MONTH_LETTER:
-                    v = calendar.get(DAY_OF_WEEK_IN_MONTH);
-                    toAppendTo.append(leftPad(v, len));
+                    v = (int)(days - daysFromCivil(year, month, 1));
+                    appendPadded(toAppendTo, v / 7 + 1, count);
                     break;
             }
         }
-        return toAppendTo.toString();
+    }
+
+    /**
+     * Returns the offset of the zone in milliseconds at the given UTC time, the offset is cached for the
+     * whole day unless that day contains a daylight saving transition
+     */
+    private int getZoneOffset(TimeZone zone, long time) {
+        ZoneOffset cached = zoneOffset;
+        if (cached != null && cached.zone == zone && time >= cached.start && time < cached.end) {
+            return cached.offset;
+        }
+        int raw = zone.getRawOffset();
+        // TimeZone.getOffset() expects the date in local standard time
+        long local = time + raw;
+        long days = floorDiv(local, MILLIS_IN_DAY);
+        int millisOfDay = (int)(local - days * MILLIS_IN_DAY);
+        // the zone expects a proleptic Gregorian date
+        long date = gregorianFromDays(days);
+        int year = (int)(date >> 9);
+        int month = (int)(date >> 5) & 15;
+        int day = (int)date & 31;
+        int era = 1;
+        if (year <= 0) {
+            era = 0;
+            year = 1 - year;
+        }
+        int dayOfWeek = (int)floorMod(days + 4, 7) + Calendar.SUNDAY;
+        int startOffset = zone.getOffset(era, year, month - 1, day, dayOfWeek, 0);
+        int endOffset = zone.getOffset(era, year, month - 1, day, dayOfWeek, MILLIS_IN_DAY - 1);
+        if (startOffset == endOffset) {
+            long start = days * MILLIS_IN_DAY - raw;
+            zoneOffset = new ZoneOffset(zone, start, start + MILLIS_IN_DAY, startOffset);
+            return startOffset;
+        }
+        return zone.getOffset(era, year, month - 1, day, dayOfWeek, millisOfDay);
+    }
+
+    private String getZoneName(TimeZone zone) {
+        String id = zone.getID();
+        ZoneName n = zoneName;
+        if (n == null || !n.id.equals(id)) {
+            String names[] = getTimeZoneDisplayNames(id);
+            if (names == null) {
+                n = new ZoneName(id, id);
+            } else {
+                n = new ZoneName(id, names[DateFormatSymbols.ZONE_SHORTNAME]);
+            }
+            zoneName = n;
+        }
+        return n.name;
+    }
+
+    /**
+     * Returns the date of the given day since the epoch packed as year &lt;&lt; 9 | month &lt;&lt; 5 | day, the
+     * Julian calendar is used before the Gregorian cutover
+     */
+    private static long civilFromDays(long days) {
+        if (days >= GREGORIAN_CUTOVER_DAYS) {
+            return gregorianFromDays(days);
+        }
+        // years counted from march 1st in 4 year cycles
+        long z = days + 719470;
+        long cycle = floorDiv(z, 1461);
+        int doc = (int)(z - cycle * 1461);
+        int yoc = (doc - doc / 1460) / 365;
+        int doyMarch = doc - 365 * yoc;
+        int mp = (5 * doyMarch + 2) / 153;
+        long day = doyMarch - (153 * mp + 2) / 5 + 1;
+        long month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yoc + cycle * 4 + (month <= 2 ? 1 : 0);
+        return (year << 9) | (month << 5) | day;
+    }
+
+    /**
+     * Same as civilFromDays using the proleptic Gregorian calendar
+     */
+    private static long gregorianFromDays(long days) {
+        long z = days + 719468;
+        long era = floorDiv(z, 146097);
+        int doe = (int)(z - era * 146097);
+        int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        int doyMarch = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        int mp = (5 * doyMarch + 2) / 153;
+        long day = doyMarch - (153 * mp + 2) / 5 + 1;
+        long month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+        return (year << 9) | (month << 5) | day;
+    }
+
+    /**
+     * Returns the days since the epoch of the given date, dates before the Gregorian cutover are Julian
+     */
+    private static long daysFromCivil(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        int mp = month > 2 ? month - 3 : month + 9;
+        int doyMarch = (153 * mp + 2) / 5 + day - 1;
+        long era = floorDiv(y, 400);
+        int yoe = (int)(y - era * 400);
+        long days = era * 146097 + yoe * 365 + yoe / 4 - yoe / 100 + doyMarch - 719468;
+        if (days >= GREGORIAN_CUTOVER_DAYS) {
+            return days;
+        }
+        long cycle = floorDiv(y, 4);
+        int yoc = (int)(y - cycle * 4);
+        return cycle * 1461 + yoc * 365 + doyMarch - 719470;
+    }
+
+    private static long floorDiv(long a, long b) {
+        long r = a / b;
+        if ((a % b != 0) && ((a < 0) != (b < 0))) {
+            r--;
+        }
+        return r;
+    }
+
+    private static long floorMod(long a, long b) {
+        return a - floorDiv(a, b) * b;
+    }
+
+    /**
+     * Appends a non negative number left padded with zeros to the given number of digits
+     */
+    private static void appendPadded(StringBuilder sb, int v, int size) {
+        int digits = 1;
+        for (int t = v; t >= 10; t /= 10) {
+            digits++;
+        }
+        for (int i = digits; i < size; i++) {
+            sb.append('0');
+        }
+        if (v < 10) {
+            sb.append((char)('0' + v));
+        } else {
+            sb.append(v);
+        }
     }
 
     private String[] getTimeZoneDisplayNames(String id) {
@@ -439,17 +698,14 @@ public class SimpleDateFormat extends DateFormat {
         // parse based on GMT timezone for handling offsets
         Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone(GMT));
         int tzMinutes = -1;
-        List<String> pattern = getPatternTokens();
-        for (int i = 0; i < pattern.size(); i++) {
-            String token = (String) pattern.get(i);
-            boolean adjacent = false;
-            if (i < (pattern.size() - 1)) {
-                adjacent = ((String) pattern.get(i + 1)).charAt(0) != LITERAL_LETTER;
-            }
+        CompiledPattern c = getCompiledPattern();
+        int plen = c.letters.length;
+        for (int i = 0; i < plen; i++) {
+            String token = c.tokens[i];
+            boolean adjacent = c.adjacent[i];
             String s = null;
             int v = -1;
-            char patternChar = token.charAt(0);
-            token = token.substring(1);
+            char patternChar = c.letters[i];
             switch (patternChar) {
                 case LITERAL_LETTER:
                     s = readLiteral(source, startIndex, token);
@@ -1058,6 +1314,14 @@ public class SimpleDateFormat extends DateFormat {
                         tmp = null;
                     }
                     tokens.add(LITERAL_LETTER + pattern.substring(i + 1, n));
+                } else {
+                    // unterminated quote, treat the rest of the pattern as text
+                    if (tmp != null) {
+                        tokens.add(tmp.charAt(0) + tmp);
+                        tmp = null;
+                    }
+                    tokens.add(LITERAL_LETTER + pattern.substring(i + 1));
+                    n = plen;
                 }
                 i = n;
                 continue;
@@ -1073,7 +1337,7 @@ public class SimpleDateFormat extends DateFormat {
                 int n;
                 for (n = i; n < plen; n++) {
                     ch = pattern.charAt(n);
-                    if (PATTERN_LETTERS.indexOf(ch) != -1) {
+                    if (PATTERN_LETTERS.indexOf(ch) != -1 || ch == EXPLICIT_LITERAL) {
                         break;
                     }
                     if (isAlpha(ch)) {
@@ -62,6 +62,8 @@ public class AutoCompleteTextField extends TextField {
     private ArrayList<ActionListener> listeners = new ArrayList<ActionListener>();
     private String pickedText;
     private int minimumLength;
+    private boolean asyncFilter;
+    private boolean indexedFilter;
     
     /**
      * The number of elements shown for the auto complete popup
@@ -186,11 +188,63 @@ public class AutoCompleteTextField extends TextField {
      */
     protected boolean filter(String text) {
         if(filter != null) {
+            if(asyncFilter) {
+                filter.filterAsync(text, new Runnable() {
+                    public void run() {
+                        if(getComponentForm() != null) {
+                            updateFilterList();
+                        }
+                    }
+                });
+                return false;
+            }
             filter.filter(text);        
             return true;
         }
         return false;
     }
+
+    /**
+     * When enabled the completion list is filtered on a background thread and the popup is updated once
+     * the result is ready, this keeps typing responsive with very large completion models. This only
+     * takes effect when {@link #setIndexedFilter(boolean)} is enabled
+     * @return the asyncFilter
+     */
+    public boolean isAsyncFilter() {
+        return asyncFilter;
+    }
+
+    /**
+     * When enabled the completion list is filtered on a background thread and the popup is updated once
+     * the result is ready, this keeps typing responsive with very large completion models. This only
+     * takes effect when {@link #setIndexedFilter(boolean)} is enabled
+     * @param asyncFilter the asyncFilter to set
+     */
+    public void setAsyncFilter(boolean asyncFilter) {
+        this.asyncFilter = asyncFilter;
+    }
+
+    /**
+     * Indicates whether the completion model is filtered using an index, see 
+     * {@link com.codename1.ui.list.FilterProxyListModel#setIndexed(boolean)}
+     * @return the indexedFilter
+     */
+    public boolean isIndexedFilter() {
+        return indexedFilter;
+    }
+
+    /**
+     * Filters the completion model using an index which is much faster for very large completion
+     * lists, notice that in this mode a custom filter model that overrides the check method isn't invoked
+     * see {@link com.codename1.ui.list.FilterProxyListModel#setIndexed(boolean)}
+     * @param indexedFilter the indexedFilter to set
+     */
+    public void setIndexedFilter(boolean indexedFilter) {
+        this.indexedFilter = indexedFilter;
+        if(filter != null) {
+            filter.setIndexed(indexedFilter);
+        }
+    }
     
     private boolean filterImpl(String text) {
         boolean res = filter(text);
@@ -520,6 +574,7 @@ public class AutoCompleteTextField extends TextField {
      */
     public void setCompletion(String... completion) {
         filter = new FilterProxyListModel<String>(new DefaultListModel<String>(completion));        
+        filter.setIndexed(indexedFilter);
     }
     
     /**
@@ -541,6 +596,7 @@ public class AutoCompleteTextField extends TextField {
     public String setPropertyValue(String name, Object value) {
         if(name.equals("completion")) {
             filter = new FilterProxyListModel<String>(new DefaultListModel<String>((String[])value));
+            filter.setIndexed(indexedFilter);
             return null;
         }
         return super.setPropertyValue(name, value);
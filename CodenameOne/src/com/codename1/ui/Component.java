@@ -746,6 +746,9 @@ public class Component implements Animation, StyleListener {
      * to reach similar functionality
      */
     public void setPreferredSize(Dimension d) {
+        if(parent != null) {
+            parent.childInvalidated(this);
+        }
         if(d == null) {
             sizeRequestedByUser = false;
             preferredSize = null;
@@ -2072,6 +2075,7 @@ public class Component implements Animation, StyleListener {
             this.shouldCalcScrollSize = shouldCalcPreferredSize;
             if (shouldCalcPreferredSize && getParent() != null) {
                 this.shouldCalcPreferredSize = shouldCalcPreferredSize;
+                getParent().childInvalidated(this);
                 getParent().setShouldLayout(shouldCalcPreferredSize);
             }
         }
@@ -2085,6 +2089,9 @@ public class Component implements Animation, StyleListener {
         if(cmps != null) {
             for(Component c : cmps) {
                 c.shouldCalcPreferredSize = true;
+                if(c.parent != null) {
+                    c.parent.childInvalidated(c);
+                }
             }
         }
     }
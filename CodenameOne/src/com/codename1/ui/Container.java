@@ -423,10 +423,22 @@ public class Container extends Component implements Iterable<Component>{
             }
             Container parent = getParent();
             if(parent != null){
+                if(layout) {
+                    parent.childInvalidated(this);
+                }
                 parent.setShouldLayout(layout);
             }
         }
     }
+
+    /**
+     * Notifies the layout that the preferred size of the given child might have changed
+     */
+    void childInvalidated(Component cmp) {
+        if(layout != null) {
+            layout.componentInvalidated(this, cmp);
+        }
+    }
     /**
      * {@inheritDoc}
      */
@@ -362,6 +362,15 @@ public final class Display {
      */
     public static final int KEY_POUND = '#';
 
+    /**
+     * The upper bounds in milliseconds of the buckets in the queue latency histograms, the
+     * histograms have an additional bucket for anything above the last bound. This must be
+     * initialized before INSTANCE since the constructor allocates the histograms
+     */
+    private static final int[] LATENCY_BUCKETS = {1, 2, 4, 8, 16, 32, 64, 128, 256, 512, 1024};
+
+    private static final Object backgroundLock = new Object();
+
     private static final Display INSTANCE = new Display();
 
     static int transitionDelay = -1;
@@ -372,9 +381,23 @@ public final class Display {
 
 
     /**
-     * Contains the call serially pending elements
+     * Contains the call serially pending elements, the array is swapped with runningSerialCalls
+     * when the EDT drains it so neither submission nor processing allocates memory
      */
-    private ArrayList<Runnable> pendingSerialCalls = new ArrayList<Runnable>();
+    private Runnable[] pendingSerialCalls = new Runnable[16];
+    private long[] pendingSerialCallTimes = new long[16];
+    private int pendingSerialCallsCount;
+    private Runnable[] runningSerialCalls = new Runnable[16];
+    private long[] runningSerialCallTimes = new long[16];
+
+    /**
+     * Indicates the EDT is waiting on the lock, submissions only signal the lock in this case
+     */
+    private boolean edtSleeping;
+
+    private boolean queueLatencyTracking;
+    private final int[] serialCallLatency = new int[LATENCY_BUCKETS.length + 1];
+    private final int[] backgroundTaskLatency = new int[LATENCY_BUCKETS.length + 1];
 
     /**
      * This is the instance of the EDT used internally to indicate whether
@@ -532,8 +555,26 @@ public final class Display {
 
     private boolean dropEvents;
     
-    private ArrayList<Runnable> backgroundTasks;
-    private Thread backgroundThread;
+    /**
+     * Priority of a background task that should run after all other pending tasks
+     */
+    public static final int BACKGROUND_PRIORITY_LOW = 0;
+
+    /**
+     * The priority of tasks submitted with {@link #scheduleBackgroundTask(java.lang.Runnable)}
+     */
+    public static final int BACKGROUND_PRIORITY_NORMAL = 1;
+
+    /**
+     * Priority of a background task that should run before all other pending tasks
+     */
+    public static final int BACKGROUND_PRIORITY_HIGH = 2;
+
+    private final ArrayList<BackgroundTask> backgroundTasks = new ArrayList<BackgroundTask>();
+    private int backgroundThreadCount = 1;
+    private int activeBackgroundThreads;
+    private int idleBackgroundThreads;
+    private int backgroundThreadKeepAlive = 5000;
 
     private boolean multiKeyMode;
     
@@ -764,8 +805,25 @@ public final class Display {
     public void callSerially(Runnable r){
         if(codenameOneRunning) {
             synchronized(lock) {
-                pendingSerialCalls.add(r);
-                lock.notifyAll();
+                int count = pendingSerialCallsCount;
+                if(count == pendingSerialCalls.length) {
+                    Runnable[] calls = new Runnable[count * 2];
+                    System.arraycopy(pendingSerialCalls, 0, calls, 0, count);
+                    pendingSerialCalls = calls;
+                    long[] times = new long[count * 2];
+                    System.arraycopy(pendingSerialCallTimes, 0, times, 0, count);
+                    pendingSerialCallTimes = times;
+                }
+                pendingSerialCalls[count] = r;
+                if(queueLatencyTracking) {
+                    pendingSerialCallTimes[count] = System.currentTimeMillis();
+                }
+                pendingSerialCallsCount = count + 1;
+
+                // a busy EDT will pick up the call on its next cycle, only wake it when its asleep
+                if(edtSleeping) {
+                    lock.notifyAll();
+                }
             }
         } else {
             r.run();
@@ -773,52 +831,143 @@ public final class Display {
     }
 
     /**
-     * Allows executing a background task in a separate low priority thread. Tasks are serialized
-     * so they don't overload the CPU.
+     * Allows executing a background task in a separate low priority thread. Tasks are executed in
+     * the order of submission by a pool of {@link #getBackgroundThreadCount()} threads, with the
+     * default pool of one thread the tasks are serialized so they don't overload the CPU.
      * 
      * @param r the task to perform in the background
      */
     public void scheduleBackgroundTask(Runnable r) {
-        synchronized(lock) {
-            if(backgroundTasks == null) {
-                backgroundTasks = new ArrayList<Runnable>();
+        scheduleBackgroundTask(r, BACKGROUND_PRIORITY_NORMAL);
+    }
+
+    /**
+     * Allows executing a background task in a separate low priority thread. Pending tasks with a
+     * higher priority are executed first, tasks of the same priority are executed in the order of
+     * submission.
+     *
+     * @param r the task to perform in the background
+     * @param priority one of {@link #BACKGROUND_PRIORITY_LOW}, {@link #BACKGROUND_PRIORITY_NORMAL}
+     * or {@link #BACKGROUND_PRIORITY_HIGH}
+     */
+    public void scheduleBackgroundTask(Runnable r, int priority) {
+        BackgroundTask t = new BackgroundTask();
+        t.task = r;
+        t.priority = priority;
+        if(queueLatencyTracking) {
+            t.time = System.currentTimeMillis();
+        }
+        synchronized(backgroundLock) {
+            int pos = backgroundTasks.size();
+            while(pos > 0 && backgroundTasks.get(pos - 1).priority < priority) {
+                pos--;
             }
-            backgroundTasks.add(r);
-            if(backgroundThread == null) {
-                backgroundThread = new CodenameOneThread(new Runnable() {
-                    public void run() {
-                        // using while true to avoid double lock optimization with synchronized block
-                        while(true) {
-                            Runnable nextTask = null;
-                            synchronized(lock) {
-                                if(backgroundTasks.size() > 0) {
-                                    nextTask = (Runnable)backgroundTasks.get(0);
-                                } else {
-                                    backgroundThread = null;
-                                    return;
-                                }
-                                backgroundTasks.remove(0);
-                            }
-                            //preent a runtime exception to crash the 
-                            //backgroundThread
-                            try {
-                                nextTask.run();                                
-                            } catch (Throwable e) {
-                                e.printStackTrace();
-                            }
-                            try {
-                                Thread.sleep(10);
-                            } catch (InterruptedException ex) {
-                            }
+            backgroundTasks.add(pos, t);
+            if(idleBackgroundThreads > 0) {
+                backgroundLock.notify();
+                return;
+            }
+            if(activeBackgroundThreads >= backgroundThreadCount) {
+                return;
+            }
+            activeBackgroundThreads++;
+        }
+        Thread worker = new CodenameOneThread(new BackgroundWorker(), "Task Thread");
+        worker.setPriority(Thread.MIN_PRIORITY + 1);
+        worker.start();
+    }
+
+    /**
+     * Sets the maximum number of threads executing background tasks, threads are created on demand
+     * and exit once they are idle. Notice that with more than one thread tasks can run concurrently
+     * and complete out of order.
+     *
+     * @param count the number of threads, defaults to 1
+     */
+    public void setBackgroundThreadCount(int count) {
+        synchronized(backgroundLock) {
+            backgroundThreadCount = Math.max(1, count);
+        }
+    }
+
+    /**
+     * Returns the maximum number of threads executing background tasks
+     *
+     * @return the number of threads
+     */
+    public int getBackgroundThreadCount() {
+        return backgroundThreadCount;
+    }
+
+    /**
+     * Sets the amount of time an idle background thread waits for a new task before exiting
+     *
+     * @param keepAlive the time in milliseconds, defaults to 5000
+     */
+    public void setBackgroundThreadKeepAlive(int keepAlive) {
+        backgroundThreadKeepAlive = Math.max(1, keepAlive);
+    }
+
+    /**
+     * Returns the amount of time an idle background thread waits for a new task before exiting
+     *
+     * @return the time in milliseconds
+     */
+    public int getBackgroundThreadKeepAlive() {
+        return backgroundThreadKeepAlive;
+    }
+
+    /**
+     * Returns the number of background tasks waiting for a thread
+     *
+     * @return the number of pending tasks
+     */
+    public int getPendingBackgroundTasks() {
+        synchronized(backgroundLock) {
+            return backgroundTasks.size();
+        }
+    }
+
+    static class BackgroundTask {
+        Runnable task;
+        int priority;
+        long time;
+    }
+
+    class BackgroundWorker implements Runnable {
+        public void run() {
+            while(true) {
+                BackgroundTask next;
+                synchronized(backgroundLock) {
+                    while(backgroundTasks.size() == 0) {
+                        long start = System.currentTimeMillis();
+                        idleBackgroundThreads++;
+                        try {
+                            backgroundLock.wait(backgroundThreadKeepAlive);
+                        } catch(InterruptedException ex) {
+                        }
+                        idleBackgroundThreads--;
+                        if(backgroundTasks.size() == 0 &&
+                                System.currentTimeMillis() - start >= backgroundThreadKeepAlive) {
+                            activeBackgroundThreads--;
+                            return;
                         }
                     }
-                }, "Task Thread");
-                backgroundThread.setPriority(Thread.MIN_PRIORITY + 1);
-                backgroundThread.start();
+                    next = backgroundTasks.remove(0);
+                }
+                if(next.time != 0) {
+                    recordLatency(backgroundTaskLatency, System.currentTimeMillis() - next.time);
+                }
+                //prevent a runtime exception to crash the 
+                //background thread
+                try {
+                    next.task.run();
+                } catch (Throwable e) {
+                    e.printStackTrace();
+                }
             }
         }
     }
-    
 
     /**
      * Identical to callSerially with the added benefit of waiting for the Runnable method to complete.
@@ -835,11 +984,11 @@ public final class Display {
         RunnableWrapper c = new RunnableWrapper(r, 0);
         callSerially(c);
         flushEdt();
-        synchronized(lock) {
+        synchronized(c) {
             while(!c.isDone()) {
                 try {
-                    // poll doneness to prevent potential race conditions
-                    lock.wait(50);
+                    // the wrapper notifies itself once the call completes
+                    c.wait();
                 } catch(InterruptedException err) {}
             }
         }
@@ -857,20 +1006,107 @@ public final class Display {
     public void callSeriallyAndWait(Runnable r, int timeout){
         RunnableWrapper c = new RunnableWrapper(r, 0);
         callSerially(c);
-        synchronized(lock) {
+        synchronized(c) {
             long t = System.currentTimeMillis();
             while(!c.isDone()) {
-                try {
-                    // poll doneness to prevent potential race conditions
-                    lock.wait(20);
-                } catch(InterruptedException err) {}
-                if(System.currentTimeMillis() - t >= timeout) {
+                long remaining = timeout - (System.currentTimeMillis() - t);
+                if(remaining <= 0) {
                     return;
                 }
+                try {
+                    c.wait(remaining);
+                } catch(InterruptedException err) {}
             }
         }
     }
 
+    /**
+     * Enables collection of the queue latency histograms returned by
+     * {@link #getSerialCallLatencyHistogram()} and {@link #getBackgroundTaskLatencyHistogram()}, tracking
+     * is off by default since it requires a timestamp per submission
+     *
+     * @param queueLatencyTracking true to collect the latency of the EDT and background queues
+     */
+    public void setQueueLatencyTracking(boolean queueLatencyTracking) {
+        this.queueLatencyTracking = queueLatencyTracking;
+    }
+
+    /**
+     * Indicates whether queue latency histograms are collected
+     *
+     * @return true if tracking is enabled
+     */
+    public boolean isQueueLatencyTracking() {
+        return queueLatencyTracking;
+    }
+
+    /**
+     * Returns the upper bounds in milliseconds of the latency histogram buckets, entry i of a
+     * histogram counts latencies below bound i and above the previous bound. The histograms have one
+     * more entry than the bounds which counts everything above the last bound.
+     *
+     * @return the bucket bounds in milliseconds
+     */
+    public int[] getLatencyHistogramBuckets() {
+        int[] b = new int[LATENCY_BUCKETS.length];
+        System.arraycopy(LATENCY_BUCKETS, 0, b, 0, b.length);
+        return b;
+    }
+
+    /**
+     * Returns the distribution of the time calls submitted via {@link #callSerially(java.lang.Runnable)} waited
+     * before the EDT started running them, see {@link #getLatencyHistogramBuckets()}
+     *
+     * @return a copy of the histogram
+     */
+    public int[] getSerialCallLatencyHistogram() {
+        return copyHistogram(serialCallLatency);
+    }
+
+    /**
+     * Returns the distribution of the time background tasks waited for a thread,
+     * see {@link #getLatencyHistogramBuckets()}
+     *
+     * @return a copy of the histogram
+     */
+    public int[] getBackgroundTaskLatencyHistogram() {
+        return copyHistogram(backgroundTaskLatency);
+    }
+
+    /**
+     * Clears the queue latency histograms
+     */
+    public void resetLatencyHistograms() {
+        synchronized(serialCallLatency) {
+            for(int iter = 0 ; iter < serialCallLatency.length ; iter++) {
+                serialCallLatency[iter] = 0;
+            }
+        }
+        synchronized(backgroundTaskLatency) {
+            for(int iter = 0 ; iter < backgroundTaskLatency.length ; iter++) {
+                backgroundTaskLatency[iter] = 0;
+            }
+        }
+    }
+
+    private static int[] copyHistogram(int[] h) {
+        synchronized(h) {
+            int[] c = new int[h.length];
+            System.arraycopy(h, 0, c, 0, h.length);
+            return c;
+        }
+    }
+
+    private static void recordLatency(int[] h, long latency) {
+        int bucket = 0;
+        while(bucket < LATENCY_BUCKETS.length && latency >= LATENCY_BUCKETS[bucket]) {
+            bucket++;
+        }
+        synchronized(h) {
+            h[bucket]++;
+        }
+    }
+
     /**
      * Allows us to "flush" the edt to allow any pending transitions and input to go
      * by before continuing with our other tasks.
@@ -955,7 +1191,9 @@ public final class Display {
             while(impl.getCurrentForm() == null) {
                 synchronized(lock){
                     if(shouldEDTSleep()) {
+                        edtSleeping = true;
                         lock.wait();
+                        edtSleeping = false;
                     }
 
                     // paint transition or intro animations and don't do anything else if such
@@ -988,7 +1226,12 @@ public final class Display {
                  synchronized(lock){
                      if(shouldEDTSleep()) {
                          impl.edtIdle(true);
-                         lock.wait();
+                         edtSleeping = true;
+                         try {
+                             lock.wait();
+                         } finally {
+                             edtSleeping = false;
+                         }
                          impl.edtIdle(false);
                      }
                  }
@@ -1033,7 +1276,12 @@ public final class Display {
                 if(!noSleep){
                     synchronized(lock){
                         impl.edtIdle(true);
-                        lock.wait(Math.max(1, framerateLock - (time)));
+                        edtSleeping = true;
+                        try {
+                            lock.wait(Math.max(1, framerateLock - (time)));
+                        } finally {
+                            edtSleeping = false;
+                        }
                         impl.edtIdle(false);
                     }
                 }
@@ -1097,7 +1345,7 @@ public final class Display {
     }
 
     boolean hasNoSerialCallsPending() {
-        return pendingSerialCalls.size() == 0;
+        return pendingSerialCallsCount == 0;
     }
 
     /**
@@ -1125,36 +1373,47 @@ public final class Display {
      */
     void processSerialCalls() {
         processingSerialCalls = true;
-        int size = pendingSerialCalls.size();
-        if(size > 0) {
-            Runnable[] array = null;
+        if(pendingSerialCallsCount > 0) {
+            Runnable[] array;
+            long[] times;
+            int size;
             synchronized(lock) {
-                size = pendingSerialCalls.size();
-                array = new Runnable[size];
-
-                // copy all elements to an array and remove them otherwise invokeAndBlock from
-                // within a callSerially() can cause an infinite loop...
-                pendingSerialCalls.toArray(array);
-
-                if(size == pendingSerialCalls.size()) {
-                    // this is faster
-                    pendingSerialCalls.clear();
+                size = pendingSerialCallsCount;
+                array = pendingSerialCalls;
+                times = pendingSerialCallTimes;
+
+                // swap the buffers so calls added while we run go into a separate array otherwise 
+                // invokeAndBlock from within a callSerially() can cause an infinite loop. A nested
+                // invocation finds the spare buffer taken and allocates a new one
+                if(runningSerialCalls != null) {
+                    pendingSerialCalls = runningSerialCalls;
+                    pendingSerialCallTimes = runningSerialCallTimes;
                 } else {
-                    // this can occur if an element was added during the loop
-                    for(int iter = 0 ; iter < size ; iter++) {
-                        pendingSerialCalls.remove(0);
-                    }
+                    pendingSerialCalls = new Runnable[array.length];
+                    pendingSerialCallTimes = new long[array.length];
                 }
+                runningSerialCalls = null;
+                runningSerialCallTimes = null;
+                pendingSerialCallsCount = 0;
             }
 
             for(int iter = 0 ; iter < size ; iter++) {
-                array[iter].run();
+                Runnable r = array[iter];
+                array[iter] = null;
+                long t = times[iter];
+                if(t != 0) {
+                    times[iter] = 0;
+                    recordLatency(serialCallLatency, System.currentTimeMillis() - t);
+                }
+                r.run();
             }
 
             // after finishing an event cycle there might be serial calls waiting
             // to return.
             synchronized(lock){
-                lock.notify();
+                runningSerialCalls = array;
+                runningSerialCallTimes = times;
+                lock.notifyAll();
             }
         }
         processingSerialCalls = false;
@@ -1166,7 +1425,7 @@ public final class Display {
 
     void notifyDisplay(){
         synchronized (lock) {
-            lock.notify();
+            lock.notifyAll();
         }
     }
 
@@ -1190,24 +1449,20 @@ public final class Display {
                 RunnableWrapper w = new RunnableWrapper(r, 1);
                 RunnableWrapper.pushToThreadPool(w);
 
-                synchronized(lock) {
-                    try {
-                        // yeald the CPU for a very short time to let the invoke thread
-                        // get started
-                        lock.wait(2);
-                    } catch (InterruptedException ex) {
-                        ex.printStackTrace();
-                    }
-                }
-                // loop over the EDT until the thread completes then return
+                // loop over the EDT until the thread completes then return, the thread signals
+                // the lock when it finishes. The wait is still bounded since the modal thread
+                // waits on the same lock and pending work is re-checked on every iteration
                 while(!w.isDone() && codenameOneRunning) {
                      edtLoopImpl();
                      synchronized(lock){
-                         if(shouldEDTSleep()) {
+                         if(shouldEDTSleep() && !w.isDone()) {
                              impl.edtIdle(true);
+                             edtSleeping = true;
                              try {
                                 lock.wait(10);
                              } catch (InterruptedException ex) {
+                             } finally {
+                                edtSleeping = false;
                              }
                              impl.edtIdle(false);
                          }
@@ -1388,7 +1643,7 @@ public final class Display {
             }
         }
         synchronized(lock) {
-            lock.notify();
+            lock.notifyAll();
         }
 
         if(!transitionExists) {
@@ -1574,7 +1829,7 @@ public final class Display {
             inputEventStackPointer++;
             inputEventStack[inputEventStackPointer] = code;
             inputEventStackPointer++;
-            lock.notify();
+            lock.notifyAll();
         }        
     }
     
@@ -1648,7 +1903,7 @@ public final class Display {
             inputEventStackPointer++;
             inputEventStack[inputEventStackPointer] = y;
             inputEventStackPointer++;
-            lock.notify();
+            lock.notifyAll();
         }        
     }
     
@@ -1671,7 +1926,7 @@ public final class Display {
                 inputEventStack[inputEventStackPointer] = y[iter];
                 inputEventStackPointer++;
             }
-            lock.notify();
+            lock.notifyAll();
         }        
     }
     
@@ -1701,7 +1956,7 @@ public final class Display {
                 Log.p("EDT performance is very slow triggering this exception!");
                 Log.e(err);
             }
-            lock.notify();
+            lock.notifyAll();
         }        
     }
     
@@ -1724,7 +1979,7 @@ public final class Display {
                 Log.p("EDT performance is very slow triggering this exception!");
                 Log.e(err);
             }
-            lock.notify();
+            lock.notifyAll();
         }        
     }
 
@@ -1839,7 +2094,7 @@ public final class Display {
             inputEventStackPointer++;
             inputEventStack[inputEventStackPointer] = h;
             inputEventStackPointer++;
-            lock.notify();
+            lock.notifyAll();
         }        
     }
     
@@ -1866,7 +2121,7 @@ public final class Display {
         synchronized(lock) {
             inputEventStack[inputEventStackPointer] = type;
             inputEventStackPointer++;
-            lock.notify();
+            lock.notifyAll();
         }        
     }
 
@@ -3417,6 +3672,20 @@ hi.show();}</pre></noscript>
         return impl.getAllContacts(withNumbers, includesFullName, includesPicture, includesNumbers, includesEmail, includeAddress);
     }
 
+    /**
+     * Fetches a page of contacts in a single bulk query, only the fields in the projection are filled.
+     * Notice: this method might be slow and should be invoked on a separate thread!
+     * 
+     * @param ids the contact ids
+     * @param offset the index of the first id in the page
+     * @param count the number of contacts in the page
+     * @param fields the projection, a combination of the ContactsManager.FIELD_ constants
+     * @return the contacts in the page
+     */
+    public Contact[] getContacts(String[] ids, int offset, int count, int fields) {
+        return impl.getContacts(ids, offset, count, fields);
+    }
+
     /**
      * Indicates if the getAllContacts is platform optimized, notice that the method
      * might still take seconds or more to run so you should still use a separate thread!
@@ -40,16 +40,15 @@ import java.io.InputStream;
  * (or JPEG etc.) is loaded to an array in RAM. Normally such images are very small (relatively) so they can be 
  * kept in memory without much overhead.</p>
  * 
- * <p>When image information is needed (pixels) the image is decoded into RAM and kept in a weak/sort 
- * reference (see {@link com.codename1.ui.Display#createSoftWeakRef(java.lang.Object)}). This allows the 
- * image to be cached for performance and allows the garbage collector to reclaim it when the memory becomes 
- * scarce.</p>
+ * <p>When image information is needed (pixels) the image is decoded into RAM and kept in the global
+ * {@link ImageCache}. This allows the image to be cached for performance while the cache evicts the least
+ * recently used images once its memory budget is exhausted.</p>
  * 
  * <p>Since the fully decoded image can be pretty big ({@code width X height X 4}) the ability to store just the 
  * encoded image can be pretty stark. E.g. A standard 50x100 image will take up 20,000 bytes of RAM for a 
  * standard image but an {@code EncodedImage} can reduce that to 1kb-2kb of RAM.</p>
  * 
- * <p>When drawing an {@code EncodedImage} it checks the weak reference cache and if the image is cached then 
+ * <p>When drawing an {@code EncodedImage} it checks the {@link ImageCache} and if the image is cached then 
  * it is shown  otherwise the image is loaded the encoded image cache it then drawn.</p>
  * 
  * <p>{@code EncodedImage} is not final and can be derived to produce complex image fetching strategies 
@@ -82,7 +81,6 @@ public class EncodedImage extends Image {
     private int height = -1;
     private boolean opaqueChecked = false;
     private boolean opaque = false;
-    private Object cache;
     private Image hardCache;
     private int locked;
     
@@ -108,10 +106,21 @@ public class EncodedImage extends Image {
      * A subclass might choose to load asynchroniously and reset the cache when the image is ready.
      */
     protected void resetCache() {
-        cache = null;
+        ImageCache.getInstance().remove(this);
         hardCache = null;
     }
 
+    /**
+     * Returns the decoded image from the {@link ImageCache}
+     */
+    private Image getCached() {
+        return ImageCache.getInstance().get(this, ImageCache.OP_DECODE, 0, 0);
+    }
+
+    private void setCached(Image i) {
+        ImageCache.getInstance().put(this, ImageCache.OP_DECODE, 0, 0, i);
+    }
+
     /**
      * Creates an encoded image that acts as a multi-image, DO NOT USE THIS METHOD. Its for internal
      * use to improve the user experience of the simulator
@@ -166,7 +175,7 @@ public class EncodedImage extends Image {
                     enc.opaque = true;
                     enc.opaqueChecked = true;
                 }
-                enc.cache = Display.getInstance().createSoftWeakRef(i);
+                enc.setCached(i);
                 return enc;
             } catch(IOException err) {
                 err.printStackTrace();
@@ -214,7 +223,7 @@ public class EncodedImage extends Image {
                     enc.opaque = true;
                     enc.opaqueChecked = true;
                 }
-                enc.cache = Display.getInstance().createSoftWeakRef(i);
+                enc.setCached(i);
                 return enc;
             } catch(IOException err) {
                 err.printStackTrace();
@@ -330,7 +339,7 @@ public class EncodedImage extends Image {
         
         if(imageData != null && imageData.length > 1 && lastTestedDPI != Display.getInstance().getDeviceDensity()) {
             hardCache = null;
-            cache = null;
+            ImageCache.getInstance().remove(this);
             width = -1;
             height = -1;
         }
@@ -353,13 +362,10 @@ public class EncodedImage extends Image {
      * @return drawable image instance
      */
     protected Image getInternal() {
-        if(cache != null) {
-            Image i = (Image)Display.getInstance().extractHardRef(cache);
-            if(i != null) {
-                return i;
-            }
+        Image i = getCached();
+        if(i != null) {
+            return i;
         }
-        Image i;
         try {
             byte[] b = getImageData();
             i = Image.createImage(b, 0, b.length);
@@ -372,7 +378,7 @@ public class EncodedImage extends Image {
             err.printStackTrace();
             i = Image.createImage(5, 5);
         }
-        cache = Display.getInstance().createSoftWeakRef(i);
+        setCached(i);
         return i;
     }
 
@@ -389,11 +395,9 @@ public class EncodedImage extends Image {
     public void asyncLock(final Image internal) {
         if(locked <= 0) {
             locked = 1;
-            if(cache != null) {
-                hardCache = (Image)Display.getInstance().extractHardRef(cache);
-                if(hardCache != null) {
-                    return;
-                }
+            hardCache = getCached();
+            if(hardCache != null) {
+                return;
             }
             hardCache = internal;
             Display.getInstance().scheduleBackgroundTask(new Runnable() {
@@ -411,7 +415,7 @@ public class EncodedImage extends Image {
                                 if(locked > 0) {
                                     hardCache = i;
                                 }
-                                cache = Display.getInstance().createSoftWeakRef(i);
+                                setCached(i);
                                 Display.getInstance().getCurrent().repaint();                                
                                 width = i.getWidth();
                                 height = i.getHeight();
@@ -431,9 +435,7 @@ public class EncodedImage extends Image {
     public void lock() {
         if(locked < 1) {
             locked = 1;
-            if(cache != null) {
-                hardCache = (Image)Display.getInstance().extractHardRef(cache);
-            }
+            hardCache = getCached();
         } else {
             locked ++;
         }
@@ -446,8 +448,8 @@ public class EncodedImage extends Image {
         locked--;
         if(locked < 1) {
             if(hardCache != null) {
-                if(cache == null || Display.getInstance().extractHardRef(cache) == null) {
-                    cache = Display.getInstance().createSoftWeakRef(hardCache);
+                if(getCached() == null) {
+                    setCached(hardCache);
                 }
                 hardCache = null;
             }
@@ -26,6 +26,8 @@ package com.codename1.ui;
 import com.codename1.impl.CodenameOneImplementation;
 import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * <p>Codename One currently supports 3 font types:</p>
@@ -131,6 +133,33 @@ public class Font {
 
     private static HashMap<String, Font> derivedFontCache = new HashMap<String, Font>();
     private static float fontReturnedHeight;
+
+    private static boolean metricsCacheEnabled = true;
+    private static int metricsCacheSize = 256;
+    private static int metricsCacheHits;
+    private static int metricsCacheMisses;
+    private static int metricsCacheGeneration;
+
+    /**
+     * Character advances stored in pages of 256 characters, each entry is the width + 1 so 0
+     * indicates a character that wasn't measured yet
+     */
+    private int[][] advances;
+
+    /**
+     * LRU of measured strings for cases where the width can't be derived from the advances
+     */
+    private LinkedHashMap<String, Integer> stringWidthCache;
+
+    /**
+     * -1 if unknown, 0 if the native font has additive advances and 1 if it might kern
+     */
+    private int kerning = -1;
+
+    /**
+     * The value of metricsCacheGeneration when the metrics of this font were cached
+     */
+    private int fontMetricsGeneration;
     
     /**
      * Creates a new Font
@@ -168,6 +197,7 @@ public class Font {
      */
     public static void clearBitmapCache() {
         bitmapCache.clear();
+        clearMetricsCache();
     }
 
     /**
@@ -381,6 +411,18 @@ public class Font {
      * @return the width of the given characters in this font instance
      */
     public int charsWidth(char[] ch, int offset, int length){
+        if(metricsCacheEnabled && !isKerning()) {
+            int w = 0;
+            int end = offset + length;
+            for(int iter = offset ; iter < end ; iter++) {
+                char c = ch[iter];
+                if(!isSimpleChar(c)) {
+                    return Display.impl.charsWidth(font, ch, offset, length);
+                }
+                w += charWidth(c);
+            }
+            return w;
+        }
         return Display.impl.charsWidth(font, ch, offset, length);
     }
     
@@ -393,7 +435,7 @@ public class Font {
      * @return the width of the given string subset in this font instance
      */
     public int substringWidth(String str, int offset, int len){
-        return Display.impl.stringWidth(font, str.substring(offset, offset + len));
+        return stringWidth(str.substring(offset, offset + len));
     }
     
     /**
@@ -412,7 +454,92 @@ public class Font {
         if(str == " ") {
             return 5;
         }
-        return Display.impl.stringWidth(font, str);
+        if(!metricsCacheEnabled) {
+            return Display.impl.stringWidth(font, str);
+        }
+        validateMetricsCache();
+        int len = str.length();
+        if(!isKerning()) {
+            int w = 0;
+            for(int iter = 0 ; iter < len ; iter++) {
+                char c = str.charAt(iter);
+                if(!isSimpleChar(c)) {
+                    return cachedStringWidth(str);
+                }
+                w += charWidth(c);
+            }
+            return w;
+        }
+        return cachedStringWidth(str);
+    }
+
+    private int cachedStringWidth(String str) {
+        LinkedHashMap<String, Integer> cache = stringWidthCache;
+        if(cache == null) {
+            cache = new LinkedHashMap<String, Integer>(32, 0.75f, true) {
+                protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                    return size() > metricsCacheSize;
+                }
+            };
+            stringWidthCache = cache;
+        }
+        synchronized(cache) {
+            Integer i = cache.get(str);
+            if(i != null) {
+                metricsCacheHits++;
+                return i.intValue();
+            }
+        }
+        metricsCacheMisses++;
+        int w = Display.impl.stringWidth(font, str);
+        synchronized(cache) {
+            cache.put(str, new Integer(w));
+        }
+        return w;
+    }
+
+    private void validateMetricsCache() {
+        if(fontMetricsGeneration != metricsCacheGeneration) {
+            advances = null;
+            stringWidthCache = null;
+            kerning = -1;
+            fontMetricsGeneration = metricsCacheGeneration;
+        }
+    }
+
+    private boolean isKerning() {
+        if(kerning < 0) {
+            kerning = Display.impl.isFontKerning(font) ? 1 : 0;
+        }
+        return kerning == 1;
+    }
+
+    /**
+     * Characters that are rendered in isolation regardless of their neighbors, complex scripts
+     * (Hebrew, Arabic, Indic etc.), combining marks and surrogates are measured as whole strings
+     */
+    private static boolean isSimpleChar(char c) {
+        if(c < 0x300) {
+            return true;
+        }
+        if(c < 0x370) {
+            // combining diacritical marks
+            return false;
+        }
+        if(c < 0x590) {
+            // Greek, Cyrillic and Armenian
+            return true;
+        }
+        if(c >= 0x1e00 && c < 0x2000) {
+            // Latin extended additional and Greek extended
+            return true;
+        }
+        if(c >= 0x2000 && c < 0x2e00) {
+            // punctuation, symbols, arrows etc. excluding zero width and directional formatting
+            return c > 0x200f && (c < 0x2028 || c > 0x202e) && (c < 0x2060 || c > 0x206f);
+        }
+        // CJK and Hangul syllables
+        return (c >= 0x3000 && c < 0xa000) || (c >= 0xac00 && c < 0xd7a4);
     }
     
     /**
@@ -422,7 +549,101 @@ public class Font {
      * @return the width of the specific character when rendered alone
      */
     public int charWidth(char ch) {
-        return Display.impl.charWidth(font, ch);
+        if(!metricsCacheEnabled) {
+            return Display.impl.charWidth(font, ch);
+        }
+        validateMetricsCache();
+        int[][] a = advances;
+        if(a == null) {
+            a = new int[256][];
+            advances = a;
+        }
+        int[] page = a[ch >> 8];
+        if(page == null) {
+            page = new int[256];
+            a[ch >> 8] = page;
+        }
+        int w = page[ch & 0xff];
+        if(w > 0) {
+            metricsCacheHits++;
+            return w - 1;
+        }
+        metricsCacheMisses++;
+        w = Display.impl.charWidth(font, ch);
+        page[ch & 0xff] = w + 1;
+        return w;
+    }
+
+    /**
+     * Enables or disables the cache of font metrics, when enabled character widths are stored in a per font
+     * table and string widths are either derived from the character widths or stored in a per font LRU
+     * 
+     * @param enabled true to enable the cache which is the default
+     */
+    public static void setMetricsCacheEnabled(boolean enabled) {
+        metricsCacheEnabled = enabled;
+    }
+
+    /**
+     * Indicates whether the cache of font metrics is enabled
+     * 
+     * @return true if the cache is enabled
+     */
+    public static boolean isMetricsCacheEnabled() {
+        return metricsCacheEnabled;
+    }
+
+    /**
+     * Sets the maximum number of string widths each font keeps in its cache
+     * 
+     * @param size the number of strings
+     */
+    public static void setMetricsCacheSize(int size) {
+        metricsCacheSize = size;
+    }
+
+    /**
+     * Returns the maximum number of string widths each font keeps in its cache
+     * 
+     * @return the number of strings
+     */
+    public static int getMetricsCacheSize() {
+        return metricsCacheSize;
+    }
+
+    /**
+     * Returns the number of width requests that were answered from the metrics cache, useful
+     * for performance monitoring
+     * 
+     * @return the number of cache hits since the last reset
+     */
+    public static int getMetricsCacheHits() {
+        return metricsCacheHits;
+    }
+
+    /**
+     * Returns the number of width requests that required a call into the native font
+     * 
+     * @return the number of cache misses since the last reset
+     */
+    public static int getMetricsCacheMisses() {
+        return metricsCacheMisses;
+    }
+
+    /**
+     * Discards the cached character and string widths of all fonts, this should be invoked when the
+     * native fonts are reloaded or rescaled e.g. when the simulator skin changes
+     */
+    public static void clearMetricsCache() {
+        metricsCacheGeneration++;
+    }
+
+    /**
+     * Resets the hit/miss counters of the metrics cache
+     */
+    public static void resetMetricsCacheCounters() {
+        metricsCacheHits = 0;
+        metricsCacheMisses = 0;
     }
     
     /**
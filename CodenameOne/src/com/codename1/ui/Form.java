@@ -1381,11 +1381,12 @@ public class Form extends Container {
     }
 
     /**
-     * If this method returns true the EDT won't go to sleep indefinitely
+     * If this method returns true the EDT won't go to sleep indefinitely, transitions also use this
+     * to decide whether the form can be rendered once into an image
      * 
      * @return true is form has animation; otherwise false
      */
-    boolean hasAnimations() {
+    public boolean hasAnimations() {
         return (animatableComponents != null && animatableComponents.size() > 0)
                 || (internalAnimatableComponents != null && internalAnimatableComponents.size() > 0) 
                 || (animMananger != null && animMananger.isAnimating());
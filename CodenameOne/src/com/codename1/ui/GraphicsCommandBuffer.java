@@ -0,0 +1,913 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *  
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Codename One through http://www.codenameone.com/ if you 
+ * need additional information or have any questions.
+ */
+package com.codename1.ui;
+
+import com.codename1.impl.CodenameOneImplementation;
+
+/**
+ * A retained list of drawing commands that a port can record instead of drawing immediately and
+ * later replay onto a native graphics context, potentially on a separate render thread. Commands are
+ * encoded as opcodes within a flat int array with float and object payloads stored in separate pooled
+ * arrays so recording a frame doesn't allocate once the buffer has grown to the size of a typical
+ * frame.
+ *
+ * <p>Redundant state changes are coalesced during recording: setting the color, alpha, font or clip
+ * to the value that is already in effect is dropped and consecutive state changes without a drawing
+ * operation in between override one another.</p>
+ *
+ * <p>The buffer isn't threadsafe, a port that replays on a render thread should hand the buffer off
+ * (e.g. by swapping two buffers) and must not record into a buffer while it is being replayed.</p>
+ *
+ * @author Shai Almog
+ */
+public class GraphicsCommandBuffer {
+    private static final int SET_COLOR = 1;
+    private static final int SET_ALPHA = 2;
+    private static final int SET_FONT = 3;
+    private static final int SET_CLIP = 4;
+    private static final int CLIP_RECT = 5;
+    private static final int SET_ANTI_ALIASED = 6;
+    private static final int SET_ANTI_ALIASED_TEXT = 7;
+    private static final int DRAW_LINE = 8;
+    private static final int FILL_RECT = 9;
+    private static final int DRAW_RECT = 10;
+    private static final int DRAW_ROUND_RECT = 11;
+    private static final int FILL_ROUND_RECT = 12;
+    private static final int DRAW_ARC = 13;
+    private static final int FILL_ARC = 14;
+    private static final int DRAW_STRING = 15;
+    private static final int DRAW_IMAGE = 16;
+    private static final int DRAW_IMAGE_SCALED = 17;
+    private static final int TILE_IMAGE = 18;
+    private static final int DRAW_IMAGE_ROTATED = 19;
+    private static final int FILL_TRIANGLE = 20;
+    private static final int FILL_LINEAR_GRADIENT = 21;
+    private static final int FILL_RADIAL_GRADIENT = 22;
+    private static final int FILL_RECT_RADIAL_GRADIENT = 23;
+    private static final int DRAW_RGB = 24;
+    private static final int FILL_POLYGON = 25;
+    private static final int DRAW_POLYGON = 26;
+
+    private int[] ops = new int[512];
+    private int opsSize;
+    private float[] floats = new float[16];
+    private int floatsSize;
+    private Object[] objects = new Object[64];
+    private int objectsSize;
+    private int[] data = new int[256];
+    private int dataSize;
+    private int[] polygonX = new int[16];
+    private int[] polygonY = new int[16];
+
+    private int lastOp = -1;
+    private int lastOpCode;
+    private int commandCount;
+    private int coalescedCount;
+    private int allocationCount;
+
+    private boolean colorKnown;
+    private int color;
+    private boolean alphaKnown;
+    private int alpha;
+    private boolean fontKnown;
+    private Object font;
+    private boolean clipKnown;
+    private int clipX;
+    private int clipY;
+    private int clipW;
+    private int clipH;
+
+    /**
+     * Returns true if no commands are pending in this buffer
+     *
+     * @return true if the buffer is empty
+     */
+    public boolean isEmpty() {
+        return opsSize == 0;
+    }
+
+    /**
+     * The number of commands recorded since the last reset
+     *
+     * @return the command count
+     */
+    public int getCommandCount() {
+        return commandCount;
+    }
+
+    /**
+     * The number of state changes that were dropped or merged since the last reset
+     *
+     * @return the number of coalesced commands
+     */
+    public int getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    /**
+     * The number of times the internal arrays of this buffer had to grow, this should
+     * stay constant between frames once the buffer has warmed up
+     *
+     * @return the number of allocations performed by the buffer
+     */
+    public int getAllocationCount() {
+        return allocationCount;
+    }
+
+    /**
+     * Clears the pending commands and forgets the tracked state while keeping the allocated
+     * arrays for the next frame
+     */
+    public void reset() {
+        for(int iter = 0 ; iter < objectsSize ; iter++) {
+            objects[iter] = null;
+        }
+        opsSize = 0;
+        floatsSize = 0;
+        objectsSize = 0;
+        dataSize = 0;
+        lastOp = -1;
+        lastOpCode = 0;
+        commandCount = 0;
+        coalescedCount = 0;
+        colorKnown = false;
+        alphaKnown = false;
+        fontKnown = false;
+        clipKnown = false;
+    }
+
+    /**
+     * Returns true if the color was set within this buffer and is thus known without querying
+     * the native graphics
+     *
+     * @return true if getColor() is valid
+     */
+    public boolean isColorKnown() {
+        return colorKnown;
+    }
+
+    /**
+     * The color that will be in effect after the pending commands are replayed
+     *
+     * @return the color
+     */
+    public int getColor() {
+        return color;
+    }
+
+    /**
+     * Returns true if the alpha was set within this buffer
+     *
+     * @return true if getAlpha() is valid
+     */
+    public boolean isAlphaKnown() {
+        return alphaKnown;
+    }
+
+    /**
+     * The alpha that will be in effect after the pending commands are replayed
+     *
+     * @return the alpha
+     */
+    public int getAlpha() {
+        return alpha;
+    }
+
+    /**
+     * Returns true if the clip rectangle was set within this buffer
+     *
+     * @return true if the clip getters are valid
+     */
+    public boolean isClipKnown() {
+        return clipKnown;
+    }
+
+    /**
+     * The clip that will be in effect after the pending commands are replayed
+     *
+     * @return the clip x
+     */
+    public int getClipX() {
+        return clipX;
+    }
+
+    /**
+     * The clip that will be in effect after the pending commands are replayed
+     *
+     * @return the clip y
+     */
+    public int getClipY() {
+        return clipY;
+    }
+
+    /**
+     * The clip that will be in effect after the pending commands are replayed
+     *
+     * @return the clip width
+     */
+    public int getClipWidth() {
+        return clipW;
+    }
+
+    /**
+     * The clip that will be in effect after the pending commands are replayed
+     *
+     * @return the clip height
+     */
+    public int getClipHeight() {
+        return clipH;
+    }
+
+    private void ensureOps(int size) {
+        if(opsSize + size > ops.length) {
+            int[] n = new int[Math.max(ops.length * 2, opsSize + size)];
+            System.arraycopy(ops, 0, n, 0, opsSize);
+            ops = n;
+            allocationCount++;
+        }
+    }
+
+    private int addObject(Object o) {
+        if(objectsSize == objects.length) {
+            Object[] n = new Object[objects.length * 2];
+            System.arraycopy(objects, 0, n, 0, objectsSize);
+            objects = n;
+            allocationCount++;
+        }
+        objects[objectsSize] = o;
+        objectsSize++;
+        return objectsSize - 1;
+    }
+
+    private int addFloat(float f) {
+        if(floatsSize == floats.length) {
+            float[] n = new float[floats.length * 2];
+            System.arraycopy(floats, 0, n, 0, floatsSize);
+            floats = n;
+            allocationCount++;
+        }
+        floats[floatsSize] = f;
+        floatsSize++;
+        return floatsSize - 1;
+    }
+
+    private int addData(int[] source, int offset, int length) {
+        if(dataSize + length > data.length) {
+            int[] n = new int[Math.max(data.length * 2, dataSize + length)];
+            System.arraycopy(data, 0, n, 0, dataSize);
+            data = n;
+            allocationCount++;
+        }
+        System.arraycopy(source, offset, data, dataSize, length);
+        dataSize += length;
+        return dataSize - length;
+    }
+
+    private void op(int code, int argCount) {
+        ensureOps(argCount + 1);
+        lastOp = opsSize;
+        lastOpCode = code;
+        ops[opsSize] = code;
+        opsSize++;
+        commandCount++;
+    }
+
+    private void arg(int value) {
+        ops[opsSize] = value;
+        opsSize++;
+    }
+
+    private void op(int code, int a1, int a2, int a3, int a4) {
+        op(code, 4);
+        arg(a1);
+        arg(a2);
+        arg(a3);
+        arg(a4);
+    }
+
+    private void op(int code, int a1, int a2, int a3, int a4, int a5, int a6) {
+        op(code, 6);
+        arg(a1);
+        arg(a2);
+        arg(a3);
+        arg(a4);
+        arg(a5);
+        arg(a6);
+    }
+
+    /**
+     * Records a color change
+     *
+     * @param rgb the new color
+     */
+    public void setColor(int rgb) {
+        if(colorKnown && color == rgb) {
+            coalescedCount++;
+            return;
+        }
+        color = rgb;
+        colorKnown = true;
+        if(lastOpCode == SET_COLOR) {
+            ops[lastOp + 1] = rgb;
+            coalescedCount++;
+            return;
+        }
+        op(SET_COLOR, 1);
+        arg(rgb);
+    }
+
+    /**
+     * Records an alpha change
+     *
+     * @param a the new alpha value
+     */
+    public void setAlpha(int a) {
+        if(alphaKnown && alpha == a) {
+            coalescedCount++;
+            return;
+        }
+        alpha = a;
+        alphaKnown = true;
+        if(lastOpCode == SET_ALPHA) {
+            ops[lastOp + 1] = a;
+            coalescedCount++;
+            return;
+        }
+        op(SET_ALPHA, 1);
+        arg(a);
+    }
+
+    /**
+     * Records a native font change
+     *
+     * @param nativeFont the new native font
+     */
+    public void setNativeFont(Object nativeFont) {
+        if(fontKnown && font == nativeFont) {
+            coalescedCount++;
+            return;
+        }
+        font = nativeFont;
+        fontKnown = true;
+        if(lastOpCode == SET_FONT) {
+            objects[ops[lastOp + 1]] = nativeFont;
+            coalescedCount++;
+            return;
+        }
+        op(SET_FONT, 1);
+        arg(addObject(nativeFont));
+    }
+
+    /**
+     * Records a clip change
+     *
+     * @param x the clip x
+     * @param y the clip y
+     * @param width the clip width
+     * @param height the clip height
+     */
+    public void setClip(int x, int y, int width, int height) {
+        if(clipKnown && clipX == x && clipY == y && clipW == width && clipH == height) {
+            coalescedCount++;
+            return;
+        }
+        clipKnown = true;
+        clipX = x;
+        clipY = y;
+        clipW = width;
+        clipH = height;
+
+        // a clip rect that wasn't followed by drawing is replaced entirely by the new clip
+        if(lastOpCode == SET_CLIP || lastOpCode == CLIP_RECT) {
+            ops[lastOp] = SET_CLIP;
+            lastOpCode = SET_CLIP;
+            ops[lastOp + 1] = x;
+            ops[lastOp + 2] = y;
+            ops[lastOp + 3] = width;
+            ops[lastOp + 4] = height;
+            coalescedCount++;
+            return;
+        }
+        op(SET_CLIP, x, y, width, height);
+    }
+
+    /**
+     * Records a clip intersection, if the current clip is known this is converted to a set clip
+     * command
+     *
+     * @param x the clip x
+     * @param y the clip y
+     * @param width the clip width
+     * @param height the clip height
+     */
+    public void clipRect(int x, int y, int width, int height) {
+        if(clipKnown) {
+            intersectAndSetClip(clipX, clipY, clipW, clipH, x, y, width, height);
+            return;
+        }
+        if(lastOpCode == CLIP_RECT) {
+            int x1 = Math.max(ops[lastOp + 1], x);
+            int y1 = Math.max(ops[lastOp + 2], y);
+            int x2 = Math.min(ops[lastOp + 1] + ops[lastOp + 3], x + width);
+            int y2 = Math.min(ops[lastOp + 2] + ops[lastOp + 4], y + height);
+            ops[lastOp + 1] = x1;
+            ops[lastOp + 2] = y1;
+            ops[lastOp + 3] = Math.max(0, x2 - x1);
+            ops[lastOp + 4] = Math.max(0, y2 - y1);
+            coalescedCount++;
+            return;
+        }
+        op(CLIP_RECT, x, y, width, height);
+    }
+
+    private void intersectAndSetClip(int cx, int cy, int cw, int ch, int x, int y, int width, int height) {
+        int x1 = Math.max(cx, x);
+        int y1 = Math.max(cy, y);
+        int x2 = Math.min(cx + cw, x + width);
+        int y2 = Math.min(cy + ch, y + height);
+        setClip(x1, y1, Math.max(0, x2 - x1), Math.max(0, y2 - y1));
+    }
+
+    /**
+     * Records an anti-aliasing mode change
+     *
+     * @param a the new mode
+     */
+    public void setAntiAliased(boolean a) {
+        op(SET_ANTI_ALIASED, 1);
+        arg(a ? 1 : 0);
+    }
+
+    /**
+     * Records a text anti-aliasing mode change
+     *
+     * @param a the new mode
+     */
+    public void setAntiAliasedText(boolean a) {
+        op(SET_ANTI_ALIASED_TEXT, 1);
+        arg(a ? 1 : 0);
+    }
+
+    /**
+     * Records a line drawing
+     *
+     * @param x1 first x position
+     * @param y1 first y position
+     * @param x2 second x position
+     * @param y2 second y position
+     */
+    public void drawLine(int x1, int y1, int x2, int y2) {
+        op(DRAW_LINE, x1, y1, x2, y2);
+    }
+
+    /**
+     * Records a rectangle fill
+     *
+     * @param x the x coordinate of the rectangle to be filled
+     * @param y the y coordinate of the rectangle to be filled
+     * @param width the width of the rectangle to be filled
+     * @param height the height of the rectangle to be filled
+     */
+    public void fillRect(int x, int y, int width, int height) {
+        op(FILL_RECT, x, y, width, height);
+    }
+
+    /**
+     * Records a rectangle outline
+     *
+     * @param x the x coordinate of the rectangle to be drawn
+     * @param y the y coordinate of the rectangle to be drawn
+     * @param width the width of the rectangle to be drawn
+     * @param height the height of the rectangle to be drawn
+     */
+    public void drawRect(int x, int y, int width, int height) {
+        op(DRAW_RECT, x, y, width, height);
+    }
+
+    /**
+     * Records a round rectangle outline
+     *
+     * @param x the x coordinate of the rectangle to be drawn
+     * @param y the y coordinate of the rectangle to be drawn
+     * @param width the width of the rectangle to be drawn
+     * @param height the height of the rectangle to be drawn
+     * @param arcWidth the horizontal diameter of the arc at the four corners
+     * @param arcHeight the vertical diameter of the arc at the four corners
+     */
+    public void drawRoundRect(int x, int y, int width, int height, int arcWidth, int arcHeight) {
+        op(DRAW_ROUND_RECT, x, y, width, height, arcWidth, arcHeight);
+    }
+
+    /**
+     * Records a round rectangle fill
+     *
+     * @param x the x coordinate of the rectangle to be filled
+     * @param y the y coordinate of the rectangle to be filled
+     * @param width the width of the rectangle to be filled
+     * @param height the height of the rectangle to be filled
+     * @param arcWidth the horizontal diameter of the arc at the four corners
+     * @param arcHeight the vertical diameter of the arc at the four corners
+     */
+    public void fillRoundRect(int x, int y, int width, int height, int arcWidth, int arcHeight) {
+        op(FILL_ROUND_RECT, x, y, width, height, arcWidth, arcHeight);
+    }
+
+    /**
+     * Records an arc outline
+     *
+     * @param x the x coordinate of the upper-left corner of the arc to be drawn
+     * @param y the y coordinate of the upper-left corner of the arc to be drawn
+     * @param width the width of the arc to be drawn
+     * @param height the height of the arc to be drawn
+     * @param startAngle the beginning angle
+     * @param arcAngle the angular extent of the arc, relative to the start angle
+     */
+    public void drawArc(int x, int y, int width, int height, int startAngle, int arcAngle) {
+        op(DRAW_ARC, x, y, width, height, startAngle, arcAngle);
+    }
+
+    /**
+     * Records an arc fill
+     *
+     * @param x the x coordinate of the upper-left corner of the arc to be filled
+     * @param y the y coordinate of the upper-left corner of the arc to be filled
+     * @param width the width of the arc to be filled
+     * @param height the height of the arc to be filled
+     * @param startAngle the beginning angle
+     * @param arcAngle the angular extent of the arc, relative to the start angle
+     */
+    public void fillArc(int x, int y, int width, int height, int startAngle, int arcAngle) {
+        op(FILL_ARC, x, y, width, height, startAngle, arcAngle);
+    }
+
+    /**
+     * Records a string drawing with the current native font
+     *
+     * @param str the string
+     * @param x the x position
+     * @param y the y position
+     */
+    public void drawString(String str, int x, int y) {
+        op(DRAW_STRING, 3);
+        arg(addObject(str));
+        arg(x);
+        arg(y);
+    }
+
+    /**
+     * Records an image drawing
+     *
+     * @param img the native image
+     * @param x the x position
+     * @param y the y position
+     */
+    public void drawImage(Object img, int x, int y) {
+        op(DRAW_IMAGE, 3);
+        arg(addObject(img));
+        arg(x);
+        arg(y);
+    }
+
+    /**
+     * Records a scaled image drawing
+     *
+     * @param img the native image
+     * @param x the x position
+     * @param y the y position
+     * @param w the width
+     * @param h the height
+     */
+    public void drawImage(Object img, int x, int y, int w, int h) {
+        op(DRAW_IMAGE_SCALED, 5);
+        arg(addObject(img));
+        arg(x);
+        arg(y);
+        arg(w);
+        arg(h);
+    }
+
+    /**
+     * Records an image tiling
+     *
+     * @param img the native image
+     * @param x the x position
+     * @param y the y position
+     * @param w the width
+     * @param h the height
+     */
+    public void tileImage(Object img, int x, int y, int w, int h) {
+        op(TILE_IMAGE, 5);
+        arg(addObject(img));
+        arg(x);
+        arg(y);
+        arg(w);
+        arg(h);
+    }
+
+    /**
+     * Records a rotated image drawing
+     *
+     * @param img the native image
+     * @param x the x position
+     * @param y the y position
+     * @param degrees the rotation in degrees
+     */
+    public void drawImageRotated(Object img, int x, int y, int degrees) {
+        op(DRAW_IMAGE_ROTATED, 4);
+        arg(addObject(img));
+        arg(x);
+        arg(y);
+        arg(degrees);
+    }
+
+    /**
+     * Records a triangle fill
+     *
+     * @param x1 the x coordinate of the first vertex of the triangle
+     * @param y1 the y coordinate of the first vertex of the triangle
+     * @param x2 the x coordinate of the second vertex of the triangle
+     * @param y2 the y coordinate of the second vertex of the triangle
+     * @param x3 the x coordinate of the third vertex of the triangle
+     * @param y3 the y coordinate of the third vertex of the triangle
+     */
+    public void fillTriangle(int x1, int y1, int x2, int y2, int x3, int y3) {
+        op(FILL_TRIANGLE, x1, y1, x2, y2, x3, y3);
+    }
+
+    /**
+     * Records a linear gradient fill
+     *
+     * @param startColor the starting RGB color
+     * @param endColor  the ending RGB color
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param width the width of the region to be filled
+     * @param height the height of the region to be filled
+     * @param horizontal indicating wheter it is a horizontal fill or vertical
+     */
+    public void fillLinearGradient(int startColor, int endColor, int x, int y, int width, int height, boolean horizontal) {
+        op(FILL_LINEAR_GRADIENT, 7);
+        arg(startColor);
+        arg(endColor);
+        arg(x);
+        arg(y);
+        arg(width);
+        arg(height);
+        arg(horizontal ? 1 : 0);
+    }
+
+    /**
+     * Records a radial gradient fill
+     *
+     * @param startColor the starting RGB color
+     * @param endColor  the ending RGB color
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param width the width of the region to be filled
+     * @param height the height of the region to be filled
+     */
+    public void fillRadialGradient(int startColor, int endColor, int x, int y, int width, int height) {
+        op(FILL_RADIAL_GRADIENT, 6);
+        arg(startColor);
+        arg(endColor);
+        arg(x);
+        arg(y);
+        arg(width);
+        arg(height);
+    }
+
+    /**
+     * Records a rectangle radial gradient fill
+     *
+     * @param startColor the starting RGB color
+     * @param endColor  the ending RGB color
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param width the width of the region to be filled
+     * @param height the height of the region to be filled
+     * @param relativeX indicates the relative position of the gradient within the drawing region
+     * @param relativeY indicates the relative position of the gradient within the drawing region
+     * @param relativeSize  indicates the relative size of the gradient within the drawing region
+     */
+    public void fillRectRadialGradient(int startColor, int endColor, int x, int y, int width, int height, float relativeX, float relativeY, float relativeSize) {
+        op(FILL_RECT_RADIAL_GRADIENT, 7);
+        arg(startColor);
+        arg(endColor);
+        arg(x);
+        arg(y);
+        arg(width);
+        arg(height);
+        arg(addFloat(relativeX));
+        addFloat(relativeY);
+        addFloat(relativeSize);
+    }
+
+    /**
+     * Records an RGB drawing, the pixels are copied into the buffer so the source array can be
+     * reused by the caller
+     *
+     * @param rgbData an array of ARGB values in the format 0xAARRGGBB
+     * @param offset the array index of the first ARGB value
+     * @param x the horizontal location of the region to be rendered
+     * @param y the vertical location of the region to be rendered
+     * @param w the width of the region to be rendered
+     * @param h the height of the region to be rendered
+     * @param processAlpha true if rgbData has an alpha channel, false if all pixels are fully opaque
+     */
+    public void drawRGB(int[] rgbData, int offset, int x, int y, int w, int h, boolean processAlpha) {
+        op(DRAW_RGB, 6);
+        arg(addData(rgbData, offset, w * h));
+        arg(x);
+        arg(y);
+        arg(w);
+        arg(h);
+        arg(processAlpha ? 1 : 0);
+    }
+
+    /**
+     * Records a polygon fill, the points are copied into the buffer
+     *
+     * @param xPoints an array of x coordinates
+     * @param yPoints an array of y coordinates
+     * @param nPoints the total number of points
+     */
+    public void fillPolygon(int[] xPoints, int[] yPoints, int nPoints) {
+        op(FILL_POLYGON, 2);
+        arg(addData(xPoints, 0, nPoints));
+        addData(yPoints, 0, nPoints);
+        arg(nPoints);
+    }
+
+    /**
+     * Records a polygon outline, the points are copied into the buffer
+     *
+     * @param xPoints an array of x coordinates
+     * @param yPoints an array of y coordinates
+     * @param nPoints the total number of points
+     */
+    public void drawPolygon(int[] xPoints, int[] yPoints, int nPoints) {
+        op(DRAW_POLYGON, 2);
+        arg(addData(xPoints, 0, nPoints));
+        addData(yPoints, 0, nPoints);
+        arg(nPoints);
+    }
+
+    private void copyPolygon(int offset, int nPoints) {
+        if(polygonX.length < nPoints) {
+            polygonX = new int[nPoints];
+            polygonY = new int[nPoints];
+            allocationCount++;
+        }
+        System.arraycopy(data, offset, polygonX, 0, nPoints);
+        System.arraycopy(data, offset + nPoints, polygonY, 0, nPoints);
+    }
+
+    /**
+     * Issues the pending commands in order onto the given native graphics, the buffer isn't
+     * cleared by this method
+     *
+     * @param impl the implementation whose drawing methods are invoked
+     * @param nativeGraphics the native graphics context to draw on
+     */
+    public void replay(CodenameOneImplementation impl, Object nativeGraphics) {
+        int[] o = ops;
+        int pos = 0;
+        while(pos < opsSize) {
+            int code = o[pos];
+            pos++;
+            switch(code) {
+                case SET_COLOR:
+                    impl.setColor(nativeGraphics, o[pos]);
+                    pos++;
+                    break;
+                case SET_ALPHA:
+                    impl.setAlpha(nativeGraphics, o[pos]);
+                    pos++;
+                    break;
+                case SET_FONT:
+                    impl.setNativeFont(nativeGraphics, objects[o[pos]]);
+                    pos++;
+                    break;
+                case SET_CLIP:
+                    impl.setClip(nativeGraphics, o[pos], o[pos + 1], o[pos + 2], o[pos + 3]);
+                    pos += 4;
+                    break;
+                case CLIP_RECT:
+                    impl.clipRect(nativeGraphics, o[pos], o[pos + 1], o[pos + 2], o[pos + 3]);
+                    pos += 4;
+                    break;
+                case SET_ANTI_ALIASED:
+                    impl.setAntiAliased(nativeGraphics, o[pos] == 1);
+                    pos++;
+                    break;
+                case SET_ANTI_ALIASED_TEXT:
+                    impl.setAntiAliasedText(nativeGraphics, o[pos] == 1);
+                    pos++;
+                    break;
+                case DRAW_LINE:
+                    impl.drawLine(nativeGraphics, o[pos], o[pos + 1], o[pos + 2], o[pos + 3]);
+                    pos += 4;
+                    break;
+                case FILL_RECT:
+                    impl.fillRect(nativeGraphics, o[pos], o[pos + 1], o[pos + 2], o[pos + 3]);
+                    pos += 4;
+                    break;
+                case DRAW_RECT:
+                    impl.drawRect(nativeGraphics, o[pos], o[pos + 1], o[pos + 2], o[pos + 3]);
+                    pos += 4;
+                    break;
+                case DRAW_ROUND_RECT:
+                    impl.drawRoundRect(nativeGraphics, o[pos], o[pos + 1], o[pos + 2], o[pos + 3], o[pos + 4], o[pos + 5]);
+                    pos += 6;
+                    break;
+                case FILL_ROUND_RECT:
+                    impl.fillRoundRect(nativeGraphics, o[pos], o[pos + 1], o[pos + 2], o[pos + 3], o[pos + 4], o[pos + 5]);
+                    pos += 6;
+                    break;
+                case DRAW_ARC:
+                    impl.drawArc(nativeGraphics, o[pos], o[pos + 1], o[pos + 2], o[pos + 3], o[pos + 4], o[pos + 5]);
+                    pos += 6;
+                    break;
+                case FILL_ARC:
+                    impl.fillArc(nativeGraphics, o[pos], o[pos + 1], o[pos + 2], o[pos + 3], o[pos + 4], o[pos + 5]);
+                    pos += 6;
+                    break;
+                case DRAW_STRING:
+                    impl.drawString(nativeGraphics, (String)objects[o[pos]], o[pos + 1], o[pos + 2]);
+                    pos += 3;
+                    break;
+                case DRAW_IMAGE:
+                    impl.drawImage(nativeGraphics, objects[o[pos]], o[pos + 1], o[pos + 2]);
+                    pos += 3;
+                    break;
+                case DRAW_IMAGE_SCALED:
+                    impl.drawImage(nativeGraphics, objects[o[pos]], o[pos + 1], o[pos + 2], o[pos + 3], o[pos + 4]);
+                    pos += 5;
+                    break;
+                case TILE_IMAGE:
+                    impl.tileImage(nativeGraphics, objects[o[pos]], o[pos + 1], o[pos + 2], o[pos + 3], o[pos + 4]);
+                    pos += 5;
+                    break;
+                case DRAW_IMAGE_ROTATED:
+                    impl.drawImageRotated(nativeGraphics, objects[o[pos]], o[pos + 1], o[pos + 2], o[pos + 3]);
+                    pos += 4;
+                    break;
+                case FILL_TRIANGLE:
+                    impl.fillTriangle(nativeGraphics, o[pos], o[pos + 1], o[pos + 2], o[pos + 3], o[pos + 4], o[pos + 5]);
+                    pos += 6;
+                    break;
+                case FILL_LINEAR_GRADIENT:
+                    impl.fillLinearGradient(nativeGraphics, o[pos], o[pos + 1], o[pos + 2], o[pos + 3], o[pos + 4], o[pos + 5], o[pos + 6] == 1);
+                    pos += 7;
+                    break;
+                case FILL_RADIAL_GRADIENT:
+                    impl.fillRadialGradient(nativeGraphics, o[pos], o[pos + 1], o[pos + 2], o[pos + 3], o[pos + 4], o[pos + 5]);
+                    pos += 6;
+                    break;
+                case FILL_RECT_RADIAL_GRADIENT: {
+                    int f = o[pos + 6];
+                    impl.fillRectRadialGradient(nativeGraphics, o[pos], o[pos + 1], o[pos + 2], o[pos + 3], o[pos + 4], o[pos + 5],
+                            floats[f], floats[f + 1], floats[f + 2]);
+                    pos += 7;
+                    break;
+                }
+                case DRAW_RGB:
+                    impl.drawRGB(nativeGraphics, data, o[pos], o[pos + 1], o[pos + 2], o[pos + 3], o[pos + 4], o[pos + 5] == 1);
+                    pos += 6;
+                    break;
+                case FILL_POLYGON:
+                    copyPolygon(o[pos], o[pos + 1]);
+                    impl.fillPolygon(nativeGraphics, polygonX, polygonY, o[pos + 1]);
+                    pos += 2;
+                    break;
+                case DRAW_POLYGON:
+                    copyPolygon(o[pos], o[pos + 1]);
+                    impl.drawPolygon(nativeGraphics, polygonX, polygonY, o[pos + 1]);
+                    pos += 2;
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown graphics command: " + code);
+            }
+        }
+    }
+}
@@ -30,7 +30,6 @@ import com.codename1.ui.util.ImageIO;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.HashMap;
 
 /**
  * <p>Abstracts the underlying platform images allowing us to treat them as a uniform
@@ -45,7 +44,8 @@ public class Image {
 
     private boolean opaqueTested = false;
     private boolean opaque;
-    private Object scaleCache;
+    private Image cacheSource;
+    private int pinCount;
     private boolean animated;
     private long imageTime = -1;
     private String svgBaseURL;
@@ -69,18 +69,17 @@ public class Image {
     }
 
     
-    private HashMap<Dimension, Object> getScaleCache() {
-        if(scaleCache == null) {
-            HashMap<Dimension, Object> h = new HashMap<Dimension, Object>();
-            scaleCache = Display.getInstance().createSoftWeakRef(h);
-            return h;
-        }
-        HashMap<Dimension, Object> h = (HashMap<Dimension, Object>)Display.getInstance().extractHardRef(scaleCache);
-        if(h == null) {
-            h = new HashMap<Dimension, Object>();
-            scaleCache = Display.getInstance().createSoftWeakRef(h);
+    /**
+     * Returns the image whose identity keys the scaled versions of this image in the {@link ImageCache},
+     * scaled images share the key of the image from which they were created
+     *
+     * @return the source image for caching purposes
+     */
+    Image getCacheSource() {
+        if(cacheSource != null) {
+            return cacheSource;
         }
-        return h;
+        return this;
     }
 
     /**
@@ -90,8 +89,7 @@ public class Image {
      * @return cached image
      */
     Image getCachedImage(Dimension size) {
-        Object w = getScaleCache().get(size);
-        return (Image)Display.getInstance().extractHardRef(w);
+        return ImageCache.getInstance().get(getCacheSource(), ImageCache.OP_SCALE, size.getWidth(), size.getHeight());
     } 
     
     /**
@@ -101,8 +99,7 @@ public class Image {
      * @return cached image
      */
     void cacheImage(Dimension size, Image i) {
-        Object w = Display.getInstance().createSoftWeakRef(i);
-        getScaleCache().put(size, w);
+        ImageCache.getInstance().put(getCacheSource(), ImageCache.OP_SCALE, size.getWidth(), size.getHeight(), i);
     }
     
     /**
@@ -122,14 +119,15 @@ public class Image {
      * This method may be invoked multiple times.
      */
     public void lock() {
+        pinCount++;
     }
 
     /**
-     * Returns true if the image is locked
-     * @return false by default 
+     * Returns true if the image is locked, a locked image is never evicted from the {@link ImageCache}
+     * @return true if lock was invoked more times than unlock
      */
     public boolean isLocked() {
-        return false;
+        return pinCount > 0;
     }
     
     /**
@@ -137,6 +135,9 @@ public class Image {
      * This method may be invoked multiple times.
      */
     public void unlock() {
+        if(pinCount > 0) {
+            pinCount--;
+        }
     }
 
     void setImage(Object image) {
@@ -949,7 +950,7 @@ public class Image {
         }else{
             i = new Image(this.image);
         }
-        i.scaleCache = scaleCache;
+        i.cacheSource = getCacheSource();
         i.scale(width, height);
         i.transform = this.transform;
         i.animated = animated;
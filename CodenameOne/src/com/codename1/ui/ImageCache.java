@@ -0,0 +1,401 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *  
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Codename One through http://www.codenameone.com/ if you 
+ * need additional information or have any questions.
+ */
+package com.codename1.ui;
+
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Vector;
+
+/**
+ * <p>A global cache of images derived from other images, e.g. the results of {@link Image#scaled(int, int)}
+ * or the decoded form of an {@link EncodedImage}. Entries are keyed on the identity of the source image, the
+ * operation and the resulting size and are accounted against a single memory budget. When the budget is
+ * exceeded the least recently used entries are evicted, entries whose image is locked (see
+ * {@link Image#lock()}) are pinned since they are currently shown by a component.</p>
+ * <p>The cache only holds its images through soft references (see
+ * {@link Display#createSoftWeakRef(java.lang.Object)}) so the garbage collector can still reclaim images that
+ * aren't shown when memory is scarce, the budget bounds the cache regardless of the garbage collector. The budget
+ * can be tuned with {@link #setMaxBytes(int)} and the statistics of the cache can be used to pick a value that
+ * fits the application.</p>
+ *
+ * @author Shai Almog
+ */
+public class ImageCache {
+    /**
+     * Operation of an image scaled to a specific size
+     */
+    public static final int OP_SCALE = 1;
+
+    /**
+     * Operation of an image decoded from an encoded form
+     */
+    public static final int OP_DECODE = 2;
+
+    private static final ImageCache INSTANCE = new ImageCache();
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<Key, Entry>(32, 0.75f, true);
+    private final Hashtable pendingAsync = new Hashtable();
+
+    /**
+     * The keys of the entries derived from every source so removing a source doesn't scan the cache
+     */
+    private final Hashtable bySource = new Hashtable();
+    private final Key lookup = new Key();
+    private int maxBytes = 8 * 1024 * 1024;
+    private int bytes;
+    private int hits;
+    private int misses;
+    private int evictions;
+
+    private ImageCache() {
+    }
+
+    /**
+     * Returns the global image cache
+     *
+     * @return the cache instance
+     */
+    public static ImageCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Sets the amount of memory the cached images may occupy, the size of an image is estimated as four
+     * bytes per pixel. Pinned images can push the cache above the budget until they are unlocked.
+     *
+     * @param maxBytes the budget in bytes, defaults to 8mb
+     */
+    public synchronized void setMaxBytes(int maxBytes) {
+        this.maxBytes = Math.max(0, maxBytes);
+        trim(null);
+    }
+
+    /**
+     * Returns the amount of memory the cached images may occupy
+     *
+     * @return the budget in bytes
+     */
+    public synchronized int getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Returns the estimated amount of memory occupied by the cached images
+     *
+     * @return the size in bytes
+     */
+    public synchronized int getSizeBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the number of cached images
+     *
+     * @return the number of entries
+     */
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of lookups that found an image since the last call to {@link #resetCounters()}
+     *
+     * @return the number of hits
+     */
+    public synchronized int getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that didn't find an image since the last call to {@link #resetCounters()}
+     *
+     * @return the number of misses
+     */
+    public synchronized int getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of images evicted to stay within the budget since the last call to
+     * {@link #resetCounters()}
+     *
+     * @return the number of evictions
+     */
+    public synchronized int getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Resets the hit, miss and eviction counters
+     */
+    public synchronized void resetCounters() {
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+    }
+
+    /**
+     * Returns a cached image derived from the given source
+     *
+     * @param source the image from which the cached image was derived
+     * @param op the operation e.g. {@link #OP_SCALE}
+     * @param width the width of the derived image
+     * @param height the height of the derived image
+     * @return the cached image or null
+     */
+    public synchronized Image get(Object source, int op, int width, int height) {
+        lookup.set(source, op, width, height);
+        Entry e = entries.get(lookup);
+        lookup.source = null;
+        if(e == null) {
+            misses++;
+            return null;
+        }
+        Image i = e.getImage();
+        if(i == null) {
+            // reclaimed by the garbage collector
+            removeEntry(e);
+            misses++;
+            return null;
+        }
+        hits++;
+        return i;
+    }
+
+    /**
+     * Places an image derived from the given source in the cache, this might evict other images
+     *
+     * @param source the image from which the cached image was derived
+     * @param op the operation e.g. {@link #OP_SCALE}
+     * @param width the width of the derived image
+     * @param height the height of the derived image
+     * @param image the derived image
+     */
+    public synchronized void put(Object source, int op, int width, int height, Image image) {
+        Key k = new Key();
+        k.set(source, op, width, height);
+        Entry e = new Entry();
+        e.ref = Display.getInstance().createSoftWeakRef(image);
+        e.key = k;
+        e.op = op;
+        e.source = source;
+        e.bytes = Math.max(1, image.getWidth()) * Math.max(1, image.getHeight()) * 4;
+        Entry old = entries.put(k, e);
+        if(old != null) {
+            bytes -= old.bytes;
+        } else {
+            Vector keys = (Vector)bySource.get(source);
+            if(keys == null) {
+                keys = new Vector();
+                bySource.put(source, keys);
+            }
+            keys.addElement(k);
+        }
+        bytes += e.bytes;
+
+        // an image larger than the budget is still kept until the next insertion otherwise it would
+        // be recreated on every paint
+        trim(e);
+    }
+
+    /**
+     * Removes all the images derived from the given source
+     *
+     * @param source the source image
+     */
+    public synchronized void remove(Object source) {
+        Vector keys = (Vector)bySource.remove(source);
+        if(keys == null) {
+            return;
+        }
+        int size = keys.size();
+        for(int iter = 0 ; iter < size ; iter++) {
+            Entry e = entries.remove(keys.elementAt(iter));
+            if(e != null) {
+                bytes -= e.bytes;
+            }
+        }
+    }
+
+    private void removeEntry(Entry e) {
+        if(entries.remove(e.key) == null) {
+            return;
+        }
+        bytes -= e.bytes;
+        Vector keys = (Vector)bySource.get(e.source);
+        if(keys != null) {
+            keys.removeElement(e.key);
+            if(keys.size() == 0) {
+                bySource.remove(e.source);
+            }
+        }
+    }
+
+    /**
+     * Removes all the images from the cache
+     */
+    public synchronized void clear() {
+        entries.clear();
+        bySource.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Returns a scaled version of the source image without scaling on the calling thread. If the scaled image
+     * isn't cached the scaling is performed by a background task and the placeholder is returned, once the
+     * image is ready the current form is repainted and subsequent calls return the scaled image.
+     *
+     * @param source the image to scale
+     * @param width the width of the scaled image
+     * @param height the height of the scaled image
+     * @param placeholder image returned while the scaled image is prepared, if null the source is returned
+     * @return the scaled image if it is cached or the placeholder
+     */
+    public Image scaledAsync(final Image source, final int width, final int height, Image placeholder) {
+        if(source.getWidth() == width && source.getHeight() == height) {
+            return source;
+        }
+        final Object src = source.getCacheSource();
+        Image cached = get(src, OP_SCALE, width, height);
+        if(cached != null) {
+            return cached;
+        }
+        if(placeholder == null) {
+            placeholder = source;
+        }
+        final Key k = new Key();
+        k.set(src, OP_SCALE, width, height);
+        synchronized(this) {
+            if(pendingAsync.containsKey(k)) {
+                return placeholder;
+            }
+            pendingAsync.put(k, k);
+        }
+        Display.getInstance().scheduleBackgroundTask(new Runnable() {
+            public void run() {
+                final Image scaled;
+                try {
+                    scaled = source.scaled(width, height);
+                } finally {
+                    synchronized(ImageCache.this) {
+                        pendingAsync.remove(k);
+                    }
+                }
+                putIfAbsent(src, width, height, scaled);
+                Display.getInstance().callSerially(new Runnable() {
+                    public void run() {
+                        Form f = Display.getInstance().getCurrent();
+                        if(f != null) {
+                            f.repaint();
+                        }
+                    }
+                });
+            }
+        });
+        return placeholder;
+    }
+
+    private synchronized void putIfAbsent(Object source, int width, int height, Image image) {
+        lookup.set(source, OP_SCALE, width, height);
+        boolean exists = entries.containsKey(lookup);
+        lookup.source = null;
+        if(!exists) {
+            put(source, OP_SCALE, width, height, image);
+        }
+    }
+
+    private void trim(Entry keep) {
+        if(bytes <= maxBytes) {
+            return;
+        }
+        Iterator<Map.Entry<Key, Entry>> i = entries.entrySet().iterator();
+        while(bytes > maxBytes && i.hasNext()) {
+            Entry e = i.next().getValue();
+            if(e == keep || e.isPinned()) {
+                continue;
+            }
+            bytes -= e.bytes;
+            evictions++;
+            i.remove();
+            Vector keys = (Vector)bySource.get(e.source);
+            if(keys != null) {
+                keys.removeElement(e.key);
+                if(keys.size() == 0) {
+                    bySource.remove(e.source);
+                }
+            }
+        }
+    }
+
+    static class Entry {
+        Object ref;
+        Key key;
+        Object source;
+        int op;
+        int bytes;
+
+        Image getImage() {
+            return (Image)Display.getInstance().extractHardRef(ref);
+        }
+
+        boolean isPinned() {
+            Image image = getImage();
+            if(image == null) {
+                // already reclaimed, evicting it only fixes the accounting
+                return false;
+            }
+            if(image.isLocked()) {
+                return true;
+            }
+            // the decoded form of a locked encoded image is held by the encoded image anyway
+            return op == OP_DECODE && source instanceof Image && ((Image)source).isLocked();
+        }
+    }
+
+    static class Key {
+        Object source;
+        int op;
+        int width;
+        int height;
+        int hash;
+
+        void set(Object source, int op, int width, int height) {
+            this.source = source;
+            this.op = op;
+            this.width = width;
+            this.height = height;
+            hash = ((System.identityHashCode(source) * 31 + op) * 31 + width) * 31 + height;
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+
+        public boolean equals(Object o) {
+            Key k = (Key)o;
+            return k.source == source && k.op == op && k.width == width && k.height == height;
+        }
+    }
+}
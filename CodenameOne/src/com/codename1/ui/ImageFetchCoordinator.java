@@ -0,0 +1,466 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *  
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Codename One through http://www.codenameone.com/ if you 
+ * need additional information or have any questions.
+ */
+package com.codename1.ui;
+
+import com.codename1.io.ConnectionRequest;
+import com.codename1.io.Log;
+import com.codename1.io.NetworkManager;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.Vector;
+
+/**
+ * <p>Coordinates the image downloads of {@link URLImage} and
+ * {@link com.codename1.io.services.ImageDownloadService}. All the requests for the same URL and destination
+ * share a single download, the waiting images are notified once it completes. A download whose images are no
+ * longer shown (e.g. the rows of a list that were scrolled past) is moved to the end of the network queue when
+ * it is reached and cancelled if it still isn't needed the next time it is reached.</p>
+ * <p>Decoding and adapting the downloaded images happens on a small pool of threads rather than on the EDT,
+ * the size of the pool limits the number of images decoded at once which bounds the peak memory used while a
+ * long list of images arrives.</p>
+ *
+ * @author Shai Almog
+ */
+public class ImageFetchCoordinator {
+    private static final ImageFetchCoordinator INSTANCE = new ImageFetchCoordinator();
+
+    private final Hashtable fetches = new Hashtable();
+    private final Vector decodeQueue = new Vector();
+    private int maxConcurrentDecodes = 2;
+    private int decodeThreads;
+    private int activeDecodes;
+    private int staleTime = 1500;
+    private int downloads;
+    private int coalesced;
+    private int cancelled;
+
+    private ImageFetchCoordinator() {
+    }
+
+    /**
+     * Returns the global coordinator
+     *
+     * @return the coordinator instance
+     */
+    public static ImageFetchCoordinator getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * A consumer of a download
+     */
+    public static interface Target {
+        /**
+         * Invoked when the download is reached in the network queue
+         *
+         * @return false if the image is no longer displayed
+         */
+        boolean isWanted();
+
+        /**
+         * Indicates whether the target can recover from a cancelled download e.g. by fetching again when it
+         * is painted, targets that can't recover are only deprioritized
+         *
+         * @return true if the download can be cancelled
+         */
+        boolean isCancelable();
+
+        /**
+         * Invoked on a decode thread when the download completes
+         *
+         * @param success false if the download failed
+         */
+        void fetchCompleted(boolean success);
+
+        /**
+         * Invoked when the download was cancelled since none of its targets was wanted
+         */
+        void fetchCancelled();
+    }
+
+    /**
+     * Sets the number of images that may be decoded and adapted at once
+     *
+     * @param maxConcurrentDecodes the number of decode threads, defaults to 2
+     */
+    public void setMaxConcurrentDecodes(int maxConcurrentDecodes) {
+        this.maxConcurrentDecodes = Math.max(1, maxConcurrentDecodes);
+    }
+
+    /**
+     * Returns the number of images that may be decoded and adapted at once
+     *
+     * @return the number of decode threads
+     */
+    public int getMaxConcurrentDecodes() {
+        return maxConcurrentDecodes;
+    }
+
+    /**
+     * Sets the time after which a {@link URLImage} that wasn't painted is considered to be out of view, this
+     * only applies to images that aren't the icon of a label e.g. images drawn by a list renderer
+     *
+     * @param staleTime the time in milliseconds, defaults to 1500
+     */
+    public void setStaleTime(int staleTime) {
+        this.staleTime = staleTime;
+    }
+
+    /**
+     * Returns the time after which a {@link URLImage} that wasn't painted is considered to be out of view
+     *
+     * @return the time in milliseconds
+     */
+    public int getStaleTime() {
+        return staleTime;
+    }
+
+    /**
+     * Returns the number of downloads that were started
+     *
+     * @return the number of downloads
+     */
+    public synchronized int getDownloadCount() {
+        return downloads;
+    }
+
+    /**
+     * Returns the number of requests that joined a download that was already in flight
+     *
+     * @return the number of coalesced requests
+     */
+    public synchronized int getCoalescedCount() {
+        return coalesced;
+    }
+
+    /**
+     * Returns the number of downloads cancelled since none of their images was displayed
+     *
+     * @return the number of cancelled downloads
+     */
+    public synchronized int getCancelledCount() {
+        return cancelled;
+    }
+
+    /**
+     * Downloads the given URL to storage or to the file system, if a download of the same URL to the same
+     * destination is in flight the target joins it
+     *
+     * @param url the URL of the image
+     * @param storageFile the storage destination or null
+     * @param fileSystemFile the file system destination or null
+     * @param target notified when the download completes
+     * @param priority the priority of the network request
+     */
+    public void fetch(String url, String storageFile, String fileSystemFile, Target target, byte priority) {
+        String key;
+        if(storageFile != null) {
+            key = "s:" + storageFile + "|" + url;
+        } else {
+            key = "f:" + fileSystemFile + "|" + url;
+        }
+        FetchRequest r;
+        synchronized(this) {
+            r = (FetchRequest)fetches.get(key);
+            if(r != null && !r.done) {
+                r.targets.addElement(target);
+                if(priority > r.getPriority() && !r.demoted) {
+                    r.setPriority(priority);
+                }
+                coalesced++;
+                return;
+            }
+            r = new FetchRequest(key);
+            r.targets.addElement(target);
+            fetches.put(key, r);
+            downloads++;
+        }
+        r.setUrl(url);
+        r.setPriority(priority);
+        if(storageFile != null) {
+            r.setDestinationStorage(storageFile);
+        } else {
+            r.setDestinationFile(fileSystemFile);
+        }
+        NetworkManager.getInstance().addToQueue(r);
+    }
+
+    /**
+     * Removes the target from its download, the download is cancelled if no other target is waiting for it
+     *
+     * @param target the target
+     */
+    public void cancel(Target target) {
+        FetchRequest found = null;
+        synchronized(this) {
+            Enumeration e = fetches.elements();
+            while(e.hasMoreElements()) {
+                FetchRequest r = (FetchRequest)e.nextElement();
+                if(r.targets.removeElement(target)) {
+                    if(r.targets.size() == 0) {
+                        found = r;
+                        fetches.remove(r.key);
+                        r.done = true;
+                        cancelled++;
+                    }
+                    break;
+                }
+            }
+        }
+        if(found != null) {
+            found.kill();
+        }
+    }
+
+    /**
+     * Returns true if the component is showing on the current form and intersects the visible area of all of
+     * its scrollable parents
+     *
+     * @param c the component
+     * @return true if the component is in view
+     */
+    public static boolean isInViewport(Component c) {
+        Form f = c.getComponentForm();
+        if(f == null || f != Display.getInstance().getCurrent() || !c.isVisible()) {
+            return false;
+        }
+        // the absolute position already accounts for the scrolling of the parents but not for the component itself
+        int x = c.getAbsoluteX() + c.getScrollX();
+        int y = c.getAbsoluteY() + c.getScrollY();
+        int w = c.getWidth();
+        int h = c.getHeight();
+        Container p = c.getParent();
+        while(p != null) {
+            if(!p.isVisible()) {
+                return false;
+            }
+            int px = p.getAbsoluteX() + p.getScrollX();
+            int py = p.getAbsoluteY() + p.getScrollY();
+            if(x + w <= px || y + h <= py || x >= px + p.getWidth() || y >= py + p.getHeight()) {
+                return false;
+            }
+            p = p.getParent();
+        }
+        return true;
+    }
+
+    /**
+     * Runs the given task on a decode thread, at most {@link #getMaxConcurrentDecodes()} tasks run at once
+     *
+     * @param r the task
+     */
+    public void decode(Runnable r) {
+        synchronized(decodeQueue) {
+            decodeQueue.addElement(r);
+            // a new thread is only needed when all the existing threads are busy
+            if(decodeThreads < maxConcurrentDecodes && decodeThreads - activeDecodes < decodeQueue.size()) {
+                decodeThreads++;
+                Display.getInstance().startThread(new DecodeThread(), "Image Decode").start();
+            } else {
+                decodeQueue.notify();
+            }
+        }
+    }
+
+    /**
+     * Waits until fewer than {@link #getMaxConcurrentDecodes()} decodes are running and marks the calling
+     * thread as decoding, this is used for decoding performed on network threads and must be followed by
+     * {@link #endDecode()}
+     */
+    public void beginDecode() {
+        synchronized(decodeQueue) {
+            while(activeDecodes >= maxConcurrentDecodes) {
+                try {
+                    decodeQueue.wait();
+                } catch(InterruptedException err) {
+                }
+            }
+            activeDecodes++;
+        }
+    }
+
+    /**
+     * Marks the end of a decode started with {@link #beginDecode()}
+     */
+    public void endDecode() {
+        synchronized(decodeQueue) {
+            activeDecodes--;
+            decodeQueue.notifyAll();
+        }
+    }
+
+    class DecodeThread implements Runnable {
+        public void run() {
+            while(true) {
+                Runnable r;
+                synchronized(decodeQueue) {
+                    while(decodeQueue.size() == 0 || activeDecodes >= maxConcurrentDecodes) {
+                        if(decodeQueue.size() == 0) {
+                            try {
+                                // idle threads exit, they are recreated on demand
+                                decodeQueue.wait(5000);
+                            } catch(InterruptedException err) {
+                            }
+                            if(decodeQueue.size() == 0) {
+                                decodeThreads--;
+                                return;
+                            }
+                        } else {
+                            try {
+                                decodeQueue.wait();
+                            } catch(InterruptedException err) {
+                            }
+                        }
+                    }
+                    r = (Runnable)decodeQueue.elementAt(0);
+                    decodeQueue.removeElementAt(0);
+                    activeDecodes++;
+                }
+                try {
+                    r.run();
+                } catch(Throwable t) {
+                    Log.e(t);
+                } finally {
+                    endDecode();
+                }
+            }
+        }
+    }
+
+    private void completed(final FetchRequest r, final boolean success) {
+        completed(r, success, false);
+    }
+
+    private void completed(final FetchRequest r, final boolean success, final boolean cancel) {
+        final Object[] targets;
+        synchronized(this) {
+            if(r.done) {
+                return;
+            }
+            r.done = true;
+            fetches.remove(r.key);
+            targets = new Object[r.targets.size()];
+            r.targets.copyInto(targets);
+        }
+        for(int iter = 0 ; iter < targets.length ; iter++) {
+            final Target t = (Target)targets[iter];
+            if(cancel) {
+                t.fetchCancelled();
+                continue;
+            }
+            decode(new Runnable() {
+                public void run() {
+                    t.fetchCompleted(success);
+                }
+            });
+        }
+    }
+
+    /**
+     * Decides what to do with a download that reached the head of the network queue
+     *
+     * @return true to perform the download
+     */
+    private boolean shouldDownload(FetchRequest r) {
+        Object[] targets;
+        synchronized(this) {
+            if(r.done) {
+                return false;
+            }
+            targets = new Object[r.targets.size()];
+            r.targets.copyInto(targets);
+        }
+        boolean cancelable = true;
+        for(int iter = 0 ; iter < targets.length ; iter++) {
+            Target t = (Target)targets[iter];
+            if(t.isWanted()) {
+                return true;
+            }
+            cancelable = cancelable && t.isCancelable();
+        }
+        if(!r.demoted) {
+            // let the downloads of the images that are in view go first
+            r.demoted = true;
+            r.setPriority(ConnectionRequest.PRIORITY_REDUNDANT);
+            NetworkManager.getInstance().addToQueue(r);
+            return false;
+        }
+        if(!cancelable) {
+            return true;
+        }
+        synchronized(this) {
+            cancelled++;
+        }
+        completed(r, false, true);
+        return false;
+    }
+
+    class FetchRequest extends ConnectionRequest {
+        final String key;
+        final Vector targets = new Vector();
+        boolean demoted;
+        boolean done;
+        private boolean checked;
+
+        FetchRequest(String key) {
+            this.key = key;
+            setPost(false);
+            setDuplicateSupported(true);
+        }
+
+        protected boolean shouldStop() {
+            if(!checked) {
+                checked = true;
+                if(!shouldDownload(this)) {
+                    checked = false;
+                    return true;
+                }
+            }
+            return super.shouldStop();
+        }
+
+        protected void readResponse(InputStream input) throws IOException {
+            super.readResponse(input);
+            completed(this, !isKilled());
+        }
+
+        protected void handleErrorResponseCode(int code, String message) {
+            completed(this, false);
+        }
+
+        protected void handleException(Exception err) {
+            Log.e(err);
+            completed(this, false);
+        }
+
+        public boolean equals(Object o) {
+            return o == this;
+        }
+
+        public int hashCode() {
+            return key.hashCode();
+        }
+    }
+}
@@ -252,7 +252,7 @@ public class Label extends Component {
             setMask(UIManager.getInstance().getThemeMaskConstant(maskName));
         }
         if(getIcon() != null) {
-            getIcon().lock();
+            attachIcon(getIcon());
         }
     }
 
@@ -266,7 +266,21 @@ public class Label extends Component {
             f.deregisterAnimated(this);
         }
         if(getIcon() != null) {
-            getIcon().unlock();
+            detachIcon(getIcon());
+        }
+    }
+
+    private void attachIcon(Image i) {
+        i.lock();
+        if(i instanceof URLImage) {
+            ((URLImage)i).addOwner(this);
+        }
+    }
+
+    private void detachIcon(Image i) {
+        i.unlock();
+        if(i instanceof URLImage) {
+            ((URLImage)i).removeOwner(this);
         }
     }
     
@@ -298,6 +312,15 @@ public class Label extends Component {
                 maskedIcon = icon.applyMaskAutoScale(mask);
             }
         }
+        // the icon of an initialized label is locked, move the lock to the new icon
+        if(isInitialized()) {
+            if(this.icon != null) {
+                detachIcon(this.icon);
+            }
+            if(icon != null) {
+                attachIcon(icon);
+            }
+        }
         this.icon = icon;
         setShouldCalcPreferredSize(true);
         checkAnimation();
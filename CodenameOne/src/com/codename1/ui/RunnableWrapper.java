@@ -39,7 +39,7 @@ class RunnableWrapper implements Runnable {
     private static int maxThreadCount = 5;
     private static int availableThreads = 0;
 
-    private boolean done = false;
+    private volatile boolean done = false;
     private Runnable internal;
     private int type;
     private RuntimeException err;
@@ -93,11 +93,13 @@ class RunnableWrapper implements Runnable {
             switch(type) {
                 case 0: 
                     internal.run();
-                    done = true;
-                    synchronized(Display.lock) {
-                        Display.lock.notify();
+                    
+                    // callSeriallyAndWait waits on this object, there is no need to wake the EDT
+                    synchronized(this) {
+                        done = true;
+                        notifyAll();
                     }
-                    break;
+                    return;
                 case 1:
                     try {
                         internal.run();
@@ -142,7 +144,15 @@ class RunnableWrapper implements Runnable {
                     }
             }
         }
-        done = true;
+        synchronized(this) {
+            done = true;
+            notifyAll();
+        }
+        
+        // invokeAndBlock keeps the EDT waiting on the lock until we are done
+        synchronized(Display.lock) {
+            Display.lock.notifyAll();
+        }
     }
 
     static void pushToThreadPool(Runnable r) {
@@ -203,6 +203,23 @@ public class TextArea extends Component {
     private ArrayList rowStrings;
     private int widthForRowCalculations = -1;
 
+    /**
+     * In large text mode the rows are kept as offsets into the text instead of row strings and
+     * are computed lazily in chunks
+     */
+    private static final int WRAP_CHUNK = 16384;
+    private static final int WRAP_AHEAD_ROWS = 100;
+    private boolean largeTextMode;
+    private int[] rowStarts;
+    private int[] rowEnds;
+    private int largeRowCount;
+    private int wrappedTo;
+    private boolean wrapComplete;
+    private boolean wrapScheduled;
+    private int wrapWidth;
+    private Font wrapFont;
+    private int[] charWidthCache;
+
     private int rowsGap = 2;
 
     private boolean triggerClose;
@@ -405,6 +422,7 @@ public class TextArea extends Component {
     public void setWidth(int width) {
         if(width != getWidth()) {
             rowStrings = null;
+            rowStarts = null;
             if(growByContent) {
                 setShouldCalcPreferredSize(true);
             }
@@ -429,6 +447,7 @@ public class TextArea extends Component {
         synchronized(this) {
             //zero the ArrayList in order to initialize it on the next paint
             rowStrings=null; 
+            rowStarts=null;
         }
         
         // while native editing we don't need the cursor animations
@@ -449,6 +468,39 @@ public class TextArea extends Component {
     public String getText() {
         return text;
     }
+
+    /**
+     * Appends the given text to the end of the text area, in large text mode only the last row is
+     * wrapped again
+     * 
+     * @param t the text to append
+     * @see #setLargeTextMode(boolean)
+     */
+    public void append(String t) {
+        if(t == null || t.length() == 0) {
+            return;
+        }
+        if(!largeTextMode || rowStarts == null || (Display.getInstance().isNativeInputSupported() && Display.getInstance().isTextEditing(this))) {
+            setText(text + t);
+            return;
+        }
+        synchronized(this) {
+            text = text + t;
+            if(maxSize < text.length()) {
+                maxSize = text.length() + 1;
+            }
+            // the rows before the last row are final since every row other than the last ends with a line
+            // break or the row width, the last row might continue into the appended text
+            if(wrapComplete && largeRowCount > 0) {
+                largeRowCount--;
+                wrappedTo = rowStarts[largeRowCount];
+            }
+            wrapComplete = false;
+        }
+        setShouldCalcPreferredSize(true);
+        scheduleWrap();
+        repaint();
+    }
     
     /**
      * Convenience method for numeric text fields, returns the value as a number or invalid if the value in the 
@@ -727,7 +779,13 @@ public class TextArea extends Component {
     }
     
     void initComponentImpl() {
-        getRowStrings();
+        if(largeTextMode) {
+            if(checkLargeText()) {
+                scheduleWrap();
+            }
+        } else {
+            getRowStrings();
+        }
         super.initComponentImpl();
     }
     
@@ -746,6 +804,9 @@ public class TextArea extends Component {
      * @return the number of text lines in the TextArea
      */
     public int getLines(){
+        if(largeTextMode) {
+            return getLargeTextLines();
+        }
         int retVal;
         ArrayList v = getRowStrings();
         retVal = v.size();
@@ -759,6 +820,9 @@ public class TextArea extends Component {
      * @return the text of the line
      */
     public String getTextAt(int line){
+        if(largeTextMode) {
+            return getLargeTextAt(line);
+        }
         ArrayList rowsV = getRowStrings();
         int size = rowsV.size();
         if(size == 0){
@@ -1045,6 +1109,215 @@ public class TextArea extends Component {
             rowStrings.add("");
         }
     }
+
+    /**
+     * Resets the large text rows if the text or the width changed
+     * 
+     * @return false if the rows can't be computed yet since the component has no width
+     */
+    private boolean checkLargeText() {
+        Style style = getUnselectedStyle();
+        int w = getWidth() - style.getPadding(false, RIGHT) - style.getPadding(false, LEFT);
+        if(w <= 0) {
+            return false;
+        }
+        if(rowStarts == null || w != widthForRowCalculations) {
+            synchronized(this) {
+                widthForRowCalculations = w;
+                rowStarts = new int[256];
+                rowEnds = new int[256];
+                largeRowCount = 0;
+                wrappedTo = 0;
+                wrapComplete = false;
+                wrapFont = style.getFont();
+                Font selectedFont = getSelectedStyle().getFont();
+                if(selectedFont != wrapFont && selectedFont.charWidth(widestChar) > wrapFont.charWidth(widestChar)) {
+                    wrapFont = selectedFont;
+                }
+                // large texts practically always scroll so we always leave room for the scrollbar the same
+                // way initRowString does for scrolling text
+                wrapWidth = w - getUIManager().getLookAndFeel().getVerticalScrollWidth() - wrapFont.charWidth(widestChar) / 2;
+                charWidthCache = new int[128];
+                for(int iter = 0 ; iter < charWidthCache.length ; iter++) {
+                    charWidthCache[iter] = -1;
+                }
+            }
+            setShouldCalcPreferredSize(true);
+        }
+        return true;
+    }
+
+    private int getLargeTextLines() {
+        if(!checkLargeText()) {
+            return 1;
+        }
+        if(wrapComplete) {
+            return largeRowCount;
+        }
+        if(largeRowCount == 0 && Display.getInstance().isEdt()) {
+            wrapChunk(WRAP_CHUNK);
+            scheduleWrap();
+            if(wrapComplete) {
+                return largeRowCount;
+            }
+        }
+
+        // estimate the rows of the text that wasn't wrapped yet based on the rows wrapped so far
+        int remaining = text.length() - wrappedTo;
+        if(largeRowCount > 0 && wrappedTo > 0) {
+            return largeRowCount + (int)(((long)remaining * largeRowCount + wrappedTo - 1) / wrappedTo);
+        }
+        int charsInRow = Math.max(1, wrapWidth / Math.max(1, wrapFont.charWidth('n')));
+        return Math.max(1, (remaining + charsInRow - 1) / charsInRow);
+    }
+
+    private String getLargeTextAt(int line) {
+        if(!checkLargeText()) {
+            // the rows are only known after layout
+            return "";
+        }
+        if(line >= largeRowCount && !wrapComplete && Display.getInstance().isEdt()) {
+            // wrap a bit beyond the requested row so painting the rest of the viewport doesn't wrap again
+            while(!wrapComplete && largeRowCount <= line + WRAP_AHEAD_ROWS) {
+                wrapChunk(WRAP_CHUNK);
+            }
+            scheduleWrap();
+        }
+        if(line < 0 || line >= largeRowCount) {
+            return "";
+        }
+        String row = text.substring(rowStarts[line], rowEnds[line]);
+        String unsupported = getUnsupportedChars();
+        int ulen = unsupported.length();
+        for(int iter = 0 ; iter < ulen ; iter++) {
+            row = row.replace(unsupported.charAt(iter), ' ');
+        }
+        return row;
+    }
+
+    private int largeCharWidth(char c) {
+        if(c < 128) {
+            int w = charWidthCache[c];
+            if(w < 0) {
+                w = wrapFont.charWidth(c);
+                charWidthCache[c] = w;
+            }
+            return w;
+        }
+        return wrapFont.charWidth(c);
+    }
+
+    private void addLargeRow(int start, int end) {
+        if(largeRowCount == rowStarts.length) {
+            int[] s = new int[largeRowCount * 2];
+            System.arraycopy(rowStarts, 0, s, 0, largeRowCount);
+            rowStarts = s;
+            int[] e = new int[largeRowCount * 2];
+            System.arraycopy(rowEnds, 0, e, 0, largeRowCount);
+            rowEnds = e;
+        }
+        rowStarts[largeRowCount] = start;
+        rowEnds[largeRowCount] = end;
+        largeRowCount++;
+    }
+
+    /**
+     * Computes the rows for roughly the given number of characters after the wrapped part of the text,
+     * the rows break on a space or a new line and are cut if a word doesn't fit in a row
+     */
+    private synchronized void wrapChunk(int chars) {
+        if(wrapComplete || rowStarts == null) {
+            return;
+        }
+        String t = text;
+        int len = t.length();
+        String unsupported = getUnsupportedChars();
+        int limit = wrappedTo + chars;
+        int from = wrappedTo;
+        while(from < len && from < limit) {
+            int width = 0;
+            int lastSpace = -1;
+            int end;
+            int next;
+            int i = from;
+            while(true) {
+                if(i == len) {
+                    end = len;
+                    next = len;
+                    break;
+                }
+                char c = t.charAt(i);
+                if(c == '\n') {
+                    end = i;
+                    next = i + 1;
+                    break;
+                }
+                if(unsupported.indexOf(c) > -1) {
+                    c = ' ';
+                }
+                width += largeCharWidth(c);
+
+                // a row may be exactly as wide as the text area like the rows of initRowString
+                if(width > wrapWidth) {
+                    if(c == ' ') {
+                        end = i;
+                        next = i + 1;
+                    } else if(lastSpace > -1) {
+                        end = lastSpace;
+                        next = lastSpace + 1;
+                    } else {
+                        end = Math.max(i, from + 1);
+                        next = end;
+                    }
+                    break;
+                }
+                if(c == ' ') {
+                    lastSpace = i;
+                }
+                i++;
+            }
+            addLargeRow(from, end);
+            from = next;
+        }
+        wrappedTo = from;
+        if(from >= len) {
+            if(len > 0 && t.charAt(len - 1) == '\n') {
+                addLargeRow(len, len);
+            }
+            wrapComplete = true;
+        }
+    }
+
+    /**
+     * Wraps the rest of the text in chunks on the EDT so the exact number of rows becomes available
+     * without blocking the EDT
+     */
+    private void scheduleWrap() {
+        if(wrapScheduled || wrapComplete || !isInitialized()) {
+            return;
+        }
+        wrapScheduled = true;
+        Display.getInstance().callSerially(new Runnable() {
+            public void run() {
+                wrapScheduled = false;
+                if(!largeTextMode || !isInitialized() || !checkLargeText() || wrapComplete) {
+                    return;
+                }
+                wrapChunk(WRAP_CHUNK);
+                if(wrapComplete) {
+                    // the exact row count changes the preferred size or the scroll size of the text area
+                    setShouldCalcPreferredSize(true);
+                    if(getParent() != null) {
+                        getParent().revalidate();
+                    } else {
+                        repaint();
+                    }
+                } else {
+                    scheduleWrap();
+                }
+            }
+        });
+    }
     
     /**
      * Gets the num of pixels gap between the rows
@@ -1190,6 +1463,40 @@ public class TextArea extends Component {
     public void setGrowByContent(boolean growByContent) {
         this.growByContent = growByContent;
     }
+
+    /**
+     * Indicates whether the text area is in large text mode
+     * 
+     * @return true if the rows are kept as offsets into the text
+     * @see #setLargeTextMode(boolean)
+     */
+    public boolean isLargeTextMode() {
+        return largeTextMode;
+    }
+
+    /**
+     * <p>Large text mode is designed for showing very large read only texts such as logs or book chapters.
+     * Instead of breaking the entire text into row strings whenever the text or the width changes, the
+     * rows are kept as offsets into the text and are computed lazily in chunks around the rows that are
+     * painted, the rest of the text is wrapped in small chunks on the EDT. Until then {@link #getLines()}
+     * returns an estimate. {@link #append(java.lang.String)} only wraps the last row again.</p>
+     * <p>In this mode {@link #preprocess(java.lang.String)} isn't invoked and the lines are broken based on
+     * the width of the individual characters.</p>
+     * 
+     * @param largeTextMode true to enable large text mode
+     */
+    public void setLargeTextMode(boolean largeTextMode) {
+        if(this.largeTextMode != largeTextMode) {
+            this.largeTextMode = largeTextMode;
+            rowStrings = null;
+            rowStarts = null;
+            setShouldCalcPreferredSize(true);
+            if(largeTextMode && checkLargeText()) {
+                scheduleWrap();
+            }
+            repaint();
+        }
+    }
     
     /**
      * Indicates whether a high value for default maxSize will be reduced to a lower
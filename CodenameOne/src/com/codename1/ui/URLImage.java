@@ -28,13 +28,12 @@ import com.codename1.io.FileSystemStorage;
 import com.codename1.io.NetworkManager;
 import com.codename1.io.Storage;
 import com.codename1.io.Util;
-import com.codename1.ui.events.ActionEvent;
-import com.codename1.ui.events.ActionListener;
 import com.codename1.util.Callback;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Vector;
 
 /**
  * <p>{@code URLImage} allows us to create an image from a URL. If the image was downloaded 
@@ -151,6 +150,10 @@ public class URLImage extends EncodedImage {
     private boolean repaintImage;
     private static final String IMAGE_SUFFIX = "ImageURLTMP";
     private boolean locked;
+    private long lastPainted;
+    private Form paintedForm;
+    private final Vector owners = new Vector();
+    private final Fetcher fetcher = new Fetcher();
     
     private URLImage(EncodedImage placeholder, String url, ImageAdapter adapter, String storageFile, String fileSystemFile) {
         super(placeholder.getWidth(), placeholder.getHeight());
@@ -182,58 +185,117 @@ public class URLImage extends EncodedImage {
         };
     }
     
-    class DownloadCompleted implements ActionListener, Runnable {
-        private EncodedImage adapt;
-        private EncodedImage adaptedIns;
-        public void run() {
-            adaptedIns = adapter.adaptImage(adapt, placeholder);
+    /**
+     * Receives the download from the {@link ImageFetchCoordinator}, all the URLImages of the same URL and
+     * file share one download
+     */
+    class Fetcher implements ImageFetchCoordinator.Target {
+        public boolean isWanted() {
+            Object[] o = owners.toArray();
+            if(o.length > 0) {
+                for(int iter = 0 ; iter < o.length ; iter++) {
+                    if(ImageFetchCoordinator.isInViewport((Component)o[iter])) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            
+            // renderers and custom painting have no owning component, an image that isn't painted anymore 
+            // was scrolled out of view or its form was replaced
+            return paintedForm == Display.getInstance().getCurrent() &&
+                    System.currentTimeMillis() - lastPainted < ImageFetchCoordinator.getInstance().getStaleTime();
         }
-        
-        public void actionPerformed(ActionEvent evt) {
+
+        public boolean isCancelable() {
+            return true;
+        }
+
+        public void fetchCancelled() {
+            // the download is started again when the image is painted
+            Display.getInstance().callSerially(new Runnable() {
+                public void run() {
+                    fetching = false;
+                    repaintImage = true;
+                }
+            });
+        }
+
+        public void fetchCompleted(boolean success) {
+            if(!success) {
+                return;
+            }
             if(adapter != null) {
                 try {
-                    byte[] d;
-                    InputStream is;
-                    if(storageFile != null) {
-                        d = new byte[Storage.getInstance().entrySize(storageFile + IMAGE_SUFFIX)];
-                        is = Storage.getInstance().createInputStream(storageFile + IMAGE_SUFFIX);
-                    } else {
-                        d = new byte[(int)FileSystemStorage.getInstance().getLength(fileSystemFile + IMAGE_SUFFIX)];
-                        is = FileSystemStorage.getInstance().openInputStream(fileSystemFile + IMAGE_SUFFIX);
-                    }
-                    Util.readFully(is, d);
-                    EncodedImage img = EncodedImage.create(d);
-                    EncodedImage adapted;
-                    if(adapter.isAsyncAdapter()) {
-                        adapt = img;
-                        Display.getInstance().invokeAndBlock(this);
-                        adapted = adaptedIns;
-                        adaptedIns = null;
-                        adapt = null;
-                    } else {
-                        adapted = adapter.adaptImage(img, placeholder);
-                    }
-                    if(storageFile != null) {
-                        OutputStream o = Storage.getInstance().createOutputStream(storageFile);
-                        o.write(adapted.getImageData());
-                        o.close();
-                        Storage.getInstance().deleteStorageFile(storageFile + IMAGE_SUFFIX);
-                    } else {
-                        OutputStream o = FileSystemStorage.getInstance().openOutputStream(fileSystemFile);
-                        o.write(adapted.getImageData());
-                        o.close();
-                        FileSystemStorage.getInstance().delete(fileSystemFile + IMAGE_SUFFIX);
-                    }
+                    adapt();
                 } catch (IOException ex) {
                     ex.printStackTrace();
                     return;
                 }
             }
-            fetching = false;
-            // invoke fetch again to load the local files
-            fetch();
+            
+            // the image state is read by the EDT while painting so the local files are loaded there
+            Display.getInstance().callSerially(new Runnable() {
+                public void run() {
+                    fetching = false;
+                    fetch();
+                }
+            });
+        }
+    }
+
+    private void adapt() throws IOException {
+        // the file names are interned so images sharing a download share the lock, the first of them adapts
+        // the downloaded image and the others find the result in place
+        Object lock = storageFile != null ? storageFile : fileSystemFile;
+        synchronized(lock) {
+            byte[] d;
+            InputStream is;
+            if(storageFile != null) {
+                if(!Storage.getInstance().exists(storageFile + IMAGE_SUFFIX)) {
+                    return;
+                }
+                d = new byte[Storage.getInstance().entrySize(storageFile + IMAGE_SUFFIX)];
+                is = Storage.getInstance().createInputStream(storageFile + IMAGE_SUFFIX);
+            } else {
+                if(!FileSystemStorage.getInstance().exists(fileSystemFile + IMAGE_SUFFIX)) {
+                    return;
+                }
+                d = new byte[(int)FileSystemStorage.getInstance().getLength(fileSystemFile + IMAGE_SUFFIX)];
+                is = FileSystemStorage.getInstance().openInputStream(fileSystemFile + IMAGE_SUFFIX);
+            }
+            Util.readFully(is, d);
+            final EncodedImage img = EncodedImage.create(d);
+
+            // this runs on a decode thread, adapters that aren't async are invoked on the EDT
+            EncodedImage adapted;
+            if(adapter.isAsyncAdapter()) {
+                adapted = adapter.adaptImage(img, placeholder);
+            } else {
+                final EncodedImage[] result = new EncodedImage[1];
+                Display.getInstance().callSeriallyAndWait(new Runnable() {
+                    public void run() {
+                        result[0] = adapter.adaptImage(img, placeholder);
+                    }
+                });
+                adapted = result[0];
+                if(adapted == null) {
+                    // the adapter failed on the EDT and the error was already reported there
+                    return;
+                }
+            }
+            if(storageFile != null) {
+                OutputStream o = Storage.getInstance().createOutputStream(storageFile);
+                o.write(adapted.getImageData());
+                o.close();
+                Storage.getInstance().deleteStorageFile(storageFile + IMAGE_SUFFIX);
+            } else {
+                OutputStream o = FileSystemStorage.getInstance().openOutputStream(fileSystemFile);
+                o.write(adapted.getImageData());
+                o.close();
+                FileSystemStorage.getInstance().delete(fileSystemFile + IMAGE_SUFFIX);
+            }
         }
-        
     }
     
     /**
@@ -260,9 +322,9 @@ public class URLImage extends EncodedImage {
                     return;
                 } 
                 if(adapter != null) {
-                    Util.downloadUrlToStorageInBackground(url, storageFile + IMAGE_SUFFIX, new DownloadCompleted());
+                    ImageFetchCoordinator.getInstance().fetch(url, storageFile + IMAGE_SUFFIX, null, fetcher, ConnectionRequest.PRIORITY_NORMAL);
                 } else {
-                    Util.downloadUrlToStorageInBackground(url, storageFile, new DownloadCompleted());                    
+                    ImageFetchCoordinator.getInstance().fetch(url, storageFile, null, fetcher, ConnectionRequest.PRIORITY_NORMAL);
                 }
             } else {
                 if(FileSystemStorage.getInstance().exists(fileSystemFile)) {
@@ -276,9 +338,9 @@ public class URLImage extends EncodedImage {
                     return;
                 }
                 if(adapter != null) {
-                    Util.downloadUrlToFileSystemInBackground(url, fileSystemFile + IMAGE_SUFFIX, new DownloadCompleted());
+                    ImageFetchCoordinator.getInstance().fetch(url, null, fileSystemFile + IMAGE_SUFFIX, fetcher, ConnectionRequest.PRIORITY_NORMAL);
                 } else {
-                    Util.downloadUrlToFileSystemInBackground(url, fileSystemFile + IMAGE_SUFFIX, new DownloadCompleted());
+                    ImageFetchCoordinator.getInstance().fetch(url, null, fileSystemFile, fetcher, ConnectionRequest.PRIORITY_NORMAL);
                 }
             }
         } catch(IOException ioErr) {
@@ -291,6 +353,8 @@ public class URLImage extends EncodedImage {
      */
     protected Image getInternal() {
         if(imageData == null) {
+            lastPainted = System.currentTimeMillis();
+            paintedForm = Display.getInstance().getCurrent();
             fetch();
             return placeholder;
         }
@@ -322,6 +386,23 @@ public class URLImage extends EncodedImage {
         return false;
     }
 
+    /**
+     * Invoked when a component showing this image is initialized, the download is only wanted while one of
+     * the owners is in view
+     */
+    void addOwner(Component c) {
+        if(!owners.contains(c)) {
+            owners.addElement(c);
+        }
+    }
+
+    /**
+     * Invoked when a component showing this image is deinitialized or its image is replaced
+     */
+    void removeOwner(Component c) {
+        owners.removeElement(c);
+    }
+
     /**
      * Block this method from external callers as it might break the functionality
      */
@@ -36,6 +36,7 @@ import com.codename1.ui.RGBImage;
 import com.codename1.ui.plaf.Style;
 import com.codename1.ui.plaf.UIManager;
 import com.codename1.util.LazyValue;
+import java.util.Vector;
 
 /**
  * <p>Contains common transition animations that can be applied to forms &amp; components 
@@ -116,6 +117,34 @@ public final class CommonTransitions extends Transition {
 
     private boolean firstFinished;
 
+    /**
+     * Snapshots of the source/destination content panes for the slide fade transition, when null the
+     * content panes are painted live on every frame
+     */
+    private Image sourceSnapshot;
+    private Image destSnapshot;
+
+    /**
+     * The timeline frame for which the masked buffer was computed
+     */
+    private int maskedTime = -1;
+    private Image maskedBuffer;
+
+    /**
+     * Mutable images this transition took from the pool and should return on cleanup
+     */
+    private Vector pooledImages;
+
+    /**
+     * Offscreen surfaces shared between transitions so each transition doesn't allocate full screen images
+     */
+    private static final Vector imagePool = new Vector();
+    private static int imagePoolSize = 2;
+
+    private int frameCount;
+    private long totalFrameTime;
+    private long maxFrameTime;
+
     private CommonTransitions(int type) {
         transitionType = type;
     }
@@ -373,6 +402,9 @@ public final class CommonTransitions extends Transition {
         }
 
         startTime = System.currentTimeMillis();
+        frameCount = 0;
+        totalFrameTime = 0;
+        maxFrameTime = 0;
         Component source = getSource();
         Component destination = getDestination();
         position = 0;
@@ -392,6 +424,7 @@ public final class CommonTransitions extends Transition {
                 motion2 = createMotion(0, getDestination().getWidth(), speed);
                 motion.start();
                 motion2.start();
+                createSlideFadeSnapshots((Form)getSource(), (Form)getDestination());
                 return;
             } 
             transitionType = TYPE_SLIDE;
@@ -458,8 +491,21 @@ public final class CommonTransitions extends Transition {
                 }
                 getSource().paintBackgrounds(g);
                 g.setClip(0, 0, buffer.getWidth()+source.getAbsoluteX(), buffer.getHeight()+source.getAbsoluteY());
-                paint(g, getDestination(), 0, 0);
-                rgbBuffer = new RGBImage(buffer.getRGBCached(), buffer.getWidth(), buffer.getHeight());
+                if(g.isAlphaSupported()) {
+                    // render the destination once and compose it with alpha on every frame
+                    secondaryBuffer = createMutableImage(w, h);
+                    Graphics sg = secondaryBuffer.getGraphics();
+                    sg.translate(-source.getAbsoluteX(), -source.getAbsoluteY());
+                    if(getSource().getParent() != null){
+                        getSource().getComponentForm().paintComponent(sg);
+                    }
+                    getSource().paintBackgrounds(sg);
+                    sg.setClip(0, 0, secondaryBuffer.getWidth()+source.getAbsoluteX(), secondaryBuffer.getHeight()+source.getAbsoluteY());
+                    paint(sg, getDestination(), 0, 0);
+                } else {
+                    paint(g, getDestination(), 0, 0);
+                    rgbBuffer = new RGBImage(buffer.getRGBCached(), buffer.getWidth(), buffer.getHeight());
+                }
 
                 paint(g, getSource(), 0, 0, true);
                 g.translate(source.getAbsoluteX(), source.getAbsoluteY());
@@ -600,7 +646,137 @@ public final class CommonTransitions extends Transition {
 
     private Image createMutableImage(int w, int h) {
         Display d = Display.getInstance();
-        return Image.createImage(Math.min(d.getDisplayWidth(), w), Math.min(d.getDisplayHeight(), h));
+        w = Math.min(d.getDisplayWidth(), w);
+        h = Math.min(d.getDisplayHeight(), h);
+        Image img = null;
+        synchronized(imagePool) {
+            for(int iter = imagePool.size() - 1 ; iter >= 0 ; iter--) {
+                Image current = (Image)imagePool.elementAt(iter);
+                if(current.getWidth() == w && current.getHeight() == h) {
+                    imagePool.removeElementAt(iter);
+                    img = current;
+                    break;
+                }
+            }
+        }
+        if(img == null) {
+            img = Image.createImage(w, h);
+        } else {
+            // pooled images still contain the previous transition
+            Graphics g = img.getGraphics();
+            g.setColor(0xffffff);
+            g.fillRect(0, 0, w, h);
+        }
+        if(imagePoolSize > 0) {
+            if(pooledImages == null) {
+                pooledImages = new Vector();
+            }
+            pooledImages.addElement(img);
+        }
+        return img;
+    }
+
+    private void releasePooledImages() {
+        if(pooledImages == null) {
+            return;
+        }
+        synchronized(imagePool) {
+            int max = imagePoolSize;
+            int size = pooledImages.size();
+            for(int iter = 0 ; max > 0 && iter < size ; iter++) {
+                Object img = pooledImages.elementAt(iter);
+                while(imagePool.size() >= max) {
+                    imagePool.removeElementAt(0);
+                }
+                imagePool.addElement(img);
+            }
+        }
+        pooledImages = null;
+    }
+
+    /**
+     * Sets the number of offscreen images kept between transitions so they can be reused by the next
+     * transition, 0 disables pooling. Larger pools avoid allocations for transitions of different sizes
+     * (e.g. dialogs and forms) at the cost of holding on to memory.
+     *
+     * @param size the number of images to keep, defaults to 2
+     * @throws IllegalArgumentException if the size is negative
+     */
+    public static void setImagePoolSize(int size) {
+        if(size < 0) {
+            throw new IllegalArgumentException("Illegal image pool size: " + size);
+        }
+        synchronized(imagePool) {
+            imagePoolSize = size;
+            while(imagePool.size() > size) {
+                imagePool.removeElementAt(0);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of offscreen images kept between transitions
+     *
+     * @return the size of the pool
+     */
+    public static int getImagePoolSize() {
+        return imagePoolSize;
+    }
+
+    /**
+     * Renders the content panes of the slide fade transition once so frames only need to draw the
+     * images at the current offset. Forms with running animations are painted live so the animation
+     * remains visible.
+     */
+    private void createSlideFadeSnapshots(Form sourceForm, Form destForm) {
+        sourceSnapshot = null;
+        destSnapshot = null;
+        if(!Display.getInstance().areMutableImagesFast() || sourceForm.hasAnimations() || destForm.hasAnimations()) {
+            return;
+        }
+        int titleHeight = sourceForm.getTitleArea().getHeight();
+        int w = Math.max(sourceForm.getWidth(), destForm.getWidth());
+        int h = Math.max(sourceForm.getHeight(), destForm.getHeight()) - titleHeight;
+        Display d = Display.getInstance();
+        if(w <= 0 || h <= 0 || w > d.getDisplayWidth() || h > d.getDisplayHeight()) {
+            return;
+        }
+        Container sourcePane = sourceForm.getContentPane();
+        Container destPane = destForm.getContentPane();
+        sourceSnapshot = createMutableImage(w, h);
+        paint(sourceSnapshot.getGraphics(), sourcePane, -sourcePane.getAbsoluteX() -sourcePane.getScrollX(), -sourcePane.getAbsoluteY() -sourcePane.getScrollY(), true);
+        destSnapshot = createMutableImage(w, h);
+        paint(destSnapshot.getGraphics(), destPane, -destPane.getAbsoluteX() -destPane.getScrollX(), -destPane.getAbsoluteY() -destPane.getScrollY(), true);
+    }
+
+    /**
+     * Returns the number of frames painted by the last run of this transition
+     *
+     * @return the frame count
+     */
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Returns the average time in milliseconds spent painting a frame of the last run of this transition
+     *
+     * @return the average frame time
+     */
+    public int getAverageFrameTime() {
+        if(frameCount == 0) {
+            return 0;
+        }
+        return (int)(totalFrameTime / frameCount);
+    }
+
+    /**
+     * Returns the longest time in milliseconds spent painting a single frame of the last run of this transition
+     *
+     * @return the maximum frame time
+     */
+    public int getMaxFrameTime() {
+        return (int)maxFrameTime;
     }
 
     /**
@@ -670,6 +846,17 @@ public final class CommonTransitions extends Transition {
      * {@inheritDoc}
      */
     public void paint(Graphics g) {
+        long time = System.currentTimeMillis();
+        paintFrame(g);
+        time = System.currentTimeMillis() - time;
+        frameCount++;
+        totalFrameTime += time;
+        if(time > maxFrameTime) {
+            maxFrameTime = time;
+        }
+    }
+
+    private void paintFrame(Graphics g) {
         try {
             switch (transitionType) {
                 case TYPE_SLIDE:
@@ -707,9 +894,18 @@ public final class CommonTransitions extends Transition {
                     paintAlpha(g);
                     return;
                 case TYPE_TIMELINE:
-                    Object mask = timeline.createMask();
                     paint(g, getSource(), 0, 0);
-                    g.drawImage(buffer.applyMask(mask), 0, 0);
+                    if(timeline instanceof Timeline) {
+                        // the mask only changes when the timeline advances
+                        int t = ((Timeline)timeline).getTime();
+                        if(maskedBuffer == null || t != maskedTime) {
+                            maskedBuffer = buffer.applyMask(timeline.createMask());
+                            maskedTime = t;
+                        }
+                        g.drawImage(maskedBuffer, 0, 0);
+                        return;
+                    }
+                    g.drawImage(buffer.applyMask(timeline.createMask()), 0, 0);
                     return;
                 case TYPE_SLIDE_AND_FADE: {
                     Form sourceForm = (Form)getSource();
@@ -730,7 +926,15 @@ public final class CommonTransitions extends Transition {
                     if(sourceForm != null && sourceForm.getUIManager().getLookAndFeel().isRTL()) {
                         dir = !dir;
                     }
-                    if(dir) {
+                    if(sourceSnapshot != null) {
+                        if(dir) {
+                            g.drawImage(sourceSnapshot, slidePos, 0);
+                            g.drawImage(destSnapshot, slidePos - destPane.getWidth(), 0);
+                        } else {
+                            g.drawImage(sourceSnapshot, -slidePos, 0);
+                            g.drawImage(destSnapshot, destPane.getWidth() - slidePos, 0);
+                        }
+                    } else if(dir) {
                         g.translate(slidePos, 0);
                         paint(g, sourcePane, -sourcePane.getAbsoluteX() -sourcePane.getScrollX(), -sourcePane.getAbsoluteY() -sourcePane.getScrollY(), true);
                         g.translate(-destPane.getWidth(), 0);
@@ -931,9 +1135,14 @@ public final class CommonTransitions extends Transition {
             }
         }
         super.cleanup();
+        releasePooledImages();
         buffer = null;
         rgbBuffer = null;
         secondaryBuffer = null;
+        sourceSnapshot = null;
+        destSnapshot = null;
+        maskedBuffer = null;
+        maskedTime = -1;
         timeline = null;
     }
 
@@ -72,6 +72,16 @@ public abstract class Layout {
      * @param comp the removed component from layout
      */
     public void removeLayoutComponent(Component comp) {}
+
+    /**
+     * Invoked when the preferred size of a component within the container was invalidated, layouts that 
+     * cache measurements of their components can discard the values of that component only instead of
+     * measuring all the components again
+     * 
+     * @param parent the container
+     * @param comp the child of the container whose preferred size might have changed
+     */
+    public void componentInvalidated(Container parent, Component comp) {}
     
     /**
      * Returns the optional component constraint
@@ -22,11 +22,14 @@
  */
 package com.codename1.ui.list;
 
+import com.codename1.ui.Display;
 import com.codename1.ui.List;
 import com.codename1.ui.TextField;
 import com.codename1.ui.events.DataChangedListener;
 import com.codename1.ui.events.SelectionListener;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Map;
 
 /**
@@ -39,6 +42,16 @@ public class FilterProxyListModel<T> implements ListModel<T>, DataChangedListene
     private ArrayList<Integer> filter;
     private ArrayList<DataChangedListener> listeners = new ArrayList<DataChangedListener>();
     private boolean startsWithMode;
+
+    private boolean indexed;
+    private String[] keys;
+    private int keyCount;
+    private int[] sortedKeys;
+    private String lastFilter;
+    private int filterGeneration;
+    private int indexModification;
+    private boolean sorted;
+    private boolean sortAscending;
     
     /**
      * The proxy is applied to the actual model and effectively hides it
@@ -65,6 +78,11 @@ public class FilterProxyListModel<T> implements ListModel<T>, DataChangedListene
      * @param ascending sort in ascending order
      */
     public void sort(boolean ascending) {
+        sortImpl(ascending);
+        fireDataChanged(DataChangedListener.CHANGED, -1);
+    }
+
+    private void sortImpl(boolean ascending) {
         if(filter == null) {
             filterImpl("");
         }
@@ -79,7 +97,8 @@ public class FilterProxyListModel<T> implements ListModel<T>, DataChangedListene
         for(int iter = 0 ; iter < filter.size() ; iter++) {
             filter.set(iter, tempArray[iter]);
         }
-        dataChanged(DataChangedListener.CHANGED, -1);
+        sorted = true;
+        sortAscending = ascending;
     }
 
     private int compareObj(Object a, Object b, boolean ascending) {
@@ -180,8 +199,23 @@ public class FilterProxyListModel<T> implements ListModel<T>, DataChangedListene
     }
 
     private void filterImpl(String str) {
-        filter = new ArrayList<Integer>();
         str = str.toUpperCase();
+        if(indexed) {
+            ensureIndex();
+            int[] previous = null;
+            if(lastFilter != null && filter != null) {
+                previous = toArray(filter);
+            }
+            if(!isNarrowing(previous, lastFilter, str, startsWithMode)) {
+                sorted = false;
+            }
+            filter = toList(filterIndex(keys, keyCount, sortedKeys, previous, lastFilter, str, startsWithMode));
+            lastFilter = str;
+            nextFilterGeneration();
+            return;
+        }
+        sorted = false;
+        filter = new ArrayList<Integer>();
         for(int iter = 0 ; iter < underlying.getSize() ; iter++) {
             Object o = underlying.getItemAt(iter);
             if(o != null) {
@@ -233,7 +267,388 @@ public class FilterProxyListModel<T> implements ListModel<T>, DataChangedListene
      */
     public void filter(String str) {
         filterImpl(str);
-        dataChanged(DataChangedListener.CHANGED, -1);
+        fireDataChanged(DataChangedListener.CHANGED, -1);
+    }
+
+    /**
+     * Filters the list on a background thread and publishes the result on the EDT, this is only
+     * effective in indexed mode and is equivalent to {@link #filter(java.lang.String)} otherwise.
+     * Calls that are superseded by a newer filter before they run are discarded.
+     *
+     * @param str the string to filter the list by
+     * @param onComplete invoked on the EDT once the result was published, may be null
+     */
+    public void filterAsync(final String str, final Runnable onComplete) {
+        if(!indexed) {
+            filter(str);
+            if(onComplete != null) {
+                onComplete.run();
+            }
+            return;
+        }
+        ensureIndex();
+        final String upper = str.toUpperCase();
+        final String[] keysSnapshot = keys;
+        final int count = keyCount;
+        final boolean startsWith = startsWithMode;
+        final int[] sortedSnapshot;
+        if(startsWith) {
+            ensureSortedKeys();
+            sortedSnapshot = sortedKeys;
+        } else {
+            sortedSnapshot = null;
+        }
+        final int[] previous;
+        final String previousFilter = lastFilter;
+        if(previousFilter != null && filter != null) {
+            previous = toArray(filter);
+        } else {
+            previous = null;
+        }
+        final int generation = nextFilterGeneration();
+        final int modification = indexModification;
+        Display.getInstance().scheduleBackgroundTask(new Runnable() {
+            public void run() {
+                if(!isFilterGeneration(generation)) {
+                    return;
+                }
+                final int[] result = filterIndex(keysSnapshot, count, sortedSnapshot, previous, previousFilter, upper, startsWith);
+                Display.getInstance().callSerially(new Runnable() {
+                    public void run() {
+                        if(!isFilterGeneration(generation)) {
+                            return;
+                        }
+                        if(modification != indexModification || startsWith != startsWithMode) {
+                            // the model changed while we were filtering, the result is stale
+                            lastFilter = null;
+                            filterImpl(str);
+                        } else {
+                            if(!isNarrowing(previous, previousFilter, upper, startsWith)) {
+                                sorted = false;
+                            }
+                            filter = toList(result);
+                            lastFilter = upper;
+                        }
+                        fireDataChanged(DataChangedListener.CHANGED, -1);
+                        if(onComplete != null) {
+                            onComplete.run();
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private synchronized int nextFilterGeneration() {
+        filterGeneration++;
+        return filterGeneration;
+    }
+
+    private synchronized boolean isFilterGeneration(int generation) {
+        return generation == filterGeneration;
+    }
+
+    /**
+     * Returns the normalized key by which an element is matched in indexed mode, by default this is
+     * the upper case version of the "name" entry for a Map or the toString() value otherwise
+     *
+     * @param o the element from the underlying model
+     * @return the upper case key or null to never match this element
+     */
+    protected String getIndexKey(Object o) {
+        if(o == null) {
+            return null;
+        }
+        if(o instanceof Map) {
+            Object val = ((Map)o).get("name");
+            if(val == null) {
+                return null;
+            }
+            return val.toString().toUpperCase();
+        }
+        return o.toString().toUpperCase();
+    }
+
+    /**
+     * <p>In indexed mode the match keys of the underlying model are normalized once and kept up to date
+     * as items are added/removed, typing that only extends the previous filter string narrows the previous
+     * result instead of scanning the whole model and starts with mode uses a sorted key index to find
+     * the matching range. This is useful for very large models e.g. an auto complete of a big catalog.</p>
+     * <p>Notice that in this mode {@link #check(java.lang.Object, java.lang.String)} isn't invoked,
+     * subclasses should override {@link #getIndexKey(java.lang.Object)} instead.</p>
+     *
+     * @param indexed true to enable the index
+     */
+    public void setIndexed(boolean indexed) {
+        this.indexed = indexed;
+        keys = null;
+        keyCount = 0;
+        sortedKeys = null;
+        lastFilter = null;
+    }
+
+    /**
+     * Indicates whether the model uses an index to filter, see {@link #setIndexed(boolean)}
+     *
+     * @return true if indexed
+     */
+    public boolean isIndexed() {
+        return indexed;
+    }
+
+    private void ensureIndex() {
+        if(keys == null) {
+            int size = underlying.getSize();
+            String[] k = new String[Math.max(16, size)];
+            for(int iter = 0 ; iter < size ; iter++) {
+                k[iter] = getIndexKey(underlying.getItemAt(iter));
+            }
+            keys = k;
+            keyCount = size;
+            sortedKeys = null;
+        }
+        if(startsWithMode) {
+            ensureSortedKeys();
+        }
+    }
+
+    private void ensureSortedKeys() {
+        if(sortedKeys != null) {
+            return;
+        }
+        final String[] k = keys;
+        Integer[] order = new Integer[keyCount];
+        for(int iter = 0 ; iter < order.length ; iter++) {
+            order[iter] = new Integer(iter);
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            public int compare(Integer a, Integer b) {
+                String s1 = k[a.intValue()];
+                String s2 = k[b.intValue()];
+                if(s1 == null) {
+                    return s2 == null ? 0 : -1;
+                }
+                if(s2 == null) {
+                    return 1;
+                }
+                return s1.compareTo(s2);
+            }
+        });
+        int[] sorted = new int[order.length];
+        for(int iter = 0 ; iter < sorted.length ; iter++) {
+            sorted[iter] = order[iter].intValue();
+        }
+        sortedKeys = sorted;
+    }
+
+    private static boolean matches(String key, String str, boolean startsWith) {
+        if(key == null) {
+            return false;
+        }
+        if(startsWith) {
+            return key.startsWith(str);
+        }
+        return key.indexOf(str) > -1;
+    }
+
+    /**
+     * Performs the actual indexed filtering, this doesn't touch instance state so it can run
+     * on a background thread against a snapshot of the keys
+     */
+    private static int[] filterIndex(String[] keys, int count, int[] sorted, int[] previous, 
+            String previousFilter, String str, boolean startsWith) {
+        int[] result;
+        int resultCount = 0;
+        if(isNarrowing(previous, previousFilter, str, startsWith)) {
+            result = new int[previous.length];
+            for(int iter = 0 ; iter < previous.length ; iter++) {
+                int i = previous[iter];
+                if(matches(keys[i], str, startsWith)) {
+                    result[resultCount++] = i;
+                }
+            }
+        } else if(startsWith && sorted != null && str.length() > 0) {
+            // binary search for the first key that is greater or equal to the prefix
+            int low = 0;
+            int high = count;
+            while(low < high) {
+                int mid = (low + high) >>> 1;
+                String k = keys[sorted[mid]];
+                if(k == null || k.compareTo(str) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            int end = low;
+            while(end < count && keys[sorted[end]] != null && keys[sorted[end]].startsWith(str)) {
+                end++;
+            }
+            result = new int[end - low];
+            System.arraycopy(sorted, low, result, 0, result.length);
+            resultCount = result.length;
+
+            // keep the order of the underlying model
+            Arrays.sort(result);
+        } else {
+            result = new int[count];
+            for(int iter = 0 ; iter < count ; iter++) {
+                if(matches(keys[iter], str, startsWith)) {
+                    result[resultCount++] = iter;
+                }
+            }
+        }
+        if(resultCount == result.length) {
+            return result;
+        }
+        int[] r = new int[resultCount];
+        System.arraycopy(result, 0, r, 0, resultCount);
+        return r;
+    }
+
+    /**
+     * Indicates whether the new filter string only narrows the previous result in which case
+     * the previous result is filtered again and its order is kept
+     */
+    private static boolean isNarrowing(int[] previous, String previousFilter, String str, boolean startsWith) {
+        return previous != null && previousFilter != null && previousFilter.length() > 0 &&
+                (startsWith ? str.startsWith(previousFilter) : str.indexOf(previousFilter) > -1);
+    }
+
+    private static int toVisibleOffset(int offset) {
+        if(offset < 0) {
+            return -2;
+        }
+        return offset;
+    }
+
+    private static int[] toArray(ArrayList<Integer> l) {
+        int[] r = new int[l.size()];
+        for(int iter = 0 ; iter < r.length ; iter++) {
+            r[iter] = l.get(iter).intValue();
+        }
+        return r;
+    }
+
+    private static ArrayList<Integer> toList(int[] arr) {
+        ArrayList<Integer> r = new ArrayList<Integer>(arr.length);
+        for(int iter = 0 ; iter < arr.length ; iter++) {
+            r.add(new Integer(arr[iter]));
+        }
+        return r;
+    }
+
+    /**
+     * Updates the index and the current filter with a change made to the underlying model,
+     * returns the offset of the change within this model, -1 if the whole model should be
+     * refreshed or -2 if the change isn't visible through the filter
+     */
+    private int updateIndex(int type, int index) {
+        indexModification++;
+        if(index < 0) {
+            keys = null;
+            sortedKeys = null;
+            if(lastFilter != null) {
+                String f = lastFilter;
+                lastFilter = null;
+                filterImpl(f);
+            }
+            return -1;
+        }
+        if(keys == null) {
+            return toVisibleOffset(getUnderlyingOffset(index));
+        }
+        sortedKeys = null;
+
+        // the keys are shifted in place, a background filter reading them is discarded
+        // anyway since indexModification changed
+        if(type == DataChangedListener.REMOVED) {
+            int offset = getUnderlyingOffset(index);
+            System.arraycopy(keys, index + 1, keys, index, keyCount - index - 1);
+            keyCount--;
+            keys[keyCount] = null;
+            if(filter != null) {
+                for(int iter = filter.size() - 1 ; iter >= 0 ; iter--) {
+                    int v = filter.get(iter).intValue();
+                    if(v == index) {
+                        filter.remove(iter);
+                    } else if(v > index) {
+                        filter.set(iter, new Integer(v - 1));
+                    }
+                }
+            }
+            return toVisibleOffset(offset);
+        }
+        String key = getIndexKey(underlying.getItemAt(index));
+        if(type == DataChangedListener.ADDED) {
+            if(keyCount == keys.length) {
+                String[] k = new String[Math.max(16, keyCount * 2)];
+                System.arraycopy(keys, 0, k, 0, keyCount);
+                keys = k;
+            }
+            System.arraycopy(keys, index, keys, index + 1, keyCount - index);
+            keys[index] = key;
+            keyCount++;
+            if(sorted) {
+                // the filter isn't in model order so the insertion point is unknown
+                rebuildSorted();
+                return -1;
+            }
+            if(filter != null) {
+                int insert = filter.size();
+                for(int iter = filter.size() - 1 ; iter >= 0 ; iter--) {
+                    int v = filter.get(iter).intValue();
+                    if(v >= index) {
+                        filter.set(iter, new Integer(v + 1));
+                        insert = iter;
+                    }
+                }
+                if(lastFilter != null && matches(key, lastFilter, startsWithMode)) {
+                    filter.add(insert, new Integer(index));
+                }
+            }
+            return toVisibleOffset(getUnderlyingOffset(index));
+        }
+
+        // a changed element might enter or leave the filtered set
+        keys[index] = key;
+        if(sorted) {
+            rebuildSorted();
+            return -1;
+        }
+        int offset = getUnderlyingOffset(index);
+        if(filter != null && lastFilter != null) {
+            boolean m = matches(key, lastFilter, startsWithMode);
+            if(offset > -1 && !m) {
+                filter.remove(offset);
+                return -1;
+            }
+            if(offset < 0 && m) {
+                int insert = filter.size();
+                for(int iter = 0 ; iter < filter.size() ; iter++) {
+                    if(filter.get(iter).intValue() > index) {
+                        insert = iter;
+                        break;
+                    }
+                }
+                filter.add(insert, new Integer(index));
+                return -1;
+            }
+        }
+        return toVisibleOffset(offset);
+    }
+
+    /**
+     * Filters the whole model again and restores the sort order applied by {@link #sort(boolean)}
+     */
+    private void rebuildSorted() {
+        String f = lastFilter;
+        if(f == null) {
+            f = "";
+        }
+        lastFilter = null;
+        filterImpl(f);
+        sortImpl(sortAscending);
     }
     
     /**
@@ -317,12 +732,25 @@ public class FilterProxyListModel<T> implements ListModel<T>, DataChangedListene
      * {@inheritDoc}
      */
     public void dataChanged(int type, int index) {
+        if(indexed) {
+            int offset = updateIndex(type, index);
+            if(offset == -1) {
+                fireDataChanged(index < 0 ? type : DataChangedListener.CHANGED, -1);
+            } else if(offset > -1) {
+                fireDataChanged(type, offset);
+            }
+            return;
+        }
         if(index > -1) {
             index = getUnderlyingOffset(index);
             if(index < 0) {
                 return;
             }
         }
+        fireDataChanged(type, index);
+    }
+
+    private void fireDataChanged(int type, int index) {
         for(int iter = 0 ; iter < listeners.size() ; iter++) {
             listeners.get(iter).dataChanged(type, index);
         }
@@ -393,5 +821,6 @@ public class FilterProxyListModel<T> implements ListModel<T>, DataChangedListene
      */
     public void setStartsWithMode(boolean startsWithMode) {
         this.startsWithMode = startsWithMode;
+        lastFilter = null;
     }
 }
@@ -124,6 +124,12 @@ public class GenericListCellRenderer<T> implements ListCellRenderer<T>, CellRend
     private boolean fisheye;
     private boolean waitingForRegisterAnimation;
     private HashMap<String, EncodedImage> placeholders = new HashMap<String, EncodedImage>();
+
+    /**
+     * The icons locked for the fixed labels of the renderer, the lock moves with the icon if the
+     * icon of a fixed label is replaced
+     */
+    private HashMap<Label, Image> fixedIcons;
     
     private static URLImage.ImageAdapter defaultAdapter = URLImage.RESIZE_SCALE;
     private URLImage.ImageAdapter adapter = defaultAdapter;
@@ -271,7 +277,13 @@ public class GenericListCellRenderer<T> implements ListCellRenderer<T>, CellRend
             if(cmp instanceof Label) {
                 Label l = (Label)cmp;
                 if(l.getName().toLowerCase().endsWith("fixed") && l.getIcon() != null) {
-                    l.getIcon().lock();
+                    if(fixedIcons == null) {
+                        fixedIcons = new HashMap<Label, Image>();
+                    }
+                    if(!fixedIcons.containsKey(l)) {
+                        l.getIcon().lock();
+                        fixedIcons.put(l, l.getIcon());
+                    }
                 }
                 dest.add(cmp);
                 return;
@@ -497,6 +509,19 @@ public class GenericListCellRenderer<T> implements ListCellRenderer<T>, CellRend
         // hardcoded properties in the renderer. We still want them to go through the
         // process so renderer selected/unselected styles are applied
         if(cmp.getName().toLowerCase().endsWith("fixed")) {
+            if(fixedIcons != null && fixedIcons.containsKey(cmp)) {
+                Image locked = fixedIcons.get(cmp);
+                Image current = ((Label)cmp).getIcon();
+                if(locked != current) {
+                    if(locked != null) {
+                        locked.unlock();
+                    }
+                    if(current != null) {
+                        current.lock();
+                    }
+                    fixedIcons.put((Label)cmp, current);
+                }
+            }
             return;
         }
         if(cmp instanceof Label) {
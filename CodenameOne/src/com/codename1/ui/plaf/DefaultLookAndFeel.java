@@ -570,8 +570,15 @@ public class DefaultLookAndFeel extends LookAndFeel implements FocusListener {
         int rightPadding = ta.getStyle().getPadding(ta.isRTL(), Component.RIGHT);
         int topPadding = ta.getStyle().getPadding(false, Component.TOP);
         boolean shouldBreak = false;
+
+        // rows above the clip can't be visible, this matters for texts with many rows
+        int first = 0;
+        int rowHeight = ta.getRowsGap() + fontHeight;
+        if(rowHeight > 0 && oY > ta.getY() + topPadding) {
+            first = Math.max(0, (oY - ta.getY() - topPadding) / rowHeight - 1);
+        }
         
-        for (int i = 0; i < line; i++) {
+        for (int i = first; i < line; i++) {
             int x = ta.getX() + leftPadding;
             int y = ta.getY() +  topPadding +
                     (ta.getRowsGap() + fontHeight) * i;
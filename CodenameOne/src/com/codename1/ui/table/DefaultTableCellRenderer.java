@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *  
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Codename One through http://www.codenameone.com/ if you 
+ * need additional information or have any questions.
+ */
+package com.codename1.ui.table;
+
+import com.codename1.ui.Component;
+import com.codename1.ui.Label;
+
+/**
+ * The default renderer of a {@link VirtualTable}, paints the values of the cells as strings using the
+ * "TableCell" UIID and the column names using the "TableHeader" UIID which are the styles used by 
+ * {@link Table}.
+ *
+ * @author Shai Almog
+ */
+public class DefaultTableCellRenderer extends Label implements TableCellRenderer {
+    private final Label header = new Label();
+
+    /**
+     * Creates a new renderer
+     */
+    public DefaultTableCellRenderer() {
+        setUIID("TableCell");
+        setCellRenderer(true);
+        header.setUIID("TableHeader");
+        header.setCellRenderer(true);
+    }
+
+    /**
+     * Returns the label used to paint the header row
+     *
+     * @return the header label
+     */
+    public Label getHeaderLabel() {
+        return header;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Component getTableCellRendererComponent(VirtualTable table, Object value, int row, int column, boolean selected) {
+        if(row < 0) {
+            header.setText(toString(value));
+            return header;
+        }
+        setText(toString(value));
+        setFocus(selected);
+        return this;
+    }
+
+    /**
+     * Converts the value of a cell to the string shown in the cell
+     *
+     * @param value the value of the cell
+     * @return the string representation of the value
+     */
+    protected String toString(Object value) {
+        if(value == null) {
+            return "";
+        }
+        return value.toString();
+    }
+}
@@ -46,6 +46,9 @@ import com.codename1.ui.plaf.Style;
  * {@link com.codename1.ui.List} a {@code Table} doesn't feature a separate renderer
  * and instead allows developers to derive the class.
  * </p>
+ * <p>Since every cell is a component a large model results in a very large component hierarchy, 
+ * {@link com.codename1.ui.table.VirtualTable} renders the same model with a renderer and only touches
+ * the visible cells.</p>
  * 
  * <script src="https://gist.github.com/codenameone/6b106772ad1d58c50270.js"></script>
  * 
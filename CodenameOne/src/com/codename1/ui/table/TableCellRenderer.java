@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *  
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Codename One through http://www.codenameone.com/ if you 
+ * need additional information or have any questions.
+ */
+package com.codename1.ui.table;
+
+import com.codename1.ui.Component;
+
+/**
+ * Renders the cells of a {@link VirtualTable}, similarly to a list renderer the returned component is
+ * used as a "rubber stamp" and is painted at the location of every visible cell. Implementations should
+ * reuse the same component instances rather than create a new component per cell.
+ *
+ * @author Shai Almog
+ */
+public interface TableCellRenderer {
+    /**
+     * Returns a component configured to paint the given cell
+     *
+     * @param table the table being painted
+     * @param value the value of the cell, for the header row this is the name of the column
+     * @param row the row of the cell, -1 for the header row
+     * @param column the column of the cell
+     * @param selected true if the cell is the selected cell
+     * @return a component configured to represent the cell
+     */
+    public Component getTableCellRendererComponent(VirtualTable table, Object value, int row, int column, boolean selected);
+}
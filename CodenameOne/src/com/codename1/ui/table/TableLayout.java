@@ -29,6 +29,7 @@ import com.codename1.ui.Container;
 import com.codename1.ui.Display;
 import com.codename1.ui.geom.Dimension;
 import com.codename1.ui.plaf.Style;
+import java.util.HashMap;
 import java.util.Vector;
 
 /**
@@ -120,6 +121,17 @@ public class TableLayout extends Layout {
         private int valign = -1;
         int actualRow = -1;
         int actualColumn = -1;
+        
+        // the cached preferred size of the component including margins, -1 when it needs measuring
+        int measuredWidth = -1;
+        int measuredHeight = -1;
+        TableLayout owner;
+
+        private void sizeChanged() {
+            if(owner != null) {
+                owner.cellInvalidated(this);
+            }
+        }
 
         /**
          * {@inheritDoc}
@@ -181,6 +193,7 @@ public class TableLayout extends Layout {
          */
         public void setWidthPercentage(int width) {
             this.width = width;
+            sizeChanged();
         }
 
         /**
@@ -190,6 +203,7 @@ public class TableLayout extends Layout {
          */
         public Constraint widthPercentage(int width) {
             this.width = width;
+            sizeChanged();
             return this;
         }
 
@@ -200,6 +214,7 @@ public class TableLayout extends Layout {
          */
         public void setHeightPercentage(int height) {
             this.height = height;
+            sizeChanged();
         }
 
         /**
@@ -209,6 +224,7 @@ public class TableLayout extends Layout {
          */
         public Constraint heightPercentage(int height) {
             this.height = height;
+            sizeChanged();
             return this;
         }
 
@@ -331,6 +347,26 @@ public class TableLayout extends Layout {
     private boolean verticalSpanningExists;
 
     private int rows, columns;
+
+    /**
+     * Extents of the columns and rows derived from the measured cells, a column or row is only
+     * recomputed when one of its cells was added, removed or had its preferred size invalidated
+     */
+    private int[] columnPreferred;
+    private int[] columnPreferredFixed;
+    private int[] columnPercentage;
+    private byte[] columnFlags;
+    private boolean[] columnDirty;
+    private int[] rowPreferred;
+    private int[] rowPercentage;
+    private boolean[] rowDirty;
+    private final HashMap<Component, Constraint> constraintLookup = new HashMap<Component, Constraint>();
+    private boolean reflowing;
+
+    private static final byte COLUMN_HAS_CELLS = 1;
+    private static final byte COLUMN_HAS_FIXED_CELLS = 2;
+    private static final byte COLUMN_FILL = 4;
+    private static final byte COLUMN_LAST_PERCENTAGE = 8;
     private boolean growHorizontally;
     
     /**
@@ -343,6 +379,129 @@ public class TableLayout extends Layout {
     	this.rows = rows;
     	this.columns = columns;
         tablePositions = new Constraint[rows * columns];
+        columnPreferred = new int[columns];
+        columnPreferredFixed = new int[columns];
+        columnPercentage = new int[columns];
+        columnFlags = new byte[columns];
+        columnDirty = new boolean[columns];
+        rowPreferred = new int[rows];
+        rowPercentage = new int[rows];
+        rowDirty = new boolean[rows];
+        invalidateExtents();
+    }
+
+    /**
+     * Discards the cached sizes of all the cells, this is only necessary if the preferred size of a component
+     * changed without the component being invalidated
+     */
+    public void invalidate() {
+        int len = tablePositions.length;
+        for(int iter = 0 ; iter < len ; iter++) {
+            Constraint c = tablePositions[iter];
+            if(c != null) {
+                c.measuredWidth = -1;
+                c.measuredHeight = -1;
+            }
+        }
+        invalidateExtents();
+    }
+
+    private void invalidateExtents() {
+        for(int iter = 0 ; iter < columns ; iter++) {
+            columnDirty[iter] = true;
+        }
+        for(int iter = 0 ; iter < rows ; iter++) {
+            rowDirty[iter] = true;
+        }
+    }
+
+    void cellInvalidated(Constraint c) {
+        c.measuredWidth = -1;
+        c.measuredHeight = -1;
+        if(c.actualColumn > -1 && c.actualColumn < columns) {
+            columnDirty[c.actualColumn] = true;
+        }
+        if(c.actualRow > -1 && c.actualRow < rows) {
+            rowDirty[c.actualRow] = true;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void componentInvalidated(Container parent, Component comp) {
+        Constraint c = constraintLookup.get(comp);
+        if(c != null) {
+            cellInvalidated(c);
+        }
+    }
+
+    private static boolean isSpanMarker(Constraint c) {
+        return c == H_SPAN_CONSTRAINT || c == V_SPAN_CONSTRAINT || c == VH_SPAN_CONSTRAINT;
+    }
+
+    private void measure(Constraint c) {
+        if(c.measuredWidth < 0) {
+            Style s = c.parent.getStyle();
+            Dimension d = c.parent.getPreferredSize();
+            c.measuredWidth = d.getWidth() + s.getMargin(false, Component.LEFT) + s.getMargin(false, Component.RIGHT);
+            c.measuredHeight = d.getHeight() + s.getMargin(false, Component.TOP) + s.getMargin(false, Component.BOTTOM);
+        }
+    }
+
+    private void updateColumn(int column) {
+        int preferred = 0;
+        int preferredFixed = 0;
+        int percentage = 0;
+        byte flags = 0;
+        for(int iter = 0 ; iter < rows ; iter++) {
+            Constraint c = tablePositions[iter * columns + column];
+            if(c == null || isSpanMarker(c) || c.spanHorizontal > 1) {
+                continue;
+            }
+            flags |= COLUMN_HAS_CELLS;
+            if(c.width > 0) {
+                percentage = Math.max(percentage, c.width);
+                flags |= COLUMN_LAST_PERCENTAGE;
+            } else {
+                flags &= ~COLUMN_LAST_PERCENTAGE;
+                flags |= COLUMN_HAS_FIXED_CELLS;
+                if(c.width == -2) {
+                    flags |= COLUMN_FILL;
+                    continue;
+                }
+            }
+            measure(c);
+            preferred = Math.max(preferred, c.measuredWidth);
+            if(c.width <= 0) {
+                preferredFixed = Math.max(preferredFixed, c.measuredWidth);
+            }
+        }
+        columnPreferred[column] = preferred;
+        columnPreferredFixed[column] = preferredFixed;
+        columnPercentage[column] = percentage;
+        columnFlags[column] = flags;
+        columnDirty[column] = false;
+    }
+
+    private void updateRow(int row) {
+        int preferred = 0;
+        int percentage = 0;
+        for(int iter = 0 ; iter < columns ; iter++) {
+            Constraint c = tablePositions[row * columns + iter];
+            if(c == null || isSpanMarker(c) || c.spanVertical > 1) {
+                continue;
+            }
+            if(c.height > 0) {
+                percentage = Math.max(percentage, c.height);
+            } else {
+                measure(c);
+                preferred = Math.max(preferred, c.measuredHeight);
+            }
+        }
+        rowPreferred[row] = preferred;
+        rowPercentage[row] = percentage;
+        rowDirty[row] = false;
     }
 
     /**
@@ -596,66 +755,43 @@ public class TableLayout extends Layout {
     }
 
     private int getColumnWidthPixels(int column, int percentageOf, int available) {
-        int current = 0;
         if(modifableColumnSize == null) {
             modifableColumnSize = new boolean[columns];
         }
-        
-        int availableSpaceColumn = -1;
-
-        for(int iter = 0 ; iter < rows ; iter++) {
-            Constraint c = tablePositions[iter * columns + column];
-
-            if(c == null || c == H_SPAN_CONSTRAINT || c == V_SPAN_CONSTRAINT || c == VH_SPAN_CONSTRAINT || c.spanHorizontal > 1) {
-                continue;
-            }
-
-            // width in percentage of the parent container
-            if(c.width > 0 && available > -1) {
-                current = Math.max(current, c.width * percentageOf / 100);
-                modifableColumnSize[column] = false;
-            } else {
-                // special case, width -2 gives the column the rest of the available space
-                if(c.width == -2 || (growHorizontally && column == columns - 1)) {
-                    if(available < 0) {
-                        return Display.getInstance().getDisplayWidth();
-                    }
-                    return available;
-                }
-                Style s = c.parent.getStyle();
-                current = Math.max(current, c.parent.getPreferredW()  + s.getMargin(false, Component.LEFT) + s.getMargin(false, Component.RIGHT));
-                modifableColumnSize[column] = true;
-            }
-            if(available > -1) {
-                current = Math.min(available, current);
+        if(columnDirty[column]) {
+            updateColumn(column);
+        }
+        byte flags = columnFlags[column];
+        if((flags & COLUMN_HAS_CELLS) == 0) {
+            return 0;
+        }
+        boolean grow = growHorizontally && column == columns - 1;
+
+        // percentages only apply when the available space is known, otherwise those cells
+        // are measured like the rest
+        if(available > -1) {
+            // special case, width -2 gives the column the rest of the available space
+            if((flags & COLUMN_FILL) != 0 || (grow && (flags & COLUMN_HAS_FIXED_CELLS) != 0)) {
+                return available;
             }
+            modifableColumnSize[column] = (flags & COLUMN_LAST_PERCENTAGE) == 0;
+            int current = Math.max(columnPercentage[column] * percentageOf / 100, columnPreferredFixed[column]);
+            return Math.min(available, current);
         }
-        if(availableSpaceColumn > -1) {
-            modifableColumnSize[availableSpaceColumn] = false;
-            return percentageOf - current;
+        if((flags & COLUMN_FILL) != 0 || grow) {
+            return Display.getInstance().getDisplayWidth();
         }
-        return current;
+        modifableColumnSize[column] = true;
+        return columnPreferred[column];
     }
 
     private int getRowHeightPixels(int row, int percentageOf, int available) {
-        int current = 0;
-        for(int iter = 0 ; iter < columns ; iter++) {
-            Constraint c = tablePositions[row * columns + iter];
-
-            if(c == null || c == H_SPAN_CONSTRAINT || c == V_SPAN_CONSTRAINT || c == VH_SPAN_CONSTRAINT || c.spanVertical > 1) {
-                continue;
-            }
-
-            // height in percentage of the parent container
-            if(c.height > 0) {
-                current = Math.max(current, c.height * percentageOf / 100);
-            } else {
-                Style s = c.parent.getStyle();
-                current = Math.max(current, c.parent.getPreferredH() + s.getMargin(false, Component.TOP) + s.getMargin(false, Component.BOTTOM));
-            }
-            if(available > -1) {
-                current = Math.min(available, current);
-            }
+        if(rowDirty[row]) {
+            updateRow(row);
+        }
+        int current = Math.max(rowPercentage[row] * percentageOf / 100, rowPreferred[row]);
+        if(available > -1) {
+            current = Math.min(available, current);
         }
         return current;
     }
@@ -700,14 +836,16 @@ public class TableLayout extends Layout {
     }
 
     private void shiftCell(int row, int column) {
+        // cells move to different rows and columns
+        invalidateExtents();
         Constraint currentConstraint = tablePositions[row * columns + column];
         for(int iter = column + 1 ; iter < columns ; iter++) {
             if(tablePositions[row * columns + iter] != null) {
                 Constraint tmp = tablePositions[row * columns + iter];
-                tablePositions[row * columns + iter] = currentConstraint;
+                placeAt(currentConstraint, row, iter);
                 currentConstraint = tmp;
             } else {
-                tablePositions[row * columns + iter] = currentConstraint;
+                placeAt(currentConstraint, row, iter);
                 return;
             }
         }
@@ -715,10 +853,10 @@ public class TableLayout extends Layout {
             for(int colIter = 0 ; colIter < getColumns() ; colIter++) {
                 if(tablePositions[rowIter * columns + colIter] != null) {
                     Constraint tmp = tablePositions[rowIter * columns + colIter];
-                    tablePositions[rowIter * columns + colIter] = currentConstraint;
+                    placeAt(currentConstraint, rowIter, colIter);
                     currentConstraint = tmp;
                 } else {
-                    tablePositions[rowIter * columns + colIter] = currentConstraint;
+                    placeAt(currentConstraint, rowIter, colIter);
                     return;
                 }
             }
@@ -728,11 +866,29 @@ public class TableLayout extends Layout {
         addRow();
     }
 
+    private void placeAt(Constraint c, int row, int column) {
+        tablePositions[row * columns + column] = c;
+        if(!isSpanMarker(c)) {
+            c.actualRow = row;
+            c.actualColumn = column;
+        }
+    }
+
     private void addRow() {
         rows++;
         Constraint[] newArr = new Constraint[rows * columns];
         System.arraycopy(tablePositions, 0, newArr, 0, tablePositions.length);
         tablePositions = newArr;
+        int[] p = new int[rows];
+        System.arraycopy(rowPreferred, 0, p, 0, rows - 1);
+        rowPreferred = p;
+        p = new int[rows];
+        System.arraycopy(rowPercentage, 0, p, 0, rows - 1);
+        rowPercentage = p;
+        boolean[] d = new boolean[rows];
+        System.arraycopy(rowDirty, 0, d, 0, rows - 1);
+        d[rows - 1] = true;
+        rowDirty = d;
     }
 
     /**
@@ -767,6 +923,12 @@ public class TableLayout extends Layout {
             con.actualColumn = currentColumn;
         }
         con.parent = comp;
+        con.owner = this;
+        constraintLookup.put(comp, con);
+        if(!reflowing) {
+            con.measuredWidth = -1;
+            con.measuredHeight = -1;
+        }
         if(con.actualRow >= rows) {
             // increase the table row count implicitly
             addRow();
@@ -781,6 +943,8 @@ public class TableLayout extends Layout {
             tablePositions[con.actualRow * columns + con.actualColumn] = con;
         }
         tablePositions[con.actualRow * columns + con.actualColumn] = con;
+        columnDirty[con.actualColumn] = true;
+        rowDirty[con.actualRow] = true;
         if(con.spanHorizontal > 1 || con.spanVertical > 1) {
             for(int sh = 0 ; sh < con.spanHorizontal ; sh++) {
                 for(int sv = 0 ; sv < con.spanVertical ; sv++) {
@@ -887,7 +1051,13 @@ public class TableLayout extends Layout {
      * {@inheritDoc}
      */
     public void removeLayoutComponent(Component comp) {
-        // reflow the table
+        Constraint removed = constraintLookup.remove(comp);
+        if(removed != null) {
+            removed.owner = null;
+        }
+        
+        // reflow the table, the remaining cells keep their measurements
+        invalidateExtents();
         Vector comps = new Vector();
         for(int r = 0 ; r < rows ; r++) {
             for(int c = 0 ; c < columns ; c++) {
@@ -911,7 +1081,12 @@ public class TableLayout extends Layout {
             }
             Component c = con.parent;
             con.parent = null;
-            addLayoutComponent(con, c, c.getParent());
+            reflowing = true;
+            try {
+                addLayoutComponent(con, c, c.getParent());
+            } finally {
+                reflowing = false;
+            }
         }
     }
 
@@ -919,14 +1094,7 @@ public class TableLayout extends Layout {
      * {@inheritDoc}
      */
     public Object getComponentConstraint(Component comp) {
-        for(int r = 0 ; r < rows ; r++) {
-            for(int c = 0 ; c < columns ; c++) {
-                if(tablePositions[r * columns + c] != null && tablePositions[r * columns + c].parent == comp) {
-                    return tablePositions[r * columns + c];
-                }
-            }
-        }
-        return null;
+        return constraintLookup.get(comp);
     }
 
     /**
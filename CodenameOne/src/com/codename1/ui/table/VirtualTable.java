@@ -0,0 +1,797 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *  
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Codename One through http://www.codenameone.com/ if you 
+ * need additional information or have any questions.
+ */
+package com.codename1.ui.table;
+
+import com.codename1.ui.Component;
+import com.codename1.ui.Container;
+import com.codename1.ui.Display;
+import com.codename1.ui.Graphics;
+import com.codename1.ui.TextArea;
+import com.codename1.ui.TextField;
+import com.codename1.ui.events.ActionEvent;
+import com.codename1.ui.events.ActionListener;
+import com.codename1.ui.events.DataChangedListener;
+import com.codename1.ui.geom.Dimension;
+import com.codename1.ui.layouts.Layout;
+import com.codename1.ui.plaf.Style;
+import com.codename1.ui.util.EventDispatcher;
+
+/**
+ * <p>A table that paints its cells with a {@link TableCellRenderer} instead of creating a component for
+ * every cell. This works like a {@link com.codename1.ui.List}, only the rows and columns that are
+ * currently visible are touched when painting so the cost of the table doesn't grow with the size of
+ * the {@link TableModel}. Use it instead of {@link Table} for large read mostly data sets such as
+ * reports.</p>
+ * <p>All rows share the same height and column widths are determined by measuring the header and a sample
+ * of the rows, see {@link #setSampleRowCount(int)}, or explicitly with {@link #setColumnWidth(int, int)}.
+ * The header row and optionally the first column stay in place while the table scrolls. Editable cells
+ * are edited with a single floating editor component which is placed over the cell and committed into the
+ * model when editing completes.</p>
+ * <p>Unlike {@link Table} cells can't span rows or columns.</p>
+ *
+ * @author Shai Almog
+ */
+public class VirtualTable extends Container {
+    private TableModel model;
+    private TableCellRenderer renderer = new DefaultTableCellRenderer();
+    private final Listener listener = new Listener();
+    private final EventDispatcher actionListeners = new EventDispatcher();
+    private boolean includeHeader = true;
+    private boolean fixedFirstColumn;
+    private boolean drawGrid = true;
+    private int sampleRowCount = 50;
+    private int explicitRowHeight = -1;
+    private int[] explicitColumnWidths;
+
+    private boolean metricsValid;
+    private int rowHeight;
+    private int headerHeight;
+    private int[] columnPositions = new int[1];
+    private int lastRowCount;
+
+    private int selectedRow = -1;
+    private int selectedColumn = -1;
+    private Component editor;
+    private int editingRow = -1;
+    private int editingColumn = -1;
+
+    /**
+     * Creates a new table for the given model
+     *
+     * @param model the model underlying this table
+     */
+    public VirtualTable(TableModel model) {
+        setLayout(new EditorLayout());
+        setUIID("Table");
+        setFocusable(true);
+        setScrollableX(true);
+        setScrollableY(true);
+        this.model = model;
+        lastRowCount = model.getRowCount();
+    }
+
+    /**
+     * Replaces the underlying model
+     *
+     * @param model the new model
+     */
+    public void setModel(TableModel model) {
+        stopEditing(false);
+        if(isInitialized()) {
+            this.model.removeDataChangeListener(listener);
+            model.addDataChangeListener(listener);
+        }
+        this.model = model;
+        lastRowCount = model.getRowCount();
+        selectedRow = -1;
+        selectedColumn = -1;
+        invalidateMetrics();
+    }
+
+    /**
+     * Returns the model instance
+     *
+     * @return the model instance
+     */
+    public TableModel getModel() {
+        return model;
+    }
+
+    /**
+     * Sets the renderer used to paint the cells
+     *
+     * @param renderer the renderer
+     */
+    public void setRenderer(TableCellRenderer renderer) {
+        this.renderer = renderer;
+        invalidateMetrics();
+    }
+
+    /**
+     * Returns the renderer used to paint the cells
+     *
+     * @return the renderer
+     */
+    public TableCellRenderer getRenderer() {
+        return renderer;
+    }
+
+    /**
+     * Indicates whether the table should render a header row with the names of the columns
+     *
+     * @param includeHeader true to show the header
+     */
+    public void setIncludeHeader(boolean includeHeader) {
+        this.includeHeader = includeHeader;
+        invalidateMetrics();
+    }
+
+    /**
+     * Indicates whether the table renders a header row with the names of the columns
+     *
+     * @return true if the header is shown
+     */
+    public boolean isIncludeHeader() {
+        return includeHeader;
+    }
+
+    /**
+     * Indicates whether the first column stays in place when the table is scrolled horizontally
+     *
+     * @param fixedFirstColumn true to keep the first column visible
+     */
+    public void setFixedFirstColumn(boolean fixedFirstColumn) {
+        this.fixedFirstColumn = fixedFirstColumn;
+        repaint();
+    }
+
+    /**
+     * Indicates whether the first column stays in place when the table is scrolled horizontally
+     *
+     * @return true if the first column is fixed
+     */
+    public boolean isFixedFirstColumn() {
+        return fixedFirstColumn;
+    }
+
+    /**
+     * Indicates whether lines are drawn between the cells using the foreground color of the table
+     *
+     * @param drawGrid true to draw the grid
+     */
+    public void setDrawGrid(boolean drawGrid) {
+        this.drawGrid = drawGrid;
+        repaint();
+    }
+
+    /**
+     * Indicates whether lines are drawn between the cells
+     *
+     * @return true if the grid is drawn
+     */
+    public boolean isDrawGrid() {
+        return drawGrid;
+    }
+
+    /**
+     * Sets the number of rows measured to determine the widths of the columns and the height of the rows,
+     * the sampled rows are spread evenly across the model
+     *
+     * @param sampleRowCount the number of rows to measure, defaults to 50
+     */
+    public void setSampleRowCount(int sampleRowCount) {
+        this.sampleRowCount = Math.max(1, sampleRowCount);
+        invalidateMetrics();
+    }
+
+    /**
+     * Returns the number of rows measured to determine the widths of the columns
+     *
+     * @return the number of rows to measure
+     */
+    public int getSampleRowCount() {
+        return sampleRowCount;
+    }
+
+    /**
+     * Sets an explicit width for a column instead of measuring it
+     *
+     * @param column the column
+     * @param width the width in pixels or -1 to measure the column
+     */
+    public void setColumnWidth(int column, int width) {
+        int cols = model.getColumnCount();
+        if(explicitColumnWidths == null || explicitColumnWidths.length < cols) {
+            int[] w = new int[cols];
+            for(int iter = 0 ; iter < cols ; iter++) {
+                w[iter] = -1;
+            }
+            if(explicitColumnWidths != null) {
+                System.arraycopy(explicitColumnWidths, 0, w, 0, explicitColumnWidths.length);
+            }
+            explicitColumnWidths = w;
+        }
+        explicitColumnWidths[column] = width;
+        invalidateMetrics();
+    }
+
+    /**
+     * Returns the width of the given column
+     *
+     * @param column the column
+     * @return the width in pixels
+     */
+    public int getColumnWidth(int column) {
+        updateMetrics();
+        return columnPositions[column + 1] - columnPositions[column];
+    }
+
+    /**
+     * Sets an explicit height for the rows instead of measuring it
+     *
+     * @param rowHeight the height in pixels or -1 to measure the rows
+     */
+    public void setRowHeight(int rowHeight) {
+        explicitRowHeight = rowHeight;
+        invalidateMetrics();
+    }
+
+    /**
+     * Returns the height of a row
+     *
+     * @return the height in pixels
+     */
+    public int getRowHeight() {
+        updateMetrics();
+        return rowHeight;
+    }
+
+    /**
+     * Returns the selected row
+     *
+     * @return the selected row or -1
+     */
+    public int getSelectedRow() {
+        return selectedRow;
+    }
+
+    /**
+     * Returns the selected column
+     *
+     * @return the selected column or -1
+     */
+    public int getSelectedColumn() {
+        return selectedColumn;
+    }
+
+    /**
+     * Selects the given cell and scrolls it into view
+     *
+     * @param row the row
+     * @param column the column
+     */
+    public void setSelectedCell(int row, int column) {
+        selectedRow = row;
+        selectedColumn = column;
+        if(row > -1 && column > -1 && isInitialized()) {
+            updateMetrics();
+            scrollRectToVisible(columnPositions[column], headerHeight + row * rowHeight,
+                    columnPositions[column + 1] - columnPositions[column], rowHeight, this);
+        }
+        repaint();
+    }
+
+    /**
+     * Binds an action listener which is invoked when a cell is clicked or when fire is pressed on the selected
+     * cell, the selection indicates the cell
+     *
+     * @param l the listener
+     */
+    public void addActionListener(ActionListener l) {
+        actionListeners.addListener(l);
+    }
+
+    /**
+     * Removes an action listener
+     *
+     * @param l the listener
+     */
+    public void removeActionListener(ActionListener l) {
+        actionListeners.removeListener(l);
+    }
+
+    /**
+     * Discards the measured column widths and row height so they are measured again on the next layout
+     */
+    public void invalidateMetrics() {
+        metricsValid = false;
+        setShouldCalcPreferredSize(true);
+        if(isInitialized()) {
+            revalidate();
+        }
+    }
+
+    private void updateMetrics() {
+        if(metricsValid) {
+            return;
+        }
+        metricsValid = true;
+        int cols = model.getColumnCount();
+        int rows = model.getRowCount();
+        int[] widths = new int[cols];
+        int h = 0;
+        headerHeight = 0;
+        if(includeHeader) {
+            for(int c = 0 ; c < cols ; c++) {
+                Dimension d = measure(model.getColumnName(c), -1, c);
+                widths[c] = d.getWidth();
+                headerHeight = Math.max(headerHeight, d.getHeight());
+            }
+        }
+        int samples = Math.min(rows, sampleRowCount);
+        for(int iter = 0 ; iter < samples ; iter++) {
+            int r = (int)(((long)iter) * rows / samples);
+            for(int c = 0 ; c < cols ; c++) {
+                Dimension d = measure(model.getValueAt(r, c), r, c);
+                widths[c] = Math.max(widths[c], d.getWidth());
+                h = Math.max(h, d.getHeight());
+            }
+        }
+        if(explicitRowHeight > 0) {
+            h = explicitRowHeight;
+        }
+        rowHeight = Math.max(1, h);
+        columnPositions = new int[cols + 1];
+        for(int c = 0 ; c < cols ; c++) {
+            int w = widths[c];
+            if(explicitColumnWidths != null && c < explicitColumnWidths.length && explicitColumnWidths[c] > -1) {
+                w = explicitColumnWidths[c];
+            }
+            columnPositions[c + 1] = columnPositions[c] + w;
+        }
+    }
+
+    private Dimension measure(Object value, int row, int column) {
+        Component cmp = renderer.getTableCellRendererComponent(this, value, row, column, false);
+        cmp.setShouldCalcPreferredSize(true);
+        Dimension d = cmp.getPreferredSize();
+        Style s = cmp.getStyle();
+        return new Dimension(d.getWidth() + s.getMargin(false, LEFT) + s.getMargin(false, RIGHT),
+                d.getHeight() + s.getMargin(false, TOP) + s.getMargin(false, BOTTOM));
+    }
+
+    private int columnAt(int x) {
+        int cols = columnPositions.length - 1;
+        if(x < 0 || cols < 1) {
+            return -1;
+        }
+        int low = 0;
+        int high = cols - 1;
+        while(low < high) {
+            int mid = (low + high + 1) >> 1;
+            if(columnPositions[mid] <= x) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if(x >= columnPositions[cols]) {
+            return -1;
+        }
+        return low;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void paint(Graphics g) {
+        updateMetrics();
+        int cols = columnPositions.length - 1;
+        int rows = model.getRowCount();
+        Style s = getStyle();
+        int left = getX() + s.getPadding(isRTL(), LEFT);
+        int top = getY() + s.getPadding(false, TOP);
+        int viewWidth = getWidth() - s.getPadding(isRTL(), LEFT) - s.getPadding(isRTL(), RIGHT);
+        int viewHeight = getHeight() - s.getPadding(false, TOP) - s.getPadding(false, BOTTOM);
+        int sx = getScrollX();
+        int sy = getScrollY();
+        int fixedWidth = 0;
+        if(fixedFirstColumn && cols > 0) {
+            fixedWidth = columnPositions[1];
+        }
+
+        int firstRow = Math.max(0, sy / rowHeight);
+        int lastRow = Math.min(rows - 1, (sy + viewHeight) / rowHeight);
+        int firstCol = Math.max(0, columnAt(sx + fixedWidth));
+        int lastCol = columnAt(sx + viewWidth);
+        if(lastCol < 0) {
+            lastCol = cols - 1;
+        }
+        if(fixedFirstColumn) {
+            firstCol = Math.max(1, firstCol);
+        }
+
+        int clipX = g.getClipX();
+        int clipY = g.getClipY();
+        int clipW = g.getClipWidth();
+        int clipH = g.getClipHeight();
+
+        // body cells, clipped so they slide under the fixed header and column
+        g.clipRect(left + sx + fixedWidth, top + sy + headerHeight, viewWidth - fixedWidth, viewHeight - headerHeight);
+        for(int r = firstRow ; r <= lastRow ; r++) {
+            int y = top + headerHeight + r * rowHeight;
+            for(int c = firstCol ; c <= lastCol ; c++) {
+                paintCell(g, r, c, left + columnPositions[c], y, columnPositions[c + 1] - columnPositions[c], rowHeight);
+            }
+        }
+        if(drawGrid) {
+            paintGrid(g, left, top + headerHeight, firstRow, lastRow, firstCol, lastCol);
+        }
+        g.setClip(clipX, clipY, clipW, clipH);
+
+        if(fixedWidth > 0) {
+            g.clipRect(left + sx, top + sy + headerHeight, fixedWidth, viewHeight - headerHeight);
+            for(int r = firstRow ; r <= lastRow ; r++) {
+                paintCell(g, r, 0, left + sx, top + headerHeight + r * rowHeight, fixedWidth, rowHeight);
+            }
+            if(drawGrid) {
+                paintGrid(g, left + sx, top + headerHeight, firstRow, lastRow, 0, 0);
+            }
+            g.setClip(clipX, clipY, clipW, clipH);
+        }
+
+        if(headerHeight > 0) {
+            int y = top + sy;
+            g.clipRect(left + sx + fixedWidth, y, viewWidth - fixedWidth, headerHeight);
+            for(int c = firstCol ; c <= lastCol ; c++) {
+                paintCell(g, -1, c, left + columnPositions[c], y, columnPositions[c + 1] - columnPositions[c], headerHeight);
+            }
+            g.setClip(clipX, clipY, clipW, clipH);
+            if(fixedWidth > 0) {
+                g.clipRect(left + sx, y, fixedWidth, headerHeight);
+                paintCell(g, -1, 0, left + sx, y, fixedWidth, headerHeight);
+                g.setClip(clipX, clipY, clipW, clipH);
+            }
+        }
+
+        // the floating editor
+        super.paint(g);
+    }
+
+    private void paintCell(Graphics g, int row, int column, int x, int y, int w, int h) {
+        Object value;
+        if(row < 0) {
+            value = model.getColumnName(column);
+        } else {
+            value = model.getValueAt(row, column);
+        }
+        Component cmp = renderer.getTableCellRendererComponent(this, value, row, column,
+                row == selectedRow && column == selectedColumn);
+        Style s = cmp.getStyle();
+        int l = s.getMargin(isRTL(), LEFT);
+        int t = s.getMargin(false, TOP);
+        cmp.setX(x + l);
+        cmp.setY(y + t);
+        cmp.setWidth(w - l - s.getMargin(isRTL(), RIGHT));
+        cmp.setHeight(h - t - s.getMargin(false, BOTTOM));
+        cmp.paintComponent(g, false);
+    }
+
+    private void paintGrid(Graphics g, int x, int y, int firstRow, int lastRow, int firstCol, int lastCol) {
+        g.setColor(getStyle().getFgColor());
+        int x1 = x + columnPositions[firstCol];
+        int x2 = x + columnPositions[lastCol + 1];
+        int y1 = y + firstRow * rowHeight;
+        int y2 = y + (lastRow + 1) * rowHeight;
+        for(int r = firstRow ; r <= lastRow + 1 ; r++) {
+            int ry = y + r * rowHeight;
+            g.drawLine(x1, ry, x2, ry);
+        }
+        for(int c = firstCol ; c <= lastCol + 1 ; c++) {
+            int cx = x + columnPositions[c];
+            g.drawLine(cx, y1, cx, y2);
+        }
+    }
+
+    /**
+     * Returns the row at the given absolute screen coordinate
+     *
+     * @param y the absolute y coordinate
+     * @return the row, -1 for the header or -2 if there is no row at the position
+     */
+    public int getRowAt(int y) {
+        updateMetrics();
+        int ry = y - getAbsoluteY() - getStyle().getPadding(false, TOP);
+        if(ry < 0) {
+            return -2;
+        }
+        if(ry < headerHeight) {
+            return -1;
+        }
+        int r = (ry + getScrollY() - headerHeight) / rowHeight;
+        if(r >= model.getRowCount()) {
+            return -2;
+        }
+        return r;
+    }
+
+    /**
+     * Returns the column at the given absolute screen coordinate
+     *
+     * @param x the absolute x coordinate
+     * @return the column or -1 if there is no column at the position
+     */
+    public int getColumnAt(int x) {
+        updateMetrics();
+        int rx = x - getAbsoluteX() - getStyle().getPadding(isRTL(), LEFT);
+        if(rx < 0) {
+            return -1;
+        }
+        if(fixedFirstColumn && columnPositions.length > 1 && rx < columnPositions[1]) {
+            return 0;
+        }
+        return columnAt(rx + getScrollX());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void pointerReleased(int x, int y) {
+        boolean drag = isDragActivated();
+        super.pointerReleased(x, y);
+        if(drag || !isEnabled()) {
+            return;
+        }
+        int row = getRowAt(y);
+        int column = getColumnAt(x);
+        if(row < 0 || column < 0) {
+            return;
+        }
+        cellClicked(row, column);
+    }
+
+    private void cellClicked(int row, int column) {
+        setSelectedCell(row, column);
+        if(model.isCellEditable(row, column)) {
+            startEditing(row, column);
+        }
+        actionListeners.fireActionEvent(new ActionEvent(this, ActionEvent.Type.Other));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void keyReleased(int keyCode) {
+        int game = Display.getInstance().getGameAction(keyCode);
+        if(game == Display.GAME_FIRE && selectedRow > -1 && selectedColumn > -1) {
+            cellClicked(selectedRow, selectedColumn);
+            return;
+        }
+        super.keyReleased(keyCode);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void keyPressed(int keyCode) {
+        int game = Display.getInstance().getGameAction(keyCode);
+        int row = Math.max(0, selectedRow);
+        int column = Math.max(0, selectedColumn);
+        switch(game) {
+            case Display.GAME_UP:
+                row--;
+                break;
+            case Display.GAME_DOWN:
+                row++;
+                break;
+            case Display.GAME_LEFT:
+                column--;
+                break;
+            case Display.GAME_RIGHT:
+                column++;
+                break;
+            default:
+                super.keyPressed(keyCode);
+                return;
+        }
+        if(selectedRow < 0 || selectedColumn < 0) {
+            row = 0;
+            column = 0;
+        }
+        if(row >= 0 && row < model.getRowCount() && column >= 0 && column < model.getColumnCount()) {
+            setSelectedCell(row, column);
+        }
+    }
+
+    /**
+     * Places the floating editor over the given cell, the value of the editor is committed to the model
+     * when the editor fires an action event
+     *
+     * @param row the row of the cell
+     * @param column the column of the cell
+     */
+    public void startEditing(int row, int column) {
+        stopEditing(true);
+        Component e = createEditor(model.getValueAt(row, column), row, column);
+        if(e == null) {
+            return;
+        }
+        editor = e;
+        editingRow = row;
+        editingColumn = column;
+        addComponent(e);
+        revalidate();
+        if(e instanceof TextArea) {
+            ((TextArea)e).startEditingAsync();
+        } else {
+            e.requestFocus();
+        }
+    }
+
+    /**
+     * Removes the floating editor
+     *
+     * @param commit true to commit the value of the editor to the model
+     */
+    public void stopEditing(boolean commit) {
+        if(editor == null) {
+            return;
+        }
+        Component e = editor;
+        int row = editingRow;
+        int column = editingColumn;
+        editor = null;
+        editingRow = -1;
+        editingColumn = -1;
+        removeComponent(e);
+        if(commit) {
+            Object value = getEditorValue(e);
+            if(row < model.getRowCount() && column < model.getColumnCount()) {
+                model.setValueAt(row, column, value);
+            }
+        }
+        repaint();
+    }
+
+    /**
+     * Returns true while a cell is edited
+     *
+     * @return true if the floating editor is shown
+     */
+    public boolean isEditing() {
+        return editor != null;
+    }
+
+    /**
+     * Creates the floating editor for the given cell, subclasses can return a different component in which
+     * case they should override {@link #getEditorValue(com.codename1.ui.Component)} as well
+     *
+     * @param value the current value of the cell
+     * @param row the row of the cell
+     * @param column the column of the cell
+     * @return the editor component or null to prevent editing
+     */
+    protected Component createEditor(Object value, int row, int column) {
+        final TextField t = new TextField(value == null ? "" : value.toString(), -1);
+        t.setLeftAndRightEditingTrigger(false);
+        t.setUIID("TableCell");
+        t.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent evt) {
+                if(editor == t) {
+                    stopEditing(true);
+                }
+            }
+        });
+        return t;
+    }
+
+    /**
+     * Returns the value of the editor that should be committed to the model
+     *
+     * @param editor the editor created by {@link #createEditor(java.lang.Object, int, int)}
+     * @return the value of the editor
+     */
+    protected Object getEditorValue(Component editor) {
+        if(editor instanceof TextArea) {
+            return ((TextArea)editor).getText();
+        }
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void setScrollX(int scrollX) {
+        super.setScrollX(scrollX);
+        if(editor != null && fixedFirstColumn && editingColumn == 0) {
+            positionEditor();
+        }
+    }
+
+    private void positionEditor() {
+        updateMetrics();
+        Style s = getStyle();
+        int x = columnPositions[editingColumn];
+        if(fixedFirstColumn && editingColumn == 0) {
+            x = getScrollX();
+        }
+        editor.setX(s.getPadding(isRTL(), LEFT) + x);
+        editor.setY(s.getPadding(false, TOP) + headerHeight + editingRow * rowHeight);
+        editor.setWidth(columnPositions[editingColumn + 1] - columnPositions[editingColumn]);
+        editor.setHeight(rowHeight);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void initComponent() {
+        super.initComponent();
+        model.addDataChangeListener(listener);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void deinitialize() {
+        model.removeDataChangeListener(listener);
+        super.deinitialize();
+    }
+
+    class Listener implements DataChangedListener {
+        public void dataChanged(int row, int column) {
+            int rows = model.getRowCount();
+            if(row < 0 || column >= columnPositions.length - 1) {
+                // column names or structure changed
+                invalidateMetrics();
+            } else if(rows != lastRowCount) {
+                setShouldCalcPreferredSize(true);
+                revalidate();
+            } else {
+                repaint();
+            }
+            lastRowCount = rows;
+            if(selectedRow >= rows) {
+                selectedRow = -1;
+                selectedColumn = -1;
+            }
+            if(editingRow >= rows) {
+                stopEditing(false);
+            }
+        }
+    }
+
+    class EditorLayout extends Layout {
+        public void layoutContainer(Container parent) {
+            if(editor != null) {
+                positionEditor();
+            }
+        }
+
+        public Dimension getPreferredSize(Container parent) {
+            updateMetrics();
+            Style s = getStyle();
+            return new Dimension(columnPositions[columnPositions.length - 1] + s.getPadding(false, LEFT) + s.getPadding(false, RIGHT),
+                    headerHeight + model.getRowCount() * rowHeight + s.getPadding(false, TOP) + s.getPadding(false, BOTTOM));
+        }
+    }
+}
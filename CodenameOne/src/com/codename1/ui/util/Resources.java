@@ -797,13 +797,23 @@ public class Resources {
      * @return newly created input stream that allows reading the ui of the resource
      */
     InputStream getUi(String id) {
-        byte[] d = (byte[])resources.get(id);
+        byte[] d = getUiData(id);
         if(d == null) {
             return null;
         }
         return new ByteArrayInputStream(d);
     }
 
+    /**
+     * Returns the raw data of the ui resource from the file
+     *
+     * @param id name of the ui resource
+     * @return the data of the ui resource or null if it doesn't exist
+     */
+    byte[] getUiData(String id) {
+        return (byte[])resources.get(id);
+    }
+
     /**
      * Returns a hashmap containing localized String key/value pairs for the given locale name
      * 
@@ -25,6 +25,7 @@ package com.codename1.ui.util;
 
 import com.codename1.analytics.AnalyticsService;
 import com.codename1.io.Externalizable;
+import com.codename1.io.Log;
 import com.codename1.io.Util;
 import com.codename1.ui.Button;
 import com.codename1.ui.CheckBox;
@@ -65,6 +66,8 @@ import com.codename1.ui.plaf.UIManager;
 import com.codename1.ui.spinner.BaseSpinner;
 import com.codename1.ui.table.TableLayout;
 import com.codename1.util.LazyValue;
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
@@ -72,6 +75,8 @@ import java.io.InputStream;
 import java.util.Date;
 import java.util.Enumeration;
 import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Vector;
 
 /**
@@ -231,6 +236,21 @@ public class UIBuilder { //implements Externalizable {
     private EventDispatcher globalCommandListeners;
     private Hashtable localComponentListeners;
     private boolean keepResourcesInRam = Display.getInstance().getProperty("cacheResFile", "false").equals("true");
+    private int templateCacheSize = 16;
+    private final LinkedHashMap<String, UITemplate> templates = new LinkedHashMap<String, UITemplate>(16, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry<String, UITemplate> eldest) {
+            return size() > templateCacheSize;
+        }
+    };
+    private boolean templateCacheEnabled = true;
+
+    /**
+     * Forms whose replay didn't match the recording, these are always decoded from the resource data
+     */
+    private final Hashtable notReplayable = new Hashtable();
+    private final Hashtable preparedContainers = new Hashtable();
+    private boolean formTimingLogged;
+    private boolean prepareNextForm;
 
     // used by the resource editor
     static boolean ignorBaseForm;
@@ -399,12 +419,66 @@ public class UIBuilder { //implements Externalizable {
     }
 
     Container createContainer(Resources res, String resourceName, EmbeddedContainer parentContainer) {
+        if(parentContainer == null) {
+            Container prepared = takePreparedContainer(res, resourceName);
+            if(prepared != null) {
+                formCreated(resourceName, 0, true, true);
+                return prepared;
+            }
+        }
         onCreateRoot(resourceName);
-        InputStream source = res.getUi(resourceName);
+        long start = System.currentTimeMillis();
+        byte[] source = res.getUiData(resourceName);
         if(source == null) {
             throw new RuntimeException("Resource doesn't exist within the current resource object: " + resourceName);
         }
-        DataInputStream in = new DataInputStream(source);
+        UITemplate template = null;
+        boolean replayable = templateCacheEnabled && !notReplayable.containsKey(resourceName);
+        if(replayable) {
+            synchronized(templates) {
+                template = templates.get(resourceName);
+                if(template != null && !template.isTemplateOf(source)) {
+                    // the resource data changed, it is recorded again below
+                    templates.remove(resourceName);
+                    template = null;
+                }
+            }
+        }
+        if(template != null) {
+            try {
+                Container c = createContainerImpl(template.replay(), res, resourceName, parentContainer);
+                formCreated(resourceName, (int)(System.currentTimeMillis() - start), true, false);
+                return c;
+            } catch(UITemplate.MismatchException err) {
+                // the same data was read differently than when it was recorded, the callbacks already ran for
+                // part of the form so this form is built from the data and never replayed again
+                Log.p("UIBuilder: " + resourceName + " can't be replayed from a template, " + err.getMessage());
+                notReplayable.put(resourceName, Boolean.TRUE);
+                synchronized(templates) {
+                    templates.remove(resourceName);
+                }
+                replayable = false;
+            }
+        }
+        if(!replayable) {
+            Container c = createContainerImpl(new DataInputStream(new ByteArrayInputStream(source)), res, resourceName, parentContainer);
+            formCreated(resourceName, (int)(System.currentTimeMillis() - start), false, false);
+            return c;
+        }
+        template = new UITemplate(source);
+        UITemplate.Recorder recorder = template.record();
+        Container c = createContainerImpl(recorder, res, resourceName, parentContainer);
+        if(c != null) {
+            recorder.finish();
+            synchronized(templates) {
+                templates.put(resourceName, template);
+            }
+        }
+        formCreated(resourceName, (int)(System.currentTimeMillis() - start), false, false);
+        return c;
+    }
+
+    private Container createContainerImpl(DataInput in, Resources res, String resourceName, EmbeddedContainer parentContainer) {
         try {
             Hashtable h = null;
             if(localComponentListeners != null) {
@@ -427,6 +501,8 @@ public class UIBuilder { //implements Externalizable {
             }
 
             return c;
+        } catch(UITemplate.MismatchException err) {
+            throw err;
         } catch (Exception ex) {
             // If this happens its probably a serious bug
             ex.printStackTrace();
@@ -434,7 +510,170 @@ public class UIBuilder { //implements Externalizable {
         }
     }
 
-    private void readCommand(DataInputStream in, Component c, Container parent, Resources res, boolean legacy) throws IOException {
+    /**
+     * Returns a container that was created in advance by {@link #prepareContainer(java.lang.String)}
+     * or null if no such container is available
+     */
+    private Container takePreparedContainer(Resources res, String resourceName) {
+        synchronized(preparedContainers) {
+            Object[] entry = (Object[])preparedContainers.remove(resourceName);
+            if(entry != null) {
+                byte[] source = res.getUiData(resourceName);
+                if(source != null && UITemplate.isSameSource((byte[])entry[0], source)) {
+                    return (Container)entry[1];
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates the given container on a background thread so a subsequent call to createContainer,
+     * showForm or showContainer with the same name would return immediately. The container is 
+     * created up to the point of being shown, notice that this means callbacks such as 
+     * postCreateComponent and onCreateRoot are invoked on the background thread. A prepared
+     * container is only used once, it is discarded if the resource data changes.
+     *
+     * @param resourceName the name of the form/container in the res file
+     */
+    public void prepareContainer(final String resourceName) {
+        final Resources res = fetchResourceFile();
+        if(res == null) {
+            return;
+        }
+        Display.getInstance().scheduleBackgroundTask(new Runnable() {
+            public void run() {
+                prepareContainerImpl(res, resourceName);
+            }
+        });
+    }
+    
+    void prepareContainerImpl(Resources res, String resourceName) {
+        synchronized(preparedContainers) {
+            if(preparedContainers.containsKey(resourceName)) {
+                return;
+            }
+        }
+        byte[] source = res.getUiData(resourceName);
+        if(source == null) {
+            return;
+        }
+        Container c = createContainer(res, resourceName);
+        if(c != null) {
+            synchronized(preparedContainers) {
+                preparedContainers.put(resourceName, new Object[] {source, c});
+            }
+        }
+    }
+
+    /**
+     * Invoked after a container was created from the resource file, this allows tracking the time
+     * it takes to create every form. By default this method logs the timing if form timing 
+     * logging is enabled.
+     * 
+     * @param resourceName the name of the container
+     * @param time the time in milliseconds it took to create the container
+     * @param fromTemplate true if the container was created from an already decoded template
+     * @param prepared true if the container was prepared in the background using prepareContainer
+     */
+    protected void formCreated(String resourceName, int time, boolean fromTemplate, boolean prepared) {
+        if(formTimingLogged) {
+            if(prepared) {
+                Log.p("UIBuilder: " + resourceName + " was prepared in the background");
+            } else {
+                Log.p("UIBuilder: " + resourceName + " created in " + time + "ms" + (fromTemplate ? " from template" : ""));
+            }
+        }
+    }
+
+    /**
+     * Indicates whether UI resources are decoded once and kept in RAM as templates so subsequent 
+     * creations of the same form skip the decoding of the resource data
+     * 
+     * @return true by default
+     */
+    public boolean isTemplateCacheEnabled() {
+        return templateCacheEnabled;
+    }
+
+    /**
+     * Indicates whether UI resources are decoded once and kept in RAM as templates so subsequent 
+     * creations of the same form skip the decoding of the resource data
+     * 
+     * @param templateCacheEnabled false to decode the resource data every time a form is created
+     */
+    public void setTemplateCacheEnabled(boolean templateCacheEnabled) {
+        this.templateCacheEnabled = templateCacheEnabled;
+        if(!templateCacheEnabled) {
+            synchronized(templates) {
+                templates.clear();
+            }
+        }
+    }
+
+    /**
+     * The maximum number of forms kept as templates, the least recently created forms are discarded
+     * 
+     * @return 16 by default
+     */
+    public int getTemplateCacheSize() {
+        return templateCacheSize;
+    }
+
+    /**
+     * The maximum number of forms kept as templates, the least recently created forms are discarded
+     * 
+     * @param templateCacheSize the number of forms kept as templates
+     */
+    public void setTemplateCacheSize(int templateCacheSize) {
+        this.templateCacheSize = templateCacheSize;
+        synchronized(templates) {
+            while(templates.size() > templateCacheSize) {
+                templates.remove(templates.keySet().iterator().next());
+            }
+        }
+    }
+
+    /**
+     * Indicates that the time it takes to create every form should be logged
+     * 
+     * @return the formTimingLogged
+     */
+    public boolean isFormTimingLogged() {
+        return formTimingLogged;
+    }
+
+    /**
+     * Indicates that the time it takes to create every form should be logged
+     * 
+     * @param formTimingLogged true to log the creation time of forms
+     */
+    public void setFormTimingLogged(boolean formTimingLogged) {
+        this.formTimingLogged = formTimingLogged;
+    }
+
+    /**
+     * When set to true the next form of a form with a "next form" definition (e.g. splash screen)
+     * is created in the background thread while the current form is processed.
+     * 
+     * @return the prepareNextForm
+     */
+    public boolean isPrepareNextForm() {
+        return prepareNextForm;
+    }
+
+    /**
+     * When set to true the next form of a form with a "next form" definition (e.g. splash screen)
+     * is created in the background thread while the current form is processed. Notice that
+     * callbacks such as postCreateComponent will be invoked on the background thread for that form.
+     * 
+     * @param prepareNextForm true to prepare the next form in the background
+     */
+    public void setPrepareNextForm(boolean prepareNextForm) {
+        this.prepareNextForm = prepareNextForm;
+    }
+
+    private void readCommand(DataInput in, Component c, Container parent, Resources res, boolean legacy) throws IOException {
         String commandName = in.readUTF();
         String commandImageName = in.readUTF();
         String rollover = null;
@@ -505,7 +744,7 @@ public class UIBuilder { //implements Externalizable {
      * tree to exist to update the component. This is useful for properties that point
      * at other components.
      */
-    private void postCreateComponents(DataInputStream in, Container parent, Resources res) throws Exception {
+    private void postCreateComponents(DataInput in, Container parent, Resources res) throws Exception {
         // finds the component whose properties need to update
         String name = in.readUTF();
         Component lastComponent = null;
@@ -704,7 +943,7 @@ public class UIBuilder { //implements Externalizable {
         return false;
     }
 
-    private void readCommands(DataInputStream in, Component cmp, Resources res, boolean legacy) throws IOException {
+    private void readCommands(DataInput in, Component cmp, Resources res, boolean legacy) throws IOException {
         int commandCount = in.readInt();
         final String[] commandActions = new String[commandCount];
         final Command[] commands = new Command[commandCount];
@@ -760,7 +999,7 @@ public class UIBuilder { //implements Externalizable {
         }
     }
 
-    private Object[] readObjectArrayForListModel(DataInputStream in, Resources res) throws IOException {
+    private Object[] readObjectArrayForListModel(DataInput in, Resources res) throws IOException {
         Object[] elements = new Object[in.readInt()];
         int elen = elements.length;
         for(int iter = 0 ; iter < elen ; iter++) {
@@ -793,7 +1032,7 @@ public class UIBuilder { //implements Externalizable {
         return elements;
     }
 
-    private GenericListCellRenderer readRendererer(Resources res, DataInputStream in) throws IOException {
+    private GenericListCellRenderer readRendererer(Resources res, DataInput in) throws IOException {
         int rendererComponentCount = in.readByte();
         String f = in.readUTF();
         String s = in.readUTF();
@@ -814,7 +1053,7 @@ public class UIBuilder { //implements Externalizable {
         }
     }
     
-    private Object readCustomPropertyValue(DataInputStream in, Class type, String typeName, Resources res, String name) throws IOException {
+    private Object readCustomPropertyValue(DataInput in, Class type, String typeName, Resources res, String name) throws IOException {
         if(type == String.class) {
             return in.readUTF();
         }
@@ -941,7 +1180,7 @@ public class UIBuilder { //implements Externalizable {
         return new Character(in.readChar());
     }
 
-    private Component createComponent(DataInputStream in, Container parent, Container root, Resources res, Hashtable componentListeners, EmbeddedContainer embedded) throws Exception {
+    private Component createComponent(DataInput in, Container parent, Container root, Resources res, Hashtable componentListeners, EmbeddedContainer embedded) throws Exception {
         String name = in.readUTF();
         int property = in.readInt();
 
@@ -2814,6 +3053,10 @@ public class UIBuilder { //implements Externalizable {
                     f.show();
                     postShowImpl(f);
                 } else {
+                    // the next form is created while the background processing runs
+                    if(prepareNextForm && nextForm != null) {
+                        prepareContainer(nextForm);
+                    }
                     if(processBackground(destForm)) {
                         waitForForm(destForm);
                     }
@@ -0,0 +1,402 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Codename One through http://www.codenameone.com/ if you
+ * need additional information or have any questions.
+ */
+package com.codename1.ui.util;
+
+import com.codename1.ui.Display;
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Vector;
+
+/**
+ * A decoded UI resource. The binary UI format is read once through a recording
+ * pass and stored as two flat arrays (primitive values and object values) so
+ * subsequent instantiations of the same form replay the already decoded values
+ * instead of decoding the UTF strings and numbers of the resource again. A template
+ * is only replayed for resource data with the same content as the data it was
+ * decoded from, which is verified before the form is built.
+ *
+ * @author Shai Almog
+ */
+class UITemplate {
+    private static final byte TYPE_BOOLEAN = 1;
+    private static final byte TYPE_BYTE = 2;
+    private static final byte TYPE_UNSIGNED_BYTE = 3;
+    private static final byte TYPE_SHORT = 4;
+    private static final byte TYPE_UNSIGNED_SHORT = 5;
+    private static final byte TYPE_CHAR = 6;
+    private static final byte TYPE_INT = 7;
+    private static final byte TYPE_LONG = 8;
+    private static final byte TYPE_FLOAT = 9;
+    private static final byte TYPE_DOUBLE = 10;
+    private static final byte TYPE_SKIP = 11;
+    
+    private byte[] source;
+    private final Object sourceRef;
+    private final int length;
+    private final long hash;
+    private final boolean baseFormIgnored;
+    private long[] numbers;
+    private byte[] types;
+    private Object[] objects;
+    private int decodeTime;
+    private int instances;
+
+    /**
+     * @param source the data of the ui resource
+     */
+    UITemplate(byte[] source) {
+        this.source = source;
+        length = source.length;
+        hash = hash(source);
+        baseFormIgnored = UIBuilder.ignorBaseForm;
+        sourceRef = Display.getInstance().createSoftWeakRef(source);
+    }
+
+    /**
+     * Returns true if the given resource data has the same content as the original data, a resource 
+     * file that is opened again for every form returns new arrays so identity isn't enough
+     * 
+     * @param original the data from which a form was created
+     * @param data the data of the ui resource
+     */
+    static boolean isSameSource(byte[] original, byte[] data) {
+        return original == data || Arrays.equals(original, data);
+    }
+
+    /**
+     * A 64 bit FNV-1a hash of the content, used to verify the data once the original array was reclaimed
+     */
+    private static long hash(byte[] data) {
+        long h = 0xcbf29ce484222325L;
+        for(int iter = 0 ; iter < data.length ; iter++) {
+            h ^= data[iter] & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /**
+     * Returns true if this template was decoded from resource data with the same content as the given 
+     * data, in that case replaying the template reads exactly what decoding the data would
+     */
+    boolean isTemplateOf(byte[] data) {
+        if(numbers == null || data.length != length || baseFormIgnored != UIBuilder.ignorBaseForm) {
+            return false;
+        }
+        byte[] original = (byte[])Display.getInstance().extractHardRef(sourceRef);
+        if(original != null) {
+            return isSameSource(original, data);
+        }
+        return hash(data) == hash;
+    }
+
+    /**
+     * Returns a reader that records all the values read from the source data into this
+     * template, the template becomes usable once {@link Recorder#finish()} is invoked
+     */
+    Recorder record() {
+        return new Recorder(new DataInputStream(new ByteArrayInputStream(source)));
+    }
+
+    /**
+     * Returns a new reader replaying the values of this template
+     */
+    DataInput replay() {
+        instances++;
+        return new Player();
+    }
+
+    /**
+     * The time in milliseconds it took to decode this template
+     */
+    int getDecodeTime() {
+        return decodeTime;
+    }
+
+    /**
+     * The number of times this template was instantiated
+     */
+    int getInstances() {
+        return instances;
+    }
+
+    /**
+     * Records the values read from the underlying stream
+     */
+    class Recorder implements DataInput {
+        private final DataInputStream in;
+        private long[] n = new long[256];
+        private byte[] t = new byte[256];
+        private int nOffset;
+        private final Vector o = new Vector();
+        private final long start = System.currentTimeMillis();
+
+        Recorder(DataInputStream in) {
+            this.in = in;
+        }
+
+        /**
+         * Seals the recorded values into the template
+         */
+        void finish() {
+            long[] packed = new long[nOffset];
+            System.arraycopy(n, 0, packed, 0, nOffset);
+            byte[] packedTypes = new byte[nOffset];
+            System.arraycopy(t, 0, packedTypes, 0, nOffset);
+            Object[] arr = new Object[o.size()];
+            o.copyInto(arr);
+            objects = arr;
+            types = packedTypes;
+            numbers = packed;
+            decodeTime = (int)(System.currentTimeMillis() - start);
+            source = null;
+        }
+
+        private void add(long v, byte type) {
+            if(nOffset == n.length) {
+                long[] a = new long[n.length * 2];
+                System.arraycopy(n, 0, a, 0, nOffset);
+                n = a;
+                byte[] b = new byte[n.length];
+                System.arraycopy(t, 0, b, 0, nOffset);
+                t = b;
+            }
+            n[nOffset] = v;
+            t[nOffset] = type;
+            nOffset++;
+        }
+
+        public void readFully(byte[] b) throws IOException {
+            readFully(b, 0, b.length);
+        }
+
+        public void readFully(byte[] b, int off, int len) throws IOException {
+            in.readFully(b, off, len);
+            byte[] copy = new byte[len];
+            System.arraycopy(b, off, copy, 0, len);
+            o.addElement(copy);
+        }
+
+        public int skipBytes(int count) throws IOException {
+            int v = in.skipBytes(count);
+
+            // the requested count is kept with the result so a replay that skips differently is detected
+            add(((long)count << 32) | (v & 0xffffffffL), TYPE_SKIP);
+            return v;
+        }
+
+        public boolean readBoolean() throws IOException {
+            boolean v = in.readBoolean();
+            add(v ? 1 : 0, TYPE_BOOLEAN);
+            return v;
+        }
+
+        public byte readByte() throws IOException {
+            byte v = in.readByte();
+            add(v, TYPE_BYTE);
+            return v;
+        }
+
+        public int readUnsignedByte() throws IOException {
+            int v = in.readUnsignedByte();
+            add(v, TYPE_UNSIGNED_BYTE);
+            return v;
+        }
+
+        public short readShort() throws IOException {
+            short v = in.readShort();
+            add(v, TYPE_SHORT);
+            return v;
+        }
+
+        public int readUnsignedShort() throws IOException {
+            int v = in.readUnsignedShort();
+            add(v, TYPE_UNSIGNED_SHORT);
+            return v;
+        }
+
+        public char readChar() throws IOException {
+            char v = in.readChar();
+            add(v, TYPE_CHAR);
+            return v;
+        }
+
+        public int readInt() throws IOException {
+            int v = in.readInt();
+            add(v, TYPE_INT);
+            return v;
+        }
+
+        public long readLong() throws IOException {
+            long v = in.readLong();
+            add(v, TYPE_LONG);
+            return v;
+        }
+
+        public float readFloat() throws IOException {
+            float v = in.readFloat();
+            add(Float.floatToIntBits(v), TYPE_FLOAT);
+            return v;
+        }
+
+        public double readDouble() throws IOException {
+            double v = in.readDouble();
+            add(Double.doubleToLongBits(v), TYPE_DOUBLE);
+            return v;
+        }
+
+        public String readLine() throws IOException {
+            throw new IOException("readLine isn't supported by UI resources");
+        }
+
+        public void close() throws IOException {
+            in.close();
+        }
+
+        public String readUTF() throws IOException {
+            String v = in.readUTF();
+            o.addElement(v);
+            return v;
+        }
+    }
+
+    /**
+     * Thrown when a replay reads differently from the recording, the content of the data is verified
+     * before replaying so this indicates the form was decoded differently for the same data. This is
+     * unchecked so it passes through the generic error handling of the UI decoding
+     */
+    static class MismatchException extends RuntimeException {
+        MismatchException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Replays the values of a finished template, numbers and objects are consumed
+     * in the exact order in which they were recorded. A read that doesn't match the
+     * recorded type throws a {@link MismatchException}
+     */
+    class Player implements DataInput {
+        private int nOffset;
+        private int oOffset;
+
+        private long next(byte type) throws IOException {
+            if(nOffset >= numbers.length) {
+                throw new MismatchException("UI template mismatch, read past the recorded values");
+            }
+            if(types[nOffset] != type) {
+                throw new MismatchException("UI template mismatch at " + nOffset + " expected type " + types[nOffset] + " read as " + type);
+            }
+            long v = numbers[nOffset];
+            nOffset++;
+            return v;
+        }
+
+        private Object nextObject() throws IOException {
+            if(oOffset >= objects.length) {
+                throw new MismatchException("UI template mismatch, read past the recorded values");
+            }
+            Object v = objects[oOffset];
+            oOffset++;
+            return v;
+        }
+
+        public void readFully(byte[] b) throws IOException {
+            readFully(b, 0, b.length);
+        }
+
+        public void readFully(byte[] b, int off, int len) throws IOException {
+            Object v = nextObject();
+            if(!(v instanceof byte[]) || ((byte[])v).length != len) {
+                throw new MismatchException("UI template mismatch, expected " + len + " bytes");
+            }
+            System.arraycopy((byte[])v, 0, b, off, len);
+        }
+
+        public int skipBytes(int count) throws IOException {
+            long v = next(TYPE_SKIP);
+            if((int)(v >> 32) != count) {
+                throw new MismatchException("UI template mismatch, expected to skip " + count + " bytes");
+            }
+            return (int)v;
+        }
+
+        public boolean readBoolean() throws IOException {
+            return next(TYPE_BOOLEAN) != 0;
+        }
+
+        public byte readByte() throws IOException {
+            return (byte)next(TYPE_BYTE);
+        }
+
+        public int readUnsignedByte() throws IOException {
+            return (int)next(TYPE_UNSIGNED_BYTE);
+        }
+
+        public short readShort() throws IOException {
+            return (short)next(TYPE_SHORT);
+        }
+
+        public int readUnsignedShort() throws IOException {
+            return (int)next(TYPE_UNSIGNED_SHORT);
+        }
+
+        public char readChar() throws IOException {
+            return (char)next(TYPE_CHAR);
+        }
+
+        public int readInt() throws IOException {
+            return (int)next(TYPE_INT);
+        }
+
+        public long readLong() throws IOException {
+            return next(TYPE_LONG);
+        }
+
+        public float readFloat() throws IOException {
+            return Float.intBitsToFloat((int)next(TYPE_FLOAT));
+        }
+
+        public double readDouble() throws IOException {
+            return Double.longBitsToDouble(next(TYPE_DOUBLE));
+        }
+
+        public String readLine() throws IOException {
+            throw new IOException("readLine isn't supported by UI resources");
+        }
+
+        public void close() throws IOException {
+        }
+
+        public String readUTF() throws IOException {
+            Object v = nextObject();
+            if(!(v instanceof String)) {
+                throw new MismatchException("UI template mismatch, expected a string");
+            }
+            return (String)v;
+        }
+    }
+}
@@ -70,6 +70,23 @@ public class Element implements Iterable<Element> {
     boolean isComment;
 
     boolean caseSensitive;
+
+    /**
+     * The compact document this element is a view of, or null for elements that aren't part of one
+     */
+    XMLDocument document;
+
+    /**
+     * The node of this element within the compact document
+     */
+    int node;
+
+    /**
+     * True while the children and attributes of the view haven't been loaded from the document
+     */
+    boolean lazy;
+
+    private boolean parentResolved;
     
     /**
      * Constructs and Element without specifying a name
@@ -100,6 +117,31 @@ public class Element implements Iterable<Element> {
     }
 
 
+    private void load() {
+        if(lazy) {
+            lazy = false;
+            document.load(this, node);
+        }
+    }
+
+    void setContent(Hashtable attributes, ArrayList<Element> children) {
+        this.attributes = attributes;
+        this.children = children;
+    }
+
+    /**
+     * Invoked when the element is modified, queries no longer use the index of the compact document
+     */
+    private void modified() {
+        if(document != null) {
+            document.modified = true;
+        }
+    }
+
+    private boolean isIndexed() {
+        return document != null && !document.modified;
+    }
+
     /**
      * Returns true if this is a text element, false otherwise
      * 
@@ -128,6 +170,7 @@ public class Element implements Iterable<Element> {
      * @return the attributes Hashtable
      */
     public Hashtable getAttributes() {
+        load();
         return attributes;
     }
 
@@ -139,6 +182,8 @@ public class Element implements Iterable<Element> {
      * @param value The attribute value
      */
     protected void setAttribute(Object id,String value) {
+        load();
+        modified();
         if (attributes==null) {
             attributes=new Hashtable();
         }
@@ -152,6 +197,7 @@ public class Element implements Iterable<Element> {
      * @param childElement The child element
      */
     public void addChild(Element childElement) {
+        modified();
         setChildParent(childElement);
         children.add(childElement);
         //childElement.setParent(this);
@@ -163,6 +209,7 @@ public class Element implements Iterable<Element> {
      * @param parent The element's parent
      */
     protected void setParent(Element parent) {
+        parentResolved = true;
         this.parent=parent;
     }
 
@@ -172,6 +219,10 @@ public class Element implements Iterable<Element> {
      * @return this Element's parent
      */
     public Element getParent() {
+        if(!parentResolved && document != null) {
+            parentResolved = true;
+            parent = document.getParentElement(node);
+        }
         return parent;
     }
 
@@ -182,6 +233,9 @@ public class Element implements Iterable<Element> {
      * @return the number of this Element's children
      */
     public int getNumChildren() {
+        if(lazy) {
+            return document.getChildCount(node);
+        }
         if (children==null) {
             return 0;
         }
@@ -195,6 +249,7 @@ public class Element implements Iterable<Element> {
      * @deprecated this uses the old vector API instead of the more modern Collection/List
      */
     protected Vector getChildren() {
+        load();
         if(children == null) {
             return null;
         }
@@ -208,6 +263,8 @@ public class Element implements Iterable<Element> {
      * @deprecated this uses the old vector API instead of the more modern Collection/List
      */
     protected void setChildren(Vector children) {
+        load();
+        modified();
         if(children == null) {
             this.children = null;
         } else {
@@ -221,6 +278,7 @@ public class Element implements Iterable<Element> {
      * @param name The name or text of this tag
      */
     protected void setTagName(String name) {
+        modified();
         this.name=name;
     }
 
@@ -245,6 +303,7 @@ public class Element implements Iterable<Element> {
      * @throws ArrayIndexOutOfBoundsException if the index is bigger than the children's count or smaller than 0
      */
     public Element getChildAt(int index) {
+        load();
         if ((index<0) || (children==null) || (index>=children.size())) {
             throw new ArrayIndexOutOfBoundsException();
         }
@@ -259,6 +318,7 @@ public class Element implements Iterable<Element> {
      * @return the first child with the specified name, or null if not found
      */
     public Element getFirstChildByTagName(String name) {
+        load();
         if (children==null) {
             return null;
         }
@@ -286,6 +346,7 @@ public class Element implements Iterable<Element> {
         if ((thisId!=null) && (thisId.equals(id))) {
             return this;
         }
+        load();
         if (children!=null) {
             int i=0;
             while (i<children.size()) {
@@ -306,6 +367,7 @@ public class Element implements Iterable<Element> {
 //    }
 
     private void getDescendantsByTagNameInternal(Vector v,String name,int depth) {
+        load();
         if (children!=null) {
             int i=0;
             while (i<children.size()) {
@@ -323,6 +385,7 @@ public class Element implements Iterable<Element> {
     }
 
     private void getDescendantsByTagNameAndAttributeInternal(Vector v,String name,String attribute, int depth) {
+        load();
         if (children!=null) {
             int i=0;
             while (i<children.size()) {
@@ -355,6 +418,10 @@ public class Element implements Iterable<Element> {
         if (depth<1) {
             throw new IllegalArgumentException("Depth must be 1 or higher");
         }
+        if(isIndexed()) {
+            return document.getDescendantsByTagName(node, name, attributeName, depth);
+        }
+        load();
         if (children==null) {
             return null;
         }
@@ -375,6 +442,10 @@ public class Element implements Iterable<Element> {
         if (depth<1) {
             throw new IllegalArgumentException("Depth must be 1 or higher");
         }
+        if(isIndexed()) {
+            return document.getDescendantsByTagName(node, name, null, depth);
+        }
+        load();
         if (children==null) {
             return null;
         }
@@ -405,6 +476,7 @@ public class Element implements Iterable<Element> {
     }
 
     private void getTextDescendantsInternal(Vector v,String text,boolean caseSensitive,int depth) {
+        load();
         if (children==null) {
             return;
         }
@@ -445,6 +517,7 @@ public class Element implements Iterable<Element> {
         if (depth<1) {
             throw new IllegalArgumentException("Depth must be 1 or higher");
         }
+        load();
         if (children==null) {
             return null;
         }
@@ -488,6 +561,7 @@ public class Element implements Iterable<Element> {
         if (this==element) {
             return true;
         }
+        load();
         if (children!=null) {
             int i=0;
             while (i<children.size()) {
@@ -542,6 +616,8 @@ public class Element implements Iterable<Element> {
      * @param id The attribute ID
      */
     protected void removeAttribute(Object id) {
+        load();
+        modified();
         if (attributes!=null) {
             attributes.remove(id);
             if (attributes.isEmpty()) {
@@ -576,6 +652,9 @@ public class Element implements Iterable<Element> {
      * @return the attribute value by its name (or null if it wasn't defined for this element)
      */
     public String getAttribute(String  name) {
+        if(lazy) {
+            return document.getAttribute(node, name);
+        }
         if (attributes==null) {
             return null;
         }
@@ -589,6 +668,7 @@ public class Element implements Iterable<Element> {
     }
 
     private void setChildParent(Element child) {
+        load();
         if (textElement) {
             throw new IllegalStateException("Text elements cannot have children");
         }
@@ -608,6 +688,8 @@ public class Element implements Iterable<Element> {
      * @param index The child's index
      */
     public void removeChildAt(int index) {
+        load();
+        modified();
         if ((index<0) || (children==null) || (index>=children.size())) {
             throw new ArrayIndexOutOfBoundsException();
         }
@@ -623,6 +705,7 @@ public class Element implements Iterable<Element> {
      * @return The child position, or -1 if the child does not belong to this element.
      */
     public int getChildIndex(Element child) {
+        load();
         int result=-1;
         if (children!=null) {
             for(int i=0;i<children.size();i++) {
@@ -642,6 +725,7 @@ public class Element implements Iterable<Element> {
      * @param index The index to insert it at
      */
     public void insertChildAt(Element child,int index) {
+        modified();
         setChildParent(child);
         children.add(index, child);
     }
@@ -653,6 +737,8 @@ public class Element implements Iterable<Element> {
      * @param newChild The child to replace it with
      */
     public void replaceChild(Element oldChild,Element newChild) {
+        load();
+        modified();
         if (children!=null) {
             setChildParent(newChild);
             int index=children.indexOf(oldChild);
@@ -690,6 +776,7 @@ public class Element implements Iterable<Element> {
         if (!textElement) {
             throw new IllegalStateException("Only text elements can set text");
         }
+        modified();
         name=str;
 
     }
@@ -713,6 +800,7 @@ public class Element implements Iterable<Element> {
     private String toString(String spacing) {
 
         String str=spacing;
+        load();
         if (!textElement) {
             str+="<"+getTagName();
             if (attributes!=null) {
@@ -740,6 +828,7 @@ public class Element implements Iterable<Element> {
      * @return true if any of this Elements children are text Elements.
      */
     public boolean hasTextChild() {
+        load();
         if(children != null) {
             for (int iter = 0 ; iter < children.size() ; iter++) {
                 Object child = children.get(iter);
@@ -756,6 +845,9 @@ public class Element implements Iterable<Element> {
      * @return true if this Element has no children.
      */
     public boolean isEmpty() {
+        if(lazy) {
+            return document.getChildCount(node) == 0;
+        }
         return children == null || children.isEmpty();
     }
 
@@ -764,6 +856,7 @@ public class Element implements Iterable<Element> {
      * @return the children iterator
      */
     public Iterator<Element> iterator() {
+        load();
         return children.iterator();
     }
 }
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *  
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Codename One through http://www.codenameone.com/ if you 
+ * need additional information or have any questions.
+ */
+package com.codename1.xml;
+
+/**
+ * Interns tag and attribute names directly from the characters of the parser buffer, a name that was seen
+ * before is resolved to its id without allocating a String. Ids are assigned sequentially starting at 0.
+ *
+ * @author Shai Almog
+ */
+class NameTable {
+    private String[] names = new String[64];
+    private char[][] chars = new char[64][];
+    private int[] hashes = new int[64];
+    private int[] table = new int[128];
+    private int count;
+
+    NameTable() {
+        fillTable(table);
+    }
+
+    private static void fillTable(int[] t) {
+        for(int iter = 0 ; iter < t.length ; iter++) {
+            t[iter] = -1;
+        }
+    }
+
+    /**
+     * Returns the id of the given name adding it to the table if it isn't there yet
+     */
+    int intern(char[] buf, int offset, int length) {
+        int hash = 0;
+        for(int iter = 0 ; iter < length ; iter++) {
+            hash = hash * 31 + buf[offset + iter];
+        }
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while(table[slot] > -1) {
+            int id = table[slot];
+            if(hashes[id] == hash && equals(chars[id], buf, offset, length)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if(count == names.length) {
+            grow();
+            return intern(buf, offset, length);
+        }
+        char[] c = new char[length];
+        System.arraycopy(buf, offset, c, 0, length);
+        int id = count;
+        count++;
+        chars[id] = c;
+        names[id] = new String(c);
+        hashes[id] = hash;
+        table[slot] = id;
+        return id;
+    }
+
+    /**
+     * Returns the id of the given name adding it to the table if it isn't there yet
+     */
+    int intern(String name) {
+        char[] c = name.toCharArray();
+        return intern(c, 0, c.length);
+    }
+
+    /**
+     * Returns the id of the given name or -1 if it was never interned
+     */
+    int find(String name) {
+        int length = name.length();
+        int hash = 0;
+        for(int iter = 0 ; iter < length ; iter++) {
+            hash = hash * 31 + name.charAt(iter);
+        }
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while(table[slot] > -1) {
+            int id = table[slot];
+            if(hashes[id] == hash && names[id].equals(name)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    String getName(int id) {
+        return names[id];
+    }
+
+    int size() {
+        return count;
+    }
+
+    private static boolean equals(char[] c, char[] buf, int offset, int length) {
+        if(c.length != length) {
+            return false;
+        }
+        for(int iter = 0 ; iter < length ; iter++) {
+            if(c[iter] != buf[offset + iter]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void grow() {
+        int size = names.length * 2;
+        String[] n = new String[size];
+        System.arraycopy(names, 0, n, 0, count);
+        names = n;
+        char[][] c = new char[size][];
+        System.arraycopy(chars, 0, c, 0, count);
+        chars = c;
+        int[] h = new int[size];
+        System.arraycopy(hashes, 0, h, 0, count);
+        hashes = h;
+        table = new int[size * 2];
+        fillTable(table);
+        int mask = table.length - 1;
+        for(int iter = 0 ; iter < count ; iter++) {
+            int slot = hashes[iter] & mask;
+            while(table[slot] > -1) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = iter;
+        }
+    }
+}
@@ -0,0 +1,408 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *  
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Codename One through http://www.codenameone.com/ if you 
+ * need additional information or have any questions.
+ */
+package com.codename1.xml;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.Vector;
+
+/**
+ * <p>A compact DOM produced by {@link XMLPullParser#parseDocument()}. The nodes of the document are stored in
+ * parallel int arrays (parent, first child, next sibling, name id) rather than as objects, tag and attribute
+ * names are interned and shared by all the nodes. {@link Element} instances are only created for the nodes
+ * that are actually visited and their children and attributes are loaded on first access, so the existing
+ * {@link Element} API works unchanged on top of the compact storage.</p>
+ * <p>{@link Element#getDescendantsByTagName(java.lang.String)} on elements of the document is answered from
+ * a per-document tag index rather than by walking the tree. Once any element of the document is modified the
+ * index is no longer used and the queries fall back to walking the tree.</p>
+ *
+ * @author Shai Almog
+ */
+public class XMLDocument {
+    private static final int ROOT = 0;
+
+    private final NameTable names;
+    private final boolean caseSensitive;
+
+    private int count;
+    private int[] parent = new int[64];
+    private int[] firstChild = new int[64];
+    private int[] lastChild = new int[64];
+    private int[] nextSibling = new int[64];
+    private int[] nameId = new int[64];
+    private int[] level = new int[64];
+    private int[] subtreeEnd = new int[64];
+    private int[] post = new int[64];
+    private int[] attributeStart = new int[64];
+    private int[] attributeCount = new int[64];
+    private String[] texts = new String[64];
+
+    private int attributes;
+    private int[] attributeNames = new int[64];
+    private String[] attributeValues = new String[64];
+
+    private int current;
+    private int postCount;
+    private int[] byPost;
+    private Element[] views;
+    private Hashtable tagIndex;
+    boolean modified;
+
+    XMLDocument(NameTable names, boolean caseSensitive) {
+        this.names = names;
+        this.caseSensitive = caseSensitive;
+        allocate(-1);
+    }
+
+    /**
+     * Parses the given document into a compact DOM, names are converted to lower case
+     *
+     * @param reader the source of the document
+     * @return the document
+     * @throws IOException if the reader throws an exception
+     */
+    public static XMLDocument parse(Reader reader) throws IOException {
+        return new XMLPullParser(reader).parseDocument();
+    }
+
+    /**
+     * Returns the root element of the document
+     *
+     * @return the first top level element or null if the document has no elements
+     */
+    public Element getRoot() {
+        for(int node = firstChild[ROOT] ; node > -1 ; node = nextSibling[node]) {
+            if(nameId[node] > -1) {
+                return getElement(node);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of nodes (elements and text) in the document
+     *
+     * @return the number of nodes
+     */
+    public int getNodeCount() {
+        return count - 1;
+    }
+
+    /**
+     * Returns all the elements in the document with the given tag name, the name is compared ignoring case
+     *
+     * @param name the tag name
+     * @return the elements in the same order as {@link Element#getDescendantsByTagName(java.lang.String)}
+     */
+    public Vector getElementsByTagName(String name) {
+        return getDescendantsByTagName(ROOT, name, null, Element.DEPTH_INFINITE);
+    }
+
+    private void allocate(int name) {
+        if(count == parent.length) {
+            int size = count * 2;
+            parent = grow(parent, size);
+            firstChild = grow(firstChild, size);
+            lastChild = grow(lastChild, size);
+            nextSibling = grow(nextSibling, size);
+            nameId = grow(nameId, size);
+            level = grow(level, size);
+            subtreeEnd = grow(subtreeEnd, size);
+            post = grow(post, size);
+            attributeStart = grow(attributeStart, size);
+            attributeCount = grow(attributeCount, size);
+            String[] t = new String[size];
+            System.arraycopy(texts, 0, t, 0, count);
+            texts = t;
+        }
+        int node = count;
+        count++;
+        nameId[node] = name;
+        firstChild[node] = -1;
+        lastChild[node] = -1;
+        nextSibling[node] = -1;
+        if(node == ROOT) {
+            parent[node] = -1;
+            return;
+        }
+        parent[node] = current;
+        level[node] = level[current] + 1;
+        if(lastChild[current] < 0) {
+            firstChild[current] = node;
+        } else {
+            nextSibling[lastChild[current]] = node;
+        }
+        lastChild[current] = node;
+    }
+
+    private static int[] grow(int[] arr, int size) {
+        int[] a = new int[size];
+        System.arraycopy(arr, 0, a, 0, arr.length);
+        return a;
+    }
+
+    void startElement(int name, int[] attrNames, String[] attrValues, int attrCount) {
+        allocate(name);
+        int node = count - 1;
+        if(attributes + attrCount > attributeNames.length) {
+            int size = Math.max(attributeNames.length * 2, attributes + attrCount);
+            attributeNames = grow(attributeNames, size);
+            String[] v = new String[size];
+            System.arraycopy(attributeValues, 0, v, 0, attributes);
+            attributeValues = v;
+        }
+        attributeStart[node] = attributes;
+        attributeCount[node] = attrCount;
+        System.arraycopy(attrNames, 0, attributeNames, attributes, attrCount);
+        System.arraycopy(attrValues, 0, attributeValues, attributes, attrCount);
+        attributes += attrCount;
+        current = node;
+    }
+
+    void endElement() {
+        if(current == ROOT) {
+            return;
+        }
+        subtreeEnd[current] = count;
+        post[current] = postCount;
+        postCount++;
+        current = parent[current];
+    }
+
+    void text(String t) {
+        allocate(-1);
+        int node = count - 1;
+        texts[node] = t;
+        subtreeEnd[node] = count;
+        post[node] = postCount;
+        postCount++;
+    }
+
+    void finish() {
+        while(current != ROOT) {
+            endElement();
+        }
+        byPost = new int[postCount];
+        for(int iter = 1 ; iter < count ; iter++) {
+            byPost[post[iter]] = iter;
+        }
+        views = new Element[count];
+        lastChild = null;
+    }
+
+    /**
+     * Returns the element view of the given node creating it if necessary
+     */
+    Element getElement(int node) {
+        Element e = views[node];
+        if(e == null) {
+            if(nameId[node] < 0) {
+                e = new Element(texts[node], true);
+            } else {
+                e = new Element(names.getName(nameId[node]));
+                e.lazy = true;
+            }
+            e.caseSensitive = caseSensitive;
+            e.document = this;
+            e.node = node;
+            views[node] = e;
+        }
+        return e;
+    }
+
+    /**
+     * Returns the view of the parent of the given node or null for the root element
+     */
+    Element getParentElement(int node) {
+        int p = parent[node];
+        if(p == ROOT) {
+            return null;
+        }
+        return getElement(p);
+    }
+
+    int getChildCount(int node) {
+        int c = 0;
+        for(int child = firstChild[node] ; child > -1 ; child = nextSibling[child]) {
+            c++;
+        }
+        return c;
+    }
+
+    /**
+     * Loads the children and attributes of the given element from the arrays
+     */
+    void load(Element e, int node) {
+        Hashtable attrs = null;
+        int c = attributeCount[node];
+        if(c > 0) {
+            attrs = new Hashtable();
+            int start = attributeStart[node];
+            for(int iter = 0 ; iter < c ; iter++) {
+                attrs.put(names.getName(attributeNames[start + iter]), attributeValues[start + iter]);
+            }
+        }
+        ArrayList<Element> children = null;
+        if(firstChild[node] > -1) {
+            children = new ArrayList<Element>();
+            for(int child = firstChild[node] ; child > -1 ; child = nextSibling[child]) {
+                Element ce = getElement(child);
+                ce.setParent(e);
+                children.add(ce);
+            }
+        }
+        e.setContent(attrs, children);
+    }
+
+    /**
+     * Returns the value of an attribute directly from the arrays
+     */
+    String getAttribute(int node, String name) {
+        int c = attributeCount[node];
+        if(c == 0) {
+            return null;
+        }
+        int id = names.find(name);
+        if(id < 0) {
+            return null;
+        }
+        int start = attributeStart[node];
+        for(int iter = 0 ; iter < c ; iter++) {
+            if(attributeNames[start + iter] == id) {
+                return attributeValues[start + iter];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the descendants of the node with the given tag name in the order the tree walk in
+     * {@link Element} produces which is the post order of the tree
+     */
+    Vector getDescendantsByTagName(int node, String name, String attribute, int depth) {
+        if(firstChild[node] < 0) {
+            return null;
+        }
+        Vector v = new Vector();
+        int[] nodes = (int[])getTagIndex().get(name.toLowerCase());
+        if(nodes == null) {
+            return v;
+        }
+
+        // the descendants of a node occupy the post order range right before the node itself
+        int last;
+        int first;
+        if(node == ROOT) {
+            first = 0;
+            last = postCount;
+        } else {
+            last = post[node];
+            first = last - (subtreeEnd[node] - node - 1);
+        }
+        int len = nodes.length;
+        int lo = 0;
+        int hi = len;
+        while(lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if(post[nodes[mid]] < first) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        int maxLevel = level[node] + depth;
+        if(depth == Element.DEPTH_INFINITE) {
+            maxLevel = Integer.MAX_VALUE;
+        }
+        for(int iter = lo ; iter < len ; iter++) {
+            int n = nodes[iter];
+            if(post[n] >= last) {
+                break;
+            }
+            if(level[n] > maxLevel) {
+                continue;
+            }
+            if(attribute != null) {
+                String a = getAttribute(n, attribute);
+                if(a == null || a.length() == 0) {
+                    continue;
+                }
+            }
+            v.addElement(getElement(n));
+        }
+        return v;
+    }
+
+    private Hashtable getTagIndex() {
+        if(tagIndex == null) {
+            // names that differ only in case share a bucket since tag name queries ignore case
+            int nameCount = names.size();
+            int[] bucketOf = new int[nameCount];
+            Hashtable buckets = new Hashtable();
+            for(int iter = 0 ; iter < nameCount ; iter++) {
+                String key = names.getName(iter).toLowerCase();
+                Integer b = (Integer)buckets.get(key);
+                if(b == null) {
+                    b = new Integer(buckets.size());
+                    buckets.put(key, b);
+                }
+                bucketOf[iter] = b.intValue();
+            }
+            int[] sizes = new int[buckets.size()];
+            for(int iter = 0 ; iter < postCount ; iter++) {
+                int id = nameId[byPost[iter]];
+                if(id > -1) {
+                    sizes[bucketOf[id]]++;
+                }
+            }
+            int[][] nodes = new int[sizes.length][];
+            for(int iter = 0 ; iter < sizes.length ; iter++) {
+                nodes[iter] = new int[sizes[iter]];
+                sizes[iter] = 0;
+            }
+            for(int iter = 0 ; iter < postCount ; iter++) {
+                int n = byPost[iter];
+                int id = nameId[n];
+                if(id > -1) {
+                    int b = bucketOf[id];
+                    nodes[b][sizes[b]] = n;
+                    sizes[b]++;
+                }
+            }
+            Hashtable index = new Hashtable();
+            Enumeration e = buckets.keys();
+            while(e.hasMoreElements()) {
+                String key = (String)e.nextElement();
+                int[] arr = nodes[((Integer)buckets.get(key)).intValue()];
+                if(arr.length > 0) {
+                    index.put(key, arr);
+                }
+            }
+            tagIndex = index;
+        }
+        return tagIndex;
+    }
+}
@@ -41,6 +41,11 @@ import java.util.Hashtable;
  * <script src="https://gist.github.com/codenameone/5361ad7339c1ae26e0b8.js"></script>
  * <img src="https://www.codenameone.com/img/developer-guide/components-tree-xml.png" alt="Tree with XML data" />
  * 
+ * <p>
+ * This parser recurses for every nesting level of the document, {@link XMLPullParser} parses very large or
+ * deeply nested documents without recursion and can build a compact {@link XMLDocument}.
+ * </p>
+ * 
  * @author Ofir Leitner
  */
 public class XMLParser {
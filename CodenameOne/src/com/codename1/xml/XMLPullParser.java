@@ -0,0 +1,801 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *  
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Codename One through http://www.codenameone.com/ if you 
+ * need additional information or have any questions.
+ */
+package com.codename1.xml;
+
+import com.codename1.ui.html.HTMLUtils;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * <p>A streaming pull parser for XML documents. Unlike {@link XMLParser} the caller drives the parsing by
+ * invoking {@link #next()} which returns the next event in the document, the nesting of the document is tracked
+ * in an explicit stack so deeply nested documents don't consume the thread stack. The input is read in bulk
+ * into a char buffer and tag/attribute names are interned so a name that was already seen doesn't allocate
+ * a new String.</p>
+ * <p>The parser is lenient in the same way as {@link XMLParser}: comments, declarations and processing
+ * instructions are skipped, CDATA sections are returned as text, a closing tag that doesn't match the
+ * current tag closes the enclosing tags up to the matching tag and tags left open at the end of the
+ * document are closed implicitly. Leading whitespace in text is collapsed to a single space and text made
+ * only of whitespace is skipped, see {@link #setIncludeWhitespacesBetweenTags(boolean)}.</p>
+ *
+ * <h5>Example</h5>
+ * <code><pre>
+ * XMLPullParser p = new XMLPullParser(reader);
+ * int event = p.next();
+ * while(event != XMLPullParser.END_DOCUMENT) {
+ *     if(event == XMLPullParser.START_TAG &amp;&amp; p.getName().equals("item")) {
+ *         String id = p.getAttributeValue("id");
+ *     }
+ *     event = p.next();
+ * }
+ * </pre></code>
+ *
+ * <p>{@link #parseDocument()} builds a compact {@link XMLDocument} from the events.</p>
+ *
+ * @author Shai Almog
+ */
+public class XMLPullParser {
+    /**
+     * Event returned when a tag is opened, the name and attributes of the tag are available
+     */
+    public static final int START_TAG = 1;
+
+    /**
+     * Event returned when a tag is closed, a tag such as &lt;a/&gt; produces a start and an end event
+     */
+    public static final int END_TAG = 2;
+
+    /**
+     * Event returned for text and CDATA sections
+     */
+    public static final int TEXT = 3;
+
+    /**
+     * Event returned once the input is exhausted
+     */
+    public static final int END_DOCUMENT = 4;
+
+    private static final int MAX_ENTITY_LENGTH = 10;
+
+    private final Reader reader;
+    private char[] buf = new char[8192];
+    private int pos;
+    private int limit;
+    private int mark = -1;
+    private boolean eof;
+
+    private final NameTable names;
+    private int[] stack = new int[32];
+    private int depth;
+    private int pendingEnds;
+
+    private int eventType;
+    private int nameId = -1;
+    private String text;
+    private int[] attributeNames = new int[8];
+    private String[] attributeValues = new String[8];
+    private int attributeCount;
+
+    private final StringBuilder builder = new StringBuilder();
+    private final char[] entity = new char[MAX_ENTITY_LENGTH];
+    private boolean caseSensitive;
+    private boolean includeWhitespacesBetweenTags;
+    private ParserCallback parserCallback;
+
+    /**
+     * Creates a parser reading from the given reader, the reader is read in bulk so it doesn't need to be
+     * buffered
+     *
+     * @param reader the source of the document
+     */
+    public XMLPullParser(Reader reader) {
+        this(reader, new NameTable());
+    }
+
+    XMLPullParser(Reader reader, NameTable names) {
+        this.reader = reader;
+        this.names = names;
+    }
+
+    /**
+     * Sets the parser to be case sensitive and retain case, otherwise it will convert tag names to lower
+     * case. Attribute names always retain their case. This must be invoked before parsing begins.
+     *
+     * @param caseSensitive true to retain the case of names
+     */
+    public void setCaseSensitive(boolean caseSensitive) {
+        this.caseSensitive = caseSensitive;
+    }
+
+    /**
+     * Indicates whether names retain their case
+     *
+     * @return true if names retain their case
+     */
+    public boolean isCaseSensitive() {
+        return caseSensitive;
+    }
+
+    /**
+     * When true whitespace between tags is returned as a single space text event instead of being skipped,
+     * this doesn't affect the leading whitespace of other text which is always collapsed to a single space
+     *
+     * @param include true to include whitespace
+     */
+    public void setIncludeWhitespacesBetweenTags(boolean include) {
+        includeWhitespacesBetweenTags = include;
+    }
+
+    /**
+     * Sets the callback notified of errors in the document, if the callback returns false an
+     * IllegalArgumentException is thrown from {@link #next()}
+     *
+     * @param parserCallback the callback
+     */
+    public void setParserCallback(ParserCallback parserCallback) {
+        this.parserCallback = parserCallback;
+    }
+
+    NameTable getNameTable() {
+        return names;
+    }
+
+    /**
+     * Returns the event the parser is positioned on
+     *
+     * @return one of the event constants or 0 before the first call to next
+     */
+    public int getEventType() {
+        return eventType;
+    }
+
+    /**
+     * Returns the name of the current start or end tag
+     *
+     * @return the tag name or null if the current event isn't a tag
+     */
+    public String getName() {
+        if(nameId < 0) {
+            return null;
+        }
+        return names.getName(nameId);
+    }
+
+    /**
+     * Returns the number of tags enclosing the current event, the root tag is at depth 1
+     *
+     * @return the depth of the current event
+     */
+    public int getDepth() {
+        if(eventType == END_TAG) {
+            return depth + 1;
+        }
+        return depth;
+    }
+
+    /**
+     * Returns the text of the current text event
+     *
+     * @return the text or null if the current event isn't a text event
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Returns the number of attributes of the current start tag
+     *
+     * @return the number of attributes
+     */
+    public int getAttributeCount() {
+        return attributeCount;
+    }
+
+    /**
+     * Returns the name of the attribute at the given index
+     *
+     * @param index the index of the attribute
+     * @return the attribute name
+     */
+    public String getAttributeName(int index) {
+        return names.getName(attributeNames[index]);
+    }
+
+    /**
+     * Returns the value of the attribute at the given index
+     *
+     * @param index the index of the attribute
+     * @return the attribute value
+     */
+    public String getAttributeValue(int index) {
+        return attributeValues[index];
+    }
+
+    /**
+     * Returns the value of the attribute with the given name
+     *
+     * @param name the attribute name
+     * @return the attribute value or null if the current tag doesn't have such an attribute
+     */
+    public String getAttributeValue(String name) {
+        int id = names.find(name);
+        if(id < 0) {
+            return null;
+        }
+        for(int iter = 0 ; iter < attributeCount ; iter++) {
+            if(attributeNames[iter] == id) {
+                return attributeValues[iter];
+            }
+        }
+        return null;
+    }
+
+    int getNameId() {
+        return nameId;
+    }
+
+    int getAttributeNameId(int index) {
+        return attributeNames[index];
+    }
+
+    /**
+     * Skips the content of the current start tag, when this method returns the parser is positioned on
+     * the matching end tag
+     *
+     * @throws IOException if the reader throws an exception
+     */
+    public void skipSubtree() throws IOException {
+        if(eventType != START_TAG) {
+            throw new IllegalStateException("The parser isn't positioned on a start tag");
+        }
+        int d = depth;
+        while(next() != END_DOCUMENT) {
+            if(eventType == END_TAG && depth < d) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Parses the remainder of the document into a compact DOM
+     *
+     * @return the document
+     * @throws IOException if the reader throws an exception
+     */
+    public XMLDocument parseDocument() throws IOException {
+        XMLDocument doc = new XMLDocument(names, caseSensitive);
+        int event = next();
+        while(event != END_DOCUMENT) {
+            switch(event) {
+                case START_TAG:
+                    doc.startElement(nameId, attributeNames, attributeValues, attributeCount);
+                    break;
+                case END_TAG:
+                    doc.endElement();
+                    break;
+                default:
+                    doc.text(text);
+                    break;
+            }
+            event = next();
+        }
+        doc.finish();
+        if(doc.getRoot() == null) {
+            notifyError(ParserCallback.ERROR_NO_ROOTS, null, null, null, "XML document contains no root element.");
+        }
+        return doc;
+    }
+
+    /**
+     * Advances to the next event in the document
+     *
+     * @return the event type
+     * @throws IOException if the reader throws an exception
+     */
+    public int next() throws IOException {
+        attributeCount = 0;
+        text = null;
+        if(pendingEnds > 0) {
+            pendingEnds--;
+            depth--;
+            nameId = stack[depth];
+            eventType = END_TAG;
+            return eventType;
+        }
+        nameId = -1;
+        while(true) {
+            if(pos >= limit && !fill()) {
+                if(depth > 0) {
+                    depth--;
+                    nameId = stack[depth];
+                    notifyError(ParserCallback.ERROR_NO_CLOSE_TAG, names.getName(nameId), null, null, "Malformed XML - no appropriate closing tag for " + names.getName(nameId));
+                    eventType = END_TAG;
+                    return eventType;
+                }
+                eventType = END_DOCUMENT;
+                return eventType;
+            }
+            if(buf[pos] == '<') {
+                pos++;
+                int e = parseMarkup();
+                if(e != 0) {
+                    eventType = e;
+                    return e;
+                }
+            } else {
+                if(parseText()) {
+                    eventType = TEXT;
+                    return TEXT;
+                }
+            }
+        }
+    }
+
+    private boolean fill() throws IOException {
+        if(eof) {
+            return false;
+        }
+        int keep = 0;
+        if(mark > -1) {
+            keep = limit - mark;
+            if(keep == buf.length) {
+                char[] b = new char[buf.length * 2];
+                System.arraycopy(buf, mark, b, 0, keep);
+                buf = b;
+            } else {
+                System.arraycopy(buf, mark, buf, 0, keep);
+            }
+            mark = 0;
+        }
+        pos = keep;
+        limit = keep;
+        int n = reader.read(buf, keep, buf.length - keep);
+        while(n == 0) {
+            n = reader.read(buf, keep, buf.length - keep);
+        }
+        if(n < 0) {
+            eof = true;
+            return false;
+        }
+        limit = keep + n;
+        return true;
+    }
+
+    private int read() throws IOException {
+        if(pos >= limit && !fill()) {
+            return -1;
+        }
+        return buf[pos++];
+    }
+
+    private int peek() throws IOException {
+        if(pos >= limit && !fill()) {
+            return -1;
+        }
+        return buf[pos];
+    }
+
+    private static boolean isWhiteSpace(int ch) {
+        return ch == ' ' || ch == '\n' || ch == '\t' || ch == '\r';
+    }
+
+    private int skipWhiteSpace() throws IOException {
+        int c = peek();
+        while(isWhiteSpace(c)) {
+            pos++;
+            c = peek();
+        }
+        return c;
+    }
+
+    private boolean parseText() throws IOException {
+        StringBuilder sb = builder;
+        sb.setLength(0);
+        boolean leadingSpace = false;
+        int c = peek();
+        while(isWhiteSpace(c)) {
+            leadingSpace = true;
+            pos++;
+            c = peek();
+        }
+        if(c == -1 || c == '<') {
+            if(leadingSpace && includeWhitespacesBetweenTags && depth > 0) {
+                text = " ";
+                return true;
+            }
+            return false;
+        }
+        if(leadingSpace) {
+            sb.append(' ');
+        }
+        while(true) {
+            int start = pos;
+            char[] b = buf;
+            int l = limit;
+            while(pos < l) {
+                char ch = b[pos];
+                if(ch == '<' || ch == '&') {
+                    break;
+                }
+                pos++;
+            }
+            sb.append(b, start, pos - start);
+            if(pos < l) {
+                if(b[pos] == '<') {
+                    break;
+                }
+                pos++;
+                parseEntity(sb);
+            } else if(!fill()) {
+                break;
+            }
+        }
+        text = sb.toString();
+        return true;
+    }
+
+    private void parseEntity(StringBuilder sb) throws IOException {
+        int len = 0;
+        int c = peek();
+        while(c != -1 && len < MAX_ENTITY_LENGTH && isLegalCharEntityCharacter((char)c)) {
+            entity[len] = (char)c;
+            len++;
+            pos++;
+            c = peek();
+        }
+        if(c == ';' && len > 0) {
+            pos++;
+            char ch = xmlEntity(len);
+            if(ch != 0) {
+                sb.append(ch);
+            } else {
+                sb.append(convertCharEntity(new String(entity, 0, len)));
+            }
+            return;
+        }
+
+        // not a char entity, probably a misuse of the & character
+        sb.append('&').append(entity, 0, len);
+    }
+
+    private char xmlEntity(int len) {
+        char[] e = entity;
+        switch(len) {
+            case 2:
+                if(e[1] == 't') {
+                    if(e[0] == 'l') {
+                        return '<';
+                    }
+                    if(e[0] == 'g') {
+                        return '>';
+                    }
+                }
+                return 0;
+            case 3:
+                if(e[0] == 'a' && e[1] == 'm' && e[2] == 'p') {
+                    return '&';
+                }
+                return 0;
+            case 4:
+                if(e[0] == 'q' && e[1] == 'u' && e[2] == 'o' && e[3] == 't') {
+                    return '"';
+                }
+                if(e[0] == 'a' && e[1] == 'p' && e[2] == 'o' && e[3] == 's') {
+                    return '\'';
+                }
+                return 0;
+        }
+        return 0;
+    }
+
+    private static boolean isLegalCharEntityCharacter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '#';
+    }
+
+    /**
+     * Converts a char entity other than the 5 standard XML entities to the matching character
+     *
+     * @param charEntity the char entity without the &amp; and ;
+     * @return A string containing a single char, or the original char entity string (with &amp; and ;) if
+     * the char entity couldn't be resolved
+     */
+    protected String convertCharEntity(String charEntity) {
+        try {
+            return HTMLUtils.convertCharEntity(charEntity, false, null);
+        } catch (IllegalArgumentException iae) {
+            notifyError(ParserCallback.ERROR_UNRECOGNIZED_CHAR_ENTITY, null, null, null, "Unrecognized char entity: " + charEntity);
+            return new StringBuilder().append('&').append(charEntity).append(';').toString();
+        }
+    }
+
+    private int parseMarkup() throws IOException {
+        int c = peek();
+        switch(c) {
+            case -1:
+                return 0;
+            case '/':
+                pos++;
+                return parseEndTag();
+            case '!':
+                pos++;
+                if(skipPrefix("--")) {
+                    skipUntil("-->");
+                    return 0;
+                }
+                if(skipPrefix("[CDATA[")) {
+                    text = readUntil("]]>");
+                    return TEXT;
+                }
+                skipDeclaration();
+                return 0;
+            case '?':
+                pos++;
+                skipUntil("?>");
+                return 0;
+        }
+        skipWhiteSpace();
+        nameId = readName(!caseSensitive);
+        if(nameId < 0) {
+            return 0;
+        }
+        while(true) {
+            c = skipWhiteSpace();
+            if(c == -1) {
+                return pushTag();
+            }
+            if(c == '>') {
+                pos++;
+                return pushTag();
+            }
+            if(c == '/' || c == '?') {
+                pos++;
+                if(peek() == '>') {
+                    pos++;
+                } else {
+                    notifyError(ParserCallback.ERROR_UNEXPECTED_CHARACTER, getName(), null, null, "XML malformed - no > after /");
+                }
+                pendingEnds++;
+                return pushTag();
+            }
+            int attr = readName(false);
+            if(attr < 0) {
+                // a stray character such as '=' without an attribute name
+                pos++;
+                continue;
+            }
+            String value = "";
+            c = skipWhiteSpace();
+            if(c == '=') {
+                pos++;
+                value = readAttributeValue();
+            } else {
+                notifyError(ParserCallback.ERROR_UNEXPECTED_CHARACTER, getName(), names.getName(attr), null, "Expected '=' after attribute " + names.getName(attr) + " in tag " + getName());
+            }
+            addAttribute(attr, value);
+        }
+    }
+
+    private int pushTag() {
+        if(depth == stack.length) {
+            int[] s = new int[depth * 2];
+            System.arraycopy(stack, 0, s, 0, depth);
+            stack = s;
+        }
+        stack[depth] = nameId;
+        depth++;
+        return START_TAG;
+    }
+
+    private void addAttribute(int attr, String value) {
+        if(attributeCount == attributeNames.length) {
+            int[] n = new int[attributeCount * 2];
+            System.arraycopy(attributeNames, 0, n, 0, attributeCount);
+            attributeNames = n;
+            String[] v = new String[attributeCount * 2];
+            System.arraycopy(attributeValues, 0, v, 0, attributeCount);
+            attributeValues = v;
+        }
+        attributeNames[attributeCount] = attr;
+        attributeValues[attributeCount] = value;
+        attributeCount++;
+    }
+
+    private int parseEndTag() throws IOException {
+        skipWhiteSpace();
+        int id = readName(!caseSensitive);
+        int c = read();
+        while(c != -1 && c != '>') {
+            c = read();
+        }
+        if(id < 0) {
+            return 0;
+        }
+        for(int iter = depth - 1 ; iter >= 0 ; iter--) {
+            if(stack[iter] == id) {
+                for(int e = depth - 1 ; e > iter ; e--) {
+                    notifyError(ParserCallback.ERROR_NO_CLOSE_TAG, names.getName(stack[e]), null, null, "Malformed XML - no appropriate closing tag for " + names.getName(stack[e]));
+                }
+                pendingEnds = depth - 1 - iter;
+                depth--;
+                nameId = stack[depth];
+                return END_TAG;
+            }
+        }
+        notifyError(ParserCallback.ERROR_NO_CLOSE_TAG, names.getName(id), null, null, "Malformed XML - closing tag " + names.getName(id) + " doesn't match an open tag");
+        return 0;
+    }
+
+    /**
+     * Reads a name directly from the buffer and interns it, returns -1 if there is no name at the current
+     * position
+     */
+    private int readName(boolean lowerCase) throws IOException {
+        if(pos >= limit && !fill()) {
+            return -1;
+        }
+        mark = pos;
+        while(true) {
+            while(pos < limit) {
+                char ch = buf[pos];
+                if(ch == '>' || ch == '/' || ch == '=' || isWhiteSpace(ch) || (ch == '?' && pos > mark)) {
+                    return internMarked();
+                }
+                if(lowerCase && ch >= 'A' && ch <= 'Z') {
+                    buf[pos] = (char)(ch + 32);
+                } else if(lowerCase && ch > 127) {
+                    buf[pos] = Character.toLowerCase(ch);
+                }
+                pos++;
+            }
+            if(!fill()) {
+                return internMarked();
+            }
+        }
+    }
+
+    private int internMarked() {
+        int start = mark;
+        mark = -1;
+        if(pos == start) {
+            return -1;
+        }
+        return names.intern(buf, start, pos - start);
+    }
+
+    private String readAttributeValue() throws IOException {
+        int quote = skipWhiteSpace();
+        if(quote == '"' || quote == '\'') {
+            pos++;
+        } else {
+            quote = -1;
+        }
+        StringBuilder sb = builder;
+        sb.setLength(0);
+        while(true) {
+            int start = pos;
+            char[] b = buf;
+            int l = limit;
+            while(pos < l) {
+                char ch = b[pos];
+                if(ch == quote || ch == '&' || (quote < 0 && (ch == '>' || ch == '/' || isWhiteSpace(ch)))) {
+                    break;
+                }
+                pos++;
+            }
+            sb.append(b, start, pos - start);
+            if(pos < l) {
+                char ch = b[pos];
+                if(ch == '&') {
+                    pos++;
+                    parseEntity(sb);
+                    continue;
+                }
+                if(ch == quote) {
+                    pos++;
+                }
+                break;
+            }
+            if(!fill()) {
+                break;
+            }
+        }
+        return sb.toString();
+    }
+
+    private boolean skipPrefix(String prefix) throws IOException {
+        int len = prefix.length();
+        for(int iter = 0 ; iter < len ; iter++) {
+            if(peek() != prefix.charAt(iter)) {
+                return false;
+            }
+            pos++;
+        }
+        return true;
+    }
+
+    private void skipUntil(String end) throws IOException {
+        int len = end.length();
+        char[] recent = new char[len];
+        int count = 0;
+        int c = read();
+        while(c != -1) {
+            System.arraycopy(recent, 1, recent, 0, len - 1);
+            recent[len - 1] = (char)c;
+            count++;
+            if(count >= len && end.equals(new String(recent))) {
+                return;
+            }
+            c = read();
+        }
+    }
+
+    private String readUntil(String end) throws IOException {
+        StringBuilder sb = builder;
+        sb.setLength(0);
+        int len = end.length();
+        int c = read();
+        while(c != -1) {
+            sb.append((char)c);
+            int l = sb.length();
+            if(c == end.charAt(len - 1) && l >= len && sb.charAt(l - len) == end.charAt(0)) {
+                boolean found = true;
+                for(int iter = 1 ; iter < len - 1 ; iter++) {
+                    if(sb.charAt(l - len + iter) != end.charAt(iter)) {
+                        found = false;
+                        break;
+                    }
+                }
+                if(found) {
+                    sb.setLength(l - len);
+                    break;
+                }
+            }
+            c = read();
+        }
+        return sb.toString();
+    }
+
+    private void skipDeclaration() throws IOException {
+        // doctypes can contain an internal subset in square brackets which might include '>'
+        int brackets = 0;
+        int c = read();
+        while(c != -1) {
+            if(c == '[') {
+                brackets++;
+            } else if(c == ']') {
+                brackets--;
+            } else if(c == '>' && brackets <= 0) {
+                return;
+            }
+            c = read();
+        }
+    }
+
+    private void notifyError(int errorId, String tag, String attribute, String value, String description) {
+        if(parserCallback != null) {
+            if(!parserCallback.parsingError(errorId, tag, attribute, value, description)) {
+                throw new IllegalArgumentException(description);
+            }
+        }
+    }
+}
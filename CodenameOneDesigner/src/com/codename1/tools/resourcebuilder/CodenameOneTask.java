@@ -26,11 +26,16 @@ package com.codename1.tools.resourcebuilder;
 
 import com.codename1.ui.Display;
 import com.codename1.ui.util.EditableResources;
+import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.taskdefs.MatchingTask;
 
@@ -54,6 +59,9 @@ public class CodenameOneTask extends MatchingTask {
     static final byte MAGIC_DATA = (byte)0xFA;
 
     private File dest;
+    private File cacheDir;
+    private boolean parallel;
+    private boolean timing;
     private List<ResourceTask> resources = new ArrayList<ResourceTask>();
 
     private boolean changed() {
@@ -92,10 +100,19 @@ public class CodenameOneTask extends MatchingTask {
             for(ResourceTask task : resources) {
                 task.addToResources(output);
             }
+            output.setParallelSave(parallel);
+            BuildCache cache = null;
+            if(cacheDir != null || timing) {
+                cache = new BuildCache();
+                output.setEntryCache(cache);
+            }
 
             resFile = new DataOutputStream(new FileOutputStream(dest));
             output.save(resFile);
             resFile.close();
+            if(cache != null && timing) {
+                cache.printTiming();
+            }
         } catch (Exception ex) {
             ex.printStackTrace();
             throw new BuildException("Error in building file", ex);
@@ -132,6 +149,124 @@ public class CodenameOneTask extends MatchingTask {
         resources.add(task);
     }
 
+    /**
+     * The directory in which encoded entries are cached between builds, entries whose source files and
+     * attributes didn't change are copied from the cache instead of being encoded again
+     */
+    public File getCacheDir() {
+        return cacheDir;
+    }
+
+    public void setCacheDir(File cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    /**
+     * Indicates whether images are encoded concurrently, defaults to false
+     */
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Indicates whether the time spent on every entry is printed, defaults to false
+     */
+    public boolean isTiming() {
+        return timing;
+    }
+
+    public void setTiming(boolean timing) {
+        this.timing = timing;
+    }
+
+    /**
+     * Maps resource names to the cache files of their encoded form and collects the time spent on
+     * every entry
+     */
+    class BuildCache implements EditableResources.EntryCache {
+        private final Map<String, File> cacheFiles = new HashMap<String, File>();
+        private final List<String> report = new ArrayList<String>();
+        private long encodingTime;
+        private int hits;
+
+        BuildCache() throws IOException {
+            if(cacheDir != null) {
+                cacheDir.mkdirs();
+                for(ResourceTask task : resources) {
+                    String key = task.getCacheKey();
+                    if(key != null && task.getName() != null) {
+                        cacheFiles.put(task.getName(), new File(cacheDir, key + ".entry"));
+                    }
+                }
+            }
+        }
+
+        public byte[] getEncodedEntry(String name) {
+            File f = cacheFiles.get(name);
+            if(f == null || !f.exists()) {
+                return null;
+            }
+            try {
+                byte[] data = new byte[(int)f.length()];
+                DataInputStream input = new DataInputStream(new FileInputStream(f));
+                try {
+                    input.readFully(data);
+                } finally {
+                    input.close();
+                }
+                return data;
+            } catch(IOException err) {
+                // a broken cache entry is simply encoded again
+                System.out.println("Failed to read cache entry " + f + ": " + err);
+                return null;
+            }
+        }
+
+        public void entryEncoded(String name, byte[] data, long time, boolean cached) {
+            synchronized(this) {
+                if(cached) {
+                    hits++;
+                    report.add(name + ": cached");
+                } else {
+                    encodingTime += time;
+                    report.add(name + ": " + time + "ms");
+                }
+            }
+            File f = cacheFiles.get(name);
+            if(cached || f == null) {
+                return;
+            }
+
+            // write to a temporary file first so an interrupted build doesn't leave a truncated entry
+            File tmp = new File(f.getParentFile(), f.getName() + "." + Thread.currentThread().getId() + ".tmp");
+            try {
+                FileOutputStream out = new FileOutputStream(tmp);
+                try {
+                    out.write(data);
+                } finally {
+                    out.close();
+                }
+                if(!tmp.renameTo(f)) {
+                    tmp.delete();
+                }
+            } catch(IOException err) {
+                System.out.println("Failed to write cache entry " + f + ": " + err);
+                tmp.delete();
+            }
+        }
+
+        synchronized void printTiming() {
+            for(String s : report) {
+                System.out.println("  " + s);
+            }
+            System.out.println(report.size() + " entries, " + hits + " taken from the cache, " + encodingTime + "ms spent encoding");
+        }
+    }
+
     public File getDest() {
         return dest;
     }
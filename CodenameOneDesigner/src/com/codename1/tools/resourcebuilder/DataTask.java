@@ -54,6 +54,11 @@ public class DataTask extends ResourceTask {
         }
     }
 
+    @Override
+    public String getCacheKey() throws IOException {
+        return hashSources("");
+    }
+
     @Override
     public void addToResources(EditableResources e) throws IOException {
         byte[] data = new byte[(int)file.length()];
@@ -55,6 +55,11 @@ public class ImageTask extends ResourceTask {
         }
     }
 
+    @Override
+    public String getCacheKey() throws IOException {
+        return hashSources("");
+    }
+
     @Override
     public void addToResources(EditableResources e) throws IOException {
         Image i;
@@ -27,7 +27,13 @@ package com.codename1.tools.resourcebuilder;
 import com.codename1.ui.util.EditableResources;
 import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import org.apache.tools.ant.Task;
 
 /**
@@ -36,6 +42,11 @@ import org.apache.tools.ant.Task;
  * @author Shai Almog
  */
 public abstract class ResourceTask extends Task {
+    /**
+     * Part of every cache key, must be incremented whenever the encoding of cached entries changes
+     */
+    private static final int CACHE_FORMAT_VERSION = 1;
+    
     private String name;
     
     public abstract void addToResources(EditableResources e) throws IOException;
@@ -59,4 +70,85 @@ public abstract class ResourceTask extends Task {
         }
         return null;
     }
+
+    /**
+     * Returns a key identifying the encoded form of this resource, resources whose key didn't change
+     * between builds are taken from the build cache instead of being encoded again. Tasks whose output
+     * depends on anything other than their source files and attributes must return null.
+     *
+     * @return the cache key or null if the resource can't be cached
+     * @throws IOException if the source files can't be read
+     */
+    public String getCacheKey() throws IOException {
+        return null;
+    }
+
+    /**
+     * Hashes the given attributes and the content of the source files into a cache key
+     *
+     * @param attributes the attributes of the task that affect the encoded resource
+     * @return a hex SHA-1 hash
+     * @throws IOException if the source files can't be read
+     */
+    protected String hashSources(String attributes) throws IOException {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-1");
+            md.update(getToolVersion().getBytes("UTF-8"));
+            md.update(getClass().getName().getBytes("UTF-8"));
+            md.update(attributes.getBytes("UTF-8"));
+            File[] files = getFiles();
+            if(files != null) {
+                byte[] buffer = new byte[8192];
+                for(File f : files) {
+                    InputStream i = new FileInputStream(f);
+                    try {
+                        int size = i.read(buffer);
+                        while(size > -1) {
+                            md.update(buffer, 0, size);
+                            size = i.read(buffer);
+                        }
+                    } finally {
+                        i.close();
+                    }
+                }
+            }
+            byte[] digest = md.digest();
+            StringBuilder sb = new StringBuilder();
+            for(byte b : digest) {
+                String h = Integer.toHexString(b & 0xff);
+                if(h.length() == 1) {
+                    sb.append('0');
+                }
+                sb.append(h);
+            }
+            return sb.toString();
+        } catch(NoSuchAlgorithmException err) {
+            throw new IOException(err);
+        }
+    }
+
+    /**
+     * Identifies the format of the cached entries and the build of the encoder so entries cached by
+     * another version of the tool are encoded again
+     */
+    private static String getToolVersion() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(CACHE_FORMAT_VERSION);
+        CodeSource src = EditableResources.class.getProtectionDomain().getCodeSource();
+        if(src != null && src.getLocation() != null) {
+            URL u = src.getLocation();
+            sb.append('|');
+            sb.append(u);
+            if("file".equals(u.getProtocol())) {
+                File f = new File(u.getPath());
+                if(f.isFile()) {
+                    sb.append('|');
+                    sb.append(f.length());
+                    sb.append('|');
+                    sb.append(f.lastModified());
+                }
+            }
+        }
+        return sb.toString();
+    }
 }
@@ -43,6 +43,10 @@ public class SvgTask extends ResourceTask {
     private boolean fallback = true;
     
     
+    public File getSrc() {
+        return file;
+    }
+    
     public File getFile() {
         return file;
     }
@@ -54,6 +58,11 @@ public class SvgTask extends ResourceTask {
         }
     }
 
+    @Override
+    public String getCacheKey() throws IOException {
+        return hashSources(baseUrl + "|" + animated + "|" + fallback);
+    }
+
     @Override
     public void addToResources(EditableResources e) throws IOException {
         byte[] data = new byte[(int)file.length()];
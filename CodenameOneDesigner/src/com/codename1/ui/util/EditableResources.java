@@ -88,6 +88,10 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import javax.imageio.ImageIO;
 import javax.swing.Icon;
 import javax.swing.JComponent;
@@ -117,6 +121,32 @@ public class EditableResources extends Resources implements TreeModel {
     
     private boolean ignoreSVGMode;
     private boolean ignorePNGMode;
+    private boolean parallelSave;
+    private EntryCache entryCache;
+
+    /**
+     * Allows the resource builder to reuse the encoded form of entries whose source didn't change
+     * and to track the time spent encoding every entry when saving
+     */
+    public static interface EntryCache {
+        /**
+         * Returns the previously encoded body of the entry (the data following its magic number and name)
+         *
+         * @param name the name of the resource
+         * @return the encoded body or null if the entry should be encoded
+         */
+        public byte[] getEncodedEntry(String name);
+
+        /**
+         * Invoked for every entry once its body is available, this might be invoked from a pool thread
+         *
+         * @param name the name of the resource
+         * @param data the encoded body
+         * @param time the time in milliseconds spent encoding the entry
+         * @param cached true if the body was returned by getEncodedEntry
+         */
+        public void entryEncoded(String name, byte[] data, long time, boolean cached);
+    }
 
     private EditableResources overrideResource;
     private File overrideFile;
@@ -1579,23 +1609,10 @@ public class EditableResources extends Resources implements TreeModel {
             // currently resource file meta-data isn't supported
             output.writeShort(0);
 
+            byte[][] bodies = encodeEntries(resourceNames);
             for(int iter = 0 ; iter < resourceNames.length ; iter++) {
                 // write the magic number
-                byte magic = getResourceType(resourceNames[iter]);
-                switch(magic) {
-                    case MAGIC_TIMELINE:
-                    case MAGIC_ANIMATION_LEGACY:
-                    case MAGIC_IMAGE_LEGACY:
-                    case MAGIC_INDEXED_IMAGE_LEGACY:
-                        magic = MAGIC_IMAGE;
-                        break;
-                    case MAGIC_THEME_LEGACY:
-                        magic = MAGIC_THEME;
-                        break;
-                    case MAGIC_FONT_LEGACY:
-                        magic = MAGIC_FONT;
-                        break;
-                }
+                byte magic = getSaveMagic(resourceNames[iter]);
                 if(currentPassword != null) {
                     output.writeByte(encode(magic & 0xff));
                     char[] chars = resourceNames[iter].toCharArray();
@@ -1607,53 +1624,7 @@ public class EditableResources extends Resources implements TreeModel {
                     output.writeByte(magic);
                     output.writeUTF(resourceNames[iter]);
                 }
-                switch(magic) {
-                    case MAGIC_IMAGE:
-                        Object o = getResourceObject(resourceNames[iter]);
-                        if(!(o instanceof MultiImage)) {
-                            o = null;
-                        }
-                        saveImage(output, getImage(resourceNames[iter]), (MultiImage)o, BufferedImage.TYPE_INT_ARGB);
-                        continue;
-                    case MAGIC_THEME:
-                        saveTheme(output, getTheme(resourceNames[iter]), magic == MAGIC_THEME_LEGACY);
-                        continue;
-                    case MAGIC_FONT:
-                        saveFont(output, false, resourceNames[iter]);
-                        continue;
-                    case MAGIC_DATA: {
-                        InputStream i = getData(resourceNames[iter]);
-                        ByteArrayOutputStream outArray = new ByteArrayOutputStream();
-                        int val = i.read();
-                        while(val != -1) {
-                            outArray.write(val);
-                            val = i.read();
-                        }
-                        byte[] data = outArray.toByteArray();
-                        output.writeInt(data.length);
-                        output.write(data);
-                        continue;
-                    }
-                    case MAGIC_UI: {
-                        InputStream i = getUi(resourceNames[iter]);
-                        ByteArrayOutputStream outArray = new ByteArrayOutputStream();
-                        int val = i.read();
-                        while(val != -1) {
-                            outArray.write(val);
-                            val = i.read();
-                        }
-                        byte[] data = outArray.toByteArray();
-                        output.writeInt(data.length);
-                        output.write(data);
-                        continue;
-                    }
-                    case MAGIC_L10N:
-                        // we are getting the theme which allows us to acces the l10n data
-                        saveL10N(output, getTheme(resourceNames[iter]));
-                        continue;
-                    default:
-                        throw new IOException("Corrupt theme file unrecognized magic number: " + Integer.toHexString(magic & 0xff));
-                }
+                output.write(bodies[iter]);
             }
             modified = false;
             updateModified();
@@ -1665,6 +1636,169 @@ public class EditableResources extends Resources implements TreeModel {
         }
     }
 
+    /**
+     * When enabled images are encoded concurrently on a fork join pool during save, the resulting file is
+     * identical to a serial save
+     *
+     * @param parallelSave true to encode images concurrently
+     */
+    public void setParallelSave(boolean parallelSave) {
+        this.parallelSave = parallelSave;
+    }
+
+    /**
+     * Indicates whether images are encoded concurrently during save
+     *
+     * @return true if images are encoded concurrently
+     */
+    public boolean isParallelSave() {
+        return parallelSave;
+    }
+
+    /**
+     * Sets the cache used to reuse encoded entries during save
+     *
+     * @param entryCache the cache or null
+     */
+    public void setEntryCache(EntryCache entryCache) {
+        this.entryCache = entryCache;
+    }
+
+    private byte getSaveMagic(String name) {
+        byte magic = getResourceType(name);
+        switch(magic) {
+            case MAGIC_TIMELINE:
+            case MAGIC_ANIMATION_LEGACY:
+            case MAGIC_IMAGE_LEGACY:
+            case MAGIC_INDEXED_IMAGE_LEGACY:
+                return MAGIC_IMAGE;
+            case MAGIC_THEME_LEGACY:
+                return MAGIC_THEME;
+            case MAGIC_FONT_LEGACY:
+                return MAGIC_FONT;
+        }
+        return magic;
+    }
+
+    /**
+     * Encodes the bodies of all the entries, images are encoded on a pool when parallel save is on and
+     * the other entries are encoded on the calling thread in the meantime. The bodies are written in order
+     * by save so the result doesn't depend on the order in which they were encoded.
+     */
+    private byte[][] encodeEntries(final String[] resourceNames) throws IOException {
+        final byte[][] bodies = new byte[resourceNames.length][];
+        ForkJoinPool pool = null;
+        ForkJoinTask[] tasks = null;
+        try {
+            for(int iter = 0 ; iter < resourceNames.length ; iter++) {
+                final String name = resourceNames[iter];
+                final byte magic = getSaveMagic(name);
+                if(entryCache != null) {
+                    byte[] cached = entryCache.getEncodedEntry(name);
+                    if(cached != null) {
+                        bodies[iter] = cached;
+                        entryCache.entryEncoded(name, cached, 0, true);
+                        continue;
+                    }
+                }
+                if(parallelSave && magic == MAGIC_IMAGE) {
+                    if(pool == null) {
+                        pool = new ForkJoinPool();
+                        tasks = new ForkJoinTask[resourceNames.length];
+                    }
+                    tasks[iter] = pool.submit(new Callable<byte[]>() {
+                        public byte[] call() throws Exception {
+                            return encodeEntry(name, magic);
+                        }
+                    });
+                    continue;
+                }
+                bodies[iter] = encodeEntry(name, magic);
+            }
+            if(tasks != null) {
+                for(int iter = 0 ; iter < tasks.length ; iter++) {
+                    if(tasks[iter] != null) {
+                        bodies[iter] = (byte[])tasks[iter].get();
+                    }
+                }
+            }
+        } catch(InterruptedException err) {
+            throw new IOException("Interrupted while encoding resources", err);
+        } catch(ExecutionException err) {
+            if(err.getCause() instanceof IOException) {
+                throw (IOException)err.getCause();
+            }
+            if(err.getCause() instanceof RuntimeException) {
+                throw (RuntimeException)err.getCause();
+            }
+            throw new IOException(err.getCause());
+        } finally {
+            if(pool != null) {
+                pool.shutdown();
+            }
+        }
+        return bodies;
+    }
+
+    private byte[] encodeEntry(String name, byte magic) throws IOException {
+        long time = System.currentTimeMillis();
+        ByteArrayOutputStream bo = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bo);
+        switch(magic) {
+            case MAGIC_IMAGE:
+                Object o = getResourceObject(name);
+                if(!(o instanceof MultiImage)) {
+                    o = null;
+                }
+                saveImage(output, getImage(name), (MultiImage)o, BufferedImage.TYPE_INT_ARGB);
+                break;
+            case MAGIC_THEME:
+                saveTheme(output, getTheme(name), magic == MAGIC_THEME_LEGACY);
+                break;
+            case MAGIC_FONT:
+                saveFont(output, false, name);
+                break;
+            case MAGIC_DATA: {
+                InputStream i = getData(name);
+                ByteArrayOutputStream outArray = new ByteArrayOutputStream();
+                int val = i.read();
+                while(val != -1) {
+                    outArray.write(val);
+                    val = i.read();
+                }
+                byte[] data = outArray.toByteArray();
+                output.writeInt(data.length);
+                output.write(data);
+                break;
+            }
+            case MAGIC_UI: {
+                InputStream i = getUi(name);
+                ByteArrayOutputStream outArray = new ByteArrayOutputStream();
+                int val = i.read();
+                while(val != -1) {
+                    outArray.write(val);
+                    val = i.read();
+                }
+                byte[] data = outArray.toByteArray();
+                output.writeInt(data.length);
+                output.write(data);
+                break;
+            }
+            case MAGIC_L10N:
+                // we are getting the theme which allows us to acces the l10n data
+                saveL10N(output, getTheme(name));
+                break;
+            default:
+                throw new IOException("Corrupt theme file unrecognized magic number: " + Integer.toHexString(magic & 0xff));
+        }
+        output.close();
+        byte[] body = bo.toByteArray();
+        if(entryCache != null) {
+            entryCache.entryEncoded(name, body, System.currentTimeMillis() - time, false);
+        }
+        return body;
+    }
+
     private void removeMultiConstants(Hashtable h) {
         for(Object k : h.keySet()) {
             String key = (String)k;
@@ -1711,6 +1845,22 @@ public class EditableResources extends Resources implements TreeModel {
         return super.getUi(id);
     }
 
+    /**
+     * Returns the raw data of the ui resource from the file
+     *
+     * @param id name of the ui resource
+     * @return the data of the ui resource or null if it doesn't exist
+     */
+    byte[] getUiData(String id) {
+        if(overrideResource != null) {
+            byte[] h = overrideResource.getUiData(id);
+            if(h != null) {
+                return h;
+            }
+        }
+        return super.getUiData(id);
+    }
+
     public Hashtable<String, Object> getTheme(String id) {
         try {
             if (overrideResource != null) {
@@ -2398,7 +2548,7 @@ public class EditableResources extends Resources implements TreeModel {
         return com.codename1.ui.EncodedImage.create(byteOut.toByteArray());
     }
 
-    private MultiImage svgToMulti(Image image) throws IOException {
+    private MultiImage svgToMulti(final Image image) throws IOException {
         SVG s = (SVG)image.getSVGDocument();
         MultiImage mi = new MultiImage();
         mi.dpi = s.getDpis();
@@ -2408,6 +2558,33 @@ public class EditableResources extends Resources implements TreeModel {
             return mi;
         }
         mi.internalImages = new com.codename1.ui.EncodedImage[mi.dpi.length];
+        if(parallelSave && ForkJoinTask.inForkJoinPool() && mi.dpi.length > 1) {
+            // we are already encoding on the pool, scale the DPI variants as subtasks
+            List<ForkJoinTask<com.codename1.ui.EncodedImage>> scaled = new ArrayList<ForkJoinTask<com.codename1.ui.EncodedImage>>();
+            for(int iter = 0 ; iter < mi.dpi.length ; iter++) {
+                final int w = s.getWidthForDPI()[iter];
+                final int h = s.getHeightForDPI()[iter];
+                scaled.add(ForkJoinTask.adapt(new Callable<com.codename1.ui.EncodedImage>() {
+                    public com.codename1.ui.EncodedImage call() throws Exception {
+                        return toEncodedImage(image.scaled(w, h));
+                    }
+                }));
+            }
+            ForkJoinTask.invokeAll(scaled);
+            for(int iter = 0 ; iter < mi.dpi.length ; iter++) {
+                try {
+                    mi.internalImages[iter] = scaled.get(iter).get();
+                } catch(InterruptedException err) {
+                    throw new IOException("Interrupted while scaling " + iter, err);
+                } catch(ExecutionException err) {
+                    if(err.getCause() instanceof IOException) {
+                        throw (IOException)err.getCause();
+                    }
+                    throw new IOException(err.getCause());
+                }
+            }
+            return mi;
+        }
         for(int iter = 0 ; iter < mi.dpi.length ; iter++) {
             Image currentImage = image.scaled(s.getWidthForDPI()[iter], s.getHeightForDPI()[iter]);
             mi.internalImages[iter] = toEncodedImage(currentImage);
@@ -942,6 +942,10 @@ public class BlackBerryImplementation extends CodenameOneImplementation {
         return font(nativeFont).getAdvance(str);
     }
 
+    public boolean isFontKerning(Object nativeFont) {
+        return false;
+    }
+
     public int charWidth(Object nativeFont, char ch) {
         return font(nativeFont).getAdvance(ch);
     }
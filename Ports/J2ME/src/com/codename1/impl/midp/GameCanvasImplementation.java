@@ -1415,6 +1415,13 @@ public class GameCanvasImplementation extends CodenameOneImplementation {
         return font(nativeFont).stringWidth(str);
     }
 
+    /**
+     * @inheritDoc
+     */
+    public boolean isFontKerning(Object nativeFont) {
+        return false;
+    }
+
     /**
      * @inheritDoc
      */
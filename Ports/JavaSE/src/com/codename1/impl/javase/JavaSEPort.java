@@ -27,6 +27,7 @@ import com.codename1.background.BackgroundFetch;
 import com.codename1.cloud.CloudObjectConsole;
 import com.codename1.contacts.Address;
 import com.codename1.contacts.Contact;
+import com.codename1.contacts.ContactsManager;
 import com.codename1.db.Database;
 import com.codename1.messaging.Message;
 import com.codename1.ui.Component;
@@ -34,6 +35,7 @@ import com.codename1.ui.Display;
 import com.codename1.ui.Font;
 import com.codename1.ui.Form;
 import com.codename1.ui.Graphics;
+import com.codename1.ui.GraphicsCommandBuffer;
 import com.codename1.ui.Image;
 import com.codename1.ui.VirtualKeyboard;
 import com.codename1.impl.CodenameOneImplementation;
@@ -321,6 +323,23 @@ public class JavaSEPort extends CodenameOneImplementation {
     private Hashtable contacts;
     private static boolean designMode;
     
+    /**
+     * Indicates whether drawing onto the screen is recorded into a command buffer and replayed
+     * when the frame is flushed instead of being performed immediately
+     * @return the deferredRendering
+     */
+    public static boolean isDeferredRendering() {
+        return deferredRendering;
+    }
+
+    /**
+     * Toggles deferred rendering of the screen, this must be set before the display is initialized
+     * @param aDeferredRendering the deferredRendering to set
+     */
+    public static void setDeferredRendering(boolean aDeferredRendering) {
+        deferredRendering = aDeferredRendering;
+    }
+
     /**
      * @return the showEDTWarnings
      */
@@ -397,6 +416,9 @@ public class JavaSEPort extends CodenameOneImplementation {
     private JFrame window;
     private long lastIdleTime;
     private static boolean showEDTWarnings = true;
+    private static boolean deferredRendering = "true".equals(System.getProperty("cn1.deferredRendering"));
+    private NativeScreenGraphics deferredScreenGraphics;
+    private int deferredAllocations;
     private static boolean showEDTViolationStacks = false;
     private boolean inInit;
     private boolean showMenu = true;
@@ -2924,6 +2946,7 @@ public class JavaSEPort extends CodenameOneImplementation {
                 float w1 = ((float) canvas.getWidth()) / ((float) getSkin().getWidth());
                 float h1 = ((float) canvas.getHeight()) / ((float) getSkin().getHeight());
                 zoomLevel = Math.min(h1, w1);
+                Font.clearMetricsCache();
                 Display.getInstance().setCommandBehavior(Display.COMMAND_BEHAVIOR_DEFAULT);
                 deepRevaliate(Display.getInstance().getCurrent());
 
@@ -3756,6 +3779,7 @@ public class JavaSEPort extends CodenameOneImplementation {
             checkEDT();
             checkLastFrame();
         }
+        replayDeferredFrame();
         canvas.blit(x, y, width, height);
     }
 
@@ -3767,6 +3791,7 @@ public class JavaSEPort extends CodenameOneImplementation {
             checkEDT();
             checkLastFrame();
         }
+        replayDeferredFrame();
         canvas.blit();
     }
 
@@ -4156,6 +4181,11 @@ public class JavaSEPort extends CodenameOneImplementation {
      */
     public void setNativeFont(Object graphics, Object font) {
         checkEDT();
+        GraphicsCommandBuffer commands = recordingCommands(graphics);
+        if (commands != null) {
+            commands.setNativeFont(font);
+            return;
+        }
         Graphics2D nativeGraphics = getGraphics(graphics);
         nativeGraphics.setFont(font(font));
     }
@@ -4165,6 +4195,10 @@ public class JavaSEPort extends CodenameOneImplementation {
      */
     public int getClipX(Object graphics) {
         checkEDT();
+        GraphicsCommandBuffer commands = recordingCommands(graphics);
+        if (commands != null && commands.isClipKnown()) {
+            return commands.getClipX();
+        }
         Graphics2D nativeGraphics = getGraphics(graphics);
         java.awt.Rectangle r = nativeGraphics.getClipBounds();
         if (r == null) {
@@ -4178,6 +4212,10 @@ public class JavaSEPort extends CodenameOneImplementation {
      */
     public int getClipY(Object graphics) {
         checkEDT();
+        GraphicsCommandBuffer commands = recordingCommands(graphics);
+        if (commands != null && commands.isClipKnown()) {
+            return commands.getClipY();
+        }
         Graphics2D nativeGraphics = getGraphics(graphics);
         java.awt.Rectangle r = nativeGraphics.getClipBounds();
         if (r == null) {
@@ -4191,6 +4229,10 @@ public class JavaSEPort extends CodenameOneImplementation {
      */
     public int getClipWidth(Object graphics) {
         checkEDT();
+        GraphicsCommandBuffer commands = recordingCommands(graphics);
+        if (commands != null && commands.isClipKnown()) {
+            return commands.getClipWidth();
+        }
         Graphics2D nativeGraphics = getGraphics(graphics);
         java.awt.Rectangle r = nativeGraphics.getClipBounds();
         if (r == null) {
@@ -4210,6 +4252,10 @@ public class JavaSEPort extends CodenameOneImplementation {
      */
     public int getClipHeight(Object graphics) {
         checkEDT();
+        GraphicsCommandBuffer commands = recordingCommands(graphics);
+        if (commands != null && commands.isClipKnown()) {
+            return commands.getClipHeight();
+        }
         Graphics2D nativeGraphics = getGraphics(graphics);
         java.awt.Rectangle r = nativeGraphics.getClipBounds();
         if (r == null) {
@@ -4229,6 +4275,11 @@ public class JavaSEPort extends CodenameOneImplementation {
      */
     public void setClip(Object graphics, int x, int y, int width, int height) {
         checkEDT();
+        GraphicsCommandBuffer commands = recordingCommands(graphics);
+        if (commands != null) {
+            commands.setClip(x, y, width, height);
+            return;
+        }
         Graphics2D nativeGraphics = getGraphics(graphics);
         nativeGraphics.setClip(x, y, width, height);        
         if (perfMonitor != null) {
@@ -4258,6 +4309,11 @@ public class JavaSEPort extends CodenameOneImplementation {
      */
     public void clipRect(Object graphics, int x, int y, int width, int height) {
         checkEDT();
+        GraphicsCommandBuffer commands = recordingCommands(graphics);
+        if (commands != null) {
+            commands.clipRect(x, y, width, height);
+            return;
+        }
         Graphics2D nativeGraphics = getGraphics(graphics);
         nativeGraphics.clipRect(x, y, width, height);
         if (perfMonitor != null) {
@@ -4310,6 +4366,11 @@ public class JavaSEPort extends CodenameOneImplementation {
      */
     public void drawLine(Object graphics, int x1, int y1, int x2, int y2) {
         checkEDT();
+        GraphicsCommandBuffer commands = recordingCommands(graphics);
+        if (commands != null) {
+            commands.drawLine(x1, y1, x2, y2);
+            return;
+        }
         Graphics2D nativeGraphics = getGraphics(graphics);
         nativeGraphics.drawLine(x1, y1, x2, y2);
         if (perfMonitor != null) {
@@ -4322,6 +4383,11 @@ public class JavaSEPort extends CodenameOneImplementation {
      */
     public void fillRect(Object graphics, int x, int y, int w, int h) {
         checkEDT();
+        GraphicsCommandBuffer commands = recordingCommands(graphics);
+        if (commands != null) {
+            commands.fillRect(x, y, w, h);
+            return;
+        }
         Graphics2D nativeGraphics = getGraphics(graphics);
         nativeGraphics.fillRect(x, y, w, h);
         if (perfMonitor != null) {
@@ -4342,6 +4408,11 @@ public class JavaSEPort extends CodenameOneImplementation {
      */
     public void drawRect(Object graphics, int x, int y, int width, int height) {
         checkEDT();
+        GraphicsCommandBuffer commands = recordingCommands(graphics);
+        if (commands != null) {
+            commands.drawRect(x, y, width, height);
+            return;
+        }
         Graphics2D nativeGraphics = getGraphics(graphics);
         nativeGraphics.drawRect(x, y, width, height);
         if (perfMonitor != null) {
@@ -4354,6 +4425,11 @@ public class JavaSEPort extends CodenameOneImplementation {
      */
     public void drawRoundRect(Object graphics, int x, int y, int width, int height, int arcWidth, int arcHeight) {
         checkEDT();
+        GraphicsCommandBuffer commands = recordingCommands(graphics);
+        if (commands != null) {
+            commands.drawRoundRect(x, y, width, height, arcWidth, arcHeight);
+            return;
+        }
         Graphics2D nativeGraphics = getGraphics(graphics);
         nativeGraphics.drawRoundRect(x, y, width, height, arcWidth, arcHeight);
         if (perfMonitor != null) {
@@ -4366,6 +4442,11 @@ public class JavaSEPort extends CodenameOneImplementation {
      */
     public void fillRoundRect(Object graphics, int x, int y, int width, int height, int arcWidth, int arcHeight) {
         checkEDT();
+        GraphicsCommandBuffer commands = recordingCommands(graphics);
+        if (commands != null) {
+            commands.fillRoundRect(x, y, width, height, arcWidth, arcHeight);
+            return;
+        }
         Graphics2D nativeGraphics = getGraphics(graphics);
         nativeGraphics.fillRoundRect(x, y, width, height, arcWidth, arcHeight);
         if (perfMonitor != null) {
@@ -4378,6 +4459,11 @@ public class JavaSEPort extends CodenameOneImplementation {
      */
     public void fillArc(Object graphics, int x, int y, int width, int height, int startAngle, int arcAngle) {
         checkEDT();
+        GraphicsCommandBuffer commands = recordingCommands(graphics);
+        if (commands != null) {
+            commands.fillArc(x, y, width, height, startAngle, arcAngle);
+            return;
+        }
         Graphics2D nativeGraphics = getGraphics(graphics);
         nativeGraphics.fillArc(x, y, width, height, startAngle, arcAngle);
         if (perfMonitor != null) {
@@ -4388,6 +4474,11 @@ public class JavaSEPort extends CodenameOneImplementation {
     @Override
     public void fillRadialGradient(Object graphics, int startColor, int endColor, int x, int y, int width, int height) {
         checkEDT();
+        GraphicsCommandBuffer commands = recordingCommands(graphics);
+        if (commands != null) {
+            commands.fillRadialGradient(startColor, endColor, x, y, width, height);
+            return;
+        }
         Graphics2D nativeGraphics = (Graphics2D)getGraphics(graphics).create();
         Paint p = new RadialGradientPaint(x+width/2, y+height/2, width/2, new float[]{0,1}, new Color[]{new Color(startColor), new Color(endColor)});
         nativeGraphics.setPaint(p);
@@ -4401,6 +4492,11 @@ public class JavaSEPort extends CodenameOneImplementation {
      */
     public void drawArc(Object graphics, int x, int y, int width, int height, int startAngle, int arcAngle) {
         checkEDT();
+        GraphicsCommandBuffer commands = recordingCommands(graphics);
+        if (commands != null) {
+            commands.drawArc(x, y, width, height, startAngle, arcAngle);
+            return;
+        }
         Graphics2D nativeGraphics = getGraphics(graphics);
         nativeGraphics.drawArc(x, y, width, height, startAngle, arcAngle);
         if (perfMonitor != null) {
@@ -4413,6 +4509,11 @@ public class JavaSEPort extends CodenameOneImplementation {
      */
     public void setColor(Object graphics, int RGB) {
         checkEDT();
+        GraphicsCommandBuffer commands = recordingCommands(graphics);
+        if (commands != null) {
+            commands.setColor(RGB);
+            return;
+        }
         Graphics2D nativeGraphics = getGraphics(graphics);
         nativeGraphics.setColor(new Color(RGB));
         if (perfMonitor != null) {
@@ -4425,6 +4526,10 @@ public class JavaSEPort extends CodenameOneImplementation {
      */
     public int getColor(Object graphics) {
         checkEDT();
+        GraphicsCommandBuffer commands = recordingCommands(graphics);
+        if (commands != null && commands.isColorKnown()) {
+            return commands.getColor();
+        }
         Graphics2D nativeGraphics = getGraphics(graphics);
         return nativeGraphics.getColor().getRGB();
     }
@@ -4437,6 +4542,11 @@ public class JavaSEPort extends CodenameOneImplementation {
             throw new IllegalArgumentException("Invalid value for alpha: " + alpha);
         }
         checkEDT();
+        GraphicsCommandBuffer commands = recordingCommands(graphics);
+        if (commands != null) {
+            commands.setAlpha(alpha);
+            return;
+        }
         Graphics2D nativeGraphics = getGraphics(graphics);
         float a = ((float) alpha) / 255.0f;
         nativeGraphics.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, a));
@@ -4450,6 +4560,10 @@ public class JavaSEPort extends CodenameOneImplementation {
      */
     public int getAlpha(Object graphics) {
         checkEDT();
+        GraphicsCommandBuffer commands = recordingCommands(graphics);
+        if (commands != null && commands.isAlphaKnown()) {
+            return commands.getAlpha();
+        }
         Graphics2D nativeGraphics = getGraphics(graphics);
         Object c = nativeGraphics.getComposite();
         if (c != null && c instanceof AlphaComposite) {
@@ -4463,6 +4577,11 @@ public class JavaSEPort extends CodenameOneImplementation {
      */
     public void drawString(Object graphics, String str, int x, int y) {
         checkEDT();
+        GraphicsCommandBuffer commands = recordingCommands(graphics);
+        if (commands != null) {
+            commands.drawString(str, x, y);
+            return;
+        }
         Graphics2D nativeGraphics = getGraphics(graphics);
         // the latter indicates mutable image graphics
         if (zoomLevel != 1 && nativeGraphics  != graphics) {
@@ -4494,6 +4613,11 @@ public class JavaSEPort extends CodenameOneImplementation {
      */
     public void drawImage(Object graphics, Object img, int x, int y) {
         checkEDT();
+        GraphicsCommandBuffer commands = recordingCommands(graphics);
+        if (commands != null) {
+            commands.drawImage(img, x, y);
+            return;
+        }
         Graphics2D nativeGraphics = getGraphics(graphics);
         nativeGraphics.drawImage((BufferedImage) img, x, y, null);
         if (perfMonitor != null) {
@@ -4506,6 +4630,11 @@ public class JavaSEPort extends CodenameOneImplementation {
      */
     public void drawImage(Object graphics, Object img, int x, int y, int w, int h) {
         checkEDT();
+        GraphicsCommandBuffer commands = recordingCommands(graphics);
+        if (commands != null) {
+            commands.drawImage(img, x, y, w, h);
+            return;
+        }
         Graphics2D nativeGraphics = getGraphics(graphics);
         nativeGraphics.drawImage((BufferedImage) img, x, y, w, h, null);
         if (perfMonitor != null) {
@@ -4518,6 +4647,11 @@ public class JavaSEPort extends CodenameOneImplementation {
      */
     public void fillTriangle(Object graphics, int x1, int y1, int x2, int y2, int x3, int y3) {
         checkEDT();
+        GraphicsCommandBuffer commands = recordingCommands(graphics);
+        if (commands != null) {
+            commands.fillTriangle(x1, y1, x2, y2, x3, y3);
+            return;
+        }
         Graphics2D nativeGraphics = getGraphics(graphics);
         nativeGraphics.fillPolygon(new int[]{x1, x2, x3}, new int[]{y1, y2, y3}, 3);
         if (perfMonitor != null) {
@@ -4531,6 +4665,11 @@ public class JavaSEPort extends CodenameOneImplementation {
      */
     public void drawRGB(Object graphics, int[] rgbData, int offset, int x, int y, int w, int h, boolean processAlpha) {
         checkEDT();
+        GraphicsCommandBuffer commands = recordingCommands(graphics);
+        if (commands != null) {
+            commands.drawRGB(rgbData, offset, x, y, w, h, processAlpha);
+            return;
+        }
         Graphics2D nativeGraphics = getGraphics(graphics);
         if (cache == null || cache.getWidth() != w || cache.getHeight() != h) {
             cache = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
@@ -4546,7 +4685,12 @@ public class JavaSEPort extends CodenameOneImplementation {
      * @inheritDoc
      */
     public Object getNativeGraphics() {
-        return new NativeScreenGraphics();
+        NativeScreenGraphics ng = new NativeScreenGraphics();
+        if (deferredRendering) {
+            ng.commands = new GraphicsCommandBuffer();
+            deferredScreenGraphics = ng;
+        }
+        return ng;
     }
 
     /**
@@ -5488,6 +5632,11 @@ public class JavaSEPort extends CodenameOneImplementation {
      */
     public void fillPolygon(Object graphics, int[] xPoints, int[] yPoints, int nPoints) {
         checkEDT();
+        GraphicsCommandBuffer commands = recordingCommands(graphics);
+        if (commands != null) {
+            commands.fillPolygon(xPoints, yPoints, nPoints);
+            return;
+        }
         Graphics2D nativeGraphics = getGraphics(graphics);
         nativeGraphics.fillPolygon(xPoints, yPoints, nPoints);
     }
@@ -5497,6 +5646,11 @@ public class JavaSEPort extends CodenameOneImplementation {
      */
     public void drawPolygon(Object graphics, int[] xPoints, int[] yPoints, int nPoints) {
         checkEDT();
+        GraphicsCommandBuffer commands = recordingCommands(graphics);
+        if (commands != null) {
+            commands.drawPolygon(xPoints, yPoints, nPoints);
+            return;
+        }
         Graphics2D nativeGraphics = getGraphics(graphics);
         nativeGraphics.drawPolygon(xPoints, yPoints, nPoints);
     }
@@ -5654,6 +5808,9 @@ public class JavaSEPort extends CodenameOneImplementation {
         if (ng.sourceImage != null) {
             return ng.sourceImage.createGraphics();
         }
+        
+        // an operation that can't be deferred must first draw everything recorded before it
+        replayCommands(ng);
         Graphics2D g2d = canvas.getGraphics2D();
         g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
         return g2d;
@@ -5848,6 +6005,57 @@ public class JavaSEPort extends CodenameOneImplementation {
         Graphics2D cachedGraphics;
         Transform transform;
         LinkedList<Shape> clipStack = new LinkedList<Shape>();
+        GraphicsCommandBuffer commands;
+        boolean replaying;
+    }
+    
+    /**
+     * Returns the command buffer into which drawing operations on the given graphics should be
+     * recorded or null if the operation should be performed immediately
+     */
+    private GraphicsCommandBuffer recordingCommands(Object graphics) {
+        if (graphics instanceof NativeScreenGraphics) {
+            NativeScreenGraphics ng = (NativeScreenGraphics) graphics;
+            if (ng.commands != null && !ng.replaying) {
+                return ng.commands;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Replays the frame recorded into the screen command buffer, the performance monitor log
+     * shows the size of the frame and whether recording it required any allocations
+     */
+    private void replayDeferredFrame() {
+        NativeScreenGraphics ng = deferredScreenGraphics;
+        if (ng == null) {
+            return;
+        }
+        GraphicsCommandBuffer commands = ng.commands;
+        if (perfMonitor != null && !commands.isEmpty()) {
+            int allocations = commands.getAllocationCount() - deferredAllocations;
+            perfMonitor.printToLog("Deferred frame: " + commands.getCommandCount() + " commands, " + 
+                    commands.getCoalescedCount() + " coalesced, " + allocations + " allocations");
+        }
+        deferredAllocations = commands.getAllocationCount();
+        replayCommands(ng);
+    }
+
+    /**
+     * Replays the pending deferred drawing commands onto the screen buffer
+     */
+    private void replayCommands(NativeScreenGraphics ng) {
+        if (ng == null || ng.commands == null || ng.commands.isEmpty() || ng.replaying) {
+            return;
+        }
+        ng.replaying = true;
+        try {
+            ng.commands.replay(this, ng);
+        } finally {
+            ng.replaying = false;
+            ng.commands.reset();
+        }
     }
     
     private Object lastNativeGraphics;
@@ -6754,6 +6962,45 @@ public class JavaSEPort extends CodenameOneImplementation {
         return c;
     }
 
+    @Override
+    public Contact[] getContacts(String[] ids, int offset, int count, int fields) {
+        if(!checkForPermission("android.permission.READ_CONTACTS", "This is required to get the contacts")){
+            return new Contact[0];
+        }
+        if(contacts == null){
+            contacts = initContacts();
+        }
+        count = Math.max(0, Math.min(count, ids.length - offset));
+        Contact[] retVal = new Contact[count];
+        for(int iter = 0 ; iter < count ; iter++) {
+            Contact contact = (Contact) contacts.get(ids[offset + iter]);
+            if(contact == null) {
+                continue;
+            }
+            Contact c = new Contact();
+            c.setId(contact.getId());
+            c.setDisplayName(contact.getDisplayName());
+            if((fields & ContactsManager.FIELD_NAME) != 0) {
+                c.setFirstName(contact.getFirstName());
+                c.setFamilyName(contact.getFamilyName());
+            }
+            if((fields & ContactsManager.FIELD_PICTURE) != 0) {
+                c.setPhoto(contact.getPhoto());
+            }
+            if((fields & ContactsManager.FIELD_NUMBERS) != 0) {
+                c.setPhoneNumbers(contact.getPhoneNumbers());
+            }
+            if((fields & ContactsManager.FIELD_EMAILS) != 0) {
+                c.setEmails(contact.getEmails());
+            }
+            if((fields & ContactsManager.FIELD_ADDRESSES) != 0) {
+                c.setAddresses(contact.getAddresses());
+            }
+            retVal[iter] = c;
+        }
+        return retVal;
+    }
+
     public String createContact(String firstName, String familyName, String officePhone, String homePhone, String cellPhone, String email) {
         if(!checkForPermission("android.permission.WRITE_CONTACTS", "This is required to create a contact")){
             return null;
@@ -8245,6 +8492,34 @@ public class JavaSEPort extends CodenameOneImplementation {
         contact.setAddresses(addresses);
         retVal.put(contact.getId(), contact);
 
+        // a large simulated address book for testing the performance of contact lists
+        int simulated = 0;
+        try {
+            simulated = Integer.parseInt(System.getProperty("cn1.simulatedContacts", "0"));
+        } catch(NumberFormatException err) {
+        }
+        String[] firstNames = {"Ada", "Ben", "Carla", "Dan", "Eve", "Frank", "Gil", "Hana", "Ido", "Jane"};
+        String[] familyNames = {"Levi", "Smith", "Cohen", "Brown", "Katz", "Miller", "Stone", "Green"};
+        for(int iter = retVal.size() + 1 ; iter <= simulated ; iter++) {
+            contact = new Contact();
+            contact.setId(String.valueOf(iter));
+            String first = firstNames[iter % firstNames.length];
+            String family = familyNames[(iter / firstNames.length) % familyNames.length];
+            contact.setFirstName(first);
+            contact.setFamilyName(family);
+            contact.setDisplayName(first + " " + family + " " + iter);
+            if(iter % 3 == 0) {
+                contact.setPhoto(img);
+            }
+            phones = new Hashtable();
+            phones.put("mobile", "+1555" + iter);
+            contact.setPhoneNumbers(phones);
+            emails = new Hashtable();
+            emails.put("work", first + "." + family + iter + "@codenameone.com");
+            contact.setEmails(emails);
+            retVal.put(contact.getId(), contact);
+        }
+
         return retVal;
 
     }
@@ -393,12 +393,38 @@ public class PerformanceMonitor extends javax.swing.JFrame {
                         // data collected
                         trackDrawing = false;
                         renderedItems.setModel(createTableModel());
+                        printFontMetricsCacheStats();
+                        printImageCacheStats();
                     }
                 });
             }
         });
     }//GEN-LAST:event_refreshFrameActionPerformed
     
+    private void printFontMetricsCacheStats() {
+        int hits = com.codename1.ui.Font.getMetricsCacheHits();
+        int misses = com.codename1.ui.Font.getMetricsCacheMisses();
+        int total = hits + misses;
+        if(total > 0) {
+            printToLog("Font metrics cache: " + hits + " hits, " + misses + " misses (" + (hits * 100 / total) + "% hit rate)");
+        }
+        com.codename1.ui.Font.resetMetricsCacheCounters();
+    }
+
+    private void printImageCacheStats() {
+        com.codename1.ui.ImageCache c = com.codename1.ui.ImageCache.getInstance();
+        int hits = c.getHits();
+        int misses = c.getMisses();
+        int total = hits + misses;
+        String rate = "";
+        if(total > 0) {
+            rate = ", " + (hits * 100 / total) + "% hit rate";
+        }
+        printToLog("Image cache: " + c.getEntryCount() + " images, " + (c.getSizeBytes() / 1024) + "kb of " + 
+                (c.getMaxBytes() / 1024) + "kb, " + c.getEvictions() + " evictions" + rate);
+        c.resetCounters();
+    }
+
     private void refreshComponentStatsTable(Component c) {
         TableModel tm = (TableModel)c.getClientProperty("track");
         if(tm != null) {
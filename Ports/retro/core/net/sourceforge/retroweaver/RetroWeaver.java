@@ -1,6 +1,5 @@
 package net.sourceforge.retroweaver;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileFilter;
@@ -9,12 +8,19 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.jar.JarOutputStream;
@@ -70,6 +76,22 @@ public class RetroWeaver {
 
 	private RefVerifier verifier;
 
+	private int threads = Runtime.getRuntime().availableProcessors();
+
+	private File cacheDir;
+
+	private String configurationKey;
+
+	private final List<NameSpace> nameSpaces = new ArrayList<NameSpace>();
+
+	private int processedClassCount;
+
+	private long processedBytes;
+
+	private int cacheHits;
+
+	private long startTime;
+
 	private static final String newLine = System.getProperty("line.separator");
 
 	public RetroWeaver(int target) {
@@ -103,6 +125,10 @@ public class RetroWeaver {
 	}
 
 	private void displayStartMessage(int n) {
+		processedClassCount = 0;
+		processedBytes = 0;
+		cacheHits = 0;
+		startTime = System.currentTimeMillis();
 		if (n > 0) {
 			listener.weavingStarted("Processing " + n + (n == 1?" class":" classes"));
 		}
@@ -110,7 +136,106 @@ public class RetroWeaver {
 
 	private void displayEndMessage() {
 		if (weavedClassCount > 0) {
-			listener.weavingCompleted(Integer.toString(weavedClassCount) + (weavedClassCount == 1?" class":" classes") + " weaved.");
+			long time = Math.max(1, System.currentTimeMillis() - startTime);
+			int processed = processedClassCount;
+			listener.weavingCompleted(Integer.toString(weavedClassCount) + (weavedClassCount == 1?" class":" classes") + " weaved. "
+					+ processed + " classes (" + (processedBytes / 1024) + "KB) processed in " + time + "ms, "
+					+ (processed * 1000L / time) + " classes/s, " + (processedBytes * 1000L / 1024 / time) + "KB/s"
+					+ (cacheDir != null ? ", " + cacheHits + " taken from the cache" : "") + ".");
+		}
+	}
+
+	/**
+	 * A unit of work of a weaving run, the class is weaved on a pool thread and the result is written
+	 * on the calling thread in the order in which the jobs were created
+	 */
+	private abstract static class WeaveJob {
+		byte[] source;
+		byte[] weaved;
+
+		/**
+		 * Reads the source of the job and weaves it, invoked on a pool thread
+		 */
+		abstract void weave() throws IOException;
+
+		/**
+		 * Writes the result, invoked on the calling thread in order
+		 */
+		abstract void write() throws IOException;
+	}
+
+	private void runJobs(List<WeaveJob> jobs) throws IOException {
+		int size = jobs.size();
+		if (threads <= 1 || size < 2) {
+			for (WeaveJob job : jobs) {
+				job.weave();
+				job.write();
+			}
+			return;
+		}
+
+		// listeners aren't required to be thread safe
+		WeaveListener originalListener = listener;
+		listener = new SynchronizedWeaveListener(originalListener);
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			// only a window of jobs is submitted ahead so the weaved classes don't pile up in memory
+			int window = threads * 4;
+			List<Future<?>> futures = new ArrayList<Future<?>>(size);
+			int submitted = 0;
+			for (int i = 0; i < size; i++) {
+				while (submitted < size && submitted < i + window) {
+					final WeaveJob job = jobs.get(submitted);
+					futures.add(pool.submit(new Callable<Object>() {
+						public Object call() throws IOException {
+							job.weave();
+							return null;
+						}
+					}));
+					submitted++;
+				}
+				try {
+					futures.get(i).get();
+				} catch (InterruptedException e) {
+					throw new RetroWeaverException("Weaving interrupted");
+				} catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (cause instanceof IOException) {
+						throw (IOException) cause;
+					}
+					if (cause instanceof RuntimeException) {
+						throw (RuntimeException) cause;
+					}
+					throw new RetroWeaverException(cause);
+				}
+				futures.set(i, null);
+				WeaveJob job = jobs.get(i);
+				job.write();
+				jobs.set(i, null);
+			}
+		} finally {
+			pool.shutdownNow();
+			listener = originalListener;
+		}
+	}
+
+	private static byte[] readFully(InputStream is) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		byte[] buf = new byte[8192];
+		int len = is.read(buf);
+		while (len >= 0) {
+			bos.write(buf, 0, len);
+			len = is.read(buf);
+		}
+		return bos.toByteArray();
+	}
+
+	private static byte[] readFile(File f) throws IOException {
+		InputStream is = new FileInputStream(f);
+		try {
+			return readFully(is);
+		} finally {
+			is.close();
 		}
 	}
 
@@ -125,12 +250,13 @@ public class RetroWeaver {
 		}
 		displayStartMessage(n);
 
+		List<WeaveJob> jobs = new ArrayList<WeaveJob>(n);
 		for (int i = 0; i < fileSets.size(); i++) {
 			for (File file : fileSets.get(i)) {
-				String sourcePath = file.getCanonicalPath();
-				weave(sourcePath, null);
+				jobs.add(new FileWeaveJob(file.getCanonicalPath(), null));
 			}
 		}
+		runJobs(jobs);
 		displayEndMessage();
 
 		if (verifier != null) {
@@ -148,6 +274,7 @@ public class RetroWeaver {
 		displayStartMessage(n);
 
 		Set<String> weaved = new HashSet<String>();
+		List<WeaveJob> jobs = new ArrayList<WeaveJob>(n);
 		for (int i = 0; i < fileSets.length; i++) {
 			for (String fileName : fileSets[i]) {
 				File file = new File(baseDirs[i], fileName);
@@ -159,11 +286,12 @@ public class RetroWeaver {
 				}
 				// Weave it unless already weaved.
 				if (!weaved.contains(sourcePath)) {
-					weave(sourcePath, outputPath);
+					jobs.add(new FileWeaveJob(sourcePath, outputPath));
 					weaved.add(sourcePath);
 				}
 			}
 		}
+		runJobs(jobs);
 		displayEndMessage();
 
 		if (verifier != null) {
@@ -174,11 +302,11 @@ public class RetroWeaver {
 
 	public void weaveJarFile(String sourceJarFileName, String destJarFileName)
 			throws IOException {
-		JarFile jarFile = new JarFile(sourceJarFileName);
+		final JarFile jarFile = new JarFile(sourceJarFileName);
 		ArrayList<JarEntry> entries = Collections.list(jarFile.entries());
 
 		OutputStream os = new FileOutputStream(destJarFileName);
-		JarOutputStream out = new JarOutputStream(os);
+		final JarOutputStream out = new JarOutputStream(os);
 
 		int n = 0;
 		for (JarEntry entry : entries) {
@@ -188,40 +316,38 @@ public class RetroWeaver {
 		}
 		displayStartMessage(n);
 
-		for (JarEntry entry : entries) {
-			String name = entry.getName();
-			InputStream dataStream = null;
-			if (name.endsWith(".class")) {
-				// weave class
-				InputStream is = jarFile.getInputStream(entry);
-				ByteArrayOutputStream classStream = new ByteArrayOutputStream();
-				if (weave(is, name, classStream)) {
-					// class file was modified
-					weavedClassCount++;
-
-					dataStream = new ByteArrayInputStream(classStream
-							.toByteArray());
-
-					// create new entry
-					entry = new JarEntry(name);
-					recordFileForVerifier(name);
+		// the entries are weaved concurrently but written in their original order
+		List<WeaveJob> jobs = new ArrayList<WeaveJob>(entries.size());
+		for (final JarEntry entry : entries) {
+			final String name = entry.getName();
+			jobs.add(new WeaveJob() {
+				void weave() throws IOException {
+					InputStream is = jarFile.getInputStream(entry);
+					try {
+						source = readFully(is);
+					} finally {
+						is.close();
+					}
+					if (name.endsWith(".class")) {
+						weaved = weaveClass(source, name);
+					}
 				}
-			}
 
-			if (dataStream == null) {
-				// not a class file or class wasn't no
-				dataStream = jarFile.getInputStream(entry);
-			}
-			// writing entry
-			out.putNextEntry(new JarEntry(name));
-
-			// writing data
-			int len;
-			final byte[] buf = new byte[1024];
-			while ((len = dataStream.read(buf)) >= 0) {
-				out.write(buf, 0, len);
-			}
+				void write() throws IOException {
+					byte[] data = source;
+					if (weaved != null) {
+						// class file was modified
+						weavedClassCount++;
+						data = weaved;
+						recordFileForVerifier(name);
+					}
+					// writing entry
+					out.putNextEntry(new JarEntry(name));
+					out.write(data);
+				}
+			});
 		}
+		runJobs(jobs);
 		out.close();
 		jarFile.close();
 
@@ -234,10 +360,27 @@ public class RetroWeaver {
 	}
 
 	public void weave(String sourcePath, String outputPath) throws IOException {
-		InputStream is = new FileInputStream(sourcePath);
-		try {
-			ByteArrayOutputStream bos = new ByteArrayOutputStream();
-			if (weave(is, sourcePath, bos)) {
+		FileWeaveJob job = new FileWeaveJob(sourcePath, outputPath);
+		job.weave();
+		job.write();
+	}
+
+	private class FileWeaveJob extends WeaveJob {
+		private final String sourcePath;
+		private final String outputPath;
+
+		FileWeaveJob(String sourcePath, String outputPath) {
+			this.sourcePath = sourcePath;
+			this.outputPath = outputPath;
+		}
+
+		void weave() throws IOException {
+			source = readFile(new File(sourcePath));
+			weaved = weaveClass(source, sourcePath);
+		}
+
+		void write() throws IOException {
+			if (weaved != null) {
 				// new class was generated
 				weavedClassCount++;
 
@@ -254,7 +397,7 @@ public class RetroWeaver {
 					}
 				}
 				FileOutputStream fos = new FileOutputStream(path);
-				fos.write(bos.toByteArray());
+				fos.write(weaved);
 				fos.close();
 				
 				recordFileForVerifier(path);
@@ -278,21 +421,12 @@ public class RetroWeaver {
 						|| !of.getCanonicalPath().equals(sf.getCanonicalPath())) {
 					// Target doesn't exist or is different from source so copy
 					// the file and transfer utime.
-					FileInputStream fis = new FileInputStream(sf);
-					byte[] bytes = new byte[(int) sf.length()];
-					fis.read(bytes);
-					fis.close();
 					FileOutputStream fos = new FileOutputStream(of);
-					fos.write(bytes);
+					fos.write(source);
 					fos.close();
 					of.setLastModified(sf.lastModified());
 				}
 			}
-		} finally {
-			try {
-				is.close();
-			} catch (IOException e) { // NOPMD by xlv
-			}
 		}
 	}
 
@@ -308,7 +442,7 @@ public class RetroWeaver {
 		new RetroWeaverAttribute(Weaver.getBuildNumber(), Weaver.VERSION_1_5)
 	};
 
-	private boolean classpathChecked;
+	private volatile boolean classpathChecked;
 	
 	private boolean isRuntimeInClassPath() {
 		if (!classpathChecked) {
@@ -325,20 +459,55 @@ public class RetroWeaver {
 
 	protected boolean weave(InputStream sourceStream, String fileName, ByteArrayOutputStream bos)
 			throws IOException {
+		byte[] weaved = weaveClass(readFully(sourceStream), fileName);
+		if (weaved == null) {
+			return false;
+		}
+		bos.write(weaved);
+		return true;
+	}
 
+	/**
+	 * Weaves a single class, this method is invoked concurrently from the weaving pool
+	 *
+	 * @return the weaved class or null if the class wasn't modified
+	 */
+	protected byte[] weaveClass(byte[] source, String fileName) throws IOException {
 		if (!isRuntimeInClassPath()) {
-			return false;
+			return null;
+		}
+		synchronized (this) {
+			processedClassCount++;
+			processedBytes += source.length;
 		}
 
-        ClassReader cr = new ClassReader(sourceStream);
+		File cacheFile = null;
+		if (cacheDir != null) {
+			cacheFile = new File(cacheDir, getCacheKey(source) + ".class");
+			if (cacheFile.isFile()) {
+				// an empty entry marks a class that is left unchanged
+				byte[] cached = readFile(cacheFile);
+				synchronized (this) {
+					cacheHits++;
+				}
+				if (cached.length == 0) {
+					return null;
+				}
+				return cached;
+			}
+		}
+
+        ClassReader cr = new ClassReader(source);
         ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
 
+        byte[] result;
         try {
         	// chain class visitors
         	ClassVisitor classVisitor = cw;
-        	ConstantPool cp;
+        	ConstantPool cp = null;
             if (COMPACT_CONSTANTS) {
-                cp = new ConstantPool();
+                cp = CONSTANT_POOLS.get();
+                cp.clear();
                 classVisitor = new ClassConstantsCollector(classVisitor, cp);
             }
             classVisitor = new NameTranslatorClassVisitor(classVisitor, NameTranslator.getGeneralTranslator());
@@ -359,8 +528,9 @@ public class RetroWeaver {
         	cr.accept(classVisitor, CUSTOM_ATTRIBUTES, ClassReader.EXPAND_FRAMES);      	
 
             if (COMPACT_CONSTANTS) {
-            	Set<Constant> constants = new TreeSet<Constant>(new ConstantComparator());
-            	constants.addAll(cp.values());
+            	Constant[] constants = cp.values().toArray(new Constant[cp.size()]);
+            	Arrays.sort(constants, CONSTANT_COMPARATOR);
+            	cp.clear();
 
             	cr = new ClassReader(cw.toByteArray());
                 cw = new ClassWriter(0);
@@ -370,22 +540,108 @@ public class RetroWeaver {
                 cr.accept(cw, 0);
             }
 
-        	bos.write(cw.toByteArray());
-        	return true;
+        	result = cw.toByteArray();
         } catch (TranslatorException te) {
         	listener.weavingError(te.getMessage());
-        	return false;
+        	return null;
         } catch (LazyException e) {
-        	return false;
+        	result = null;
+        }
+        if (cacheFile != null) {
+        	writeCacheFile(cacheFile, result);
         }
+        return result;
  	}
 
+	private static final ThreadLocal<ConstantPool> CONSTANT_POOLS = new ThreadLocal<ConstantPool>() {
+		protected ConstantPool initialValue() {
+			return new ConstantPool();
+		}
+	};
+
+	private static final ConstantComparator CONSTANT_COMPARATOR = new ConstantComparator();
+
+	private String getCacheKey(byte[] source) throws IOException {
+		try {
+			MessageDigest md = MessageDigest.getInstance("SHA-1");
+			md.update(getConfigurationKey().getBytes("UTF-8"));
+			md.update(source);
+			byte[] digest = md.digest();
+			StringBuilder sb = new StringBuilder();
+			for (byte b : digest) {
+				String h = Integer.toHexString(b & 0xff);
+				if (h.length() == 1) {
+					sb.append('0');
+				}
+				sb.append(h);
+			}
+			return sb.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new RetroWeaverException(e);
+		}
+	}
+
+	/**
+	 * The options that affect the weaved result, a change in any of them invalidates the cache
+	 */
+	private synchronized String getConfigurationKey() {
+		if (configurationKey == null) {
+			StringBuilder sb = new StringBuilder();
+			sb.append(Weaver.getBuildNumber()).append('|').append(target).append('|').append(lazy).append('|')
+					.append(stripSignatures).append('|').append(stripAttributes);
+			for (NameSpace n : nameSpaces) {
+				sb.append('|').append(n.getOldPrefix()).append('>').append(n.getNewPrefix());
+			}
+			configurationKey = sb.toString();
+		}
+		return configurationKey;
+	}
+
+	private static void writeCacheFile(File cacheFile, byte[] data) {
+		// write to a temporary file first so concurrent builds never see a truncated entry
+		File tmp = new File(cacheFile.getParentFile(), cacheFile.getName() + "." + Thread.currentThread().getId() + ".tmp");
+		try {
+			FileOutputStream fos = new FileOutputStream(tmp);
+			try {
+				if (data != null) {
+					fos.write(data);
+				}
+			} finally {
+				fos.close();
+			}
+			if (!tmp.renameTo(cacheFile)) {
+				tmp.delete();
+			}
+		} catch (IOException e) {
+			tmp.delete();
+		}
+	}
+
+	/**
+	 * Sets the number of threads used to weave classes, defaults to the number of available processors
+	 */
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	/**
+	 * Sets the directory in which weaved classes are cached by the hash of their content, classes
+	 * that were already weaved with the same options are taken from the cache
+	 */
+	public void setCacheDir(File cacheDir) {
+		this.cacheDir = cacheDir;
+		if (cacheDir != null) {
+			cacheDir.mkdirs();
+		}
+	}
+
 	public void setListener(WeaveListener listener) {
 		this.listener = listener;
 	}
 
 	public void setLazy(boolean lazy) {
 		this.lazy = lazy;
+		configurationKey = null;
 	}
 
 	public void setVerifier(RefVerifier verifier) {
@@ -425,6 +681,7 @@ public class RetroWeaver {
 	 */
 	public void setStripSignatures(boolean stripSignatures) {
 		this.stripSignatures = stripSignatures;
+		configurationKey = null;
 	}
 
 	/**
@@ -432,6 +689,7 @@ public class RetroWeaver {
 	 */
 	public void setStripAttributes(boolean stripAttributes) {
 		this.stripAttributes = stripAttributes;
+		configurationKey = null;
 	}
 	
 	public void addNameSpaces(List<NameSpace> nameSpaces) {
@@ -439,6 +697,8 @@ public class RetroWeaver {
 		for(NameSpace n: nameSpaces) {
 			translator.addNameSpace(n);
 		}
+		this.nameSpaces.addAll(nameSpaces);
+		configurationKey = null;
 	}
 
 }
@@ -446,6 +706,30 @@ public class RetroWeaver {
 class LazyException extends RuntimeException {
 }
 
+class SynchronizedWeaveListener implements WeaveListener {
+	private final WeaveListener listener;
+
+	SynchronizedWeaveListener(WeaveListener listener) {
+		this.listener = listener;
+	}
+
+	public synchronized void weavingStarted(String msg) {
+		listener.weavingStarted(msg);
+	}
+
+	public synchronized void weavingPath(String sourcePath) {
+		listener.weavingPath(sourcePath);
+	}
+
+	public synchronized void weavingCompleted(String msg) {
+		listener.weavingCompleted(msg);
+	}
+
+	public synchronized void weavingError(String msg) {
+		listener.weavingError(msg);
+	}
+}
+
 class ClassWeaver extends ClassAdapter implements Opcodes {
 
     private final boolean lazy;
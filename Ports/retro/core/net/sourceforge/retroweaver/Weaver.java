@@ -71,6 +71,8 @@ public class Weaver {
 		boolean stripAttributes = true;
 		boolean verbose = true;
 		String verifyPath = null;
+		int threads = Runtime.getRuntime().availableProcessors();
+		String cacheDir = null;
 		List<NameSpace> namespaces = new ArrayList<NameSpace>();
 		
 		while (currentArg < args.length) {
@@ -120,6 +122,21 @@ public class Weaver {
 				verbose = true;
 			} else if (command.equals("-verifyrefs")) {
 				verifyPath = args[currentArg++];
+			} else if (command.equals("-threads")) {
+				String threadStr = args[currentArg++];
+				try {
+					threads = Integer.parseInt(threadStr);
+				} catch (NumberFormatException e) {
+					threads = 0;
+				}
+				if (threads < 1) {
+					System.out.println("Invalid number of threads: " + threadStr); // NOPMD by xlv
+					System.out.println(); // NOPMD by xlv
+					System.out.println(getUsage()); // NOPMD by xlv
+					System.exit(1);
+				}
+			} else if (command.equals("-cache")) {
+				cacheDir = args[currentArg++];
 			} else {
 				System.out.println("I don't understand the command: " + command); // NOPMD by xlv
 				System.out.println(); // NOPMD by xlv
@@ -150,6 +167,10 @@ public class Weaver {
 		weaver.setStripSignatures(stripSignatures);
 		weaver.setStripAttributes(stripAttributes);
 		weaver.addNameSpaces(namespaces);
+		weaver.setThreads(threads);
+		if (cacheDir != null) {
+			weaver.setCacheDir(new File(cacheDir));
+		}
 
 		if (verifyPath != null) {
 			List<String> paths = new ArrayList<String>();
@@ -190,6 +211,8 @@ public class Weaver {
 				+ " -stripSignatures (strip generic signatures, off by default)" + nl
 				+ " -stripAttributes (strip custom attributes, off by default)" + nl
 				+ " -verbose (message for each processed class)" + nl
+				+ " -threads <count> (number of weaving threads, default is the number of processors)" + nl
+				+ " -cache <dir> (reuse classes weaved by previous runs with the same options)" + nl
 				+ " -version (display version number and exit)" + nl + nl
 				+ "One of \"-source\" or \"-jar\" is required.";
 	}
@@ -39,13 +39,13 @@ public class ConstantComparator implements Comparator<Constant>, Serializable {
             if (d == 0) {
                 switch (c1.type) {
                     case 'I':
-                        return new Integer(c1.intVal).compareTo(new Integer(c2.intVal)); // NOPMD by xlv
+                        return c1.intVal < c2.intVal ? -1 : (c1.intVal == c2.intVal ? 0 : 1);
                     case 'J':
-                        return new Long(c1.longVal).compareTo(new Long(c2.longVal));
+                        return c1.longVal < c2.longVal ? -1 : (c1.longVal == c2.longVal ? 0 : 1);
                     case 'F':
-                        return new Float(c1.floatVal).compareTo(new Float(c2.floatVal));
+                        return Float.compare(c1.floatVal, c2.floatVal);
                     case 'D':
-                        return new Double(c1.doubleVal).compareTo(new Double(c2.doubleVal));
+                        return Double.compare(c1.doubleVal, c2.doubleVal);
                     case 's':
                     case 'S':
                     case 'C':
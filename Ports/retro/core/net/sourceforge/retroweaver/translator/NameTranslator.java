@@ -1,10 +1,10 @@
 
 package net.sourceforge.retroweaver.translator;
 
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import net.sourceforge.retroweaver.RetroWeaverException;
 
@@ -70,7 +70,8 @@ public class NameTranslator {
 
 	private final List<NameSpace> namespaces = new LinkedList<NameSpace>();
 
-	private final Map<String, Mirror> mirrors = new HashMap<String, Mirror>();
+	// classes are weaved concurrently so the lookups are shared between threads
+	private final Map<String, Mirror> mirrors = new ConcurrentHashMap<String, Mirror>();
 
 	private static final NameTranslator generalTranslator ;
 
@@ -987,6 +987,9 @@ public class ByteCodeClass {
         for(ByteCodeField bf : fields) {
             if(!bf.isStaticField()) {
                 b.append("    ");
+                if(bf.isVolatile()) {
+                    b.append("volatile ");
+                }
                 b.append(bf.getCDefinition());
                 b.append(" ");
                 b.append(clsName);
@@ -42,6 +42,7 @@ public class ByteCodeField {
     private String type;
     private Class primitiveType;
     private boolean finalField;
+    private boolean volatileField;
     private Object value;
     
     public ByteCodeField(String clsName, int access, String name, String desc, String signature, Object value) {
@@ -52,6 +53,7 @@ public class ByteCodeField {
         }
         staticField = (access & Opcodes.ACC_STATIC) == Opcodes.ACC_STATIC;
         finalField = (access & Opcodes.ACC_FINAL) == Opcodes.ACC_FINAL;
+        volatileField = (access & Opcodes.ACC_VOLATILE) == Opcodes.ACC_VOLATILE;
         fieldName = name.replace('$', '_');
 
         arrayDimensions = 0;
@@ -145,6 +147,14 @@ public class ByteCodeField {
         return finalField;
     }
     
+    /**
+     * Volatile instance fields are declared as volatile in the C struct so the C compiler 
+     * doesn't cache their value in a register, this is required by the atomic classes
+     */
+    public boolean isVolatile() {
+        return volatileField;
+    }
+    
     public boolean shouldRemoveFromHeapCollection() {
         if(finalField && isObjectType()) {
             // 2d arrays can be modified in runtime resulting in broken arrays
@@ -205,6 +205,8 @@ public class ByteCodeTranslator {
             copy(ByteCodeTranslator.class.getResourceAsStream("/cn1_globals.m"), new FileOutputStream(cn1GlobalsM));
             File nativeMethods = new File(srcRoot, "nativeMethods.m");
             copy(ByteCodeTranslator.class.getResourceAsStream("/nativeMethods.m"), new FileOutputStream(nativeMethods));
+            File concurrentNativeMethods = new File(srcRoot, "concurrentNativeMethods.m");
+            copy(ByteCodeTranslator.class.getResourceAsStream("/concurrentNativeMethods.m"), new FileOutputStream(concurrentNativeMethods));
 
             Parser.writeOutput(srcRoot);
             
@@ -80,6 +80,7 @@ public class BytecodeMethod {
     private boolean staticMethod;
     private boolean privateMethod;
     private boolean nativeMethod;
+    private boolean abstractMethod;
     private List<String> dependentClasses = new ArrayList<String>();
     private List<Instruction> instructions = new ArrayList<Instruction>();
     private String declaration = ""; 
@@ -110,6 +111,7 @@ public class BytecodeMethod {
         this.desc = desc;
         privateMethod = (access & Opcodes.ACC_PRIVATE) == Opcodes.ACC_PRIVATE;
         nativeMethod = (access & Opcodes.ACC_NATIVE) == Opcodes.ACC_NATIVE;
+        abstractMethod = (access & Opcodes.ACC_ABSTRACT) == Opcodes.ACC_ABSTRACT;
         staticMethod = (access & Opcodes.ACC_STATIC) == Opcodes.ACC_STATIC;
         finalMethod = (access & Opcodes.ACC_FINAL) == Opcodes.ACC_FINAL;
         synchronizedMethod = (access & Opcodes.ACC_SYNCHRONIZED) == Opcodes.ACC_SYNCHRONIZED;
@@ -843,6 +845,59 @@ public class BytecodeMethod {
         return nativeMethod;
     }
     
+    public boolean isAbstract() {
+        return abstractMethod;
+    }
+    
+    /**
+     * The JVM descriptor of the method e.g. (I)Ljava/lang/String;
+     */
+    public String getDesc() {
+        return desc;
+    }
+    
+    List<Instruction> getInstructions() {
+        return instructions;
+    }
+    
+    /**
+     * Returns the field read by this method if the method is a trivial getter of the form 
+     * aload_0, getfield, return. Such a method can be inlined into a call site that is bound 
+     * to it directly
+     * @return the getfield instruction or null if this isn't a trivial getter
+     */
+    public Field getTrivialGetterField() {
+        if(staticMethod || synchronizedMethod || nativeMethod || abstractMethod || eliminated) {
+            return null;
+        }
+        Instruction[] actual = new Instruction[3];
+        int realCount = 0;
+        for(Instruction current : instructions) {
+            if(current instanceof LabelInstruction || current instanceof LineNumber || current instanceof LocalVariable) {
+                continue;
+            }
+            if(realCount == 3) {
+                return null;
+            }
+            actual[realCount] = current;
+            realCount++;
+        }
+        if(realCount != 3 || !(actual[0] instanceof VarOp) || 
+                actual[0].getOpcode() != Opcodes.ALOAD || ((VarOp)actual[0]).getIndex() != 0 || 
+                actual[1].getOpcode() != Opcodes.GETFIELD || !(actual[1] instanceof Field)) {
+            return null;
+        }
+        switch(actual[2].getOpcode()) {
+            case Opcodes.ARETURN:
+            case Opcodes.IRETURN:
+            case Opcodes.LRETURN:
+            case Opcodes.FRETURN:
+            case Opcodes.DRETURN:
+                return (Field)actual[1];
+        }
+        return null;
+    }
+    
     public String getVariableNameForTypeIndex(int index, char type) {
         for(Instruction i : instructions) {
             if(i instanceof LocalVariable) {
@@ -24,8 +24,13 @@
 package com.codename1.tools.translator;
 
 import java.io.*;
+import com.codename1.tools.translator.bytecodes.Field;
+import com.codename1.tools.translator.bytecodes.Instruction;
+import com.codename1.tools.translator.bytecodes.Invoke;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import org.objectweb.asm.AnnotationVisitor;
 import org.objectweb.asm.Attribute;
 import org.objectweb.asm.ClassReader;
@@ -414,6 +419,11 @@ public class Parser extends ClassVisitor {
 
             // loop over methods and start eliminating the body of unused methods
             eliminateUnusedMethods();
+            
+            // bind monomorphic virtual/interface call sites directly to their implementation
+            if(BytecodeMethod.optimizerOn) {
+                devirtualizeInvocations();
+            }
 
             generateClassAndMethodIndexHeader(outputDirectory);
 
@@ -455,6 +465,145 @@ public class Parser extends ClassVisitor {
         
     }
     
+    /**
+     * Class hierarchy analysis, every virtual or interface call site for which all the concrete 
+     * classes in the program resolve to the same implementation is bound directly to that 
+     * implementation. Trivial getters invoked this way are replaced with a direct field read.
+     */
+    private static void devirtualizeInvocations() {
+        Map<String, ByteCodeClass> classMap = new HashMap<String, ByteCodeClass>();
+        List<ByteCodeClass> concreteClasses = new ArrayList<ByteCodeClass>();
+        for(ByteCodeClass bc : classes) {
+            classMap.put(bc.getClsName(), bc);
+            if(!bc.isIsInterface() && !bc.isIsAbstract()) {
+                concreteClasses.add(bc);
+            }
+        }
+        Map<String, BytecodeMethod> targets = new HashMap<String, BytecodeMethod>();
+        int virtualCalls = 0;
+        int devirtualized = 0;
+        int inlined = 0;
+        for(ByteCodeClass bc : classes) {
+            for(BytecodeMethod mtd : bc.getMethods()) {
+                if(mtd.isEliminated()) {
+                    continue;
+                }
+                for(Instruction i : mtd.getInstructions()) {
+                    if(!(i instanceof Invoke) || (i.getOpcode() != Opcodes.INVOKEVIRTUAL && i.getOpcode() != Opcodes.INVOKEINTERFACE)) {
+                        continue;
+                    }
+                    Invoke inv = (Invoke)i;
+                    virtualCalls++;
+                    String key = inv.getOwner() + "." + inv.getName() + inv.getDesc();
+                    BytecodeMethod target;
+                    if(targets.containsKey(key)) {
+                        target = targets.get(key);
+                    } else {
+                        target = findMonomorphicTarget(inv, classMap, concreteClasses);
+                        targets.put(key, target);
+                    }
+                    if(target == null) {
+                        continue;
+                    }
+                    inv.setDevirtualizedOwner(target.getClsName());
+                    addDependentClass(mtd, target.getClsName());
+                    devirtualized++;
+                    Field getter = target.getTrivialGetterField();
+                    if(getter != null) {
+                        inv.setInlinedField(getter);
+                        addDependentClass(mtd, getter.getOwner().replace('/', '_').replace('$', '_'));
+                        inlined++;
+                    }
+                }
+            }
+        }
+        
+        // the direct calls require the headers of the implementing classes
+        for(ByteCodeClass bc : classes) {
+            bc.updateAllDependencies();
+        }
+        System.out.println("Devirtualized " + devirtualized + " out of " + virtualCalls + " virtual call sites, inlined " + inlined + " getter calls");
+    }
+    
+    private static void addDependentClass(BytecodeMethod mtd, String cls) {
+        if(!mtd.getDependentClasses().contains(cls)) {
+            mtd.getDependentClasses().add(cls);
+        }
+    }
+    
+    private static BytecodeMethod findMonomorphicTarget(Invoke inv, Map<String, ByteCodeClass> classMap, List<ByteCodeClass> concreteClasses) {
+        if(inv.getOwner().indexOf('[') > -1) {
+            return null;
+        }
+        String owner = inv.getOwner().replace('/', '_').replace('$', '_');
+        
+        // arrays are also Objects, Cloneable and Serializable and Class has its own dispatch table
+        if(owner.equals("java_lang_Object") || owner.equals("java_lang_Class") || 
+                owner.equals("java_lang_Cloneable") || owner.equals("java_io_Serializable")) {
+            return null;
+        }
+        ByteCodeClass ownerClass = classMap.get(owner);
+        if(ownerClass == null) {
+            return null;
+        }
+        BytecodeMethod result = null;
+        for(ByteCodeClass bc : concreteClasses) {
+            if(!isSubtypeOf(bc, ownerClass)) {
+                continue;
+            }
+            if(bc.getClsName().equals("java_lang_Class")) {
+                return null;
+            }
+            BytecodeMethod m = resolveVirtualMethod(bc, inv.getName(), inv.getDesc());
+            if(m == null || m.isAbstract() || m.isEliminated()) {
+                return null;
+            }
+            if(result == null) {
+                result = m;
+            } else {
+                if(result != m) {
+                    return null;
+                }
+            }
+        }
+        return result;
+    }
+    
+    private static BytecodeMethod resolveVirtualMethod(ByteCodeClass bc, String name, String desc) {
+        while(bc != null) {
+            for(BytecodeMethod m : bc.getMethods()) {
+                if(!m.isStatic() && !m.isPrivate() && m.getMethodName().equals(name) && desc.equals(m.getDesc())) {
+                    return m;
+                }
+            }
+            bc = bc.getBaseClassObject();
+        }
+        return null;
+    }
+    
+    private static boolean isSubtypeOf(ByteCodeClass bc, ByteCodeClass type) {
+        while(bc != null) {
+            if(bc == type || implementsInterface(bc, type)) {
+                return true;
+            }
+            bc = bc.getBaseClassObject();
+        }
+        return false;
+    }
+    
+    private static boolean implementsInterface(ByteCodeClass bc, ByteCodeClass itf) {
+        List<ByteCodeClass> interfaces = bc.getBaseInterfacesObject();
+        if(interfaces == null) {
+            return false;
+        }
+        for(ByteCodeClass current : interfaces) {
+            if(current == itf || implementsInterface(current, itf)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
     private static void eliminateUnusedMethods() {
         usedByNativeCheck();
         eliminateUnusedMethods(0);
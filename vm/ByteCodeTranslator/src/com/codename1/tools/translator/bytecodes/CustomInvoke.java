@@ -42,6 +42,8 @@ public class CustomInvoke extends Instruction {
     private boolean itf;
     private String[] literalArgs;
     private int origOpcode;
+    private String devirtualizedOwner;
+    private Field inlinedField;
     
     
     public CustomInvoke(int opcode, String owner, String name, String desc, boolean itf) {
@@ -54,7 +56,10 @@ public class CustomInvoke extends Instruction {
     }
     
     public static CustomInvoke create(Invoke invoke) {
-        return new CustomInvoke(invoke.getOpcode(), invoke.getOwner(), invoke.getName(), invoke.getDesc(), invoke.isItf());
+        CustomInvoke c = new CustomInvoke(invoke.getOpcode(), invoke.getOwner(), invoke.getName(), invoke.getDesc(), invoke.isItf());
+        c.devirtualizedOwner = invoke.getDevirtualizedOwner();
+        c.inlinedField = invoke.getInlinedField();
+        return c;
     }
 
     public boolean isMethodUsed(String desc, String name) {
@@ -121,8 +126,17 @@ public class CustomInvoke extends Instruction {
         
         StringBuilder bld = new StringBuilder();
         if(origOpcode == Opcodes.INVOKEINTERFACE || origOpcode == Opcodes.INVOKEVIRTUAL) {
-            b.append("    ");
-            bld.append("virtual_");
+            if(devirtualizedOwner != null) {
+                Invoke.appendDevirtualizedPrologue(b, origOpcode, owner, getArgs().size() + 1 - getNumLiteralArgs());
+                if(inlinedField != null) {
+                    inlinedField.appendInstruction(b);
+                    return;
+                }
+                b.append("    ");
+            } else {
+                b.append("    ");
+                bld.append("virtual_");
+            }
         } else {
             b.append("    ");
         }
@@ -135,7 +149,11 @@ public class CustomInvoke extends Instruction {
         //if(owner.replace('/', '_').replace('$', '_').equals("java_lang_System_1") && name.equals("sleep")) {
         //    System.out.println("Break");
         //}
-        bld.append(owner.replace('/', '_').replace('$', '_'));
+        if(devirtualizedOwner != null) {
+            bld.append(devirtualizedOwner);
+        } else {
+            bld.append(owner.replace('/', '_').replace('$', '_'));
+        }
         bld.append("_");
         if(name.equals("<init>")) {
             bld.append("__INIT__");
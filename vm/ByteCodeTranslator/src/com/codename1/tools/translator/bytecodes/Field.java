@@ -43,6 +43,18 @@ public class Field extends Instruction implements AssignableExpression {
         this.desc = desc;
     }
 
+    /**
+     * Creates a fresh copy of this field access instruction, this is useful when inlining the 
+     * instruction into a different method
+     */
+    public Field duplicate() {
+        return new Field(opcode, owner, name, desc);
+    }
+    
+    public String getOwner() {
+        return owner;
+    }
+
     public boolean isObject() {
         char c = desc.charAt(0);
         return c == '[' || c == 'L';
@@ -43,6 +43,8 @@ public class Invoke extends Instruction {
     private boolean itf;
     private char[] stackInputTypes;
     private char[] stackOutputTypes;
+    private String devirtualizedOwner;
+    private Field inlinedField;
     
     
     public Invoke(int opcode, String owner, String name, String desc, boolean itf) {
@@ -53,15 +55,15 @@ public class Invoke extends Instruction {
         this.itf = itf;
     }
     
-    String getOwner() {
+    public String getOwner() {
         return owner;
     }
     
-    String getName() {
+    public String getName() {
         return name;
     }
     
-    String getDesc() {
+    public String getDesc() {
         return desc;
     }
     
@@ -69,6 +71,46 @@ public class Invoke extends Instruction {
         return itf;
     }
     
+    /**
+     * Binds a virtual or interface invocation directly to the only implementation the class 
+     * hierarchy allows for this call site
+     * @param devirtualizedOwner the C class name of the class implementing the method
+     */
+    public void setDevirtualizedOwner(String devirtualizedOwner) {
+        this.devirtualizedOwner = devirtualizedOwner;
+    }
+
+    public String getDevirtualizedOwner() {
+        return devirtualizedOwner;
+    }
+
+    /**
+     * Replaces a devirtualized invocation of a trivial getter with a direct read of the field
+     * @param getter the getfield instruction of the getter
+     */
+    public void setInlinedField(Field getter) {
+        inlinedField = getter.duplicate();
+    }
+
+    Field getInlinedField() {
+        return inlinedField;
+    }
+    
+    /**
+     * A direct call skips the null check and the interface static initializer that the virtual 
+     * call stub performs so we need to perform them inline
+     */
+    static void appendDevirtualizedPrologue(StringBuilder b, int opcode, String owner, int thisOffset) {
+        if(opcode == Opcodes.INVOKEINTERFACE) {
+            b.append("    __STATIC_INITIALIZER_");
+            b.append(owner.replace('/', '_').replace('$', '_'));
+            b.append("(threadStateData);\n");
+        }
+        b.append("    if(SP[-");
+        b.append(thisOffset);
+        b.append("].data.o == JAVA_NULL) { THROW_NULL_POINTER_EXCEPTION(); }\n");
+    }
+    
 
     public boolean isMethodUsed(String desc, String name) {
         return this.desc.equals(desc) && name.equals(name);
@@ -134,8 +176,17 @@ public class Invoke extends Instruction {
         
         StringBuilder bld = new StringBuilder();
         if(opcode == Opcodes.INVOKEINTERFACE || opcode == Opcodes.INVOKEVIRTUAL) {
-            b.append("    ");
-            bld.append("virtual_");
+            if(devirtualizedOwner != null) {
+                appendDevirtualizedPrologue(b, opcode, owner, getArgs().size() + 1);
+                if(inlinedField != null) {
+                    inlinedField.appendInstruction(b);
+                    return;
+                }
+                b.append("    ");
+            } else {
+                b.append("    ");
+                bld.append("virtual_");
+            }
         } else {
             b.append("    ");
         }
@@ -148,7 +199,11 @@ public class Invoke extends Instruction {
         //if(owner.replace('/', '_').replace('$', '_').equals("java_lang_System_1") && name.equals("sleep")) {
         //    System.out.println("Break");
         //}
-        bld.append(owner.replace('/', '_').replace('$', '_'));
+        if(devirtualizedOwner != null) {
+            bld.append(devirtualizedOwner);
+        } else {
+            bld.append(owner.replace('/', '_').replace('$', '_'));
+        }
         bld.append("_");
         if(name.equals("<init>")) {
             bld.append("__INIT__");
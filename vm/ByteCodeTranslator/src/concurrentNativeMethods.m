@@ -0,0 +1,55 @@
+#include "cn1_globals.h"
+#include <time.h>
+#ifdef __APPLE__
+#include <mach/mach_time.h>
+#endif
+
+// the natives of System.nanoTime and java.util.concurrent are plain C so they can be compiled and tested
+// without the iOS runtime, see vm/tests/concurrency
+
+JAVA_LONG java_lang_System_nanoTime___R_long(CODENAME_ONE_THREAD_STATE) {
+#ifdef __APPLE__
+    static mach_timebase_info_data_t timebase;
+    if(timebase.denom == 0) {
+        mach_timebase_info(&timebase);
+    }
+    return (JAVA_LONG)(mach_absolute_time() * timebase.numer / timebase.denom);
+#else
+    struct timespec ts;
+    clock_gettime(CLOCK_MONOTONIC, &ts);
+    return (((JAVA_LONG)ts.tv_sec) * 1000000000LL) + ts.tv_nsec;
+#endif
+}
+
+// the atomic classes are only present in the translated output when the application uses them
+#if defined(__has_include)
+#if __has_include("java_util_concurrent_atomic_AtomicInteger.h")
+#include "java_util_concurrent_atomic_AtomicInteger.h"
+JAVA_BOOLEAN java_util_concurrent_atomic_AtomicInteger_compareAndSet___int_int_R_boolean(CODENAME_ONE_THREAD_STATE, JAVA_OBJECT __cn1ThisObject, JAVA_INT expect, JAVA_INT update) {
+    struct obj__java_util_concurrent_atomic_AtomicInteger* t = (struct obj__java_util_concurrent_atomic_AtomicInteger*)__cn1ThisObject;
+    return __sync_bool_compare_and_swap(&t->java_util_concurrent_atomic_AtomicInteger_value, expect, update) ? JAVA_TRUE : JAVA_FALSE;
+}
+#endif
+
+#if __has_include("java_util_concurrent_atomic_AtomicLong.h")
+#include "java_util_concurrent_atomic_AtomicLong.h"
+JAVA_LONG java_util_concurrent_atomic_AtomicLong_get___R_long(CODENAME_ONE_THREAD_STATE, JAVA_OBJECT __cn1ThisObject) {
+    struct obj__java_util_concurrent_atomic_AtomicLong* t = (struct obj__java_util_concurrent_atomic_AtomicLong*)__cn1ThisObject;
+    // a 64 bit read isn't atomic on 32 bit ARM, a CAS that never changes the value returns an atomic snapshot
+    return __sync_val_compare_and_swap(&t->java_util_concurrent_atomic_AtomicLong_value, 0, 0);
+}
+
+JAVA_BOOLEAN java_util_concurrent_atomic_AtomicLong_compareAndSet___long_long_R_boolean(CODENAME_ONE_THREAD_STATE, JAVA_OBJECT __cn1ThisObject, JAVA_LONG expect, JAVA_LONG update) {
+    struct obj__java_util_concurrent_atomic_AtomicLong* t = (struct obj__java_util_concurrent_atomic_AtomicLong*)__cn1ThisObject;
+    return __sync_bool_compare_and_swap(&t->java_util_concurrent_atomic_AtomicLong_value, expect, update) ? JAVA_TRUE : JAVA_FALSE;
+}
+#endif
+
+#if __has_include("java_util_concurrent_atomic_AtomicReference.h")
+#include "java_util_concurrent_atomic_AtomicReference.h"
+JAVA_BOOLEAN java_util_concurrent_atomic_AtomicReference_compareAndSet___java_lang_Object_java_lang_Object_R_boolean(CODENAME_ONE_THREAD_STATE, JAVA_OBJECT __cn1ThisObject, JAVA_OBJECT expect, JAVA_OBJECT update) {
+    struct obj__java_util_concurrent_atomic_AtomicReference* t = (struct obj__java_util_concurrent_atomic_AtomicReference*)__cn1ThisObject;
+    return __sync_bool_compare_and_swap(&t->java_util_concurrent_atomic_AtomicReference_value, expect, update) ? JAVA_TRUE : JAVA_FALSE;
+}
+#endif
+#endif
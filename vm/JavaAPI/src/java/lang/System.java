@@ -119,6 +119,12 @@ public final class System {
      */
     public native static long currentTimeMillis();
 
+    /**
+     * Returns the current value of the most precise available system timer, in nanoseconds. This method can only be used
+     * to measure elapsed time and is not related to any other notion of system or wall-clock time.
+     */
+    public native static long nanoTime();
+
     /**
      * Terminates the currently running Java application. The argument serves as a status code; by convention, a nonzero status code indicates abnormal termination.
      * This method calls the exit method in class Runtime. This method never returns normally.
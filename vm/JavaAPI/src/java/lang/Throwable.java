@@ -49,6 +49,13 @@ public class Throwable{
         return this;
     }
     
+    /**
+     * Returns the cause of this throwable or null if the cause is nonexistent or unknown.
+     */
+    public Throwable getCause() {
+        return cause;
+    }
+    
     /**
      * Constructs a new Throwable with the specified error message.
      * message - the error message. The error message is saved for later retrieval by the
@@ -0,0 +1,339 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *  
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Codename One through http://www.codenameone.com/ if you 
+ * need additional information or have any questions.
+ */
+
+package java.util.concurrent;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A hash table supporting concurrent retrievals and updates. The table is split into independently locked
+ * segments so threads working on different keys rarely contend for the same lock. Iterators are weakly
+ * consistent and operate on a snapshot of the map taken when the iterator is created. Like Hashtable
+ * but unlike HashMap, this class does not allow null to be used as a key or value.
+ */
+public class ConcurrentHashMap<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V> {
+    private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    private final HashMap<K, V>[] segments;
+    private final int segmentMask;
+    private transient Set<Map.Entry<K, V>> entrySet;
+
+    /**
+     * Creates a new, empty map with the default initial capacity and concurrency level (16).
+     */
+    public ConcurrentHashMap() {
+        this(16, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * Creates a new, empty map with the given initial capacity.
+     */
+    public ConcurrentHashMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * Creates a new, empty map with the given initial capacity, the load factor is ignored.
+     */
+    public ConcurrentHashMap(int initialCapacity, float loadFactor) {
+        this(initialCapacity, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * Creates a new, empty map with the given initial capacity, the load factor is ignored.
+     */
+    public ConcurrentHashMap(int initialCapacity, float loadFactor, int concurrencyLevel) {
+        this(initialCapacity, concurrencyLevel);
+    }
+
+    private ConcurrentHashMap(int initialCapacity, int concurrencyLevel) {
+        if(initialCapacity < 0 || concurrencyLevel <= 0) {
+            throw new IllegalArgumentException();
+        }
+        int count = 1;
+        while(count < concurrencyLevel) {
+            count <<= 1;
+        }
+        segmentMask = count - 1;
+        segments = new HashMap[count];
+        int segmentCapacity = Math.max(1, initialCapacity / count);
+        for(int iter = 0 ; iter < count ; iter++) {
+            segments[iter] = new HashMap<K, V>(segmentCapacity);
+        }
+    }
+
+    /**
+     * Creates a new map with the same mappings as the given map.
+     */
+    public ConcurrentHashMap(Map<? extends K, ? extends V> m) {
+        this(Math.max(16, m.size()), DEFAULT_CONCURRENCY_LEVEL);
+        putAll(m);
+    }
+
+    private HashMap<K, V> segmentFor(Object key) {
+        int h = key.hashCode();
+        // spread the bits so keys whose hashes differ in the high bits don't land in the same segment
+        h ^= (h >>> 20) ^ (h >>> 12);
+        h ^= (h >>> 7) ^ (h >>> 4);
+        return segments[h & segmentMask];
+    }
+
+    public V get(Object key) {
+        HashMap<K, V> s = segmentFor(key);
+        synchronized(s) {
+            return s.get(key);
+        }
+    }
+
+    public boolean containsKey(Object key) {
+        HashMap<K, V> s = segmentFor(key);
+        synchronized(s) {
+            return s.containsKey(key);
+        }
+    }
+
+    public boolean containsValue(Object value) {
+        if(value == null) {
+            throw new NullPointerException();
+        }
+        for(HashMap<K, V> s : segments) {
+            synchronized(s) {
+                if(s.containsValue(value)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Legacy method testing if some key maps into the specified value in this table.
+     */
+    public boolean contains(Object value) {
+        return containsValue(value);
+    }
+
+    public V put(K key, V value) {
+        if(value == null) {
+            throw new NullPointerException();
+        }
+        HashMap<K, V> s = segmentFor(key);
+        synchronized(s) {
+            return s.put(key, value);
+        }
+    }
+
+    public V putIfAbsent(K key, V value) {
+        if(value == null) {
+            throw new NullPointerException();
+        }
+        HashMap<K, V> s = segmentFor(key);
+        synchronized(s) {
+            V current = s.get(key);
+            if(current == null) {
+                s.put(key, value);
+            }
+            return current;
+        }
+    }
+
+    public void putAll(Map<? extends K, ? extends V> m) {
+        for(Map.Entry<? extends K, ? extends V> e : m.entrySet()) {
+            put(e.getKey(), e.getValue());
+        }
+    }
+
+    public V remove(Object key) {
+        HashMap<K, V> s = segmentFor(key);
+        synchronized(s) {
+            return s.remove(key);
+        }
+    }
+
+    public boolean remove(Object key, Object value) {
+        if(value == null) {
+            return false;
+        }
+        HashMap<K, V> s = segmentFor(key);
+        synchronized(s) {
+            V current = s.get(key);
+            if(current != null && current.equals(value)) {
+                s.remove(key);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    public boolean replace(K key, V oldValue, V newValue) {
+        if(oldValue == null || newValue == null) {
+            throw new NullPointerException();
+        }
+        HashMap<K, V> s = segmentFor(key);
+        synchronized(s) {
+            V current = s.get(key);
+            if(current != null && current.equals(oldValue)) {
+                s.put(key, newValue);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    public V replace(K key, V value) {
+        if(value == null) {
+            throw new NullPointerException();
+        }
+        HashMap<K, V> s = segmentFor(key);
+        synchronized(s) {
+            if(s.containsKey(key)) {
+                return s.put(key, value);
+            }
+            return null;
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for(HashMap<K, V> s : segments) {
+            synchronized(s) {
+                size += s.size();
+            }
+        }
+        return size;
+    }
+
+    public boolean isEmpty() {
+        for(HashMap<K, V> s : segments) {
+            synchronized(s) {
+                if(!s.isEmpty()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public void clear() {
+        for(HashMap<K, V> s : segments) {
+            synchronized(s) {
+                s.clear();
+            }
+        }
+    }
+
+    public Set<Map.Entry<K, V>> entrySet() {
+        if(entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+        public int size() {
+            return ConcurrentHashMap.this.size();
+        }
+
+        public void clear() {
+            ConcurrentHashMap.this.clear();
+        }
+
+        public boolean contains(Object o) {
+            if(!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry e = (Map.Entry)o;
+            V v = get(e.getKey());
+            return v != null && v.equals(e.getValue());
+        }
+
+        public boolean remove(Object o) {
+            if(!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry e = (Map.Entry)o;
+            return ConcurrentHashMap.this.remove(e.getKey(), e.getValue());
+        }
+
+        public Iterator<Map.Entry<K, V>> iterator() {
+            final ArrayList<Map.Entry<K, V>> snapshot = new ArrayList<Map.Entry<K, V>>();
+            for(HashMap<K, V> s : segments) {
+                synchronized(s) {
+                    for(Map.Entry<K, V> e : s.entrySet()) {
+                        snapshot.add(new WriteThroughEntry(e.getKey(), e.getValue()));
+                    }
+                }
+            }
+            return new Iterator<Map.Entry<K, V>>() {
+                private int offset;
+                private Map.Entry<K, V> last;
+
+                public boolean hasNext() {
+                    return offset < snapshot.size();
+                }
+
+                public Map.Entry<K, V> next() {
+                    if(offset >= snapshot.size()) {
+                        throw new NoSuchElementException();
+                    }
+                    last = snapshot.get(offset);
+                    offset++;
+                    return last;
+                }
+
+                public void remove() {
+                    if(last == null) {
+                        throw new IllegalStateException();
+                    }
+                    ConcurrentHashMap.this.remove(last.getKey());
+                    last = null;
+                }
+            };
+        }
+    }
+
+    /**
+     * Entry returned by the iterator, setValue writes the value through to the map
+     */
+    class WriteThroughEntry extends AbstractMap.SimpleEntry<K, V> {
+        WriteThroughEntry(K k, V v) {
+            super(k, v);
+        }
+
+        public V setValue(V value) {
+            if(value == null) {
+                throw new NullPointerException();
+            }
+            V v = super.setValue(value);
+            put(getKey(), value);
+            return v;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *  
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Codename One through http://www.codenameone.com/ if you 
+ * need additional information or have any questions.
+ */
+
+package java.util.concurrent;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * An unbounded thread-safe queue based on linked nodes. This is a non-blocking (lock free) queue
+ * implemented with the compare and set operations of the atomic classes. Iterators are weakly consistent.
+ */
+public class ConcurrentLinkedQueue<E> extends AbstractQueue<E> {
+    static class Node<E> {
+        final AtomicReference<E> item;
+        final AtomicReference<Node<E>> next = new AtomicReference<Node<E>>();
+
+        Node(E item) {
+            this.item = new AtomicReference<E>(item);
+        }
+    }
+
+    private final AtomicReference<Node<E>> head;
+    private final AtomicReference<Node<E>> tail;
+
+    /**
+     * Creates a ConcurrentLinkedQueue that is initially empty.
+     */
+    public ConcurrentLinkedQueue() {
+        Node<E> dummy = new Node<E>(null);
+        head = new AtomicReference<Node<E>>(dummy);
+        tail = new AtomicReference<Node<E>>(dummy);
+    }
+
+    /**
+     * Creates a ConcurrentLinkedQueue initially containing the elements of the given collection.
+     */
+    public ConcurrentLinkedQueue(Collection<? extends E> c) {
+        this();
+        for(E e : c) {
+            add(e);
+        }
+    }
+
+    public boolean offer(E e) {
+        if(e == null) {
+            throw new NullPointerException();
+        }
+        Node<E> n = new Node<E>(e);
+        while(true) {
+            Node<E> t = tail.get();
+            Node<E> next = t.next.get();
+            if(t == tail.get()) {
+                if(next == null) {
+                    if(t.next.compareAndSet(null, n)) {
+                        tail.compareAndSet(t, n);
+                        return true;
+                    }
+                } else {
+                    // another thread is in the middle of an insert, help it along
+                    tail.compareAndSet(t, next);
+                }
+            }
+        }
+    }
+
+    public E poll() {
+        while(true) {
+            Node<E> h = head.get();
+            Node<E> t = tail.get();
+            Node<E> first = h.next.get();
+            if(h == head.get()) {
+                if(h == t) {
+                    if(first == null) {
+                        return null;
+                    }
+                    tail.compareAndSet(t, first);
+                } else {
+                    if(head.compareAndSet(h, first)) {
+                        // the first node becomes the new dummy node, a null item means it was removed
+                        E item = first.item.getAndSet(null);
+                        if(item != null) {
+                            return item;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    public E peek() {
+        for(Node<E> n = head.get().next.get() ; n != null ; n = n.next.get()) {
+            E item = n.item.get();
+            if(item != null) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    public boolean isEmpty() {
+        return peek() == null;
+    }
+
+    /**
+     * Returns the number of elements in this queue, notice that this requires a traversal of the queue.
+     */
+    public int size() {
+        int count = 0;
+        for(Node<E> n = head.get().next.get() ; n != null ; n = n.next.get()) {
+            if(n.item.get() != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public boolean contains(Object o) {
+        if(o == null) {
+            return false;
+        }
+        for(Node<E> n = head.get().next.get() ; n != null ; n = n.next.get()) {
+            E item = n.item.get();
+            if(item != null && o.equals(item)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean remove(Object o) {
+        if(o == null) {
+            return false;
+        }
+        for(Node<E> n = head.get().next.get() ; n != null ; n = n.next.get()) {
+            E item = n.item.get();
+            if(item != null && o.equals(item) && n.item.compareAndSet(item, null)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private Node<E> nextNode;
+            private E nextItem;
+            private Node<E> lastReturned;
+            {
+                advance(head.get());
+            }
+
+            // the item is cached so hasNext() remains accurate even if the node is removed concurrently
+            private void advance(Node<E> n) {
+                n = n.next.get();
+                while(n != null) {
+                    E item = n.item.get();
+                    if(item != null) {
+                        nextNode = n;
+                        nextItem = item;
+                        return;
+                    }
+                    n = n.next.get();
+                }
+                nextNode = null;
+                nextItem = null;
+            }
+
+            public boolean hasNext() {
+                return nextNode != null;
+            }
+
+            public E next() {
+                if(nextNode == null) {
+                    throw new NoSuchElementException();
+                }
+                lastReturned = nextNode;
+                E item = nextItem;
+                advance(nextNode);
+                return item;
+            }
+
+            public void remove() {
+                if(lastReturned == null) {
+                    throw new IllegalStateException();
+                }
+                lastReturned.item.set(null);
+                lastReturned = null;
+            }
+        };
+    }
+}
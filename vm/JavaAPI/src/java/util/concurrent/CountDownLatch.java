@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *  
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Codename One through http://www.codenameone.com/ if you 
+ * need additional information or have any questions.
+ */
+
+package java.util.concurrent;
+
+/**
+ * A synchronization aid that allows one or more threads to wait until a set of operations being performed in other threads completes.
+ */
+public class CountDownLatch {
+    private int count;
+
+    /**
+     * Constructs a CountDownLatch initialized with the given count.
+     */
+    public CountDownLatch(int count) {
+        if(count < 0) {
+            throw new IllegalArgumentException("count < 0");
+        }
+        this.count = count;
+    }
+
+    /**
+     * Causes the current thread to wait until the latch has counted down to zero.
+     */
+    public void await() throws InterruptedException {
+        synchronized(this) {
+            while(count > 0) {
+                wait();
+            }
+        }
+    }
+
+    /**
+     * Causes the current thread to wait until the latch has counted down to zero, or the specified waiting time elapses.
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + unit.toMillis(timeout);
+        synchronized(this) {
+            while(count > 0) {
+                long remaining = deadline - System.currentTimeMillis();
+                if(remaining <= 0) {
+                    return false;
+                }
+                wait(remaining);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Decrements the count of the latch, releasing all waiting threads if the count reaches zero.
+     */
+    public void countDown() {
+        synchronized(this) {
+            if(count > 0) {
+                count--;
+                if(count == 0) {
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the current count.
+     */
+    public long getCount() {
+        synchronized(this) {
+            return count;
+        }
+    }
+
+    /**
+     * Returns a string identifying this latch, as well as its state.
+     */
+    public String toString() {
+        return super.toString() + "[Count = " + getCount() + "]";
+    }
+}
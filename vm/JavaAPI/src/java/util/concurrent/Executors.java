@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *  
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Codename One through http://www.codenameone.com/ if you 
+ * need additional information or have any questions.
+ */
+
+package java.util.concurrent;
+
+/**
+ * Factory methods for the executor services available in this package.
+ */
+public class Executors {
+    private Executors() {
+    }
+
+    /**
+     * Creates a thread pool that reuses a fixed number of threads operating off a shared unbounded queue.
+     */
+    public static ExecutorService newFixedThreadPool(int nThreads) {
+        return new FixedThreadPool(nThreads);
+    }
+
+    /**
+     * Creates an Executor that uses a single worker thread operating off an unbounded queue.
+     */
+    public static ExecutorService newSingleThreadExecutor() {
+        return new FixedThreadPool(1);
+    }
+
+    /**
+     * Returns a Callable object that, when called, runs the given task and returns the given result.
+     */
+    public static <T> Callable<T> callable(final Runnable task, final T result) {
+        if(task == null) {
+            throw new NullPointerException();
+        }
+        return new Callable<T>() {
+            public T call() {
+                task.run();
+                return result;
+            }
+        };
+    }
+
+    /**
+     * Returns a Callable object that, when called, runs the given task and returns null.
+     */
+    public static Callable<Object> callable(Runnable task) {
+        return callable(task, null);
+    }
+}
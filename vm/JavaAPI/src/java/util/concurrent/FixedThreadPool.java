@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *  
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Codename One through http://www.codenameone.com/ if you 
+ * need additional information or have any questions.
+ */
+
+package java.util.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Executor service with a fixed number of worker threads pulling tasks from a shared queue
+ */
+class FixedThreadPool implements ExecutorService {
+    private static final Runnable STOP = new Runnable() {
+        public void run() {
+        }
+    };
+    private static int poolCounter;
+
+    private final LinkedBlockingQueue<Runnable> queue = new LinkedBlockingQueue<Runnable>();
+    private final int size;
+    private final Object lock = new Object();
+    private boolean shutdown;
+    private int liveWorkers;
+
+    FixedThreadPool(int size) {
+        if(size <= 0) {
+            throw new IllegalArgumentException("Illegal pool size: " + size);
+        }
+        this.size = size;
+        int pool;
+        synchronized(FixedThreadPool.class) {
+            poolCounter++;
+            pool = poolCounter;
+        }
+        liveWorkers = size;
+        for(int iter = 0 ; iter < size ; iter++) {
+            new Thread(new Worker(), "pool-" + pool + "-thread-" + (iter + 1)).start();
+        }
+    }
+
+    class Worker implements Runnable {
+        public void run() {
+            try {
+                while(true) {
+                    Runnable r;
+                    try {
+                        r = queue.take();
+                    } catch(InterruptedException err) {
+                        continue;
+                    }
+                    if(r == STOP) {
+                        return;
+                    }
+                    try {
+                        r.run();
+                    } catch(Throwable t) {
+                        t.printStackTrace();
+                    }
+                }
+            } finally {
+                synchronized(lock) {
+                    liveWorkers--;
+                    lock.notifyAll();
+                }
+            }
+        }
+    }
+
+    public void execute(Runnable command) {
+        if(command == null) {
+            throw new NullPointerException();
+        }
+        synchronized(lock) {
+            if(shutdown) {
+                throw new RejectedExecutionException("Executor was shut down");
+            }
+            queue.offer(command);
+        }
+    }
+
+    public void shutdown() {
+        synchronized(lock) {
+            if(shutdown) {
+                return;
+            }
+            shutdown = true;
+            for(int iter = 0 ; iter < size ; iter++) {
+                queue.offer(STOP);
+            }
+        }
+    }
+
+    public List<Runnable> shutdownNow() {
+        List<Runnable> pending = new ArrayList<Runnable>();
+        synchronized(lock) {
+            queue.drainTo(pending);
+            for(int iter = pending.size() - 1 ; iter >= 0 ; iter--) {
+                if(pending.get(iter) == STOP) {
+                    pending.remove(iter);
+                }
+            }
+            shutdown = false;
+            shutdown();
+        }
+        return pending;
+    }
+
+    public boolean isShutdown() {
+        synchronized(lock) {
+            return shutdown;
+        }
+    }
+
+    public boolean isTerminated() {
+        synchronized(lock) {
+            return shutdown && liveWorkers == 0;
+        }
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + unit.toMillis(timeout);
+        synchronized(lock) {
+            while(liveWorkers > 0) {
+                long remaining = deadline - System.currentTimeMillis();
+                if(remaining <= 0) {
+                    return false;
+                }
+                lock.wait(remaining);
+            }
+            return true;
+        }
+    }
+
+    public <T> Future<T> submit(Callable<T> task) {
+        FutureTask<T> f = new FutureTask<T>(task);
+        execute(f);
+        return f;
+    }
+
+    public <T> Future<T> submit(Runnable task, T result) {
+        FutureTask<T> f = new FutureTask<T>(task, result);
+        execute(f);
+        return f;
+    }
+
+    public Future<?> submit(Runnable task) {
+        FutureTask<Object> f = new FutureTask<Object>(task, null);
+        execute(f);
+        return f;
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *  
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Codename One through http://www.codenameone.com/ if you 
+ * need additional information or have any questions.
+ */
+
+package java.util.concurrent;
+
+/**
+ * A cancellable asynchronous computation. The result can only be retrieved when the computation has completed,
+ * the get methods will block if the computation has not yet completed.
+ */
+public class FutureTask<V> implements RunnableFuture<V> {
+    private static final int NEW = 0;
+    private static final int RUNNING = 1;
+    private static final int COMPLETED = 2;
+    private static final int FAILED = 3;
+    private static final int CANCELLED = 4;
+
+    private Callable<V> callable;
+    private Runnable runnable;
+    private V result;
+    private Throwable error;
+    private int state;
+
+    /**
+     * Creates a FutureTask that will, upon running, execute the given Callable.
+     */
+    public FutureTask(Callable<V> callable) {
+        if(callable == null) {
+            throw new NullPointerException();
+        }
+        this.callable = callable;
+    }
+
+    /**
+     * Creates a FutureTask that will, upon running, execute the given Runnable, and arrange that get will return the given result on successful completion.
+     */
+    public FutureTask(Runnable runnable, V result) {
+        if(runnable == null) {
+            throw new NullPointerException();
+        }
+        this.runnable = runnable;
+        this.result = result;
+    }
+
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        synchronized(this) {
+            if(state != NEW) {
+                return false;
+            }
+            state = CANCELLED;
+            notifyAll();
+        }
+        done();
+        return true;
+    }
+
+    public boolean isCancelled() {
+        synchronized(this) {
+            return state == CANCELLED;
+        }
+    }
+
+    public boolean isDone() {
+        synchronized(this) {
+            return state > RUNNING;
+        }
+    }
+
+    /**
+     * Protected method invoked when this task transitions to state isDone (whether normally or via cancellation).
+     */
+    protected void done() {
+    }
+
+    private V report() throws ExecutionException {
+        if(state == CANCELLED) {
+            throw new CancellationException();
+        }
+        if(state == FAILED) {
+            throw new ExecutionException(error);
+        }
+        return result;
+    }
+
+    public V get() throws InterruptedException, ExecutionException {
+        synchronized(this) {
+            while(state <= RUNNING) {
+                wait();
+            }
+            return report();
+        }
+    }
+
+    public V get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        long deadline = System.currentTimeMillis() + unit.toMillis(timeout);
+        synchronized(this) {
+            while(state <= RUNNING) {
+                long remaining = deadline - System.currentTimeMillis();
+                if(remaining <= 0) {
+                    throw new TimeoutException();
+                }
+                wait(remaining);
+            }
+            return report();
+        }
+    }
+
+    public void run() {
+        synchronized(this) {
+            if(state != NEW) {
+                return;
+            }
+            state = RUNNING;
+        }
+        V value = null;
+        Throwable t = null;
+        try {
+            if(callable != null) {
+                value = callable.call();
+            } else {
+                runnable.run();
+                value = result;
+            }
+        } catch(Throwable err) {
+            t = err;
+        }
+        synchronized(this) {
+            if(t != null) {
+                error = t;
+                state = FAILED;
+            } else {
+                result = value;
+                state = COMPLETED;
+            }
+            callable = null;
+            runnable = null;
+            notifyAll();
+        }
+        done();
+    }
+}
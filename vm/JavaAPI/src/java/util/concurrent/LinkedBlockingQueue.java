@@ -0,0 +1,284 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *  
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Codename One through http://www.codenameone.com/ if you 
+ * need additional information or have any questions.
+ */
+
+package java.util.concurrent;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An optionally-bounded blocking queue based on linked nodes. This queue orders elements FIFO (first-in-first-out).
+ * Iterators are weakly consistent and operate on a snapshot of the queue.
+ */
+public class LinkedBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+    static class Node<E> {
+        E item;
+        Node<E> next;
+
+        Node(E item) {
+            this.item = item;
+        }
+    }
+
+    private final int capacity;
+    private int count;
+    private Node<E> head;
+    private Node<E> last;
+
+    /**
+     * Creates a LinkedBlockingQueue with a capacity of Integer.MAX_VALUE.
+     */
+    public LinkedBlockingQueue() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a LinkedBlockingQueue with the given (fixed) capacity.
+     */
+    public LinkedBlockingQueue(int capacity) {
+        if(capacity <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Creates a LinkedBlockingQueue with a capacity of Integer.MAX_VALUE, initially containing the elements of the given collection.
+     */
+    public LinkedBlockingQueue(Collection<? extends E> c) {
+        this(Integer.MAX_VALUE);
+        for(E e : c) {
+            add(e);
+        }
+    }
+
+    private void enqueue(E e) {
+        Node<E> n = new Node<E>(e);
+        if(last == null) {
+            head = n;
+        } else {
+            last.next = n;
+        }
+        last = n;
+        count++;
+        notifyAll();
+    }
+
+    private E dequeue() {
+        Node<E> h = head;
+        head = h.next;
+        if(head == null) {
+            last = null;
+        }
+        count--;
+        notifyAll();
+        return h.item;
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    public synchronized int remainingCapacity() {
+        return capacity - count;
+    }
+
+    public synchronized void put(E e) throws InterruptedException {
+        if(e == null) {
+            throw new NullPointerException();
+        }
+        while(count == capacity) {
+            wait();
+        }
+        enqueue(e);
+    }
+
+    public synchronized boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        if(e == null) {
+            throw new NullPointerException();
+        }
+        long deadline = System.currentTimeMillis() + unit.toMillis(timeout);
+        while(count == capacity) {
+            long remaining = deadline - System.currentTimeMillis();
+            if(remaining <= 0) {
+                return false;
+            }
+            wait(remaining);
+        }
+        enqueue(e);
+        return true;
+    }
+
+    public synchronized boolean offer(E e) {
+        if(e == null) {
+            throw new NullPointerException();
+        }
+        if(count == capacity) {
+            return false;
+        }
+        enqueue(e);
+        return true;
+    }
+
+    public synchronized E take() throws InterruptedException {
+        while(count == 0) {
+            wait();
+        }
+        return dequeue();
+    }
+
+    public synchronized E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + unit.toMillis(timeout);
+        while(count == 0) {
+            long remaining = deadline - System.currentTimeMillis();
+            if(remaining <= 0) {
+                return null;
+            }
+            wait(remaining);
+        }
+        return dequeue();
+    }
+
+    public synchronized E poll() {
+        if(count == 0) {
+            return null;
+        }
+        return dequeue();
+    }
+
+    public synchronized E peek() {
+        if(count == 0) {
+            return null;
+        }
+        return head.item;
+    }
+
+    public synchronized boolean remove(Object o) {
+        if(o == null) {
+            return false;
+        }
+        Node<E> prev = null;
+        for(Node<E> n = head ; n != null ; n = n.next) {
+            if(o.equals(n.item)) {
+                if(prev == null) {
+                    head = n.next;
+                } else {
+                    prev.next = n.next;
+                }
+                if(last == n) {
+                    last = prev;
+                }
+                count--;
+                notifyAll();
+                return true;
+            }
+            prev = n;
+        }
+        return false;
+    }
+
+    public synchronized boolean contains(Object o) {
+        if(o == null) {
+            return false;
+        }
+        for(Node<E> n = head ; n != null ; n = n.next) {
+            if(o.equals(n.item)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized Object[] toArray() {
+        Object[] a = new Object[count];
+        int k = 0;
+        for(Node<E> n = head ; n != null ; n = n.next) {
+            a[k] = n.item;
+            k++;
+        }
+        return a;
+    }
+
+    public synchronized void clear() {
+        head = null;
+        last = null;
+        count = 0;
+        notifyAll();
+    }
+
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    public synchronized int drainTo(Collection<? super E> c, int maxElements) {
+        if(c == null) {
+            throw new NullPointerException();
+        }
+        if(c == this) {
+            throw new IllegalArgumentException();
+        }
+        int n = 0;
+        while(n < maxElements && head != null) {
+            c.add(head.item);
+            head = head.next;
+            n++;
+        }
+        if(head == null) {
+            last = null;
+        }
+        count -= n;
+        if(n > 0) {
+            notifyAll();
+        }
+        return n;
+    }
+
+    public Iterator<E> iterator() {
+        final Object[] snapshot = toArray();
+        return new Iterator<E>() {
+            private int offset;
+
+            public boolean hasNext() {
+                return offset < snapshot.length;
+            }
+
+            public E next() {
+                if(offset >= snapshot.length) {
+                    throw new NoSuchElementException();
+                }
+                E e = (E)snapshot[offset];
+                offset++;
+                return e;
+            }
+
+            public void remove() {
+                if(offset == 0) {
+                    throw new IllegalStateException();
+                }
+                LinkedBlockingQueue.this.remove(snapshot[offset - 1]);
+            }
+        };
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *  
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Codename One through http://www.codenameone.com/ if you 
+ * need additional information or have any questions.
+ */
+
+package java.util.concurrent;
+
+/**
+ * A TimeUnit represents time durations at a given unit of granularity and provides utility methods to convert across units,
+ * and to perform timing and delay operations in these units.
+ */
+public enum TimeUnit {
+    NANOSECONDS(1L),
+    MICROSECONDS(1000L),
+    MILLISECONDS(1000000L),
+    SECONDS(1000000000L),
+    MINUTES(60000000000L),
+    HOURS(3600000000000L),
+    DAYS(86400000000000L);
+
+    private final long nanos;
+
+    private TimeUnit(long nanos) {
+        this.nanos = nanos;
+    }
+
+    private static long scale(long d, long from, long to) {
+        if(from == to) {
+            return d;
+        }
+        if(from > to) {
+            long ratio = from / to;
+            long max = Long.MAX_VALUE / ratio;
+            if(d > max) {
+                return Long.MAX_VALUE;
+            }
+            if(d < -max) {
+                return Long.MIN_VALUE;
+            }
+            return d * ratio;
+        }
+        return d / (to / from);
+    }
+
+    /**
+     * Converts the given time duration in the given unit to this unit.
+     */
+    public long convert(long sourceDuration, TimeUnit sourceUnit) {
+        return scale(sourceDuration, sourceUnit.nanos, nanos);
+    }
+
+    /**
+     * Equivalent to NANOSECONDS.convert(duration, this).
+     */
+    public long toNanos(long duration) {
+        return scale(duration, nanos, NANOSECONDS.nanos);
+    }
+
+    /**
+     * Equivalent to MICROSECONDS.convert(duration, this).
+     */
+    public long toMicros(long duration) {
+        return scale(duration, nanos, MICROSECONDS.nanos);
+    }
+
+    /**
+     * Equivalent to MILLISECONDS.convert(duration, this).
+     */
+    public long toMillis(long duration) {
+        return scale(duration, nanos, MILLISECONDS.nanos);
+    }
+
+    /**
+     * Equivalent to SECONDS.convert(duration, this).
+     */
+    public long toSeconds(long duration) {
+        return scale(duration, nanos, SECONDS.nanos);
+    }
+
+    /**
+     * Equivalent to MINUTES.convert(duration, this).
+     */
+    public long toMinutes(long duration) {
+        return scale(duration, nanos, MINUTES.nanos);
+    }
+
+    /**
+     * Equivalent to HOURS.convert(duration, this).
+     */
+    public long toHours(long duration) {
+        return scale(duration, nanos, HOURS.nanos);
+    }
+
+    /**
+     * Equivalent to DAYS.convert(duration, this).
+     */
+    public long toDays(long duration) {
+        return scale(duration, nanos, DAYS.nanos);
+    }
+
+    /**
+     * Performs a Thread.sleep using this time unit.
+     */
+    public void sleep(long timeout) throws InterruptedException {
+        if(timeout > 0) {
+            Thread.sleep(Math.max(1, toMillis(timeout)));
+        }
+    }
+
+    /**
+     * Performs a timed Object.wait using this time unit.
+     */
+    public void timedWait(Object obj, long timeout) throws InterruptedException {
+        if(timeout > 0) {
+            obj.wait(Math.max(1, toMillis(timeout)));
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *  
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Codename One through http://www.codenameone.com/ if you 
+ * need additional information or have any questions.
+ */
+
+package java.util.concurrent.atomic;
+
+/**
+ * An int value that may be updated atomically. The compare and set operation is implemented
+ * natively using the CPU's compare and swap instruction, all other mutations are built on top of it.
+ */
+public class AtomicInteger {
+    private volatile int value;
+
+    /**
+     * Creates a new AtomicInteger with initial value 0.
+     */
+    public AtomicInteger() {
+    }
+
+    /**
+     * Creates a new AtomicInteger with the given initial value.
+     */
+    public AtomicInteger(int initialValue) {
+        value = initialValue;
+    }
+
+    /**
+     * Gets the current value.
+     */
+    public final int get() {
+        return value;
+    }
+
+    /**
+     * Sets to the given value.
+     */
+    public final void set(int newValue) {
+        value = newValue;
+    }
+
+    /**
+     * Eventually sets to the given value.
+     */
+    public final void lazySet(int newValue) {
+        value = newValue;
+    }
+
+    /**
+     * Atomically sets the value to the given updated value if the current value == the expected value.
+     * Returns true if successful. False return indicates that the actual value was not equal to the expected value.
+     */
+    public final native boolean compareAndSet(int expect, int update);
+
+    /**
+     * Atomically sets the value to the given updated value if the current value == the expected value.
+     */
+    public final boolean weakCompareAndSet(int expect, int update) {
+        return compareAndSet(expect, update);
+    }
+
+    /**
+     * Atomically sets to the given value and returns the old value.
+     */
+    public final int getAndSet(int newValue) {
+        for(;;) {
+            int current = value;
+            if(compareAndSet(current, newValue)) {
+                return current;
+            }
+        }
+    }
+
+    /**
+     * Atomically adds the given value to the current value and returns the previous value.
+     */
+    public final int getAndAdd(int delta) {
+        for(;;) {
+            int current = value;
+            if(compareAndSet(current, current + delta)) {
+                return current;
+            }
+        }
+    }
+
+    /**
+     * Atomically adds the given value to the current value and returns the updated value.
+     */
+    public final int addAndGet(int delta) {
+        return getAndAdd(delta) + delta;
+    }
+
+    /**
+     * Atomically increments by one the current value and returns the previous value.
+     */
+    public final int getAndIncrement() {
+        return getAndAdd(1);
+    }
+
+    /**
+     * Atomically decrements by one the current value and returns the previous value.
+     */
+    public final int getAndDecrement() {
+        return getAndAdd(-1);
+    }
+
+    /**
+     * Atomically increments by one the current value and returns the updated value.
+     */
+    public final int incrementAndGet() {
+        return getAndAdd(1) + 1;
+    }
+
+    /**
+     * Atomically decrements by one the current value and returns the updated value.
+     */
+    public final int decrementAndGet() {
+        return getAndAdd(-1) - 1;
+    }
+
+    /**
+     * Returns the value of this AtomicInteger as an int.
+     */
+    public int intValue() {
+        return value;
+    }
+
+    /**
+     * Returns the value of this AtomicInteger as a long.
+     */
+    public long longValue() {
+        return value;
+    }
+
+    /**
+     * Returns the String representation of the current value.
+     */
+    public String toString() {
+        return Integer.toString(value);
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *  
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Codename One through http://www.codenameone.com/ if you 
+ * need additional information or have any questions.
+ */
+
+package java.util.concurrent.atomic;
+
+/**
+ * A long value that may be updated atomically. Reads and the compare and set operation are
+ * implemented natively since a 64 bit access isn't atomic on all the supported CPUs.
+ */
+public class AtomicLong {
+    private volatile long value;
+
+    /**
+     * Creates a new AtomicLong with initial value 0.
+     */
+    public AtomicLong() {
+    }
+
+    /**
+     * Creates a new AtomicLong with the given initial value.
+     */
+    public AtomicLong(long initialValue) {
+        value = initialValue;
+    }
+
+    /**
+     * Gets the current value.
+     */
+    public final native long get();
+
+    /**
+     * Sets to the given value.
+     */
+    public final void set(long newValue) {
+        getAndSet(newValue);
+    }
+
+    /**
+     * Eventually sets to the given value.
+     */
+    public final void lazySet(long newValue) {
+        getAndSet(newValue);
+    }
+
+    /**
+     * Atomically sets the value to the given updated value if the current value == the expected value.
+     * Returns true if successful. False return indicates that the actual value was not equal to the expected value.
+     */
+    public final native boolean compareAndSet(long expect, long update);
+
+    /**
+     * Atomically sets the value to the given updated value if the current value == the expected value.
+     */
+    public final boolean weakCompareAndSet(long expect, long update) {
+        return compareAndSet(expect, update);
+    }
+
+    /**
+     * Atomically sets to the given value and returns the old value.
+     */
+    public final long getAndSet(long newValue) {
+        for(;;) {
+            long current = get();
+            if(compareAndSet(current, newValue)) {
+                return current;
+            }
+        }
+    }
+
+    /**
+     * Atomically adds the given value to the current value and returns the previous value.
+     */
+    public final long getAndAdd(long delta) {
+        for(;;) {
+            long current = get();
+            if(compareAndSet(current, current + delta)) {
+                return current;
+            }
+        }
+    }
+
+    /**
+     * Atomically adds the given value to the current value and returns the updated value.
+     */
+    public final long addAndGet(long delta) {
+        return getAndAdd(delta) + delta;
+    }
+
+    /**
+     * Atomically increments by one the current value and returns the previous value.
+     */
+    public final long getAndIncrement() {
+        return getAndAdd(1);
+    }
+
+    /**
+     * Atomically decrements by one the current value and returns the previous value.
+     */
+    public final long getAndDecrement() {
+        return getAndAdd(-1);
+    }
+
+    /**
+     * Atomically increments by one the current value and returns the updated value.
+     */
+    public final long incrementAndGet() {
+        return getAndAdd(1) + 1;
+    }
+
+    /**
+     * Atomically decrements by one the current value and returns the updated value.
+     */
+    public final long decrementAndGet() {
+        return getAndAdd(-1) - 1;
+    }
+
+    /**
+     * Returns the value of this AtomicLong as an int.
+     */
+    public int intValue() {
+        return (int)get();
+    }
+
+    /**
+     * Returns the value of this AtomicLong as a long.
+     */
+    public long longValue() {
+        return get();
+    }
+
+    /**
+     * Returns the String representation of the current value.
+     */
+    public String toString() {
+        return Long.toString(get());
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *  
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Codename One through http://www.codenameone.com/ if you 
+ * need additional information or have any questions.
+ */
+
+package java.util.concurrent.atomic;
+
+/**
+ * An object reference that may be updated atomically. The compare and set operation is
+ * implemented natively using the CPU's compare and swap instruction.
+ */
+public class AtomicReference<V> {
+    private volatile V value;
+
+    /**
+     * Creates a new AtomicReference with null initial value.
+     */
+    public AtomicReference() {
+    }
+
+    /**
+     * Creates a new AtomicReference with the given initial value.
+     */
+    public AtomicReference(V initialValue) {
+        value = initialValue;
+    }
+
+    /**
+     * Gets the current value.
+     */
+    public final V get() {
+        return value;
+    }
+
+    /**
+     * Sets to the given value.
+     */
+    public final void set(V newValue) {
+        value = newValue;
+    }
+
+    /**
+     * Eventually sets to the given value.
+     */
+    public final void lazySet(V newValue) {
+        value = newValue;
+    }
+
+    /**
+     * Atomically sets the value to the given updated value if the current value == the expected value.
+     * Returns true if successful. False return indicates that the actual value was not equal to the expected value.
+     */
+    public final native boolean compareAndSet(V expect, V update);
+
+    /**
+     * Atomically sets the value to the given updated value if the current value == the expected value.
+     */
+    public final boolean weakCompareAndSet(V expect, V update) {
+        return compareAndSet(expect, update);
+    }
+
+    /**
+     * Atomically sets to the given value and returns the old value.
+     */
+    public final V getAndSet(V newValue) {
+        for(;;) {
+            V current = value;
+            if(compareAndSet(current, newValue)) {
+                return current;
+            }
+        }
+    }
+
+    /**
+     * Returns the String representation of the current value.
+     */
+    public String toString() {
+        return String.valueOf(value);
+    }
+}
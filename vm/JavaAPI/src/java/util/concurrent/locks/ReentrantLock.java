@@ -0,0 +1,371 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *  
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Codename One through http://www.codenameone.com/ if you 
+ * need additional information or have any questions.
+ */
+
+package java.util.concurrent.locks;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A reentrant mutual exclusion Lock with the same basic behavior and semantics as the implicit monitor lock accessed using synchronized
+ * methods and statements, but with extended capabilities. This implementation is built on top of a private monitor and isn't fair.
+ */
+public class ReentrantLock implements Lock {
+    private final Object sync = new Object();
+    private Thread owner;
+    private int holds;
+
+    /**
+     * Creates an instance of ReentrantLock.
+     */
+    public ReentrantLock() {
+    }
+
+    /**
+     * Creates an instance of ReentrantLock, fairness isn't supported and the argument is ignored.
+     */
+    public ReentrantLock(boolean fair) {
+    }
+
+    /**
+     * Acquires the lock.
+     */
+    public void lock() {
+        Thread t = Thread.currentThread();
+        synchronized(sync) {
+            if(owner == t) {
+                holds++;
+                return;
+            }
+            while(owner != null) {
+                try {
+                    sync.wait();
+                } catch(InterruptedException ignored) {
+                }
+            }
+            owner = t;
+            holds = 1;
+        }
+    }
+
+    /**
+     * Acquires the lock unless the current thread is interrupted.
+     */
+    public void lockInterruptibly() throws InterruptedException {
+        Thread t = Thread.currentThread();
+        synchronized(sync) {
+            if(owner == t) {
+                holds++;
+                return;
+            }
+            while(owner != null) {
+                sync.wait();
+            }
+            owner = t;
+            holds = 1;
+        }
+    }
+
+    /**
+     * Acquires the lock only if it is not held by another thread at the time of invocation.
+     */
+    public boolean tryLock() {
+        Thread t = Thread.currentThread();
+        synchronized(sync) {
+            if(owner == t) {
+                holds++;
+                return true;
+            }
+            if(owner == null) {
+                owner = t;
+                holds = 1;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Acquires the lock if it is not held by another thread within the given waiting time.
+     */
+    public boolean tryLock(long timeout, TimeUnit unit) throws InterruptedException {
+        Thread t = Thread.currentThread();
+        long deadline = System.currentTimeMillis() + unit.toMillis(timeout);
+        synchronized(sync) {
+            if(owner == t) {
+                holds++;
+                return true;
+            }
+            while(owner != null) {
+                long remaining = deadline - System.currentTimeMillis();
+                if(remaining <= 0) {
+                    return false;
+                }
+                sync.wait(remaining);
+            }
+            owner = t;
+            holds = 1;
+            return true;
+        }
+    }
+
+    /**
+     * Attempts to release this lock.
+     */
+    public void unlock() {
+        synchronized(sync) {
+            if(owner != Thread.currentThread()) {
+                throw new IllegalMonitorStateException();
+            }
+            holds--;
+            if(holds == 0) {
+                owner = null;
+                sync.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Returns a Condition instance for use with this Lock instance.
+     */
+    public Condition newCondition() {
+        return new ConditionObject();
+    }
+
+    /**
+     * Queries the number of holds on this lock by the current thread.
+     */
+    public int getHoldCount() {
+        synchronized(sync) {
+            if(owner == Thread.currentThread()) {
+                return holds;
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Queries if this lock is held by the current thread.
+     */
+    public boolean isHeldByCurrentThread() {
+        synchronized(sync) {
+            return owner == Thread.currentThread();
+        }
+    }
+
+    /**
+     * Queries if this lock is held by any thread.
+     */
+    public boolean isLocked() {
+        synchronized(sync) {
+            return owner != null;
+        }
+    }
+
+    /**
+     * Returns false, fair ordering isn't supported.
+     */
+    public final boolean isFair() {
+        return false;
+    }
+
+    /**
+     * Returns a string identifying this lock, as well as its lock state.
+     */
+    public String toString() {
+        Thread o = owner;
+        if(o == null) {
+            return super.toString() + "[Unlocked]";
+        }
+        return super.toString() + "[Locked by thread " + o.getName() + "]";
+    }
+
+    /**
+     * Releases the lock completely for a condition wait, must be invoked while synchronized on sync
+     */
+    private int fullyRelease() {
+        if(owner != Thread.currentThread()) {
+            throw new IllegalMonitorStateException();
+        }
+        int saved = holds;
+        owner = null;
+        holds = 0;
+        sync.notifyAll();
+        return saved;
+    }
+
+    /**
+     * Reacquires the lock after a condition wait, must be invoked while synchronized on sync
+     */
+    private void reacquire(int saved) {
+        while(owner != null) {
+            try {
+                sync.wait();
+            } catch(InterruptedException ignored) {
+            }
+        }
+        owner = Thread.currentThread();
+        holds = saved;
+    }
+
+    static class Waiter {
+        boolean signalled;
+        Waiter next;
+    }
+
+    class ConditionObject implements Condition {
+        private Waiter first;
+        private Waiter last;
+
+        private Waiter addWaiter() {
+            Waiter w = new Waiter();
+            if(last == null) {
+                first = w;
+            } else {
+                last.next = w;
+            }
+            last = w;
+            return w;
+        }
+
+        private void removeWaiter(Waiter w) {
+            Waiter prev = null;
+            for(Waiter current = first ; current != null ; current = current.next) {
+                if(current == w) {
+                    if(prev == null) {
+                        first = current.next;
+                    } else {
+                        prev.next = current.next;
+                    }
+                    if(last == current) {
+                        last = prev;
+                    }
+                    return;
+                }
+                prev = current;
+            }
+        }
+
+        /**
+         * Waits until signalled or until the given time in millis elapses, 0 or less means forever.
+         * Returns true if the thread was signalled
+         */
+        private boolean awaitImpl(long millis, boolean interruptible) throws InterruptedException {
+            synchronized(sync) {
+                int saved = fullyRelease();
+                Waiter w = addWaiter();
+                long deadline = System.currentTimeMillis() + millis;
+                try {
+                    while(!w.signalled) {
+                        try {
+                            if(millis > 0) {
+                                long remaining = deadline - System.currentTimeMillis();
+                                if(remaining <= 0) {
+                                    removeWaiter(w);
+                                    return false;
+                                }
+                                sync.wait(remaining);
+                            } else {
+                                sync.wait();
+                            }
+                        } catch(InterruptedException err) {
+                            if(interruptible) {
+                                removeWaiter(w);
+                                throw err;
+                            }
+                        }
+                    }
+                    return true;
+                } finally {
+                    reacquire(saved);
+                }
+            }
+        }
+
+        public void await() throws InterruptedException {
+            awaitImpl(0, true);
+        }
+
+        public void awaitUninterruptibly() {
+            try {
+                awaitImpl(0, false);
+            } catch(InterruptedException ignored) {
+            }
+        }
+
+        public long awaitNanos(long nanosTimeout) throws InterruptedException {
+            if(nanosTimeout <= 0) {
+                return nanosTimeout;
+            }
+            long start = System.nanoTime();
+            awaitImpl(Math.max(1, TimeUnit.NANOSECONDS.toMillis(nanosTimeout)), true);
+            return nanosTimeout - (System.nanoTime() - start);
+        }
+
+        public boolean await(long time, TimeUnit unit) throws InterruptedException {
+            if(time <= 0) {
+                return false;
+            }
+            return awaitImpl(Math.max(1, unit.toMillis(time)), true);
+        }
+
+        public boolean awaitUntil(Date deadline) throws InterruptedException {
+            long millis = deadline.getTime() - System.currentTimeMillis();
+            if(millis <= 0) {
+                return false;
+            }
+            return awaitImpl(millis, true);
+        }
+
+        public void signal() {
+            synchronized(sync) {
+                if(owner != Thread.currentThread()) {
+                    throw new IllegalMonitorStateException();
+                }
+                Waiter w = first;
+                if(w != null) {
+                    first = w.next;
+                    if(first == null) {
+                        last = null;
+                    }
+                    w.signalled = true;
+                    sync.notifyAll();
+                }
+            }
+        }
+
+        public void signalAll() {
+            synchronized(sync) {
+                if(owner != Thread.currentThread()) {
+                    throw new IllegalMonitorStateException();
+                }
+                for(Waiter w = first ; w != null ; w = w.next) {
+                    w.signalled = true;
+                }
+                first = null;
+                last = null;
+                sync.notifyAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Codename One through http://www.codenameone.com/ if you
+ * need additional information or have any questions.
+ */
+
+// Runs the translated atomics on top of concurrentNativeMethods.m and stub_runtime.c
+
+#include "cn1_globals.h"
+#include "java_util_concurrent_atomic_AtomicInteger.h"
+#include "java_util_concurrent_atomic_AtomicLong.h"
+#include "java_util_concurrent_atomic_AtomicReference.h"
+#include "java_lang_System.h"
+#include <time.h>
+
+#define THREADS 4
+#define ITERATIONS 200000
+
+extern struct ThreadLocalData* createThreadState();
+
+static int failures;
+
+#define CHECK(cond) if(!(cond)) { fprintf(stderr, "FAILED line %d: %s\n", __LINE__, #cond); failures++; }
+
+static JAVA_OBJECT sharedInt;
+static JAVA_OBJECT sharedLong;
+
+static void* contend(void* arg) {
+    struct ThreadLocalData* threadStateData = createThreadState();
+    int iter;
+    for(iter = 0 ; iter < ITERATIONS ; iter++) {
+        java_util_concurrent_atomic_AtomicInteger_incrementAndGet___R_int(threadStateData, sharedInt);
+        java_util_concurrent_atomic_AtomicLong_addAndGet___long_R_long(threadStateData, sharedLong, 1LL << 33);
+    }
+    return 0;
+}
+
+int main(int argc, char** argv) {
+    struct ThreadLocalData* threadStateData = createThreadState();
+
+    // the value fields are shared between threads and must not be cached in registers
+    CHECK(__builtin_types_compatible_p(__typeof__(&((struct obj__java_util_concurrent_atomic_AtomicInteger*)0)->java_util_concurrent_atomic_AtomicInteger_value), volatile JAVA_INT*));
+    CHECK(__builtin_types_compatible_p(__typeof__(&((struct obj__java_util_concurrent_atomic_AtomicLong*)0)->java_util_concurrent_atomic_AtomicLong_value), volatile JAVA_LONG*));
+    CHECK(__builtin_types_compatible_p(__typeof__(&((struct obj__java_util_concurrent_atomic_AtomicReference*)0)->java_util_concurrent_atomic_AtomicReference_value), volatile JAVA_OBJECT*));
+
+    JAVA_OBJECT i = __NEW_INSTANCE_java_util_concurrent_atomic_AtomicInteger(threadStateData);
+    CHECK(java_util_concurrent_atomic_AtomicInteger_compareAndSet___int_int_R_boolean(threadStateData, i, 0, 5));
+    CHECK(!java_util_concurrent_atomic_AtomicInteger_compareAndSet___int_int_R_boolean(threadStateData, i, 0, 6));
+    CHECK(java_util_concurrent_atomic_AtomicInteger_getAndAdd___int_R_int(threadStateData, i, 3) == 5);
+    CHECK(java_util_concurrent_atomic_AtomicInteger_incrementAndGet___R_int(threadStateData, i) == 9);
+    CHECK(java_util_concurrent_atomic_AtomicInteger_getAndSet___int_R_int(threadStateData, i, -1) == 9);
+    CHECK(java_util_concurrent_atomic_AtomicInteger_get___R_int(threadStateData, i) == -1);
+
+    JAVA_OBJECT l = __NEW_INSTANCE_java_util_concurrent_atomic_AtomicLong(threadStateData);
+    JAVA_LONG big = 1LL << 40;
+    CHECK(java_util_concurrent_atomic_AtomicLong_compareAndSet___long_long_R_boolean(threadStateData, l, 0, big));
+    CHECK(!java_util_concurrent_atomic_AtomicLong_compareAndSet___long_long_R_boolean(threadStateData, l, 0, 1));
+    CHECK(java_util_concurrent_atomic_AtomicLong_get___R_long(threadStateData, l) == big);
+    CHECK(java_util_concurrent_atomic_AtomicLong_incrementAndGet___R_long(threadStateData, l) == big + 1);
+    CHECK(java_util_concurrent_atomic_AtomicLong_getAndSet___long_R_long(threadStateData, l, -big) == big + 1);
+    CHECK(java_util_concurrent_atomic_AtomicLong_get___R_long(threadStateData, l) == -big);
+
+    JAVA_OBJECT r = __NEW_INSTANCE_java_util_concurrent_atomic_AtomicReference(threadStateData);
+    CHECK(java_util_concurrent_atomic_AtomicReference_get___R_java_lang_Object(threadStateData, r) == JAVA_NULL);
+    CHECK(java_util_concurrent_atomic_AtomicReference_compareAndSet___java_lang_Object_java_lang_Object_R_boolean(threadStateData, r, JAVA_NULL, i));
+    CHECK(!java_util_concurrent_atomic_AtomicReference_compareAndSet___java_lang_Object_java_lang_Object_R_boolean(threadStateData, r, JAVA_NULL, l));
+    CHECK(java_util_concurrent_atomic_AtomicReference_getAndSet___java_lang_Object_R_java_lang_Object(threadStateData, r, l) == i);
+    CHECK(java_util_concurrent_atomic_AtomicReference_get___R_java_lang_Object(threadStateData, r) == l);
+
+    sharedInt = __NEW_INSTANCE_java_util_concurrent_atomic_AtomicInteger(threadStateData);
+    sharedLong = __NEW_INSTANCE_java_util_concurrent_atomic_AtomicLong(threadStateData);
+    pthread_t threads[THREADS];
+    int iter;
+    for(iter = 0 ; iter < THREADS ; iter++) {
+        pthread_create(&threads[iter], NULL, contend, NULL);
+    }
+    for(iter = 0 ; iter < THREADS ; iter++) {
+        pthread_join(threads[iter], NULL);
+    }
+    CHECK(java_util_concurrent_atomic_AtomicInteger_get___R_int(threadStateData, sharedInt) == THREADS * ITERATIONS);
+    CHECK(java_util_concurrent_atomic_AtomicLong_get___R_long(threadStateData, sharedLong) == (JAVA_LONG)THREADS * ITERATIONS * (1LL << 33));
+
+    JAVA_LONG before = java_lang_System_nanoTime___R_long(threadStateData);
+    struct timespec delay = {0, 2000000};
+    nanosleep(&delay, NULL);
+    JAVA_LONG after = java_lang_System_nanoTime___R_long(threadStateData);
+    CHECK(after - before >= 2000000);
+    CHECK(after - before < 1000000000LL);
+
+    if(failures > 0) {
+        fprintf(stderr, "%d checks failed\n", failures);
+        return 1;
+    }
+    printf("All checks passed\n");
+    return 0;
+}
@@ -0,0 +1,48 @@
+#!/bin/bash
+#
+# Translates ConcurrencyMain together with the JavaAPI, compiles the generated C of the
+# java.util.concurrent subset and runs natives_test.c against the translated atomics, the natives
+# in concurrentNativeMethods.m and stub_runtime.c. This only needs a JDK and a C compiler with
+# pthreads so it runs on Linux.
+#
+# ASM_CLASSPATH overrides the location of the asm jars (the cn1-binaries checkout next to this
+# repository by default), CC overrides the C compiler and BUILD_DIR keeps the output.
+#
+set -e
+
+HERE=$(cd "$(dirname "$0")" && pwd)
+VM=$(cd "$HERE/../.." && pwd)
+BINARIES="$VM/../../cn1-binaries/vm"
+ASM_CLASSPATH=${ASM_CLASSPATH:-"$BINARIES/asm-5.0.3.jar:$BINARIES/asm-commons-5.0.3.jar:$BINARIES/asm-tree-5.0.3.jar"}
+CC=${CC:-cc}
+BUILD=${BUILD_DIR:-$(mktemp -d)}
+
+mkdir -p "$BUILD/translator" "$BUILD/javaapi" "$BUILD/app" "$BUILD/out" "$BUILD/empty"
+
+echo "Compiling the translator"
+javac -nowarn -d "$BUILD/translator" -cp "$ASM_CLASSPATH" $(find "$VM/ByteCodeTranslator/src" -name '*.java')
+
+echo "Compiling the JavaAPI and the test"
+javac -nowarn -source 1.8 -target 1.8 -bootclasspath "$BUILD/empty" -d "$BUILD/javaapi" $(find "$VM/JavaAPI/src" -name '*.java')
+javac -nowarn -source 1.8 -target 1.8 -bootclasspath "$BUILD/javaapi" -d "$BUILD/app" $(find "$HERE/src" -name '*.java')
+
+echo "Translating"
+java -cp "$BUILD/translator:$VM/ByteCodeTranslator/src:$ASM_CLASSPATH" com.codename1.tools.translator.ByteCodeTranslator \
+    ios "$BUILD/app;$BUILD/javaapi" "$BUILD/out" ConcurrencyMain com.codename1.nativetest ConcurrencyMain 1.0 ios none > "$BUILD/translator.log"
+
+SRC="$BUILD/out/dist/ConcurrencyMain-src"
+cd "$SRC"
+
+# the NPE checks log through NSLog which isn't available without Foundation
+sed -i.bak 's/NSLog(@"/printf("/g' cn1_globals.h
+
+echo "Compiling the generated C"
+for f in java_util_concurrent_*.m java_lang_System.m com_codename1_nativetest_*.m concurrentNativeMethods.m ; do
+    $CC -x c -std=gnu99 -w -c "$f" -o "$BUILD/$f.o"
+done
+
+echo "Running the atomics"
+$CC -std=gnu99 -w -I. -x c java_util_concurrent_atomic_AtomicInteger.m java_util_concurrent_atomic_AtomicLong.m \
+    java_util_concurrent_atomic_AtomicReference.m java_lang_Object.m concurrentNativeMethods.m \
+    -x none "$HERE/stub_runtime.c" "$HERE/natives_test.c" -lpthread -o "$BUILD/natives_test"
+"$BUILD/natives_test"
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Codename One through http://www.codenameone.com/ if you
+ * need additional information or have any questions.
+ */
+
+package com.codename1.nativetest;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The input of the concurrency test, it's translated with the JavaAPI so the translator emits the
+ * java.util.concurrent subset and the methods used here aren't stripped from the output. The
+ * generated C is compiled by run.sh and the atomics are executed by natives_test.c.
+ *
+ * @author Shai Almog
+ */
+public class ConcurrencyMain {
+    public static void main(String[] args) throws Exception {
+        AtomicInteger i = new AtomicInteger(1);
+        i.set(i.get() + 1);
+        i.lazySet(i.getAndSet(3));
+        i.weakCompareAndSet(3, 4);
+        i.addAndGet(i.getAndAdd(1));
+        i.getAndIncrement();
+        i.getAndDecrement();
+        i.incrementAndGet();
+        i.decrementAndGet();
+        System.out.println(i.toString() + i.intValue() + i.longValue());
+
+        AtomicLong l = new AtomicLong(1);
+        l.set(l.get() + 1);
+        l.lazySet(l.getAndSet(3));
+        l.weakCompareAndSet(3, 4);
+        l.addAndGet(l.getAndAdd(1));
+        l.getAndIncrement();
+        l.getAndDecrement();
+        l.incrementAndGet();
+        l.decrementAndGet();
+        System.out.println(l.toString() + l.intValue() + l.longValue());
+
+        AtomicReference<String> r = new AtomicReference<String>("a");
+        r.compareAndSet("a", "b");
+        r.weakCompareAndSet("b", "c");
+        r.lazySet(r.getAndSet("d"));
+        r.set(r.get());
+        System.out.println(r.toString());
+
+        ConcurrentHashMap<String, Integer> map = new ConcurrentHashMap<String, Integer>();
+        map.put("a", 1);
+        map.putIfAbsent("b", 2);
+        map.replace("a", 1, 3);
+        map.remove("b", 2);
+        System.out.println(map.get("a") + " " + map.size() + map.containsKey("b"));
+
+        ConcurrentLinkedQueue<String> clq = new ConcurrentLinkedQueue<String>();
+        clq.offer("a");
+        clq.offer("b");
+        clq.remove("b");
+        System.out.println(clq.peek() + clq.poll() + clq.isEmpty() + clq.size());
+
+        final LinkedBlockingQueue<Integer> queue = new LinkedBlockingQueue<Integer>(4);
+        final CountDownLatch latch = new CountDownLatch(2);
+        final ReentrantLock lock = new ReentrantLock();
+        final Condition condition = lock.newCondition();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<Integer> f = executor.submit(new Callable<Integer>() {
+            public Integer call() throws Exception {
+                latch.countDown();
+                return queue.take();
+            }
+        });
+        executor.execute(new Runnable() {
+            public void run() {
+                lock.lock();
+                try {
+                    condition.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                latch.countDown();
+            }
+        });
+        latch.await(1, TimeUnit.SECONDS);
+        queue.offer(5, 1, TimeUnit.SECONDS);
+        long start = System.nanoTime();
+        System.out.println(f.get(1, TimeUnit.SECONDS) + " " + (System.nanoTime() - start >= 0));
+        if(lock.tryLock(1, TimeUnit.MILLISECONDS)) {
+            condition.await(1, TimeUnit.MILLISECONDS);
+            lock.unlock();
+        }
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.SECONDS);
+    }
+}
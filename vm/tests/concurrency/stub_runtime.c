@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2012, Codename One and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Codename One designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Codename One through http://www.codenameone.com/ if you
+ * need additional information or have any questions.
+ */
+
+// A minimal stand in for cn1_globals.m and nativeMethods.m which depend on Foundation. Objects are never
+// collected, monitors are one global recursive lock and everything the atomics don't need aborts.
+
+#include "cn1_globals.h"
+#include <string.h>
+
+int currentGcMarkValue = 1;
+struct clazz class__java_lang_Class;
+
+static pthread_mutex_t monitor;
+static pthread_once_t monitorOnce = PTHREAD_ONCE_INIT;
+
+static void unsupported(const char* name) {
+    fprintf(stderr, "%s isn't supported by the stub runtime\n", name);
+    abort();
+}
+
+struct ThreadLocalData* createThreadState() {
+    struct ThreadLocalData* t = (struct ThreadLocalData*)calloc(1, sizeof(struct ThreadLocalData));
+    t->threadActive = JAVA_TRUE;
+    t->threadObjectStack = (struct elementStruct*)calloc(CN1_MAX_OBJECT_STACK_DEPTH, sizeof(struct elementStruct));
+    t->callStackClass = (int*)calloc(CN1_MAX_STACK_CALL_DEPTH, sizeof(int));
+    t->callStackLine = (int*)calloc(CN1_MAX_STACK_CALL_DEPTH, sizeof(int));
+    t->callStackMethod = (int*)calloc(CN1_MAX_STACK_CALL_DEPTH, sizeof(int));
+    return t;
+}
+
+JAVA_OBJECT codenameOneGcMalloc(CODENAME_ONE_THREAD_STATE, int size, struct clazz* parent) {
+    JAVA_OBJECT o = (JAVA_OBJECT)calloc(1, size);
+    o->__codenameOneParentClsReference = parent;
+    o->__codenameOneThreadData = threadStateData;
+    return o;
+}
+
+void initMethodStack(CODENAME_ONE_THREAD_STATE, JAVA_OBJECT __cn1ThisObject, int stackSize, int localsStackSize, int classNameId, int methodNameId) {
+    memset(&threadStateData->threadObjectStack[threadStateData->threadObjectStackOffset], 0, sizeof(struct elementStruct) * (localsStackSize + stackSize));
+    threadStateData->threadObjectStackOffset += localsStackSize + stackSize;
+    threadStateData->callStackClass[threadStateData->callStackOffset] = classNameId;
+    threadStateData->callStackMethod[threadStateData->callStackOffset] = methodNameId;
+    threadStateData->callStackOffset++;
+}
+
+void releaseForReturn(CODENAME_ONE_THREAD_STATE, int cn1LocalsBeginInThread) {
+    threadStateData->threadObjectStackOffset = cn1LocalsBeginInThread;
+    threadStateData->callStackOffset--;
+}
+
+struct elementStruct* pop(struct elementStruct** sp) {
+    --(*sp);
+    return *sp;
+}
+
+void popMany(CODENAME_ONE_THREAD_STATE, int count, struct elementStruct** SP) {
+    while(count > 0) {
+        --(*SP);
+        count--;
+    }
+}
+
+static void initMonitor() {
+    pthread_mutexattr_t attr;
+    pthread_mutexattr_init(&attr);
+    pthread_mutexattr_settype(&attr, PTHREAD_MUTEX_RECURSIVE);
+    pthread_mutex_init(&monitor, &attr);
+}
+
+JAVA_VOID monitorEnter(CODENAME_ONE_THREAD_STATE, JAVA_OBJECT obj) {
+    pthread_once(&monitorOnce, initMonitor);
+    pthread_mutex_lock(&monitor);
+}
+
+JAVA_VOID monitorExit(CODENAME_ONE_THREAD_STATE, JAVA_OBJECT obj) {
+    pthread_mutex_unlock(&monitor);
+}
+
+void throwException(CODENAME_ONE_THREAD_STATE, JAVA_OBJECT exceptionArg) {
+    unsupported("throwException");
+}
+
+JAVA_OBJECT __NEW_INSTANCE_java_lang_NullPointerException(CODENAME_ONE_THREAD_STATE) {
+    unsupported("NullPointerException");
+    return JAVA_NULL;
+}
+
+JAVA_OBJECT allocArray(CODENAME_ONE_THREAD_STATE, int length, struct clazz* type, int primitiveSize, int dim) {
+    unsupported("allocArray");
+    return JAVA_NULL;
+}
+
+void arrayFinalizerFunction(CODENAME_ONE_THREAD_STATE, JAVA_OBJECT array) {
+}
+
+void gcMarkObject(CODENAME_ONE_THREAD_STATE, JAVA_OBJECT obj, JAVA_BOOLEAN force) {
+}
+
+void gcMarkArrayObject(CODENAME_ONE_THREAD_STATE, JAVA_OBJECT obj, JAVA_BOOLEAN force) {
+}
+
+void** initVtableForInterface() {
+    return (void**)calloc(64, sizeof(void*));
+}
+
+JAVA_OBJECT java_lang_Integer_toString___int_R_java_lang_String(CODENAME_ONE_THREAD_STATE, JAVA_INT i) {
+    unsupported("Integer.toString");
+    return JAVA_NULL;
+}
+
+JAVA_OBJECT java_lang_Long_toString___long_R_java_lang_String(CODENAME_ONE_THREAD_STATE, JAVA_LONG l) {
+    unsupported("Long.toString");
+    return JAVA_NULL;
+}
+
+JAVA_OBJECT java_lang_String_valueOf___java_lang_Object_R_java_lang_String(CODENAME_ONE_THREAD_STATE, JAVA_OBJECT o) {
+    unsupported("String.valueOf");
+    return JAVA_NULL;
+}
+
+JAVA_OBJECT java_lang_Object_getClassImpl___R_java_lang_Class(CODENAME_ONE_THREAD_STATE, JAVA_OBJECT __cn1ThisObject) {
+    unsupported("Object.getClass");
+    return JAVA_NULL;
+}
+
+JAVA_INT java_lang_Object_hashCode___R_int(CODENAME_ONE_THREAD_STATE, JAVA_OBJECT __cn1ThisObject) {
+    return (JAVA_INT)(long)__cn1ThisObject;
+}
+
+JAVA_OBJECT java_lang_Object_toString___R_java_lang_String(CODENAME_ONE_THREAD_STATE, JAVA_OBJECT __cn1ThisObject) {
+    unsupported("Object.toString");
+    return JAVA_NULL;
+}
+
+JAVA_VOID java_lang_Object_notify__(CODENAME_ONE_THREAD_STATE, JAVA_OBJECT __cn1ThisObject) {
+    unsupported("Object.notify");
+}
+
+JAVA_VOID java_lang_Object_notifyAll__(CODENAME_ONE_THREAD_STATE, JAVA_OBJECT __cn1ThisObject) {
+    unsupported("Object.notifyAll");
+}
+
+JAVA_VOID java_lang_Object_wait___long_int(CODENAME_ONE_THREAD_STATE, JAVA_OBJECT __cn1ThisObject, JAVA_LONG timeout, JAVA_INT nanos) {
+    unsupported("Object.wait");
+}